@@ -0,0 +1,33 @@
+package com.getoffer.config;
+
+import com.getoffer.trigger.job.DaemonLeaderElector;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 守护进程 leader 视图（/actuator/daemons）：本实例持有的 leadership 与全集群各守护的 leader 实例。
+ */
+@Component
+@Endpoint(id = "daemons")
+public class DaemonLeadershipEndpoint {
+
+    private final DaemonLeaderElector daemonLeaderElector;
+
+    public DaemonLeadershipEndpoint(DaemonLeaderElector daemonLeaderElector) {
+        this.daemonLeaderElector = daemonLeaderElector;
+    }
+
+    @ReadOperation
+    public Map<String, Object> leadership() {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("instanceId", daemonLeaderElector.instanceId());
+        view.put("electionEnabled", daemonLeaderElector.isEnabled());
+        view.put("local", daemonLeaderElector.localLeadership());
+        view.put("cluster", daemonLeaderElector.clusterLeaders());
+        return view;
+    }
+}
@@ -0,0 +1,52 @@
+package com.getoffer.config;
+
+import com.getoffer.domain.task.model.entity.ExecutorMemberEntity;
+import com.getoffer.trigger.job.ExecutorMembership;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 执行实例成员视图（/actuator/executors）：存活成员的容量、in-flight、负载与心跳，以及过载实例和亲和槽位分布。
+ */
+@Component
+@Endpoint(id = "executors")
+public class ExecutorMembershipEndpoint {
+
+    private final ExecutorMembership executorMembership;
+
+    public ExecutorMembershipEndpoint(ExecutorMembership executorMembership) {
+        this.executorMembership = executorMembership;
+    }
+
+    @ReadOperation
+    public Map<String, Object> membership() {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("instanceId", executorMembership.instanceId());
+        view.put("membershipEnabled", executorMembership.isEnabled());
+        view.put("stealEnabled", executorMembership.isStealEnabled());
+        view.put("affinityEnabled", executorMembership.isAffinityEnabled());
+        view.put("workerCapacity", executorMembership.workerCapacity());
+        view.put("inflightCount", executorMembership.inflightCount());
+        view.put("overloaded", executorMembership.overloadedPeers());
+        List<Map<String, Object>> members = new ArrayList<>();
+        for (ExecutorMemberEntity member : executorMembership.liveMembers()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("instanceId", member.getInstanceId());
+            item.put("workerCapacity", member.getWorkerCapacity());
+            item.put("inflightCount", member.getInflightCount());
+            item.put("load", member.loadRatio());
+            item.put("ownedSlots", executorMembership.ownedSlotCount(member.getInstanceId()));
+            item.put("startedAt", member.getStartedAt());
+            item.put("heartbeatAt", member.getHeartbeatAt());
+            members.add(item);
+        }
+        view.put("members", members);
+        return view;
+    }
+}
@@ -2,13 +2,18 @@ package com.getoffer.test;
 
 import com.getoffer.domain.session.adapter.repository.ISessionMessageRepository;
 import com.getoffer.domain.session.adapter.repository.ISessionTurnRepository;
+import com.getoffer.api.dto.ChatStreamEventV3DTO;
+import com.getoffer.domain.task.model.entity.PlanTaskEventEntity;
 import com.getoffer.trigger.application.sse.ChatSseEventMapper;
+import com.getoffer.types.enums.PlanTaskEventTypeEnum;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -54,4 +59,22 @@ public class ChatSseEventMapperTest {
         assertTrue(mapper.normalizeMetadata(null).isEmpty());
         assertTrue(mapper.normalizeMetadata(Map.of()).isEmpty());
     }
+
+    @Test
+    public void shouldMapTaskDeltaToAnswerDeltaWithoutEventId() {
+        PlanTaskEventEntity event = new PlanTaskEventEntity();
+        event.setPlanId(20L);
+        event.setTaskId(30L);
+        event.setEventType(PlanTaskEventTypeEnum.TASK_DELTA);
+        event.setEventData(Map.of("taskId", 30L, "nodeId", "write_answer", "seq", 2, "offset", 12L, "delta", "partial text"));
+
+        ChatStreamEventV3DTO payload = mapper.mapTaskEvent(10L, 20L, 40L, event);
+
+        assertEquals("answer.delta", payload.getType());
+        assertEquals("partial text", payload.getMessage());
+        assertNull(payload.getEventId());
+        assertEquals(30L, payload.getTaskId());
+        assertEquals(2, payload.getMetadata().get("seq"));
+        assertFalse(payload.getMetadata().containsKey("delta"));
+    }
 }
@@ -17,11 +17,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ChatStreamV3ControllerTest {
@@ -112,6 +124,138 @@ public class ChatStreamV3ControllerTest {
         assertEquals("抓取数据", payload.getMetadata().get("taskName"));
     }
 
+    @Test
+    public void shouldReplayOncePerPlanFromMinimumCursorAndSkipPlansWithoutNewEvents() throws Exception {
+        Object behind = createSubscriber("sid-a", 1L, 2L, 3L, 5L);
+        Object ahead = createSubscriber("sid-b", 1L, 2L, 3L, 8L);
+        Object caughtUp = createSubscriber("sid-c", 4L, 6L, 7L, 10L);
+        register(behind, "sid-a", 2L);
+        register(ahead, "sid-b", 2L);
+        register(caughtUp, "sid-c", 6L);
+        setField("replayBatchSize", 200);
+        setField("replayMaxBatchesPerSweep", 1);
+
+        when(planTaskEventPublisher.latestEventIds(any())).thenReturn(Map.of(2L, 9L, 6L, 10L));
+        when(planTaskEventPublisher.replay(eq(2L), eq(5L), anyInt())).thenReturn(List.of(
+                taskLog(6L), taskLog(7L), taskLog(8L), taskLog(9L)));
+
+        controller.sweepReplayMissedEvents();
+
+        verify(planTaskEventPublisher, times(1)).replay(eq(2L), eq(5L), anyInt());
+        verify(planTaskEventPublisher, never()).replay(eq(6L), anyLong(), anyInt());
+        assertEquals(9L, cursorOf(behind));
+        assertEquals(9L, cursorOf(ahead));
+        assertEquals(10L, cursorOf(caughtUp));
+    }
+
+    @Test
+    public void shouldReplayFarBehindSubscriberSeparatelyWithoutHoldingBackOthers() throws Exception {
+        Object laggard = createSubscriber("sid-l", 1L, 2L, 3L, 2L);
+        Object leader = createSubscriber("sid-m", 1L, 2L, 3L, 18L);
+        Object follower = createSubscriber("sid-n", 1L, 2L, 3L, 19L);
+        register(laggard, "sid-l", 2L);
+        register(leader, "sid-m", 2L);
+        register(follower, "sid-n", 2L);
+        setField("replayBatchSize", 3);
+        setField("replayMaxBatchesPerSweep", 1);
+
+        when(planTaskEventPublisher.latestEventIds(any())).thenReturn(Map.of(2L, 20L));
+        when(planTaskEventPublisher.replay(eq(2L), eq(18L), anyInt())).thenReturn(List.of(taskLog(19L), taskLog(20L)));
+        when(planTaskEventPublisher.replay(eq(2L), eq(2L), anyInt())).thenReturn(List.of(
+                taskLog(3L), taskLog(4L), taskLog(5L)));
+
+        controller.sweepReplayMissedEvents();
+
+        verify(planTaskEventPublisher, times(1)).replay(eq(2L), eq(18L), anyInt());
+        verify(planTaskEventPublisher, times(1)).replay(eq(2L), eq(2L), anyInt());
+        assertEquals(20L, cursorOf(leader));
+        assertEquals(20L, cursorOf(follower));
+        assertEquals(5L, cursorOf(laggard));
+    }
+
+    @Test
+    public void shouldDeferOverflowResyncToSweepAndHoldRealtimeEventsUntilCaughtUp() throws Exception {
+        Object subscriber = createSubscriber("sid-r", 1L, 2L, 3L, 5L);
+        register(subscriber, "sid-r", 2L);
+        setField("replayBatchSize", 200);
+        setField("replayMaxBatchesPerSweep", 1);
+        Class<?> stateClass = Class.forName("com.getoffer.trigger.http.ChatStreamV3Controller$StreamSubscriber");
+        Method overflow = ChatStreamV3Controller.class.getDeclaredMethod("handleDeliveryOverflow",
+                stateClass, PlanTaskEventPublisher.SubscriberOverflowPolicy.class);
+        overflow.setAccessible(true);
+        Method deliver = ChatStreamV3Controller.class.getDeclaredMethod("deliverPlanEvent",
+                stateClass, PlanTaskEventEntity.class, boolean.class);
+        deliver.setAccessible(true);
+
+        overflow.invoke(controller, subscriber, PlanTaskEventPublisher.SubscriberOverflowPolicy.DROP_AND_RESYNC);
+        deliver.invoke(controller, subscriber, taskLog(9L), true);
+
+        verify(planTaskEventPublisher, never()).replay(anyLong(), anyLong(), anyInt());
+        assertEquals(5L, cursorOf(subscriber));
+
+        when(planTaskEventPublisher.replay(eq(2L), eq(5L), anyInt())).thenReturn(List.of(
+                taskLog(6L), taskLog(7L), taskLog(8L), taskLog(9L)));
+        when(planTaskEventPublisher.replay(eq(2L), eq(9L), anyInt())).thenReturn(List.of());
+        controller.sweepReplayMissedEvents();
+
+        assertEquals(9L, cursorOf(subscriber));
+        deliver.invoke(controller, subscriber, taskLog(10L), true);
+        assertEquals(10L, cursorOf(subscriber));
+    }
+
+    @Test
+    public void shouldEvictSubscriberWhoseSendStalls() throws Exception {
+        Object stalled = createSubscriber("sid-s", 1L, 2L, 3L, 5L);
+        Object healthy = createSubscriber("sid-h", 1L, 2L, 3L, 5L);
+        register(stalled, "sid-s", 2L);
+        register(healthy, "sid-h", 2L);
+        Field timeoutField = ChatStreamV3Controller.class.getDeclaredField("sendTimeoutMs");
+        timeoutField.setAccessible(true);
+        timeoutField.setLong(controller, 1000L);
+        Field sendingSinceField = stalled.getClass().getDeclaredField("sendingSince");
+        sendingSinceField.setAccessible(true);
+        ((AtomicLong) sendingSinceField.get(stalled)).set(System.currentTimeMillis() - 5000L);
+
+        controller.evictStalledSubscribers();
+
+        verify(planTaskEventPublisher, times(1)).unsubscribe(2L, "sid-s");
+        verify(planTaskEventPublisher, never()).unsubscribe(2L, "sid-h");
+    }
+
+    private PlanTaskEventEntity taskLog(Long id) {
+        PlanTaskEventEntity event = new PlanTaskEventEntity();
+        event.setId(id);
+        event.setPlanId(2L);
+        event.setTaskId(9L);
+        event.setEventType(PlanTaskEventTypeEnum.TASK_LOG);
+        event.setEventData(Map.of("message", "log-" + id));
+        return event;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void register(Object subscriber, String subscriberId, Long planId) throws Exception {
+        Field subscribersField = ChatStreamV3Controller.class.getDeclaredField("subscribers");
+        subscribersField.setAccessible(true);
+        ((ConcurrentMap<String, Object>) subscribersField.get(controller)).put(subscriberId, subscriber);
+        Field byPlanField = ChatStreamV3Controller.class.getDeclaredField("subscribersByPlan");
+        byPlanField.setAccessible(true);
+        ((ConcurrentMap<Long, ConcurrentMap<String, Object>>) byPlanField.get(controller))
+                .computeIfAbsent(planId, key -> new ConcurrentHashMap<>())
+                .put(subscriberId, subscriber);
+    }
+
+    private void setField(String name, int value) throws Exception {
+        Field field = ChatStreamV3Controller.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.setInt(controller, value);
+    }
+
+    private long cursorOf(Object subscriber) throws Exception {
+        Field field = subscriber.getClass().getDeclaredField("lastEventId");
+        field.setAccessible(true);
+        return ((AtomicLong) field.get(subscriber)).get();
+    }
+
     private Object createSubscriber(String subscriberId,
                                     Long sessionId,
                                     Long planId,
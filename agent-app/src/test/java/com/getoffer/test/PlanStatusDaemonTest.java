@@ -10,9 +10,11 @@ import com.getoffer.domain.task.model.entity.AgentTaskEntity;
 import com.getoffer.domain.task.service.TaskFailurePolicyDomainService;
 import com.getoffer.domain.task.model.entity.PlanTaskEventEntity;
 import com.getoffer.domain.task.model.valobj.PlanTaskStatusStat;
+import com.getoffer.trigger.job.DaemonLeaderElector;
 import com.getoffer.trigger.job.PlanStatusDaemon;
 import com.getoffer.trigger.application.command.PlanStatusSyncApplicationService;
 import com.getoffer.trigger.event.PlanTaskEventPublisher;
+import com.getoffer.trigger.event.TaskClaimWakeupNotifier;
 import com.getoffer.trigger.application.command.TurnFinalizeApplicationService;
 import com.getoffer.domain.session.model.entity.SessionTurnEntity;
 import com.getoffer.types.enums.PlanTaskEventTypeEnum;
@@ -183,6 +185,134 @@ public class PlanStatusDaemonTest {
         Assertions.assertEquals(1, eventRepository.countByType(PlanTaskEventTypeEnum.PLAN_FINISHED));
     }
 
+    @Test
+    public void shouldOnlyReconcileDirtyPlansBetweenFullSweeps() {
+        InMemoryAgentPlanRepository planRepository = new InMemoryAgentPlanRepository();
+        InMemoryAgentTaskRepository taskRepository = new InMemoryAgentTaskRepository();
+        InMemoryPlanTaskEventRepository eventRepository = new InMemoryPlanTaskEventRepository();
+        TaskClaimWakeupNotifier notifier = new TaskClaimWakeupNotifier();
+        PlanStatusSyncApplicationService syncApplicationService = new PlanStatusSyncApplicationService(
+                planRepository,
+                taskRepository,
+                new PlanTaskEventPublisher(eventRepository),
+                new TurnFinalizeApplicationService(
+                        new InMemorySessionTurnRepository(),
+                        new InMemorySessionMessageRepository(),
+                        taskRepository,
+                        new PlanFinalizationDomainService()),
+                new PlanTransitionDomainService(),
+                new TaskFailurePolicyDomainService(),
+                notifier
+        );
+        PlanStatusDaemon daemon = new PlanStatusDaemon(syncApplicationService, 100, 1000, "event-driven", 3_600_000L);
+
+        // 首轮为全量扫描兜底
+        daemon.syncPlanStatuses();
+
+        planRepository.save(newPlan(11L, PlanStatusEnum.READY));
+        taskRepository.save(newTask(1101L, 11L, TaskStatusEnum.RUNNING));
+        planRepository.save(newPlan(12L, PlanStatusEnum.READY));
+        taskRepository.save(newTask(1201L, 12L, TaskStatusEnum.RUNNING));
+
+        daemon.syncPlanStatuses();
+        Assertions.assertEquals(PlanStatusEnum.READY, planRepository.findById(11L).getStatus());
+        Assertions.assertEquals(PlanStatusEnum.READY, planRepository.findById(12L).getStatus());
+
+        notifier.signalPlanProgress(11L);
+        Assertions.assertEquals(1, syncApplicationService.dirtyPlanCount());
+        daemon.syncPlanStatuses();
+
+        Assertions.assertEquals(PlanStatusEnum.RUNNING, planRepository.findById(11L).getStatus());
+        Assertions.assertEquals(PlanStatusEnum.READY, planRepository.findById(12L).getStatus());
+        Assertions.assertEquals(0, syncApplicationService.dirtyPlanCount());
+
+        taskRepository.findById(1101L).setStatus(TaskStatusEnum.COMPLETED);
+        notifier.signalTaskTerminal(11L, "node-1101");
+        daemon.syncPlanStatuses();
+
+        Assertions.assertEquals(PlanStatusEnum.COMPLETED, planRepository.findById(11L).getStatus());
+        Assertions.assertEquals(1, eventRepository.countByType(PlanTaskEventTypeEnum.PLAN_FINISHED));
+    }
+
+    @Test
+    public void shouldResumeFullScanFromKeysetCursorAcrossRounds() {
+        InMemoryAgentPlanRepository planRepository = new InMemoryAgentPlanRepository();
+        InMemoryAgentTaskRepository taskRepository = new InMemoryAgentTaskRepository();
+        PlanStatusSyncApplicationService syncApplicationService = new PlanStatusSyncApplicationService(
+                planRepository,
+                taskRepository,
+                new PlanTaskEventPublisher(new InMemoryPlanTaskEventRepository()),
+                new TurnFinalizeApplicationService(
+                        new InMemorySessionTurnRepository(),
+                        new InMemorySessionMessageRepository(),
+                        taskRepository,
+                        new PlanFinalizationDomainService()),
+                new PlanTransitionDomainService(),
+                new TaskFailurePolicyDomainService()
+        );
+        // 每轮至多处理 2 个 plan
+        PlanStatusDaemon daemon = new PlanStatusDaemon(syncApplicationService, 2, 2);
+        for (long planId = 21L; planId <= 25L; planId++) {
+            planRepository.save(newPlan(planId, PlanStatusEnum.READY));
+            taskRepository.save(newTask(planId * 100, planId, TaskStatusEnum.RUNNING));
+        }
+
+        daemon.syncPlanStatuses();
+        Assertions.assertEquals(PlanStatusEnum.RUNNING, planRepository.findById(22L).getStatus());
+        Assertions.assertEquals(PlanStatusEnum.READY, planRepository.findById(23L).getStatus());
+
+        daemon.syncPlanStatuses();
+        Assertions.assertEquals(PlanStatusEnum.RUNNING, planRepository.findById(24L).getStatus());
+        Assertions.assertEquals(PlanStatusEnum.READY, planRepository.findById(25L).getStatus());
+
+        daemon.syncPlanStatuses();
+        for (long planId = 21L; planId <= 25L; planId++) {
+            Assertions.assertEquals(PlanStatusEnum.RUNNING, planRepository.findById(planId).getStatus());
+        }
+    }
+
+    @Test
+    public void shouldLeaveFullSweepToLeaderAndKeepReconcilingDirtyPlans() {
+        InMemoryAgentPlanRepository planRepository = new InMemoryAgentPlanRepository();
+        InMemoryAgentTaskRepository taskRepository = new InMemoryAgentTaskRepository();
+        PlanStatusSyncApplicationService syncApplicationService = new PlanStatusSyncApplicationService(
+                planRepository,
+                taskRepository,
+                new PlanTaskEventPublisher(new InMemoryPlanTaskEventRepository()),
+                new TurnFinalizeApplicationService(
+                        new InMemorySessionTurnRepository(),
+                        new InMemorySessionMessageRepository(),
+                        taskRepository,
+                        new PlanFinalizationDomainService()),
+                new PlanTransitionDomainService(),
+                new TaskFailurePolicyDomainService()
+        );
+        DaemonLeaderElector follower = new DaemonLeaderElector() {
+            @Override
+            public boolean isLeader(String daemonName) {
+                return false;
+            }
+        };
+        PlanStatusDaemon eventDrivenDaemon = new PlanStatusDaemon(syncApplicationService, 100, 1000,
+                "event-driven", 0L, follower);
+        PlanStatusDaemon fullScanDaemon = new PlanStatusDaemon(syncApplicationService, 100, 1000,
+                "full-scan", 0L, follower);
+        planRepository.save(newPlan(31L, PlanStatusEnum.READY));
+        taskRepository.save(newTask(3101L, 31L, TaskStatusEnum.RUNNING));
+        planRepository.save(newPlan(32L, PlanStatusEnum.READY));
+        taskRepository.save(newTask(3201L, 32L, TaskStatusEnum.RUNNING));
+
+        fullScanDaemon.syncPlanStatuses();
+        eventDrivenDaemon.syncPlanStatuses();
+        Assertions.assertEquals(PlanStatusEnum.READY, planRepository.findById(31L).getStatus());
+        Assertions.assertEquals(PlanStatusEnum.READY, planRepository.findById(32L).getStatus());
+
+        syncApplicationService.markPlanDirty(31L);
+        eventDrivenDaemon.syncPlanStatuses();
+        Assertions.assertEquals(PlanStatusEnum.RUNNING, planRepository.findById(31L).getStatus());
+        Assertions.assertEquals(PlanStatusEnum.READY, planRepository.findById(32L).getStatus());
+    }
+
     private AgentPlanEntity newPlan(Long id, PlanStatusEnum status) {
         AgentPlanEntity plan = new AgentPlanEntity();
         plan.setId(id);
@@ -308,20 +438,6 @@ public class PlanStatusDaemonTest {
             return findByStatus(status);
         }
 
-        @Override
-        public List<AgentPlanEntity> findByStatusPaged(PlanStatusEnum status, int offset, int limit) {
-            if (limit <= 0) {
-                return Collections.emptyList();
-            }
-            List<AgentPlanEntity> matched = findByStatus(status);
-            if (matched.isEmpty() || offset >= matched.size()) {
-                return Collections.emptyList();
-            }
-            int from = Math.max(0, offset);
-            int to = Math.min(from + limit, matched.size());
-            return new ArrayList<>(matched.subList(from, to));
-        }
-
         @Override
         public List<AgentPlanEntity> findAll() {
             return new ArrayList<>(store.values());
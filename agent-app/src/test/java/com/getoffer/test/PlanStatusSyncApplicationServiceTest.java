@@ -46,9 +46,9 @@ public class PlanStatusSyncApplicationServiceTest {
                 .terminalCount(1L)
                 .build();
 
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.READY), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.READY), eq(0L), eq(100)))
                 .thenReturn(Collections.emptyList());
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.RUNNING), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.RUNNING), eq(0L), eq(100)))
                 .thenReturn(List.of(plan));
         when(taskRepository.summarizeByPlanIds(any())).thenReturn(List.of(stat));
         when(turnFinalizeService.finalizeByPlan(1L, PlanStatusEnum.COMPLETED))
@@ -97,9 +97,9 @@ public class PlanStatusSyncApplicationServiceTest {
                 .terminalCount(1L)
                 .build();
 
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.READY), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.READY), eq(0L), eq(100)))
                 .thenReturn(Collections.emptyList());
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.RUNNING), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.RUNNING), eq(0L), eq(100)))
                 .thenReturn(List.of(plan));
         when(taskRepository.summarizeByPlanIds(any())).thenReturn(List.of(stat));
         when(planRepository.update(plan)).thenThrow(new RuntimeException("Optimistic lock conflict"));
@@ -137,9 +137,9 @@ public class PlanStatusSyncApplicationServiceTest {
                 .terminalCount(0L)
                 .build();
 
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.READY), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.READY), eq(0L), eq(100)))
                 .thenReturn(List.of(plan));
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.RUNNING), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.RUNNING), eq(0L), eq(100)))
                 .thenReturn(Collections.emptyList());
         when(taskRepository.summarizeByPlanIds(any())).thenReturn(List.of(stat));
         when(planRepository.update(plan)).thenThrow(new RuntimeException("database unavailable"));
@@ -190,9 +190,9 @@ public class PlanStatusSyncApplicationServiceTest {
         completedTask.setStatus(com.getoffer.types.enums.TaskStatusEnum.COMPLETED);
         completedTask.setConfigSnapshot(new HashMap<>());
 
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.READY), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.READY), eq(0L), eq(100)))
                 .thenReturn(Collections.emptyList());
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.RUNNING), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.RUNNING), eq(0L), eq(100)))
                 .thenReturn(List.of(plan));
         when(taskRepository.summarizeByPlanIds(any())).thenReturn(List.of(stat));
         when(taskRepository.findByPlanId(4L)).thenReturn(List.of(failedTask, completedTask));
@@ -232,11 +232,11 @@ public class PlanStatusSyncApplicationServiceTest {
 
         AgentPlanEntity cancelledPlan = newPlan(5L, PlanStatusEnum.CANCELLED);
 
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.READY), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.READY), eq(0L), eq(100)))
                 .thenReturn(Collections.emptyList());
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.RUNNING), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.RUNNING), eq(0L), eq(100)))
                 .thenReturn(Collections.emptyList());
-        when(planRepository.findByStatusPaged(eq(PlanStatusEnum.CANCELLED), eq(0), eq(100)))
+        when(planRepository.findByStatusAfterId(eq(PlanStatusEnum.CANCELLED), eq(0L), eq(100)))
                 .thenReturn(List.of(cancelledPlan));
         when(turnFinalizeService.finalizeByPlan(5L, PlanStatusEnum.CANCELLED))
                 .thenReturn(TurnFinalizeApplicationService.TurnFinalizeResult.of(
@@ -0,0 +1,425 @@
+package com.getoffer.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.getoffer.domain.task.adapter.repository.IPlanTaskEventRepository;
+import com.getoffer.domain.task.model.entity.PlanTaskEventEntity;
+import com.getoffer.trigger.event.PlanTaskEventNotifyPayload;
+import com.getoffer.trigger.event.PlanTaskEventPublisher;
+import com.getoffer.types.enums.PlanTaskEventTypeEnum;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PlanTaskEventPublisherTest {
+
+    private static final long REPLAY_SETTLE_MILLIS = 1000L;
+
+    private final MutableClock clock = new MutableClock();
+    private PlanTaskEventPublisher publisher;
+
+    @AfterEach
+    public void tearDown() {
+        if (publisher != null) {
+            publisher.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldGroupConcurrentPublishesIntoBatchesAndReturnAssignedIds() throws Exception {
+        RecordingEventRepository repository = new RecordingEventRepository();
+        publisher = newPublisher(repository, 50L, "");
+        List<Long> dispatchedIds = new CopyOnWriteArrayList<>();
+        publisher.subscribe(1L, "sub-1", event -> dispatchedIds.add(event.getId()));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PlanTaskEventEntity>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            long taskId = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                return publisher.publish(PlanTaskEventTypeEnum.TASK_STARTED, 1L, taskId, Map.of("seq", taskId));
+            }));
+        }
+        start.countDown();
+        List<Long> ids = new ArrayList<>();
+        for (Future<PlanTaskEventEntity> future : futures) {
+            PlanTaskEventEntity saved = future.get(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(saved.getId());
+            ids.add(saved.getId());
+        }
+        pool.shutdownNow();
+        awaitSize(dispatchedIds, 16);
+
+        Assertions.assertEquals(16, ids.stream().distinct().count());
+        Assertions.assertTrue(repository.batchSizes.size() < 16, "batches=" + repository.batchSizes);
+        Assertions.assertEquals(0, repository.singleSaves);
+        List<Long> sorted = new ArrayList<>(dispatchedIds);
+        Collections.sort(sorted);
+        Assertions.assertEquals(sorted, dispatchedIds);
+    }
+
+    @Test
+    public void shouldReturnAsyncTypesImmediatelyAndKeepPublishOrder() {
+        RecordingEventRepository repository = new RecordingEventRepository();
+        publisher = newPublisher(repository, 20L, "TASK_LOG");
+        List<PlanTaskEventEntity> dispatched = new CopyOnWriteArrayList<>();
+        publisher.subscribe(2L, "sub-2", dispatched::add);
+
+        PlanTaskEventEntity log = publisher.publish(PlanTaskEventTypeEnum.TASK_LOG, 2L, 7L, Map.of("message", "tool policy"));
+        PlanTaskEventEntity completed = publisher.publish(PlanTaskEventTypeEnum.TASK_COMPLETED, 2L, 7L, Map.of("status", "COMPLETED"));
+
+        Assertions.assertNotNull(completed.getId());
+        awaitSize(dispatched, 2);
+        Assertions.assertEquals(PlanTaskEventTypeEnum.TASK_LOG, dispatched.get(0).getEventType());
+        Assertions.assertEquals(PlanTaskEventTypeEnum.TASK_COMPLETED, dispatched.get(1).getEventType());
+        Assertions.assertTrue(dispatched.get(0).getId() < completed.getId());
+        // 异步类型返回的是快照，落库后也不会被写线程回填
+        Assertions.assertNotSame(dispatched.get(0), log);
+        Assertions.assertNull(log.getId());
+        Assertions.assertEquals("tool policy", log.getEventData().get("message"));
+    }
+
+    @Test
+    public void shouldFallBackToRowInsertsAndOnlyFailTheBrokenEvent() throws Exception {
+        RecordingEventRepository repository = new RecordingEventRepository();
+        repository.failBatch = true;
+        publisher = newPublisher(repository, 50L, "");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<PlanTaskEventEntity> good = pool.submit(() -> {
+            start.await();
+            return publisher.publish(PlanTaskEventTypeEnum.TASK_STARTED, 3L, 1L, Map.of());
+        });
+        Future<PlanTaskEventEntity> bad = pool.submit(() -> {
+            start.await();
+            return publisher.publish(PlanTaskEventTypeEnum.TASK_STARTED, 3L, RecordingEventRepository.BROKEN_TASK_ID, Map.of());
+        });
+        start.countDown();
+
+        Assertions.assertNotNull(good.get(5, TimeUnit.SECONDS).getId());
+        Exception failure = Assertions.assertThrows(Exception.class, () -> bad.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(failure.getCause() instanceof IllegalStateException, String.valueOf(failure.getCause()));
+        Assertions.assertEquals(1, repository.saved.size());
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void shouldCarryEventInNotifyPayloadWhenUnderLimit() {
+        PlanTaskEventEntity event = new PlanTaskEventEntity();
+        event.setId(42L);
+        event.setPlanId(9L);
+        event.setTaskId(5L);
+        event.setEventType(PlanTaskEventTypeEnum.TASK_COMPLETED);
+        event.setCreatedAt(LocalDateTime.of(2026, 10, 17, 8, 30, 15, 123000000));
+        event.setEventData(Map.of("status", "COMPLETED", "output", "完成"));
+
+        PlanTaskEventNotifyPayload codec = new PlanTaskEventNotifyPayload(new ObjectMapper().findAndRegisterModules());
+        String payload = codec.encode(event, "node-a");
+        Assertions.assertTrue(payload.startsWith("9:42:node-a\n"), payload);
+
+        PlanTaskEventNotifyPayload.Header decoded = PlanTaskEventNotifyPayload.decodeHeader(payload);
+        Assertions.assertEquals("node-a", decoded.publisherId());
+        PlanTaskEventEntity restored = codec.decodeEvent(decoded);
+        Assertions.assertNotNull(restored);
+        Assertions.assertEquals(42L, restored.getId());
+        Assertions.assertEquals(9L, restored.getPlanId());
+        Assertions.assertEquals(5L, restored.getTaskId());
+        Assertions.assertEquals(PlanTaskEventTypeEnum.TASK_COMPLETED, restored.getEventType());
+        Assertions.assertEquals(event.getCreatedAt(), restored.getCreatedAt());
+        Assertions.assertEquals(event.getEventData(), restored.getEventData());
+    }
+
+    @Test
+    public void shouldSendOnlyIdHeaderForOversizedEventsAndAcceptLegacyPayloads() {
+        PlanTaskEventEntity event = new PlanTaskEventEntity();
+        event.setId(43L);
+        event.setPlanId(9L);
+        event.setEventType(PlanTaskEventTypeEnum.TASK_LOG);
+        event.setEventData(Map.of("output", "x".repeat(PlanTaskEventNotifyPayload.MAX_PAYLOAD_BYTES)));
+
+        PlanTaskEventNotifyPayload codec = new PlanTaskEventNotifyPayload(new ObjectMapper().findAndRegisterModules());
+        String payload = codec.encode(event, "node-a");
+        Assertions.assertEquals("9:43:node-a", payload);
+
+        PlanTaskEventNotifyPayload.Header decoded = PlanTaskEventNotifyPayload.decodeHeader(payload);
+        Assertions.assertEquals(9L, decoded.planId());
+        Assertions.assertEquals(43L, decoded.eventId());
+        Assertions.assertNull(decoded.body());
+        Assertions.assertNull(codec.decodeEvent(decoded));
+        Assertions.assertNull(PlanTaskEventNotifyPayload.decodeHeader("not-a-payload"));
+    }
+
+    @Test
+    public void shouldNotBlockPublisherOnSlowSubscriberAndResyncAfterOverflow() throws Exception {
+        RecordingEventRepository repository = new RecordingEventRepository();
+        publisher = newPublisher(repository, 0L, "", 2, 4, "DROP_AND_RESYNC");
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> slowDelivered = new CopyOnWriteArrayList<>();
+        List<PlanTaskEventPublisher.SubscriberOverflowPolicy> overflows = new CopyOnWriteArrayList<>();
+        publisher.subscribe(4L, "slow", event -> {
+            awaitQuietly(release);
+            slowDelivered.add(event.getId());
+        }, overflows::add);
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            publisher.publish(PlanTaskEventTypeEnum.TASK_LOG, 4L, (long) i, Map.of());
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        Assertions.assertTrue(elapsedMillis < 2000L, "publish blocked for " + elapsedMillis + "ms");
+        release.countDown();
+        awaitSize(overflows, 1);
+        Assertions.assertEquals(PlanTaskEventPublisher.SubscriberOverflowPolicy.DROP_AND_RESYNC, overflows.get(0));
+        Assertions.assertTrue(slowDelivered.size() < 20, "delivered=" + slowDelivered.size());
+        List<Long> sorted = new ArrayList<>(slowDelivered);
+        Collections.sort(sorted);
+        Assertions.assertEquals(sorted, slowDelivered);
+    }
+
+    @Test
+    public void shouldUnsubscribeOnOverflowWhenPolicyIsDisconnect() throws Exception {
+        RecordingEventRepository repository = new RecordingEventRepository();
+        publisher = newPublisher(repository, 0L, "", 1, 2, "disconnect");
+        CountDownLatch release = new CountDownLatch(1);
+        List<PlanTaskEventPublisher.SubscriberOverflowPolicy> overflows = new CopyOnWriteArrayList<>();
+        publisher.subscribe(5L, "slow", event -> awaitQuietly(release), overflows::add);
+
+        for (int i = 0; i < 6; i++) {
+            publisher.publish(PlanTaskEventTypeEnum.TASK_LOG, 5L, (long) i, Map.of());
+        }
+        release.countDown();
+
+        awaitSize(overflows, 1);
+        Assertions.assertEquals(PlanTaskEventPublisher.SubscriberOverflowPolicy.DISCONNECT, overflows.get(0));
+    }
+
+    @Test
+    public void shouldServeReplayFromBufferInsideWindowAndFallBackToDatabaseOutside() {
+        RecordingEventRepository repository = new RecordingEventRepository();
+        publisher = newPublisher(repository, 5L, "", 3, 1024, 60L);
+        for (long i = 1; i <= 5; i++) {
+            publisher.publish(PlanTaskEventTypeEnum.TASK_STARTED, 4L, i, Map.of("seq", i));
+        }
+        clock.advance(REPLAY_SETTLE_MILLIS);
+
+        List<PlanTaskEventEntity> buffered = publisher.replay(4L, 2L, 10);
+        Assertions.assertEquals(List.of(3L, 4L, 5L), buffered.stream().map(PlanTaskEventEntity::getId).toList());
+        Assertions.assertEquals(List.of(4L), publisher.replay(4L, 3L, 1).stream().map(PlanTaskEventEntity::getId).toList());
+        Assertions.assertTrue(publisher.replay(4L, 5L, 10).isEmpty());
+        Assertions.assertEquals(0, repository.replayQueries.get());
+
+        List<PlanTaskEventEntity> evicted = publisher.replay(4L, 1L, 10);
+        Assertions.assertEquals(List.of(2L, 3L, 4L, 5L), evicted.stream().map(PlanTaskEventEntity::getId).toList());
+        Assertions.assertEquals(1, repository.replayQueries.get());
+
+        publisher.replay(99L, 0L, 10);
+        Assertions.assertEquals(2, repository.replayQueries.get());
+    }
+
+    @Test
+    public void shouldHoldBackBufferedEventsUntilTheyPassTheWatermark() {
+        RecordingEventRepository repository = new RecordingEventRepository();
+        publisher = newPublisher(repository, 5L, "", 16, 1024, 60L);
+        for (long i = 1; i <= 3; i++) {
+            publisher.publish(PlanTaskEventTypeEnum.TASK_STARTED, 7L, i, Map.of());
+        }
+
+        Assertions.assertTrue(publisher.replay(7L, 0L, 10).isEmpty());
+        clock.advance(REPLAY_SETTLE_MILLIS);
+        publisher.publish(PlanTaskEventTypeEnum.TASK_STARTED, 7L, 4L, Map.of());
+
+        Assertions.assertEquals(List.of(1L, 2L, 3L),
+                publisher.replay(7L, 0L, 10).stream().map(PlanTaskEventEntity::getId).toList());
+        Assertions.assertEquals(0, repository.replayQueries.get());
+    }
+
+    @Test
+    public void shouldDropFinishedPlanFromBufferAfterGracePeriod() {
+        RecordingEventRepository repository = new RecordingEventRepository();
+        publisher = newPublisher(repository, 5L, "", 16, 1024, 0L);
+        publisher.publish(PlanTaskEventTypeEnum.TASK_COMPLETED, 5L, 1L, Map.of());
+        publisher.publish(PlanTaskEventTypeEnum.PLAN_FINISHED, 5L, null, Map.of("status", "COMPLETED"));
+        clock.advance(REPLAY_SETTLE_MILLIS);
+        Assertions.assertEquals(1, publisher.replay(5L, 1L, 10).size());
+        Assertions.assertEquals(0, repository.replayQueries.get());
+
+        clock.advance(1100L);
+        publisher.publish(PlanTaskEventTypeEnum.TASK_STARTED, 6L, 1L, Map.of());
+
+        Assertions.assertEquals(1, publisher.replay(5L, 1L, 10).size());
+        Assertions.assertEquals(1, repository.replayQueries.get());
+        Assertions.assertEquals(0, publisher.replay(6L, 3L, 10).size());
+        Assertions.assertEquals(1, repository.replayQueries.get());
+    }
+
+    private static void awaitSize(List<?> values, int expected) {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (values.size() < expected && System.currentTimeMillis() < deadline) {
+            awaitQuietly(new CountDownLatch(1), 10L);
+        }
+        Assertions.assertTrue(values.size() >= expected, "expected " + expected + " but was " + values.size());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        awaitQuietly(latch, 5000L);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch, long timeoutMillis) {
+        try {
+            latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PlanTaskEventPublisher newPublisher(IPlanTaskEventRepository repository, long maxDelayMillis, String asyncTypes) {
+        return newPublisher(repository, maxDelayMillis, asyncTypes, 2, 256, "DROP_AND_RESYNC", 512, 1024, 60L);
+    }
+
+    private PlanTaskEventPublisher newPublisher(IPlanTaskEventRepository repository,
+                                                long maxDelayMillis,
+                                                String asyncTypes,
+                                                int deliveryThreads,
+                                                int subscriberQueueCapacity,
+                                                String overflowPolicy) {
+        return newPublisher(repository, maxDelayMillis, asyncTypes, deliveryThreads, subscriberQueueCapacity,
+                overflowPolicy, 512, 1024, 60L);
+    }
+
+    private PlanTaskEventPublisher newPublisher(IPlanTaskEventRepository repository,
+                                                long maxDelayMillis,
+                                                String asyncTypes,
+                                                int replayBufferMaxEvents,
+                                                int replayBufferMaxPlans,
+                                                long replayBufferGraceSeconds) {
+        return newPublisher(repository, maxDelayMillis, asyncTypes, 2, 256, "DROP_AND_RESYNC",
+                replayBufferMaxEvents, replayBufferMaxPlans, replayBufferGraceSeconds);
+    }
+
+    private PlanTaskEventPublisher newPublisher(IPlanTaskEventRepository repository,
+                                                long maxDelayMillis,
+                                                String asyncTypes,
+                                                int deliveryThreads,
+                                                int subscriberQueueCapacity,
+                                                String overflowPolicy,
+                                                int replayBufferMaxEvents,
+                                                int replayBufferMaxPlans,
+                                                long replayBufferGraceSeconds) {
+        PlanTaskEventPublisher created = new PlanTaskEventPublisher(repository,
+                null,
+                "plan_task_events_channel",
+                "test-instance",
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class),
+                new DefaultListableBeanFactory().getBeanProvider(ObjectMapper.class),
+                true,
+                64,
+                maxDelayMillis,
+                256,
+                3000L,
+                asyncTypes,
+                deliveryThreads,
+                subscriberQueueCapacity,
+                overflowPolicy,
+                true,
+                replayBufferMaxEvents,
+                1048576L,
+                replayBufferMaxPlans,
+                replayBufferGraceSeconds,
+                REPLAY_SETTLE_MILLIS,
+                clock);
+        created.startNotifyListener();
+        return created;
+    }
+
+    private static final class MutableClock extends Clock {
+        private final AtomicLong millis = new AtomicLong(System.currentTimeMillis());
+
+        private void advance(long deltaMillis) {
+            millis.addAndGet(deltaMillis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis.get());
+        }
+    }
+
+    private static final class RecordingEventRepository implements IPlanTaskEventRepository {
+        private static final long BROKEN_TASK_ID = -1L;
+
+        private final List<PlanTaskEventEntity> saved = new CopyOnWriteArrayList<>();
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private final AtomicInteger replayQueries = new AtomicInteger();
+        private volatile int singleSaves;
+        private volatile boolean failBatch;
+        private long seq = 1L;
+
+        @Override
+        public synchronized PlanTaskEventEntity save(PlanTaskEventEntity entity) {
+            singleSaves++;
+            if (Long.valueOf(BROKEN_TASK_ID).equals(entity.getTaskId())) {
+                throw new IllegalStateException("broken event");
+            }
+            entity.setId(seq++);
+            saved.add(entity);
+            return entity;
+        }
+
+        @Override
+        public synchronized List<PlanTaskEventEntity> saveAll(List<PlanTaskEventEntity> entities) {
+            if (failBatch) {
+                throw new IllegalStateException("batch insert failed");
+            }
+            batchSizes.add(entities.size());
+            for (PlanTaskEventEntity entity : entities) {
+                entity.setId(seq++);
+                saved.add(entity);
+            }
+            return new ArrayList<>(entities);
+        }
+
+        @Override
+        public List<PlanTaskEventEntity> findByPlanIdAfterEventId(Long planId, Long afterEventId, int limit) {
+            replayQueries.incrementAndGet();
+            return saved.stream()
+                    .filter(event -> planId.equals(event.getPlanId()) && event.getId() > afterEventId)
+                    .sorted(Comparator.comparing(PlanTaskEventEntity::getId))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+}
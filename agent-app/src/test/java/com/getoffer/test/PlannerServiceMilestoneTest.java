@@ -485,20 +485,6 @@ public class PlannerServiceMilestoneTest {
             return findByStatus(status);
         }
 
-        @Override
-        public List<AgentPlanEntity> findByStatusPaged(PlanStatusEnum status, int offset, int limit) {
-            if (limit <= 0) {
-                return Collections.emptyList();
-            }
-            List<AgentPlanEntity> matched = findByStatus(status);
-            if (matched.isEmpty() || offset >= matched.size()) {
-                return Collections.emptyList();
-            }
-            int from = Math.max(0, offset);
-            int to = Math.min(from + limit, matched.size());
-            return new ArrayList<>(matched.subList(from, to));
-        }
-
         @Override
         public List<AgentPlanEntity> findAll() {
             return new ArrayList<>(store.values());
@@ -818,11 +818,6 @@ public class PlannerServiceRootDraftTest {
             return Collections.emptyList();
         }
 
-        @Override
-        public List<AgentPlanEntity> findByStatusPaged(PlanStatusEnum status, int offset, int limit) {
-            return Collections.emptyList();
-        }
-
         @Override
         public List<AgentPlanEntity> findAll() {
             return new ArrayList<>(store.values());
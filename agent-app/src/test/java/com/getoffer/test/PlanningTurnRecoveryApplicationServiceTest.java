@@ -32,7 +32,7 @@ public class PlanningTurnRecoveryApplicationServiceTest {
         staleTurn.setId(11L);
         staleTurn.setSessionId(21L);
         staleTurn.setStatus(TurnStatusEnum.PLANNING);
-        when(turnRepository.findPlanningTurnsOlderThan(any(LocalDateTime.class), eq(100)))
+        when(turnRepository.findPlanningTurnsOlderThan(any(LocalDateTime.class), eq(0L), eq(100)))
                 .thenReturn(List.of(staleTurn));
         when(turnRepository.markTerminalIfNotTerminal(eq(11L), eq(TurnStatusEnum.FAILED), any(String.class), any(LocalDateTime.class)))
                 .thenReturn(true);
@@ -65,7 +65,7 @@ public class PlanningTurnRecoveryApplicationServiceTest {
         staleTurn.setId(12L);
         staleTurn.setSessionId(22L);
         staleTurn.setStatus(TurnStatusEnum.PLANNING);
-        when(turnRepository.findPlanningTurnsOlderThan(any(LocalDateTime.class), eq(100)))
+        when(turnRepository.findPlanningTurnsOlderThan(any(LocalDateTime.class), eq(0L), eq(100)))
                 .thenReturn(List.of(staleTurn));
         when(turnRepository.markTerminalIfNotTerminal(eq(12L), eq(TurnStatusEnum.FAILED), any(String.class), any(LocalDateTime.class)))
                 .thenReturn(false);
@@ -13,6 +13,7 @@ import com.getoffer.domain.task.adapter.repository.ITaskExecutionRepository;
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
 import com.getoffer.trigger.application.common.TaskDetailViewAssembler;
 import com.getoffer.trigger.http.QueryController;
+import com.getoffer.types.enums.PlanStatusEnum;
 import com.getoffer.types.enums.TaskStatusEnum;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -107,6 +108,36 @@ public class QueryControllerPerformanceTest {
         verify(taskExecutionRepository, times(1)).findLatestExecutionTimeByTaskIds(anyList());
     }
 
+    @Test
+    public void shouldBuildDashboardStatsFromGroupedStatusCounts() throws Exception {
+        when(agentTaskRepository.countGroupByStatus()).thenReturn(Map.of(
+                TaskStatusEnum.READY, 4L,
+                TaskStatusEnum.RUNNING, 3L,
+                TaskStatusEnum.REFINING, 1L,
+                TaskStatusEnum.COMPLETED, 10L));
+        when(agentPlanRepository.countGroupByStatus()).thenReturn(Map.of(
+                PlanStatusEnum.RUNNING, 2L,
+                PlanStatusEnum.COMPLETED, 5L));
+
+        mockMvc.perform(get("/api/dashboard/overview"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.taskStats.total").value(18))
+                .andExpect(jsonPath("$.data.taskStats.pending").value(0))
+                .andExpect(jsonPath("$.data.taskStats.ready").value(4))
+                .andExpect(jsonPath("$.data.taskStats.runningLike").value(4))
+                .andExpect(jsonPath("$.data.taskStats.completed").value(10))
+                .andExpect(jsonPath("$.data.planStats.total").value(7))
+                .andExpect(jsonPath("$.data.planStats.running").value(2))
+                .andExpect(jsonPath("$.data.planStats.cancelled").value(0));
+
+        verify(agentTaskRepository, times(1)).countGroupByStatus();
+        verify(agentPlanRepository, times(1)).countGroupByStatus();
+        verify(agentTaskRepository, never()).countAll();
+        verify(agentTaskRepository, never()).countByStatus(TaskStatusEnum.READY);
+        verify(agentPlanRepository, never()).countAll();
+        verify(agentPlanRepository, never()).countByStatus(PlanStatusEnum.RUNNING);
+    }
+
     @Test
     public void shouldQueryRecentAgentToolsWithBoundedLimit() throws Exception {
         AgentToolCatalogEntity tool = new AgentToolCatalogEntity();
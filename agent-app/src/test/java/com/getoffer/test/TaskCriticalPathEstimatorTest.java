@@ -0,0 +1,55 @@
+package com.getoffer.test;
+
+import com.getoffer.domain.planning.model.entity.AgentPlanEntity;
+import com.getoffer.domain.task.adapter.repository.ITaskExecutionRepository;
+import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.domain.task.service.TaskDispatchDomainService;
+import com.getoffer.infrastructure.planning.TaskCriticalPathEstimator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TaskCriticalPathEstimatorTest {
+
+    @Test
+    public void shouldCacheMediansAcrossMaterializations() {
+        ITaskExecutionRepository executionRepository = mock(ITaskExecutionRepository.class);
+        TaskCriticalPathEstimator estimator = new TaskCriticalPathEstimator(
+                executionRepository, new TaskDispatchDomainService(), true, 50L, 7, 100, 60_000L);
+        AgentPlanEntity plan = new AgentPlanEntity();
+        plan.setId(1L);
+        plan.setWorkflowDefinitionId(9L);
+
+        when(executionRepository.findMedianExecutionTimeByWorkflowNode(9L, List.of("a", "b"), 7, 100))
+                .thenReturn(Map.of("a", 400L));
+        when(executionRepository.findMedianExecutionTimeByAgentKey(List.of("worker"), 7, 100))
+                .thenReturn(Map.of());
+
+        List<AgentTaskEntity> first = List.of(task("a", "worker"), task("b", "worker"));
+        estimator.assign(plan, first);
+        List<AgentTaskEntity> second = List.of(task("a", "worker"), task("b", "worker"));
+        estimator.assign(plan, second);
+
+        Assertions.assertEquals(400L, second.get(0).getCriticalPathMs());
+        Assertions.assertEquals(50L, second.get(1).getCriticalPathMs());
+        verify(executionRepository, times(1)).findMedianExecutionTimeByWorkflowNode(9L, List.of("a", "b"), 7, 100);
+        verify(executionRepository, times(1)).findMedianExecutionTimeByAgentKey(List.of("worker"), 7, 100);
+    }
+
+    private AgentTaskEntity task(String nodeId, String agentKey) {
+        AgentTaskEntity task = new AgentTaskEntity();
+        task.setNodeId(nodeId);
+        Map<String, Object> config = new HashMap<>();
+        config.put("agentKey", agentKey);
+        task.setConfigSnapshot(config);
+        return task;
+    }
+}
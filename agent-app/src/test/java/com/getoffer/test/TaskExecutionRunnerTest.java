@@ -19,7 +19,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ScheduledFuture;
 
 public class TaskExecutionRunnerTest {
 
@@ -140,6 +139,60 @@ public class TaskExecutionRunnerTest {
         Assertions.assertEquals(List.of(PlanTaskEventTypeEnum.TASK_LOG), support.publishedEvents);
     }
 
+    @Test
+    public void shouldReleaseClaimInsteadOfFailingWhenModelThrottled() {
+        AgentTaskEntity task = buildRunningTask(7L, 70L);
+        FakeExecutionSupport support = new FakeExecutionSupport();
+        support.plan = buildRunningPlan(70L);
+        support.callSequence.add(new TaskExecutionRunner.TaskModelThrottledException("openai:gpt-4o"));
+
+        TaskExecutionRunner.ExecutionResult result = runner.run(task, support);
+
+        Assertions.assertEquals("model_throttled_released", result.outcome());
+        Assertions.assertEquals("model_throttled", result.errorType());
+        Assertions.assertEquals(List.of("openai:gpt-4o"), support.throttledReleaseModels);
+        Assertions.assertNotEquals(TaskStatusEnum.FAILED, task.getStatus());
+        Assertions.assertFalse(support.safeSaveExecutionCalled);
+        Assertions.assertTrue(support.stopHeartbeatCalled);
+    }
+
+    @Test
+    public void shouldPassRateLimitRetryHintWhenReleasingThrottledClaim() {
+        AgentTaskEntity task = buildRunningTask(8L, 80L);
+        FakeExecutionSupport support = new FakeExecutionSupport();
+        support.plan = buildRunningPlan(80L);
+        support.callSequence.add(new TaskExecutionRunner.TaskModelThrottledException("openai:gpt-4o", 4500L));
+
+        TaskExecutionRunner.ExecutionResult result = runner.run(task, support);
+
+        Assertions.assertEquals("model_throttled_released", result.outcome());
+        Assertions.assertEquals(List.of(4500L), support.throttledRetryAfterMs);
+        Assertions.assertTrue(support.publishedEvents.isEmpty());
+    }
+
+    @Test
+    public void shouldRetryAfterTimeoutAndCompleteInAsyncMode() {
+        AgentTaskEntity task = buildRunningTask(8L, 80L);
+        FakeExecutionSupport support = new FakeExecutionSupport();
+        support.plan = buildRunningPlan(80L);
+        support.validationRequired = false;
+        support.extractedContent = "async-success";
+        support.timeoutRetryDecisions.add(true);
+        support.callSequence.add(new TaskExecutionRunner.TaskCallTimeoutException("Task execution timed out", new RuntimeException("timeout")));
+
+        TaskExecutionRunner.ExecutionResult result = runner
+                .runAsync(task, support, support, support, Runnable::run)
+                .join();
+
+        Assertions.assertEquals("completed", result.outcome());
+        Assertions.assertEquals("timeout", result.errorType());
+        Assertions.assertEquals(TaskStatusEnum.COMPLETED, task.getStatus());
+        Assertions.assertEquals("async-success", task.getOutputResult());
+        Assertions.assertEquals(2, support.callTaskClientCount);
+        Assertions.assertEquals(1, support.applyTimeoutRetryCount);
+        Assertions.assertTrue(support.stopHeartbeatCalled);
+    }
+
     private AgentTaskEntity buildRunningTask(Long taskId, Long planId) {
         AgentTaskEntity task = new AgentTaskEntity();
         task.setId(taskId);
@@ -187,6 +240,8 @@ public class TaskExecutionRunnerTest {
         private final Queue<Boolean> timeoutRetryDecisions = new ArrayDeque<>();
         private final List<Boolean> timeoutRetryMetricMarks = new ArrayList<>();
         private final List<PlanTaskEventTypeEnum> publishedEvents = new ArrayList<>();
+        private final List<String> throttledReleaseModels = new ArrayList<>();
+        private final List<Long> throttledRetryAfterMs = new ArrayList<>();
 
         @Override
         public boolean hasValidClaim(AgentTaskEntity task) {
@@ -194,12 +249,11 @@ public class TaskExecutionRunnerTest {
         }
 
         @Override
-        public ScheduledFuture<?> startHeartbeat(AgentTaskEntity task) {
-            return null;
+        public void startHeartbeat(AgentTaskEntity task) {
         }
 
         @Override
-        public void stopHeartbeat(ScheduledFuture<?> future) {
+        public void stopHeartbeat(AgentTaskEntity task) {
             stopHeartbeatCalled = true;
         }
 
@@ -213,6 +267,18 @@ public class TaskExecutionRunnerTest {
             return true;
         }
 
+        @Override
+        public boolean releaseClaimForThrottledModel(AgentTaskEntity task, String modelKey) {
+            throttledReleaseModels.add(modelKey);
+            return true;
+        }
+
+        @Override
+        public boolean releaseClaimForThrottledModel(AgentTaskEntity task, String modelKey, long retryAfterMs) {
+            throttledRetryAfterMs.add(retryAfterMs);
+            return releaseClaimForThrottledModel(task, modelKey);
+        }
+
         @Override
         public void recordRetryDistribution(AgentTaskEntity task) {
         }
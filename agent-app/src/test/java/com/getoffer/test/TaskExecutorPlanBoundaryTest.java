@@ -25,6 +25,7 @@ import com.getoffer.trigger.application.command.TaskPersistenceApplicationServic
 import com.getoffer.domain.task.model.valobj.PlanTaskStatusStat;
 import com.getoffer.trigger.event.PlanTaskEventPublisher;
 import com.getoffer.trigger.job.TaskExecutor;
+import com.getoffer.trigger.job.TaskExecutorProperties;
 import com.getoffer.types.enums.PlanStatusEnum;
 import com.getoffer.types.enums.TaskStatusEnum;
 import com.getoffer.types.enums.TaskTypeEnum;
@@ -235,24 +236,26 @@ public class TaskExecutorPlanBoundaryTest {
                 new ObjectMapper(),
                 worker,
                 meterProvider,
-                "test-instance",
-                1,
-                1,
-                true,
-                0.3D,
-                1,
-                120,
-                30,
-                executionTimeoutMs,
-                executionTimeoutRetryMax,
-                "worker,assistant",
-                "critic,assistant",
-                30000L,
-                false,
-                false
+                newExecutorProperties(executionTimeoutMs, executionTimeoutRetryMax)
         );
     }
 
+    private TaskExecutorProperties newExecutorProperties(int executionTimeoutMs, int executionTimeoutRetryMax) {
+        TaskExecutorProperties properties = new TaskExecutorProperties();
+        properties.setInstanceId("test-instance");
+        properties.getClaim().setBatchSize(1);
+        properties.getClaim().setMaxPerTick(1);
+        properties.getExecution().setTimeoutMs(executionTimeoutMs);
+        properties.getExecution().setTimeoutRetryMax(executionTimeoutRetryMax);
+        properties.getExecution().getOutputDelta().setEnabled(false);
+        properties.getModelLimit().setInitialLimit(0);
+        properties.getHedge().setEnabled(false);
+        properties.getAgent().setFallbackWorkerKeys("worker,assistant");
+        properties.getAgent().setFallbackCriticKeys("critic,assistant");
+        properties.getObservability().setAuditLogEnabled(false);
+        return properties;
+    }
+
     private AgentPlanEntity buildPlan(Long planId, PlanStatusEnum status) {
         AgentPlanEntity plan = new AgentPlanEntity();
         plan.setId(planId);
@@ -713,12 +716,6 @@ public class TaskExecutorPlanBoundaryTest {
             return Collections.emptyList();
         }
 
-        @Override
-        public List<AgentPlanEntity> findByStatusPaged(PlanStatusEnum status, int offset, int limit) {
-            return Collections.emptyList();
-        }
-
-
         @Override
         public List<AgentPlanEntity> findAll() {
             return Collections.emptyList();
@@ -11,6 +11,8 @@ import com.getoffer.domain.task.model.entity.TaskExecutionEntity;
 import com.getoffer.domain.task.service.TaskBlackboardDomainService;
 import com.getoffer.domain.task.service.TaskPersistencePolicyDomainService;
 import com.getoffer.trigger.application.command.TaskPersistenceApplicationService;
+import com.getoffer.trigger.event.TaskClaimWakeupNotifier;
+import com.getoffer.types.enums.TaskStatusEnum;
 import com.getoffer.types.enums.TaskTypeEnum;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -22,6 +24,7 @@ import java.util.Map;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -63,6 +66,64 @@ public class TaskPersistenceApplicationServiceTest {
         Assertions.assertNull(result.errorMessage());
     }
 
+    @Test
+    public void shouldDeferThrottledClaimWithoutWakingDispatcher() {
+        TaskClaimWakeupNotifier wakeupNotifier = mock(TaskClaimWakeupNotifier.class);
+        TaskPersistenceApplicationService notifyingService = new TaskPersistenceApplicationService(
+                taskRepository,
+                executionRepository,
+                planRepository,
+                new TaskBlackboardDomainService(),
+                new TaskPersistencePolicyDomainService(),
+                null,
+                wakeupNotifier
+        );
+        AgentTaskEntity task = new AgentTaskEntity();
+        task.setId(102L);
+        task.setPlanId(7L);
+        task.setStatus(TaskStatusEnum.READY);
+
+        when(taskRepository.deferClaimedTask(task, 1500L)).thenReturn(true);
+
+        TaskPersistenceApplicationService.ClaimedTaskUpdateResult result = notifyingService.deferClaimedTask(task, 1500L);
+
+        Assertions.assertEquals(TaskPersistenceApplicationService.ClaimedTaskUpdateOutcome.UPDATED, result.outcome());
+        verify(taskRepository, never()).updateClaimedTaskState(any(AgentTaskEntity.class));
+        verify(wakeupNotifier, never()).signalTasksReady(7L);
+    }
+
+    @Test
+    public void shouldSignalWakeupAfterPlainTaskUpdate() {
+        TaskClaimWakeupNotifier wakeupNotifier = mock(TaskClaimWakeupNotifier.class);
+        TaskPersistenceApplicationService notifyingService = new TaskPersistenceApplicationService(
+                taskRepository,
+                executionRepository,
+                planRepository,
+                new TaskBlackboardDomainService(),
+                new TaskPersistencePolicyDomainService(),
+                null,
+                wakeupNotifier
+        );
+        AgentTaskEntity refining = new AgentTaskEntity();
+        refining.setId(103L);
+        refining.setPlanId(8L);
+        refining.setNodeId("worker-1");
+        refining.setStatus(TaskStatusEnum.REFINING);
+        AgentTaskEntity failed = new AgentTaskEntity();
+        failed.setId(104L);
+        failed.setPlanId(8L);
+        failed.setNodeId("worker-2");
+        failed.setStatus(TaskStatusEnum.FAILED);
+
+        Assertions.assertTrue(notifyingService.updateTask(refining).updated());
+        Assertions.assertTrue(notifyingService.updateTask(failed).updated());
+
+        verify(wakeupNotifier, times(1)).signalTasksReady(8L);
+        verify(wakeupNotifier, times(1)).signalPlanProgress(8L);
+        verify(wakeupNotifier, times(1)).signalTaskTerminal(8L, "worker-2");
+        verify(wakeupNotifier, never()).signalTaskTerminal(8L, "worker-1");
+    }
+
     @Test
     public void shouldRetryPlanContextUpdateAfterOptimisticLock() {
         AgentPlanEntity first = buildPlan(1L, 3, mapOf("a", 1));
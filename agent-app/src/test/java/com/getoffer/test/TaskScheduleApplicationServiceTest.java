@@ -5,12 +5,14 @@ import com.getoffer.domain.task.model.entity.AgentTaskEntity;
 import com.getoffer.domain.task.model.valobj.PlanTaskStatusStat;
 import com.getoffer.domain.task.service.TaskDependencyPolicyDomainService;
 import com.getoffer.trigger.application.command.TaskScheduleApplicationService;
+import com.getoffer.trigger.event.TaskClaimWakeupNotifier;
 import com.getoffer.types.enums.TaskStatusEnum;
 import com.getoffer.types.enums.TaskTypeEnum;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -39,6 +41,115 @@ public class TaskScheduleApplicationServiceTest {
         Assertions.assertEquals(TaskStatusEnum.READY, repository.findById(2L).getStatus());
     }
 
+    @Test
+    public void shouldSignalClaimWakeupOncePerRoundWhenTasksPromoted() {
+        InMemoryAgentTaskRepository repository = new InMemoryAgentTaskRepository();
+        repository.save(newTask(11L, 110L, "a", TaskStatusEnum.PENDING, Collections.emptyList()));
+        repository.save(newTask(12L, 110L, "b", TaskStatusEnum.PENDING, Collections.emptyList()));
+        repository.save(newTask(13L, 110L, "c", TaskStatusEnum.PENDING, List.of("a")));
+
+        TaskClaimWakeupNotifier notifier = new TaskClaimWakeupNotifier();
+        List<Long> signaledPlanIds = new ArrayList<>();
+        notifier.addListener(TaskClaimWakeupNotifier.WakeupKind.TASK_READY, signaledPlanIds::add);
+
+        TaskScheduleApplicationService service = new TaskScheduleApplicationService(
+                repository,
+                new TaskDependencyPolicyDomainService(),
+                notifier
+        );
+
+        TaskScheduleApplicationService.ScheduleResult first = service.schedulePendingTasks();
+        Assertions.assertEquals(2, first.promotedCount());
+        Assertions.assertEquals(List.of(110L), signaledPlanIds);
+
+        repository.findById(11L).setStatus(TaskStatusEnum.RUNNING);
+        TaskScheduleApplicationService.ScheduleResult second = service.schedulePendingTasks();
+        Assertions.assertEquals(0, second.promotedCount());
+        Assertions.assertEquals(1, signaledPlanIds.size());
+    }
+
+    @Test
+    public void shouldOnlyEvaluateDependentsOfTerminalTaskInChangedMode() {
+        InMemoryAgentTaskRepository repository = new InMemoryAgentTaskRepository();
+        repository.save(newTask(41L, 500L, "a", TaskStatusEnum.COMPLETED, Collections.emptyList()));
+        repository.save(newTask(42L, 500L, "b", TaskStatusEnum.PENDING, List.of("a")));
+        repository.save(newTask(43L, 500L, "c", TaskStatusEnum.PENDING, Collections.emptyList()));
+        repository.save(newTask(44L, 501L, "x", TaskStatusEnum.PENDING, Collections.emptyList()));
+
+        TaskClaimWakeupNotifier notifier = new TaskClaimWakeupNotifier();
+        TaskScheduleApplicationService service = new TaskScheduleApplicationService(
+                repository,
+                new TaskDependencyPolicyDomainService(),
+                notifier
+        );
+
+        Assertions.assertEquals(0, service.scheduleChangedTasks().pendingCount(), "无变化时增量推进不应扫描");
+
+        notifier.signalTaskTerminal(500L, "a");
+        TaskScheduleApplicationService.ScheduleResult result = service.scheduleChangedTasks();
+
+        Assertions.assertEquals(1, result.pendingCount());
+        Assertions.assertEquals(1, result.promotedCount());
+        Assertions.assertEquals(TaskStatusEnum.READY, repository.findById(42L).getStatus());
+        Assertions.assertEquals(TaskStatusEnum.PENDING, repository.findById(43L).getStatus(), "非下游节点不应被评估");
+        Assertions.assertEquals(TaskStatusEnum.PENDING, repository.findById(44L).getStatus(), "未变化的 plan 不应被加载");
+
+        notifier.signalPlanCreated(501L);
+        Assertions.assertEquals(1, service.scheduleChangedTasks().promotedCount());
+        Assertions.assertEquals(TaskStatusEnum.READY, repository.findById(44L).getStatus());
+    }
+
+    @Test
+    public void shouldCascadeSkipToDownstreamWithinChangedRound() {
+        InMemoryAgentTaskRepository repository = new InMemoryAgentTaskRepository();
+        repository.save(newTask(51L, 510L, "a", TaskStatusEnum.FAILED, Collections.emptyList()));
+        repository.save(newTask(52L, 510L, "b", TaskStatusEnum.PENDING, List.of("a")));
+        repository.save(newTask(53L, 510L, "c", TaskStatusEnum.PENDING, List.of("b")));
+
+        TaskScheduleApplicationService service = new TaskScheduleApplicationService(
+                repository,
+                new TaskDependencyPolicyDomainService()
+        );
+        service.markTaskTerminal(510L, "a");
+
+        TaskScheduleApplicationService.ScheduleResult result = service.scheduleChangedTasks();
+
+        Assertions.assertEquals(2, result.skippedCount());
+        Assertions.assertEquals(TaskStatusEnum.SKIPPED, repository.findById(53L).getStatus());
+    }
+
+    @Test
+    public void shouldReuseCachedDependencyGraphAcrossChangedRounds() {
+        InMemoryAgentTaskRepository repository = new InMemoryAgentTaskRepository();
+        repository.save(newTask(61L, 520L, "a", TaskStatusEnum.RUNNING, Collections.emptyList()));
+        repository.save(newTask(62L, 520L, "b", TaskStatusEnum.RUNNING, Collections.emptyList()));
+        repository.save(newTask(63L, 520L, "c", TaskStatusEnum.PENDING, List.of("a")));
+        repository.save(newTask(64L, 520L, "d", TaskStatusEnum.PENDING, List.of("b")));
+
+        TaskScheduleApplicationService service = new TaskScheduleApplicationService(
+                repository,
+                new TaskDependencyPolicyDomainService()
+        );
+        service.markPlanChanged(520L);
+        Assertions.assertEquals(2, service.scheduleChangedTasks().waitingCount());
+        Assertions.assertEquals(1, repository.getFindByPlanIdCalls());
+
+        repository.findById(61L).setStatus(TaskStatusEnum.COMPLETED);
+        service.markTaskTerminal(520L, "a");
+        TaskScheduleApplicationService.ScheduleResult promoted = service.scheduleChangedTasks();
+
+        Assertions.assertEquals(1, promoted.pendingCount());
+        Assertions.assertEquals(1, promoted.promotedCount());
+        Assertions.assertEquals(TaskStatusEnum.READY, repository.findById(63L).getStatus());
+        Assertions.assertEquals(TaskStatusEnum.PENDING, repository.findById(64L).getStatus());
+
+        repository.findById(62L).setStatus(TaskStatusEnum.FAILED);
+        service.markTaskTerminal(520L, "b");
+        Assertions.assertEquals(1, service.scheduleChangedTasks().skippedCount());
+        Assertions.assertEquals(TaskStatusEnum.SKIPPED, repository.findById(64L).getStatus());
+        Assertions.assertEquals(1, repository.getFindByPlanIdCalls(), "缓存命中时不应重新加载整个 plan");
+    }
+
     @Test
     public void shouldSkipTaskWhenDependencyBlocked() {
         InMemoryAgentTaskRepository repository = new InMemoryAgentTaskRepository();
@@ -98,6 +209,28 @@ public class TaskScheduleApplicationServiceTest {
         Assertions.assertEquals(TaskStatusEnum.PENDING, repository.findById(6L).getStatus());
     }
 
+    @Test
+    public void shouldSignalPlanProgressForSetBasedSkips() {
+        InMemoryAgentTaskRepository repository = new InMemoryAgentTaskRepository();
+        repository.setSetBasedSkippedPlanIds(List.of(510L, 510L, 520L));
+
+        TaskClaimWakeupNotifier notifier = new TaskClaimWakeupNotifier();
+        List<Long> progressedPlanIds = new ArrayList<>();
+        notifier.addPlanProgressListener(progressedPlanIds::add);
+
+        TaskScheduleApplicationService service = new TaskScheduleApplicationService(
+                repository,
+                new TaskDependencyPolicyDomainService(),
+                notifier
+        );
+
+        TaskScheduleApplicationService.ScheduleResult result = service.schedulePendingTasks();
+
+        Assertions.assertEquals(3, result.skippedCount());
+        Assertions.assertEquals(2, progressedPlanIds.size());
+        Assertions.assertTrue(progressedPlanIds.containsAll(List.of(510L, 520L)));
+    }
+
     @Test
     public void shouldCountErrorWhenUpdateFails() {
         InMemoryAgentTaskRepository repository = new InMemoryAgentTaskRepository();
@@ -138,11 +271,28 @@ public class TaskScheduleApplicationServiceTest {
     private static final class InMemoryAgentTaskRepository implements IAgentTaskRepository {
         private final Map<Long, AgentTaskEntity> store = new LinkedHashMap<>();
         private Long failUpdateTaskId;
+        private int findByPlanIdCalls;
+        private List<Long> setBasedSkippedPlanIds = Collections.emptyList();
 
         public void setFailUpdateTaskId(Long failUpdateTaskId) {
             this.failUpdateTaskId = failUpdateTaskId;
         }
 
+        public void setSetBasedSkippedPlanIds(List<Long> setBasedSkippedPlanIds) {
+            this.setBasedSkippedPlanIds = setBasedSkippedPlanIds;
+        }
+
+        @Override
+        public List<Long> skipBlockedAllJoinTasks() {
+            List<Long> skipped = setBasedSkippedPlanIds;
+            setBasedSkippedPlanIds = Collections.emptyList();
+            return skipped;
+        }
+
+        public int getFindByPlanIdCalls() {
+            return findByPlanIdCalls;
+        }
+
         @Override
         public AgentTaskEntity save(AgentTaskEntity entity) {
             store.put(entity.getId(), entity);
@@ -170,11 +320,20 @@ public class TaskScheduleApplicationServiceTest {
 
         @Override
         public List<AgentTaskEntity> findByPlanId(Long planId) {
+            findByPlanIdCalls++;
             return store.values().stream()
                     .filter(task -> Objects.equals(planId, task.getPlanId()))
                     .collect(Collectors.toList());
         }
 
+        @Override
+        public Map<String, TaskStatusEnum> findStatusByNodeIds(Long planId, Collection<String> nodeIds) {
+            return store.values().stream()
+                    .filter(task -> Objects.equals(planId, task.getPlanId()))
+                    .filter(task -> nodeIds.contains(task.getNodeId()))
+                    .collect(Collectors.toMap(AgentTaskEntity::getNodeId, AgentTaskEntity::getStatus));
+        }
+
         @Override
         public List<AgentTaskEntity> findByPlanIdAndStatus(Long planId, TaskStatusEnum status) {
             return store.values().stream()
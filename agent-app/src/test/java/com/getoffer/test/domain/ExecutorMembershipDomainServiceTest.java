@@ -0,0 +1,48 @@
+package com.getoffer.test.domain;
+
+import com.getoffer.domain.task.model.entity.ExecutorMemberEntity;
+import com.getoffer.domain.task.model.valobj.PlanAffinityScope;
+import com.getoffer.domain.task.service.ExecutorMembershipDomainService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ExecutorMembershipDomainServiceTest {
+
+    private final ExecutorMembershipDomainService service = new ExecutorMembershipDomainService();
+
+    @Test
+    public void shouldListOverloadedPeersByLoadExcludingSelfAndUnreported() {
+        List<ExecutorMemberEntity> members = List.of(
+                member("node-a", 8, 8),
+                member("node-b", 10, 9),
+                member("node-c", 10, 10),
+                member("node-d", 10, 2),
+                member("node-e", 0, 5));
+
+        Assertions.assertEquals(List.of("node-c", "node-b"), service.overloadedPeers(members, "node-a", 0.9D));
+        Assertions.assertEquals(List.of("node-a", "node-c", "node-b"), service.overloadedPeers(members, "node-d", 0.9D));
+        Assertions.assertTrue(service.overloadedPeers(List.of(), "node-a", 0.9D).isEmpty());
+    }
+
+    @Test
+    public void shouldOnlyStealWithSpareCapacityAndOverloadedPeers() {
+        Assertions.assertTrue(service.hasSpareCapacity(10, 5, 0.5D));
+        Assertions.assertFalse(service.hasSpareCapacity(10, 6, 0.5D));
+        Assertions.assertFalse(service.hasSpareCapacity(0, 0, 0.5D));
+
+        Assertions.assertNull(service.stealScope(List.of()));
+        PlanAffinityScope scope = service.stealScope(List.of("node-c", "node-b"));
+        Assertions.assertEquals(List.of("node-c", "node-b"), scope.getStealFromOwners());
+        Assertions.assertNull(scope.getOwnedSlots());
+    }
+
+    private ExecutorMemberEntity member(String instanceId, int capacity, int inflight) {
+        ExecutorMemberEntity member = new ExecutorMemberEntity();
+        member.setInstanceId(instanceId);
+        member.setWorkerCapacity(capacity);
+        member.setInflightCount(inflight);
+        return member;
+    }
+}
@@ -0,0 +1,68 @@
+package com.getoffer.test.domain;
+
+import com.getoffer.domain.task.model.valobj.PlanAffinityScope;
+import com.getoffer.domain.task.service.PlanAffinityDomainService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class PlanAffinityDomainServiceTest {
+
+    private final PlanAffinityDomainService service = new PlanAffinityDomainService();
+
+    @Test
+    public void shouldAssignEverySlotDeterministicallyRegardlessOfMemberOrder() {
+        PlanAffinityDomainService.SlotAssignment first = service.assign(List.of("node-b", "node-a", "node-c"), 256, 64);
+        PlanAffinityDomainService.SlotAssignment second = service.assign(List.of("node-c", "node-a", "node-b", "node-a"), 256, 64);
+
+        Assertions.assertEquals(List.of("node-a", "node-b", "node-c"), first.members());
+        Assertions.assertEquals(first.ownerBySlot(), second.ownerBySlot());
+        Assertions.assertEquals(0, second.movedSlotsSince(first));
+        int owned = 0;
+        for (String member : first.members()) {
+            int slots = first.slotsOwnedBy(member).size();
+            Assertions.assertTrue(slots > 256 / 3 / 2, member + " owns too few slots: " + slots);
+            owned += slots;
+        }
+        Assertions.assertEquals(256, owned);
+        Assertions.assertEquals(first.ownerOfSlot(7), first.ownerOf(7L + 256L * 3));
+    }
+
+    @Test
+    public void shouldOnlyMoveSlotsToJoiningMemberAndBackWhenItLeaves() {
+        PlanAffinityDomainService.SlotAssignment before = service.assign(List.of("node-a", "node-b", "node-c"), 512, 64);
+        PlanAffinityDomainService.SlotAssignment joined = service.assign(List.of("node-a", "node-b", "node-c", "node-d"), 512, 64);
+
+        for (int slot = 0; slot < 512; slot++) {
+            if (!before.ownerOfSlot(slot).equals(joined.ownerOfSlot(slot))) {
+                Assertions.assertEquals("node-d", joined.ownerOfSlot(slot));
+            }
+        }
+        int moved = joined.movedSlotsSince(before);
+        Assertions.assertEquals(joined.slotsOwnedBy("node-d").size(), moved);
+        Assertions.assertTrue(moved > 0 && moved < 512 / 2, "moved=" + moved);
+
+        PlanAffinityDomainService.SlotAssignment left = service.assign(List.of("node-a", "node-b", "node-c"), 512, 64);
+        Assertions.assertEquals(0, left.movedSlotsSince(before));
+    }
+
+    @Test
+    public void shouldBuildOwnedAndForeignClaimScopes() {
+        PlanAffinityDomainService.SlotAssignment assignment = service.assign(List.of("node-a", "node-b"), 64, 16);
+
+        PlanAffinityScope owned = service.ownedScope(assignment, "node-a");
+        Assertions.assertEquals(64, owned.getSlotCount());
+        Assertions.assertEquals(assignment.slotsOwnedBy("node-a"), owned.getOwnedSlots());
+        Assertions.assertEquals(-1, owned.getForeignStaleSeconds());
+
+        PlanAffinityScope foreign = service.foreignScope(assignment, 10);
+        Assertions.assertTrue(foreign.getOwnedSlots().isEmpty());
+        Assertions.assertEquals(10, foreign.getForeignStaleSeconds());
+
+        PlanAffinityDomainService.SlotAssignment empty = service.assign(List.of(), 64, 16);
+        Assertions.assertNull(empty.ownerOf(1L));
+        Assertions.assertTrue(service.ownedScope(empty, "node-a").getOwnedSlots().isEmpty());
+        Assertions.assertEquals(3, service.slotOf(-61L, 64));
+    }
+}
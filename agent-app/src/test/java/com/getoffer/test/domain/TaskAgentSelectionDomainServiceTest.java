@@ -148,4 +148,30 @@ public class TaskAgentSelectionDomainServiceTest {
         Assertions.assertEquals(List.of("worker", "assistant"), result.attemptedAgentKeys());
         Assertions.assertEquals("worker,assistant", service.joinAgentKeys(result.attemptedAgentKeys()));
     }
+
+    @Test
+    public void shouldResolveHedgePolicyFromTaskBeforeAgentOptions() {
+        AgentTaskEntity task = new AgentTaskEntity();
+        task.setTaskType(TaskTypeEnum.WORKER);
+        TaskAgentSelectionDomainService.SelectionPlan selectionPlan =
+                new TaskAgentSelectionDomainService.SelectionPlan(null, null, List.of("worker", "assistant"));
+
+        Assertions.assertFalse(service.resolveHedgePolicy(task, null, selectionPlan, "worker").enabled());
+
+        TaskAgentSelectionDomainService.HedgePolicy agentLevel =
+                service.resolveHedgePolicy(task, Map.of("hedge", true), selectionPlan, "worker");
+        Assertions.assertTrue(agentLevel.enabled());
+        Assertions.assertNull(agentLevel.agentKey());
+
+        Map<String, Object> config = new HashMap<>();
+        config.put("hedge", Map.of("fallback", true));
+        task.setConfigSnapshot(config);
+        TaskAgentSelectionDomainService.HedgePolicy fallback =
+                service.resolveHedgePolicy(task, Map.of("hedge", false), selectionPlan, "worker");
+        Assertions.assertTrue(fallback.enabled());
+        Assertions.assertEquals("assistant", fallback.agentKey());
+
+        config.put("hedge", Map.of("enabled", false, "agentKey", "assistant"));
+        Assertions.assertFalse(service.resolveHedgePolicy(task, Map.of("hedge", true), selectionPlan, "worker").enabled());
+    }
 }
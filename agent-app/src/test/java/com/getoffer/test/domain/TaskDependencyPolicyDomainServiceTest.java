@@ -1,6 +1,7 @@
 package com.getoffer.test.domain;
 
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.domain.task.service.TaskDependencyGraph;
 import com.getoffer.domain.task.service.TaskDependencyPolicy;
 import com.getoffer.domain.task.service.TaskDependencyPolicyDomainService;
 import com.getoffer.types.enums.TaskStatusEnum;
@@ -108,6 +109,79 @@ public class TaskDependencyPolicyDomainServiceTest {
         Assertions.assertEquals(TaskDependencyPolicy.DependencyDecision.SATISFIED, decision);
     }
 
+    @Test
+    public void shouldTrackDependencyCountersIncrementallyInGraph() {
+        AgentTaskEntity n1 = newGraphTask("n1", TaskStatusEnum.RUNNING, List.of(), null);
+        AgentTaskEntity n2 = newGraphTask("n2", TaskStatusEnum.RUNNING, List.of(), null);
+        AgentTaskEntity n3 = newGraphTask("n3", TaskStatusEnum.PENDING, List.of(), null);
+        AgentTaskEntity join = newGraphTask("join", TaskStatusEnum.PENDING, List.of("n1", "n2", "n3"), Map.of(
+                "joinPolicy", "quorum",
+                "quorum", 2
+        ));
+        AgentTaskEntity tail = newGraphTask("tail", TaskStatusEnum.PENDING, List.of("join"), null);
+
+        TaskDependencyGraph graph = service.buildDependencyGraph(List.of(n1, n2, n3, join, tail));
+
+        Assertions.assertNotNull(graph);
+        Assertions.assertEquals(5, graph.nodeCount());
+        Assertions.assertEquals(TaskDependencyPolicy.DependencyDecision.WAITING, graph.decide("join"));
+        Assertions.assertEquals(List.of(), graph.pendingDependentsOf(List.of("n1")), "非终态节点不应触发下游评估");
+
+        Assertions.assertTrue(graph.updateStatus("n1", TaskStatusEnum.COMPLETED));
+        Assertions.assertFalse(graph.updateStatus("n1", TaskStatusEnum.COMPLETED));
+        Assertions.assertEquals(List.of("join"), graph.pendingDependentsOf(List.of("n1")));
+        Assertions.assertEquals(TaskDependencyPolicy.DependencyDecision.WAITING, graph.decide("join"));
+
+        graph.updateStatus("n2", TaskStatusEnum.COMPLETED);
+        Assertions.assertEquals(TaskDependencyPolicy.DependencyDecision.SATISFIED, graph.decide("join"));
+
+        // 依赖重试回到 RUNNING 时计数回退
+        graph.updateStatus("n2", TaskStatusEnum.RUNNING);
+        Assertions.assertEquals(TaskDependencyPolicy.DependencyDecision.WAITING, graph.decide("join"));
+
+        graph.updateStatus("n2", TaskStatusEnum.FAILED);
+        graph.updateStatus("n3", TaskStatusEnum.SKIPPED);
+        Assertions.assertEquals(TaskDependencyPolicy.DependencyDecision.BLOCKED, graph.decide("join"));
+
+        graph.updateStatus("join", TaskStatusEnum.SKIPPED);
+        Assertions.assertFalse(graph.isPending("join"));
+        Assertions.assertEquals(List.of("tail"), graph.pendingDependentsOf(List.of("join")));
+        Assertions.assertEquals(TaskDependencyPolicy.DependencyDecision.BLOCKED, graph.decide("tail"));
+        Assertions.assertEquals(List.of("n1", "n2", "n3"), graph.dependenciesOf(List.of("join")));
+    }
+
+    @Test
+    public void shouldMatchStatusMapDecisionForUnknownDependencyInGraph() {
+        AgentTaskEntity n1 = newGraphTask("n1", TaskStatusEnum.COMPLETED, List.of(), null);
+        AgentTaskEntity work = newGraphTask("work", TaskStatusEnum.PENDING, List.of("n1", "missing"), null);
+
+        TaskDependencyGraph graph = service.buildDependencyGraph(List.of(n1, work));
+
+        Map<String, TaskStatusEnum> statusByNode = new HashMap<>();
+        statusByNode.put("n1", TaskStatusEnum.COMPLETED);
+        statusByNode.put("work", TaskStatusEnum.PENDING);
+        Assertions.assertEquals(service.resolveDependencyDecision(work, statusByNode), graph.decide("work"));
+        Assertions.assertEquals(TaskDependencyPolicy.DependencyDecision.WAITING, graph.decide("work"));
+    }
+
+    @Test
+    public void shouldNotBuildGraphWhenNodeIdDuplicated() {
+        AgentTaskEntity first = newGraphTask("n1", TaskStatusEnum.PENDING, List.of(), null);
+        AgentTaskEntity second = newGraphTask("n1", TaskStatusEnum.PENDING, List.of(), null);
+
+        Assertions.assertNull(service.buildDependencyGraph(List.of(first, second)));
+    }
+
+    private AgentTaskEntity newGraphTask(String nodeId,
+                                         TaskStatusEnum status,
+                                         List<String> dependencies,
+                                         Map<String, Object> graphPolicy) {
+        AgentTaskEntity task = newTask(dependencies, graphPolicy);
+        task.setNodeId(nodeId);
+        task.setStatus(status);
+        return task;
+    }
+
     private AgentTaskEntity newTask(List<String> dependencies,
                                     Map<String, Object> graphPolicy) {
         AgentTaskEntity task = new AgentTaskEntity();
@@ -0,0 +1,198 @@
+package com.getoffer.test.domain;
+
+import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.domain.task.service.TaskDispatchDomainService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TaskDispatchDomainServiceTest {
+
+    private final TaskDispatchDomainService service = new TaskDispatchDomainService();
+
+    private final TaskDispatchDomainService.AdaptiveClaimPolicy policy =
+            new TaskDispatchDomainService.AdaptiveClaimPolicy(1, 100, 200L, 5000L, 10, 0.5D, 2000L, 0.2D);
+
+    @Test
+    public void shouldGrowLimitAdditivelyWhenClaimSaturated() {
+        TaskDispatchDomainService.AdaptiveClaimState state = service.adaptClaim(
+                new TaskDispatchDomainService.AdaptiveClaimState(20, 800L, "steady"),
+                new TaskDispatchDomainService.ClaimFeedback(20, 20, 0, 0, 100D),
+                policy);
+
+        Assertions.assertEquals(30, state.claimLimit());
+        Assertions.assertEquals(200L, state.pollDelayMs());
+        Assertions.assertEquals("saturated_claim", state.reason());
+    }
+
+    @Test
+    public void shouldHalveLimitWhenWorkerBacklogOrLatencyExceeded() {
+        TaskDispatchDomainService.AdaptiveClaimState backlog = service.adaptClaim(
+                new TaskDispatchDomainService.AdaptiveClaimState(40, 200L, "steady"),
+                new TaskDispatchDomainService.ClaimFeedback(40, 40, 0, 3, 100D),
+                policy);
+        Assertions.assertEquals(20, backlog.claimLimit());
+        Assertions.assertEquals("worker_backlog", backlog.reason());
+
+        TaskDispatchDomainService.AdaptiveClaimState latency = service.adaptClaim(
+                new TaskDispatchDomainService.AdaptiveClaimState(40, 200L, "steady"),
+                new TaskDispatchDomainService.ClaimFeedback(10, 5, 0, 0, 3500D),
+                policy);
+        Assertions.assertEquals(20, latency.claimLimit());
+        Assertions.assertEquals("claim_to_start_latency", latency.reason());
+
+        TaskDispatchDomainService.AdaptiveClaimState reclaim = service.adaptClaim(
+                new TaskDispatchDomainService.AdaptiveClaimState(40, 200L, "steady"),
+                new TaskDispatchDomainService.ClaimFeedback(10, 10, 5, 0, 100D),
+                policy);
+        Assertions.assertEquals(20, reclaim.claimLimit());
+        Assertions.assertEquals("lease_reclaim", reclaim.reason());
+    }
+
+    @Test
+    public void shouldBackOffPollDelayOnEmptyPollUpToMax() {
+        TaskDispatchDomainService.AdaptiveClaimState state =
+                new TaskDispatchDomainService.AdaptiveClaimState(10, 200L, "steady");
+        for (int i = 0; i < 10; i++) {
+            state = service.adaptClaim(state, new TaskDispatchDomainService.ClaimFeedback(10, 0, 0, 0, 0D), policy);
+        }
+
+        Assertions.assertEquals(5000L, state.pollDelayMs());
+        Assertions.assertEquals(10, state.claimLimit());
+        Assertions.assertEquals("empty_poll", state.reason());
+    }
+
+    @Test
+    public void shouldKeepLimitWithinPolicyBounds() {
+        TaskDispatchDomainService.AdaptiveClaimState state = service.adaptClaim(
+                new TaskDispatchDomainService.AdaptiveClaimState(1, 200L, "steady"),
+                new TaskDispatchDomainService.ClaimFeedback(1, 1, 0, 5, 100D),
+                policy);
+        Assertions.assertEquals(1, state.claimLimit());
+
+        state = service.adaptClaim(
+                new TaskDispatchDomainService.AdaptiveClaimState(95, 200L, "steady"),
+                new TaskDispatchDomainService.ClaimFeedback(95, 95, 0, 0, 100D),
+                policy);
+        Assertions.assertEquals(100, state.claimLimit());
+    }
+
+    @Test
+    public void shouldShrinkModelLimitWhenLatencyRisesAboveBaseline() {
+        TaskDispatchDomainService.ConcurrencyLimitPolicy limitPolicy =
+                new TaskDispatchDomainService.ConcurrencyLimitPolicy(1, 32, 1.5D, 1D, 0.9D, 100);
+        TaskDispatchDomainService.ConcurrencyLimitState state = service.adaptConcurrencyLimit(
+                new TaskDispatchDomainService.ConcurrencyLimitState(16D, 1000D),
+                new TaskDispatchDomainService.ConcurrencySample(6000L, 16, false),
+                limitPolicy);
+
+        Assertions.assertTrue(state.limit() < 16D, "RTT 明显高于基线时上限应收缩");
+        Assertions.assertTrue(state.longRttMs() > 1000D);
+    }
+
+    @Test
+    public void shouldGrowModelLimitWhenSaturatedAndLatencyStable() {
+        TaskDispatchDomainService.ConcurrencyLimitPolicy limitPolicy =
+                new TaskDispatchDomainService.ConcurrencyLimitPolicy(1, 32, 1.5D, 1D, 0.9D, 100);
+        TaskDispatchDomainService.ConcurrencyLimitState state = service.adaptConcurrencyLimit(
+                new TaskDispatchDomainService.ConcurrencyLimitState(4D, 1000D),
+                new TaskDispatchDomainService.ConcurrencySample(1000L, 4, false),
+                limitPolicy);
+
+        Assertions.assertEquals(6D, state.limit(), 0.0001D);
+    }
+
+    @Test
+    public void shouldBackOffModelLimitOnDropAndHoldWhenAppLimited() {
+        TaskDispatchDomainService.ConcurrencyLimitPolicy limitPolicy =
+                new TaskDispatchDomainService.ConcurrencyLimitPolicy(1, 32, 1.5D, 1D, 0.9D, 100);
+        TaskDispatchDomainService.ConcurrencyLimitState dropped = service.adaptConcurrencyLimit(
+                new TaskDispatchDomainService.ConcurrencyLimitState(10D, 1000D),
+                new TaskDispatchDomainService.ConcurrencySample(120000L, 10, true),
+                limitPolicy);
+        Assertions.assertEquals(9D, dropped.limit(), 0.0001D);
+        Assertions.assertEquals(1000D, dropped.longRttMs(), 0.0001D);
+
+        TaskDispatchDomainService.ConcurrencyLimitState appLimited = service.adaptConcurrencyLimit(
+                new TaskDispatchDomainService.ConcurrencyLimitState(10D, 1000D),
+                new TaskDispatchDomainService.ConcurrencySample(1000L, 2, false),
+                limitPolicy);
+        Assertions.assertEquals(10D, appLimited.limit(), 0.0001D);
+    }
+
+    @Test
+    public void shouldReserveRateBudgetAndReportWaitWhenTokensExhausted() {
+        TaskDispatchDomainService.RateBudgetPolicy ratePolicy =
+                new TaskDispatchDomainService.RateBudgetPolicy(60, 6000L);
+        TaskDispatchDomainService.RateBudgetDecision granted = service.reserveRateBudget(
+                null, ratePolicy, 5000L, 0L);
+        Assertions.assertTrue(granted.granted());
+        Assertions.assertEquals(59D, granted.state().requestBudget(), 0.0001D);
+        Assertions.assertEquals(1000D, granted.state().tokenBudget(), 0.0001D);
+
+        TaskDispatchDomainService.RateBudgetDecision deferred = service.reserveRateBudget(
+                granted.state(), ratePolicy, 2000L, 0L);
+        Assertions.assertFalse(deferred.granted());
+        Assertions.assertEquals(10000L, deferred.waitMs());
+        Assertions.assertEquals(1000D, deferred.state().tokenBudget(), 0.0001D);
+
+        TaskDispatchDomainService.RateBudgetDecision refilled = service.reserveRateBudget(
+                deferred.state(), ratePolicy, 2000L, 10000L);
+        Assertions.assertTrue(refilled.granted());
+    }
+
+    @Test
+    public void shouldReconcileRateBudgetWithActualUsage() {
+        TaskDispatchDomainService.RateBudgetPolicy ratePolicy =
+                new TaskDispatchDomainService.RateBudgetPolicy(0, 6000L);
+        TaskDispatchDomainService.RateBudgetState state =
+                new TaskDispatchDomainService.RateBudgetState(0D, 1000D, 0L);
+
+        TaskDispatchDomainService.RateBudgetState refunded = service.reconcileRateBudget(state, ratePolicy, 3000L, 1200L);
+        Assertions.assertEquals(2800D, refunded.tokenBudget(), 0.0001D);
+
+        TaskDispatchDomainService.RateBudgetState overdrawn = service.reconcileRateBudget(state, ratePolicy, 1000L, 4000L);
+        Assertions.assertEquals(-2000D, overdrawn.tokenBudget(), 0.0001D);
+    }
+
+    @Test
+    public void shouldComputeRemainingCriticalPathFromSinks() {
+        List<AgentTaskEntity> tasks = List.of(
+                task("a"),
+                task("b", "a"),
+                task("c", "a"),
+                task("d", "b", "missing"));
+
+        Map<String, Long> criticalPath = service.computeRemainingCriticalPath(
+                tasks, Map.of("a", 10L, "b", 100L, "c", 500L), 20L);
+
+        Assertions.assertEquals(20L, criticalPath.get("d"));
+        Assertions.assertEquals(120L, criticalPath.get("b"));
+        Assertions.assertEquals(500L, criticalPath.get("c"));
+        Assertions.assertEquals(510L, criticalPath.get("a"));
+    }
+
+    @Test
+    public void shouldKeepPartialCriticalPathForCyclicNodes() {
+        List<AgentTaskEntity> tasks = List.of(
+                task("x", "y"),
+                task("y", "x"),
+                task("z", "x"));
+
+        Map<String, Long> criticalPath = service.computeRemainingCriticalPath(tasks, Map.of(), 5L);
+
+        Assertions.assertEquals(3, criticalPath.size());
+        Assertions.assertEquals(5L, criticalPath.get("z"));
+        Assertions.assertEquals(5L, criticalPath.get("y"));
+        Assertions.assertTrue(criticalPath.get("x") >= 10L);
+    }
+
+    private AgentTaskEntity task(String nodeId, String... dependencies) {
+        AgentTaskEntity task = new AgentTaskEntity();
+        task.setNodeId(nodeId);
+        task.setDependencyNodeIds(List.of(dependencies));
+        return task;
+    }
+}
@@ -67,7 +67,7 @@ public abstract class PostgresIntegrationTestSupport {
 
     @BeforeEach
     void truncateTables() {
-        jdbcTemplate.execute("TRUNCATE TABLE quality_evaluation_events, plan_task_events, task_executions, task_share_links, session_messages, session_turns, agent_tasks, agent_plans, routing_decisions, workflow_drafts, workflow_definitions, agent_sessions RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("TRUNCATE TABLE quality_evaluation_events, plan_task_events, task_executions, task_share_links, session_messages, session_turns, plan_task_counters, task_status_archive_counters, agent_tasks, agent_plans, routing_decisions, workflow_drafts, workflow_definitions, agent_sessions RESTART IDENTITY CASCADE");
     }
 
     private static PostgreSQLContainer<?> createPostgresContainer() {
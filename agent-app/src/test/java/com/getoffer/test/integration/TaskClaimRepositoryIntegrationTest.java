@@ -4,6 +4,7 @@ import com.getoffer.domain.planning.adapter.repository.IAgentPlanRepository;
 import com.getoffer.domain.planning.model.entity.AgentPlanEntity;
 import com.getoffer.domain.task.adapter.repository.IAgentTaskRepository;
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.domain.task.model.valobj.PlanTaskStatusStat;
 import com.getoffer.Application;
 import com.getoffer.types.enums.PlanStatusEnum;
 import com.getoffer.types.enums.TaskStatusEnum;
@@ -18,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -133,6 +135,87 @@ public class TaskClaimRepositoryIntegrationTest extends PostgresIntegrationTestS
         Assertions.assertNull(stored.getClaimOwner(), "终态回写后 claim_owner 应清空");
     }
 
+    @Test
+    public void shouldBatchRenewLeasesAndReportGuardRejectedIds() {
+        AgentPlanEntity plan = savePlan(PlanStatusEnum.READY);
+        saveTask(plan.getId(), "node-renew-1", TaskStatusEnum.READY);
+        saveTask(plan.getId(), "node-renew-2", TaskStatusEnum.READY);
+
+        List<AgentTaskEntity> claimed = agentTaskRepository.claimReadyLikeTasks("owner-A", 2, 30);
+        Assertions.assertEquals(2, claimed.size());
+        AgentTaskEntity kept = claimed.get(0);
+        AgentTaskEntity lost = claimed.get(1);
+
+        jdbcTemplate.update(
+                "UPDATE agent_tasks SET lease_until = CURRENT_TIMESTAMP - INTERVAL '10 seconds' WHERE id = ?",
+                lost.getId()
+        );
+        List<AgentTaskEntity> reclaimed = agentTaskRepository.claimReadyLikeTasks("owner-B", 1, 30);
+        Assertions.assertEquals(1, reclaimed.size(), "lease 过期任务应被其他 owner 重领");
+
+        Map<Long, Integer> leases = new LinkedHashMap<>();
+        leases.put(kept.getId(), kept.getExecutionAttempt());
+        leases.put(lost.getId(), lost.getExecutionAttempt());
+        List<Long> renewed = agentTaskRepository.renewClaimLeases("owner-A", leases, 60);
+
+        Assertions.assertEquals(List.of(kept.getId()), renewed, "仅当前 owner + attempt 的 lease 应续约成功");
+    }
+
+    @Test
+    public void shouldReleaseClaimsBackToQueueOnlyForCurrentOwnerAndAttempt() {
+        AgentPlanEntity plan = savePlan(PlanStatusEnum.READY);
+        saveTask(plan.getId(), "node-release-1", TaskStatusEnum.READY);
+        saveTask(plan.getId(), "node-release-2", TaskStatusEnum.READY);
+
+        List<AgentTaskEntity> claimed = agentTaskRepository.claimReadyLikeTasks("owner-A", 2, 30);
+        Assertions.assertEquals(2, claimed.size());
+        AgentTaskEntity released = claimed.get(0);
+        AgentTaskEntity stale = claimed.get(1);
+
+        Map<Long, Integer> leases = new LinkedHashMap<>();
+        leases.put(released.getId(), released.getExecutionAttempt());
+        leases.put(stale.getId(), stale.getExecutionAttempt() - 1);
+        List<Long> releasedIds = agentTaskRepository.releaseClaims("owner-A", leases);
+
+        Assertions.assertEquals(List.of(released.getId()), releasedIds, "仅当前 owner + attempt 的 claim 应被归还");
+        AgentTaskEntity storedReleased = agentTaskRepository.findById(released.getId());
+        Assertions.assertEquals(TaskStatusEnum.READY, storedReleased.getStatus());
+        Assertions.assertNull(storedReleased.getClaimOwner(), "归还后 claim_owner 应清空");
+        Assertions.assertEquals(TaskStatusEnum.RUNNING, agentTaskRepository.findById(stale.getId()).getStatus());
+
+        released.setStatus(TaskStatusEnum.COMPLETED);
+        Assertions.assertFalse(agentTaskRepository.updateClaimedTaskState(released), "归还后旧执行者回写应被守卫拒绝");
+    }
+
+    @Test
+    public void shouldPromoteAndSkipAllJoinTasksInSetAndLeaveOtherPoliciesForEvaluation() {
+        AgentPlanEntity plan = savePlan(PlanStatusEnum.READY);
+        saveTask(plan.getId(), "node-done", TaskStatusEnum.COMPLETED);
+        saveTask(plan.getId(), "node-failed", TaskStatusEnum.FAILED);
+        AgentTaskEntity promoted = saveDependentTask(plan.getId(), "node-next", List.of("node-done"), new HashMap<>());
+        AgentTaskEntity blocked = saveDependentTask(plan.getId(), "node-blocked", List.of("node-failed"), new HashMap<>());
+        AgentTaskEntity cascaded = saveDependentTask(plan.getId(), "node-cascaded", List.of("node-blocked"), new HashMap<>());
+        AgentTaskEntity anyJoin = saveDependentTask(plan.getId(), "node-any", List.of("node-done", "node-next"),
+                new HashMap<>(Map.of("graphPolicy", Map.of("joinPolicy", "ANY"))));
+
+        List<Long> promotedPlanIds = agentTaskRepository.promoteSatisfiedAllJoinTasks();
+        List<Long> firstSkip = agentTaskRepository.skipBlockedAllJoinTasks();
+        List<Long> secondSkip = agentTaskRepository.skipBlockedAllJoinTasks();
+
+        Assertions.assertEquals(List.of(plan.getId()), promotedPlanIds);
+        Assertions.assertEquals(List.of(plan.getId()), firstSkip);
+        Assertions.assertEquals(List.of(plan.getId()), secondSkip, "跳过应逐轮向下游传播");
+        Assertions.assertEquals(TaskStatusEnum.READY, agentTaskRepository.findById(promoted.getId()).getStatus());
+        Assertions.assertEquals(TaskStatusEnum.SKIPPED, agentTaskRepository.findById(blocked.getId()).getStatus());
+        Assertions.assertEquals(TaskStatusEnum.SKIPPED, agentTaskRepository.findById(cascaded.getId()).getStatus());
+        Assertions.assertEquals(TaskStatusEnum.PENDING, agentTaskRepository.findById(anyJoin.getId()).getStatus(),
+                "any join 不应由集合式 SQL 推进");
+
+        List<AgentTaskEntity> policyTasks = agentTaskRepository.findPendingTasksForPolicyEvaluation();
+        Assertions.assertEquals(List.of(anyJoin.getId()),
+                policyTasks.stream().map(AgentTaskEntity::getId).toList());
+    }
+
     @Test
     public void shouldNotClaimTasksWhenPlanIsPaused() {
         AgentPlanEntity plan = savePlan(PlanStatusEnum.PAUSED);
@@ -145,8 +228,100 @@ public class TaskClaimRepositoryIntegrationTest extends PostgresIntegrationTestS
         Assertions.assertEquals(TaskStatusEnum.READY, stored.getStatus());
     }
 
+    @Test
+    public void shouldInterleaveClaimsAcrossUsersInsteadOfDrainingOldestPlan() {
+        AgentPlanEntity widePlan = savePlan(PlanStatusEnum.READY, "it-user-a", 0);
+        for (int i = 0; i < 10; i++) {
+            saveTask(widePlan.getId(), "node-wide-" + i, TaskStatusEnum.READY);
+        }
+        AgentPlanEntity newPlan = savePlan(PlanStatusEnum.READY, "it-user-b", 0);
+        saveTask(newPlan.getId(), "node-new-0", TaskStatusEnum.READY);
+        saveTask(newPlan.getId(), "node-new-1", TaskStatusEnum.READY);
+
+        List<AgentTaskEntity> claimed = agentTaskRepository.claimReadyLikeTasks("owner-A", 4, 30);
+
+        Map<Long, Integer> claimsByPlan = countByPlan(claimed);
+        Assertions.assertEquals(4, claimed.size());
+        Assertions.assertEquals(2, claimsByPlan.getOrDefault(widePlan.getId(), 0), "老 plan 不应独占本轮 claim");
+        Assertions.assertEquals(2, claimsByPlan.getOrDefault(newPlan.getId(), 0), "新用户的 plan 应在同一轮获得 claim");
+    }
+
+    @Test
+    public void shouldGiveHigherPriorityPlanLargerClaimShare() {
+        AgentPlanEntity lowPlan = savePlan(PlanStatusEnum.READY, "it-user", 0);
+        for (int i = 0; i < 4; i++) {
+            saveTask(lowPlan.getId(), "node-low-" + i, TaskStatusEnum.READY);
+        }
+        AgentPlanEntity highPlan = savePlan(PlanStatusEnum.READY, "it-user", 1);
+        for (int i = 0; i < 4; i++) {
+            saveTask(highPlan.getId(), "node-high-" + i, TaskStatusEnum.READY);
+        }
+
+        List<AgentTaskEntity> claimed = agentTaskRepository.claimReadyLikeTasks("owner-A", 3, 30);
+
+        Map<Long, Integer> claimsByPlan = countByPlan(claimed);
+        Assertions.assertEquals(2, claimsByPlan.getOrDefault(highPlan.getId(), 0), "priority=1 的 plan 权重为 2");
+        Assertions.assertEquals(1, claimsByPlan.getOrDefault(lowPlan.getId(), 0));
+    }
+
+    @Test
+    public void shouldMaintainPlanTaskCountersOnStatusChangesOnly() {
+        AgentPlanEntity plan = savePlan(PlanStatusEnum.READY);
+        saveTask(plan.getId(), "node-counter-0", TaskStatusEnum.READY);
+        saveTask(plan.getId(), "node-counter-1", TaskStatusEnum.READY);
+        saveTask(plan.getId(), "node-counter-2", TaskStatusEnum.READY);
+        Assertions.assertEquals(3L, counterOf(plan.getId(), TaskStatusEnum.READY));
+
+        List<AgentTaskEntity> claimed = agentTaskRepository.claimReadyLikeTasks("owner-A", 2, 30);
+        Assertions.assertEquals(2, claimed.size());
+        Assertions.assertEquals(1L, counterOf(plan.getId(), TaskStatusEnum.READY));
+        Assertions.assertEquals(2L, counterOf(plan.getId(), TaskStatusEnum.RUNNING));
+
+        Object runningCounterUpdatedAt = jdbcTemplate.queryForObject(
+                "SELECT updated_at FROM plan_task_counters WHERE plan_id = ? AND status = 'RUNNING'::task_status_enum",
+                Object.class, plan.getId());
+        AgentTaskEntity running = claimed.get(0);
+        Assertions.assertTrue(agentTaskRepository.renewClaimLease(
+                running.getId(), "owner-A", running.getExecutionAttempt(), 60));
+        Assertions.assertEquals(runningCounterUpdatedAt, jdbcTemplate.queryForObject(
+                "SELECT updated_at FROM plan_task_counters WHERE plan_id = ? AND status = 'RUNNING'::task_status_enum",
+                Object.class, plan.getId()), "lease 续约不改变状态，不应写计数");
+
+        List<AgentTaskEntity> remaining = agentTaskRepository.findByPlanIdAndStatus(plan.getId(), TaskStatusEnum.READY);
+        Assertions.assertEquals(1, remaining.size());
+        Assertions.assertTrue(agentTaskRepository.deleteById(remaining.get(0).getId()));
+        Assertions.assertEquals(0L, counterOf(plan.getId(), TaskStatusEnum.READY));
+
+        List<PlanTaskStatusStat> stats = agentTaskRepository.summarizeByPlanIds(List.of(plan.getId()));
+        Assertions.assertEquals(1, stats.size());
+        Assertions.assertEquals(2L, stats.get(0).getTotal());
+        Assertions.assertEquals(2L, stats.get(0).getRunningLikeCount());
+        Assertions.assertEquals(0L, stats.get(0).getTerminalCount());
+        Assertions.assertEquals(Map.of(TaskStatusEnum.RUNNING, 2L), agentTaskRepository.countGroupByStatus());
+    }
+
+    @Test
+    public void shouldArchiveCountersOfFinishedPlansWithoutChangingTotals() {
+        AgentPlanEntity finished = savePlan(PlanStatusEnum.COMPLETED);
+        saveTask(finished.getId(), "node-archive-0", TaskStatusEnum.COMPLETED);
+        saveTask(finished.getId(), "node-archive-1", TaskStatusEnum.SKIPPED);
+        AgentPlanEntity active = savePlan(PlanStatusEnum.RUNNING);
+        saveTask(active.getId(), "node-active-0", TaskStatusEnum.READY);
+        Map<TaskStatusEnum, Long> before = agentTaskRepository.countGroupByStatus();
+
+        Assertions.assertEquals(1, agentTaskRepository.archiveFinishedPlanCounters(0, 100));
+        Assertions.assertEquals(0L, counterOf(finished.getId(), TaskStatusEnum.COMPLETED));
+        Assertions.assertEquals(1L, counterOf(active.getId(), TaskStatusEnum.READY));
+        Assertions.assertEquals(before, agentTaskRepository.countGroupByStatus());
+        Assertions.assertEquals(0, agentTaskRepository.archiveFinishedPlanCounters(0, 100));
+    }
+
     private AgentPlanEntity savePlan(PlanStatusEnum status) {
-        Long sessionId = saveSession();
+        return savePlan(status, "it-user", 0);
+    }
+
+    private AgentPlanEntity savePlan(PlanStatusEnum status, String userId, int priority) {
+        Long sessionId = saveSession(userId);
         Long routeDecisionId = saveRoutingDecision(sessionId);
         AgentPlanEntity plan = new AgentPlanEntity();
         plan.setSessionId(sessionId);
@@ -156,11 +331,31 @@ public class TaskClaimRepositoryIntegrationTest extends PostgresIntegrationTestS
         plan.setDefinitionSnapshot(Collections.singletonMap("routeType", "IT_TEST"));
         plan.setGlobalContext(new HashMap<>());
         plan.setStatus(status);
-        plan.setPriority(0);
+        plan.setPriority(priority);
         plan.setVersion(0);
         return agentPlanRepository.save(plan);
     }
 
+    private AgentTaskEntity saveDependentTask(Long planId,
+                                              String nodeId,
+                                              List<String> dependencies,
+                                              Map<String, Object> configSnapshot) {
+        AgentTaskEntity task = new AgentTaskEntity();
+        task.setPlanId(planId);
+        task.setNodeId(nodeId);
+        task.setName(nodeId);
+        task.setTaskType(TaskTypeEnum.WORKER);
+        task.setStatus(TaskStatusEnum.PENDING);
+        task.setDependencyNodeIds(new ArrayList<>(dependencies));
+        task.setInputContext(new HashMap<>());
+        task.setConfigSnapshot(configSnapshot);
+        task.setMaxRetries(3);
+        task.setCurrentRetry(0);
+        task.setExecutionAttempt(0);
+        task.setVersion(0);
+        return agentTaskRepository.save(task);
+    }
+
     private AgentTaskEntity saveTask(Long planId, String nodeId, TaskStatusEnum status) {
         AgentTaskEntity task = new AgentTaskEntity();
         task.setPlanId(planId);
@@ -178,12 +373,19 @@ public class TaskClaimRepositoryIntegrationTest extends PostgresIntegrationTestS
         return agentTaskRepository.save(task);
     }
 
-    private Long saveSession() {
+    private long counterOf(Long planId, TaskStatusEnum status) {
+        List<Long> counts = jdbcTemplate.queryForList(
+                "SELECT task_count FROM plan_task_counters WHERE plan_id = ? AND status = ?::task_status_enum",
+                Long.class, planId, status.name());
+        return counts.isEmpty() ? 0L : counts.get(0);
+    }
+
+    private Long saveSession(String userId) {
         return jdbcTemplate.queryForObject(
                 "INSERT INTO agent_sessions (user_id, title, agent_key, scenario, is_active, meta_info) " +
                         "VALUES (?, ?, ?, ?, TRUE, '{}'::jsonb) RETURNING id",
                 Long.class,
-                "it-user",
+                userId,
                 "it-session",
                 "assistant",
                 "integration"
@@ -199,6 +401,14 @@ public class TaskClaimRepositoryIntegrationTest extends PostgresIntegrationTestS
         );
     }
 
+    private Map<Long, Integer> countByPlan(List<AgentTaskEntity> tasks) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (AgentTaskEntity task : safeList(tasks)) {
+            counts.merge(task.getPlanId(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
     private Set<Long> toIdSet(List<AgentTaskEntity> tasks) {
         Set<Long> ids = new HashSet<>();
         for (AgentTaskEntity task : tasks) {
@@ -0,0 +1,64 @@
+package com.getoffer.trigger.job;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TaskCallHedgerTest {
+
+    @Test
+    public void shouldOnlyHedgeAfterEnoughLatencySamples() {
+        TaskCallHedger hedger = new TaskCallHedger(true, 0.9D, 10, 0L, 4, new SimpleMeterRegistry());
+        Assertions.assertEquals(-1L, hedger.hedgeDelayMs("openai:gpt-4o"));
+
+        for (int i = 1; i <= 10; i++) {
+            hedger.recordLatency("openai:gpt-4o", i * 100L);
+        }
+
+        Assertions.assertEquals(900L, hedger.hedgeDelayMs("openai:gpt-4o"));
+        Assertions.assertEquals(-1L, hedger.hedgeDelayMs("deepseek:deepseek-chat"));
+    }
+
+    @Test
+    public void shouldTakeHedgedResponseWhenPrimaryStalls() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TaskCallHedger hedger = new TaskCallHedger(true, 0.95D, 1, 0L, 4, meterRegistry);
+        ChatResponse hedged = response("hedged");
+
+        ChatResponse result = hedger.hedge("openai:gpt-4o", 10L, Mono.never(), () -> Mono.just(hedged))
+                .block(Duration.ofSeconds(2));
+
+        Assertions.assertSame(hedged, result);
+        Assertions.assertEquals(1D, meterRegistry.counter("agent.task.hedge.fired.total", "model", "openai:gpt-4o").count());
+        Assertions.assertEquals(1D, meterRegistry.counter("agent.task.hedge.win.total", "model", "openai:gpt-4o").count());
+    }
+
+    @Test
+    public void shouldNotFireHedgeWhenPrimaryReturnsBeforeDelay() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TaskCallHedger hedger = new TaskCallHedger(true, 0.95D, 1, 0L, 4, meterRegistry);
+        ChatResponse primary = response("primary");
+        AtomicBoolean hedgeInvoked = new AtomicBoolean(false);
+
+        ChatResponse result = hedger.hedge("openai:gpt-4o", 5_000L, Mono.just(primary), () -> {
+            hedgeInvoked.set(true);
+            return Mono.just(response("hedged"));
+        }).block(Duration.ofSeconds(2));
+
+        Assertions.assertSame(primary, result);
+        Assertions.assertFalse(hedgeInvoked.get());
+        Assertions.assertEquals(0D, meterRegistry.counter("agent.task.hedge.win.total", "model", "openai:gpt-4o").count());
+    }
+
+    private ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+}
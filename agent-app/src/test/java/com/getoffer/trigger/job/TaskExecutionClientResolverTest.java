@@ -2,6 +2,7 @@ package com.getoffer.trigger.job;
 
 import com.getoffer.domain.agent.adapter.factory.IAgentFactory;
 import com.getoffer.domain.agent.adapter.repository.IAgentRegistryRepository;
+import com.getoffer.domain.agent.model.entity.AgentRegistryEntity;
 import com.getoffer.domain.planning.model.entity.AgentPlanEntity;
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
 import com.getoffer.domain.task.service.TaskAgentSelectionDomainService;
@@ -85,4 +86,65 @@ public class TaskExecutionClientResolverTest {
         Assertions.assertEquals("allow_hit", eventDataCaptor.getValue().get("policyAction"));
         Assertions.assertEquals("allowlist", eventDataCaptor.getValue().get("policyMode"));
     }
+
+    @Test
+    public void shouldOnlyRegisterHedgeTargetForSideEffectFreeAgents() {
+        IAgentFactory agentFactory = mock(IAgentFactory.class);
+        IAgentRegistryRepository agentRegistryRepository = mock(IAgentRegistryRepository.class);
+        TaskExecutionClientResolver resolver = new TaskExecutionClientResolver(
+                agentFactory,
+                agentRegistryRepository,
+                new TaskAgentSelectionDomainService(),
+                List.of("assistant"),
+                List.of("assistant"),
+                10_000L,
+                null
+        );
+
+        AgentRegistryEntity statelessAgent = hedgeEnabledAgent("assistant");
+        AgentRegistryEntity memoryAgent = hedgeEnabledAgent("memory_assistant");
+        when(agentRegistryRepository.findByKey("assistant")).thenReturn(statelessAgent);
+        when(agentRegistryRepository.findByKey("memory_assistant")).thenReturn(memoryAgent);
+        when(agentFactory.hasCallSideEffects(statelessAgent)).thenReturn(false);
+        when(agentFactory.hasCallSideEffects(memoryAgent)).thenReturn(true);
+
+        ChatClient statelessClient = mock(ChatClient.class);
+        ChatClient memoryClient = mock(ChatClient.class);
+        when(agentFactory.createAgent(eq("assistant"), anyString(), anyString(), anyMap())).thenReturn(statelessClient);
+        when(agentFactory.createAgent(eq("memory_assistant"), anyString(), anyString(), anyMap())).thenReturn(memoryClient);
+
+        AgentPlanEntity plan = new AgentPlanEntity();
+        plan.setId(9L);
+
+        Assertions.assertSame(statelessClient, resolver.resolveTaskClient(workerTask(201L, "assistant"), plan, ""));
+        Assertions.assertSame(memoryClient, resolver.resolveTaskClient(workerTask(202L, "memory_assistant"), plan, ""));
+
+        TaskExecutionClientResolver.HedgeTarget statelessTarget = resolver.hedgeTargetOf(statelessClient);
+        Assertions.assertNotNull(statelessTarget);
+        Assertions.assertEquals("openai:gpt-4o", statelessTarget.modelKey());
+        Assertions.assertNull(resolver.hedgeTargetOf(memoryClient));
+    }
+
+    private AgentRegistryEntity hedgeEnabledAgent(String key) {
+        AgentRegistryEntity agent = new AgentRegistryEntity();
+        agent.setKey(key);
+        agent.setModelProvider("openai");
+        agent.setModelName("gpt-4o");
+        Map<String, Object> modelOptions = new HashMap<>();
+        modelOptions.put("hedge", true);
+        agent.setModelOptions(modelOptions);
+        return agent;
+    }
+
+    private AgentTaskEntity workerTask(Long taskId, String agentKey) {
+        AgentTaskEntity task = new AgentTaskEntity();
+        task.setId(taskId);
+        task.setPlanId(9L);
+        task.setNodeId("node-" + taskId);
+        task.setTaskType(TaskTypeEnum.WORKER);
+        Map<String, Object> config = new HashMap<>();
+        config.put("agentKey", agentKey);
+        task.setConfigSnapshot(config);
+        return task;
+    }
 }
@@ -121,4 +121,15 @@ public interface IAgentFactory {
                                    Map<String, Object> toolPolicy) {
         return createAgent(agent, conversationId, systemPromptSuffix);
     }
+
+    /**
+     * 判断该 Agent 的一次调用是否带副作用（写入会话记忆或可调用工具）。
+     * 带副作用的调用不能重复发送（例如对冲请求），默认按带副作用处理。
+     *
+     * @param agent Agent实体对象
+     * @return 带副作用时返回 true
+     */
+    default boolean hasCallSideEffects(AgentRegistryEntity agent) {
+        return true;
+    }
 }
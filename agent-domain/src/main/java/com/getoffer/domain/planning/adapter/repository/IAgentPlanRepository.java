@@ -3,9 +3,14 @@ package com.getoffer.domain.planning.adapter.repository;
 import com.getoffer.domain.planning.model.entity.AgentPlanEntity;
 import com.getoffer.types.enums.PlanStatusEnum;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -37,6 +42,14 @@ public interface IAgentPlanRepository {
      */
     AgentPlanEntity findById(Long id);
 
+    /**
+     * 只查询计划的乐观锁版本号，供本地缓存校验；计划不存在时返回 null。
+     */
+    default Integer findVersionById(Long id) {
+        AgentPlanEntity plan = id == null ? null : findById(id);
+        return plan == null ? null : plan.getVersion();
+    }
+
     /**
      * 根据会话 ID 查询
      */
@@ -53,9 +66,23 @@ public interface IAgentPlanRepository {
     List<AgentPlanEntity> findByStatusAndPriority(PlanStatusEnum status);
 
     /**
-     * 按状态分页查询。
+     * 按状态做 ID 游标（keyset）分页：返回 id &gt; afterId 的至多 limit 个计划，按 id 升序。
+     * 翻页代价与已扫描的页数无关，供守护进程全量扫描使用。
      */
-    List<AgentPlanEntity> findByStatusPaged(PlanStatusEnum status, int offset, int limit);
+    default List<AgentPlanEntity> findByStatusAfterId(PlanStatusEnum status, long afterId, int limit) {
+        if (status == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<AgentPlanEntity> plans = findByStatus(status);
+        if (plans == null || plans.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return plans.stream()
+                .filter(plan -> plan != null && plan.getId() != null && plan.getId() > afterId)
+                .sorted(Comparator.comparing(AgentPlanEntity::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
 
     /**
      * 查询所有计划
@@ -81,6 +108,20 @@ public interface IAgentPlanRepository {
         return plans == null ? 0L : plans.size();
     }
 
+    /**
+     * 一次性按状态分组统计计划数量，数量为 0 的状态不返回。
+     */
+    default Map<PlanStatusEnum, Long> countGroupByStatus() {
+        Map<PlanStatusEnum, Long> counts = new EnumMap<>(PlanStatusEnum.class);
+        for (PlanStatusEnum status : PlanStatusEnum.values()) {
+            long count = countByStatus(status);
+            if (count > 0L) {
+                counts.put(status, count);
+            }
+        }
+        return counts;
+    }
+
     /**
      * 查询最近更新计划。
      */
@@ -110,4 +151,37 @@ public interface IAgentPlanRepository {
      * 查询可执行的计划
      */
     List<AgentPlanEntity> findExecutablePlans();
+
+    /**
+     * 按 ID 批量查询计划，不存在的 ID 忽略。
+     */
+    default List<AgentPlanEntity> findByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<AgentPlanEntity> plans = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            AgentPlanEntity plan = id == null ? null : findById(id);
+            if (plan != null) {
+                plans.add(plan);
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * 持久化 plan 状态脏标记（已存在则忽略），供任一实例的状态同步领取；返回是否已持久化。
+     * 默认不支持持久化，调用方应在本实例内直接处理。
+     */
+    default boolean markStatusDirty(Collection<Long> planIds) {
+        return false;
+    }
+
+    /**
+     * 领取并删除至多 limit 个脏标记，返回对应计划；并发实例之间互不重复（SKIP LOCKED）。
+     * 默认无持久化脏标记。
+     */
+    default List<AgentPlanEntity> claimStatusDirtyPlans(int limit) {
+        return Collections.emptyList();
+    }
 }
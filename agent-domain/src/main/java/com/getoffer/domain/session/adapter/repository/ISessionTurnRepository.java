@@ -41,7 +41,10 @@ public interface ISessionTurnRepository {
 
     SessionTurnEntity findLatestBySessionIdAndStatus(Long sessionId, TurnStatusEnum status);
 
-    default List<SessionTurnEntity> findPlanningTurnsOlderThan(LocalDateTime cutoff, int limit) {
+    /**
+     * 查询 created_at 早于 cutoff 且仍为 PLANNING 的回合，按 id 游标（id &gt; afterId）升序分页。
+     */
+    default List<SessionTurnEntity> findPlanningTurnsOlderThan(LocalDateTime cutoff, long afterId, int limit) {
         return Collections.emptyList();
     }
 }
@@ -1,13 +1,20 @@
 package com.getoffer.domain.task.adapter.repository;
 
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.domain.task.model.valobj.PlanAffinityScope;
 import com.getoffer.domain.task.model.valobj.PlanTaskStatusStat;
 import com.getoffer.types.enums.TaskStatusEnum;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -65,6 +72,78 @@ public interface IAgentTaskRepository {
      */
     List<AgentTaskEntity> findByStatus(TaskStatusEnum status);
 
+    /**
+     * 集合式推进 joinPolicy = all、failurePolicy = failFast 且依赖全部 COMPLETED 的 PENDING 任务为 READY，
+     * 返回每个被推进任务的 planId。默认不推进，由调用方回退到逐条判定。
+     */
+    default List<Long> promoteSatisfiedAllJoinTasks() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 集合式跳过 joinPolicy = all、failurePolicy = failFast 且存在 FAILED/SKIPPED 依赖的 PENDING 任务，
+     * 返回每个被跳过任务的 planId。默认不跳过，由调用方回退到逐条判定。
+     */
+    default List<Long> skipBlockedAllJoinTasks() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 查询集合式推进无法覆盖、需要按依赖策略逐条判定的 PENDING 任务。
+     * 默认返回全部 PENDING 任务，与未实现集合式推进的仓储保持一致。
+     */
+    default List<AgentTaskEntity> findPendingTasksForPolicyEvaluation() {
+        return findByStatus(TaskStatusEnum.PENDING);
+    }
+
+    /**
+     * 查询同一 plan 下指定节点的当前状态（nodeId -> status），供增量推进刷新依赖图。
+     * 默认按 planId 全量读取后过滤。
+     */
+    default Map<String, TaskStatusEnum> findStatusByNodeIds(Long planId, Collection<String> nodeIds) {
+        if (planId == null || nodeIds == null || nodeIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<AgentTaskEntity> tasks = findByPlanId(planId);
+        if (tasks == null || tasks.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Set<String> wanted = new HashSet<>(nodeIds);
+        Map<String, TaskStatusEnum> statusByNode = new HashMap<>();
+        for (AgentTaskEntity task : tasks) {
+            if (task != null && task.getNodeId() != null && wanted.contains(task.getNodeId())) {
+                statusByNode.put(task.getNodeId(), task.getStatus());
+            }
+        }
+        return statusByNode;
+    }
+
+    /**
+     * 把同一 plan 下指定节点中仍为 PENDING 的任务推进为 READY 或 SKIPPED，返回实际推进的 nodeId。
+     * 实现方应以带 status = PENDING 守卫的单条 UPDATE 完成；默认逐条读取并按实体状态机更新。
+     */
+    default List<String> transitionPendingTasks(Long planId, Collection<String> nodeIds, TaskStatusEnum toStatus) {
+        if (planId == null || nodeIds == null || nodeIds.isEmpty()
+                || (toStatus != TaskStatusEnum.READY && toStatus != TaskStatusEnum.SKIPPED)) {
+            return Collections.emptyList();
+        }
+        List<String> transitioned = new ArrayList<>();
+        for (String nodeId : nodeIds) {
+            AgentTaskEntity task = findByPlanIdAndNodeId(planId, nodeId);
+            if (task == null || task.getStatus() != TaskStatusEnum.PENDING) {
+                continue;
+            }
+            if (toStatus == TaskStatusEnum.READY) {
+                task.markReady();
+            } else {
+                task.skip();
+            }
+            update(task);
+            transitioned.add(nodeId);
+        }
+        return transitioned;
+    }
+
     /**
      * 统计任务总数。
      */
@@ -84,6 +163,27 @@ public interface IAgentTaskRepository {
         return tasks == null ? 0L : tasks.size();
     }
 
+    /**
+     * 一次性按状态分组统计任务数量，数量为 0 的状态不返回。
+     */
+    default Map<TaskStatusEnum, Long> countGroupByStatus() {
+        Map<TaskStatusEnum, Long> counts = new EnumMap<>(TaskStatusEnum.class);
+        for (TaskStatusEnum status : TaskStatusEnum.values()) {
+            long count = countByStatus(status);
+            if (count > 0L) {
+                counts.put(status, count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 把已结束超过 graceSeconds（或已删除）的 plan 的状态计数归档，使计数表只保留活跃 plan，返回归档的 plan 数；默认不处理。
+     */
+    default int archiveFinishedPlanCounters(int graceSeconds, int limit) {
+        return 0;
+    }
+
     /**
      * 查询最近更新任务。
      */
@@ -178,16 +278,75 @@ public interface IAgentTaskRepository {
         return Collections.emptyList();
     }
 
+    /**
+     * 让指定 owner 仍持有、且 staleSeconds 内未续约的 RUNNING 任务 lease 立即过期（owner 已失联），返回受影响任务数；
+     * 续约仍在进行的任务不受影响。默认不处理，等待 lease 自然到期。
+     */
+    default int expireLeasesOfOwners(Collection<String> claimOwners, int staleSeconds) {
+        return 0;
+    }
+
+    /**
+     * 按 plan 亲和范围 claim READY + 过期 RUNNING 任务，scope 为空时不限范围。
+     * 亲和只是调度偏好，默认忽略范围，便于兼容旧实现与测试替身。
+     */
+    default List<AgentTaskEntity> claimReadyLikeTasks(String claimOwner, int limit, int leaseSeconds,
+                                                      PlanAffinityScope scope) {
+        return claimReadyLikeTasks(claimOwner, limit, leaseSeconds);
+    }
+
+    /**
+     * 按 plan 亲和范围 claim REFINING 任务，scope 为空时不限范围；默认忽略范围。
+     */
+    default List<AgentTaskEntity> claimRefiningTasks(String claimOwner, int limit, int leaseSeconds,
+                                                     PlanAffinityScope scope) {
+        return claimRefiningTasks(claimOwner, limit, leaseSeconds);
+    }
+
     /**
      * 续约 claim lease。
      */
     boolean renewClaimLease(Long taskId, String claimOwner, Integer executionAttempt, int leaseSeconds);
 
+    /**
+     * 按 owner 批量续约 claim lease（taskId -> execution_attempt），返回续约成功的任务 ID。
+     * 未返回的任务视为被 owner/attempt 守卫拒绝。默认逐条续约，保持测试替身兼容。
+     */
+    default List<Long> renewClaimLeases(String claimOwner, Map<Long, Integer> attemptsByTaskId, int leaseSeconds) {
+        if (attemptsByTaskId == null || attemptsByTaskId.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> renewed = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : attemptsByTaskId.entrySet()) {
+            if (renewClaimLease(entry.getKey(), claimOwner, entry.getValue(), leaseSeconds)) {
+                renewed.add(entry.getKey());
+            }
+        }
+        return renewed;
+    }
+
+    /**
+     * 按 owner 批量归还 claim（taskId -> execution_attempt）：RUNNING 任务回到派发队列
+     * （current_retry > 0 回到 REFINING，否则 READY），并清空 claim 信息，返回归还成功的任务 ID。
+     * 用于实例停机时让其它实例立即接手，而不必等待 lease 过期。默认不归还，保持测试替身兼容。
+     */
+    default List<Long> releaseClaims(String claimOwner, Map<Long, Integer> attemptsByTaskId) {
+        return Collections.emptyList();
+    }
+
     /**
      * 按 claim_owner + execution_attempt 条件更新任务终态，防止旧执行者回写污染。
      */
     boolean updateClaimedTaskState(AgentTaskEntity entity);
 
+    /**
+     * 按 claim_owner + execution_attempt 条件把 claim 退避归还到派发队列（状态取 entity.status）：
+     * delayMillis 内不再被 claim；execution_attempt 保持单调，退避次数记入 throttle_defer_count 不算重试。默认退化为立即归还，保持测试替身兼容。
+     */
+    default boolean deferClaimedTask(AgentTaskEntity entity, long delayMillis) {
+        return updateClaimedTaskState(entity);
+    }
+
     /**
      * 查询过期 RUNNING 任务数量（用于监控/报警）。
      */
@@ -204,7 +363,7 @@ public interface IAgentTaskRepository {
     boolean batchUpdateStatus(Long planId, TaskStatusEnum fromStatus, TaskStatusEnum toStatus);
 
     /**
-     * 按 Plan IDs 聚合任务状态统计。
+     * 按 Plan IDs 聚合任务状态统计（读取按 plan、状态维护的任务计数，不扫描任务表）。
      */
     List<PlanTaskStatusStat> summarizeByPlanIds(List<Long> planIds);
 
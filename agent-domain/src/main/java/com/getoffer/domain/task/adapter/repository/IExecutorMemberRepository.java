@@ -0,0 +1,31 @@
+package com.getoffer.domain.task.adapter.repository;
+
+import com.getoffer.domain.task.model.entity.ExecutorMemberEntity;
+
+import java.util.List;
+
+/**
+ * 执行实例成员仓储接口。
+ */
+public interface IExecutorMemberRepository {
+
+    /**
+     * 登记或刷新实例心跳与负载，心跳时间取数据库当前时间。
+     */
+    boolean heartbeat(String instanceId, int workerCapacity, int inflightCount);
+
+    /**
+     * 查询心跳在 ttlSeconds 内的存活成员，按 instanceId 升序。
+     */
+    List<ExecutorMemberEntity> findLiveMembers(int ttlSeconds);
+
+    /**
+     * 主动注销实例（停机时调用），其它实例下一次心跳即可重新分配。
+     */
+    boolean remove(String instanceId);
+
+    /**
+     * 原子删除心跳超过 ttlSeconds 的失联成员并返回其 instanceId；并发调用时每个失联成员只会被一个实例删除。
+     */
+    List<String> removeExpired(int ttlSeconds);
+}
@@ -2,8 +2,11 @@ package com.getoffer.domain.task.adapter.repository;
 
 import com.getoffer.domain.task.model.entity.PlanTaskEventEntity;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Plan/Task 事件仓储接口。
@@ -12,8 +15,29 @@ public interface IPlanTaskEventRepository {
 
     PlanTaskEventEntity save(PlanTaskEventEntity entity);
 
+    /**
+     * 批量写入（一条多行 INSERT）：返回结果与入参一一对应且顺序一致，事件 id 按入参顺序递增。
+     */
+    default List<PlanTaskEventEntity> saveAll(List<PlanTaskEventEntity> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<PlanTaskEventEntity> saved = new ArrayList<>(entities.size());
+        for (PlanTaskEventEntity entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
     List<PlanTaskEventEntity> findByPlanIdAfterEventId(Long planId, Long afterEventId, int limit);
 
+    /**
+     * 批量查询各 plan 的最新事件 id（无事件为 0）；返回中缺失的 plan 视为未知。
+     */
+    default Map<Long, Long> findLatestEventIds(Collection<Long> planIds) {
+        return Collections.emptyMap();
+    }
+
     /**
      * 日志分页查询（DB 侧过滤 + 排序 + 分页）。
      */
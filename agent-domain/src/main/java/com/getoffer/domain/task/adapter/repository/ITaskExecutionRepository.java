@@ -3,6 +3,7 @@ package com.getoffer.domain.task.adapter.repository;
 import com.getoffer.domain.task.model.entity.TaskExecutionEntity;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -102,6 +103,25 @@ public interface ITaskExecutionRepository {
      */
     Map<Long, Long> findLatestExecutionTimeByTaskIds(List<Long> taskIds);
 
+    /**
+     * 统计同一 workflow 定义下各节点近 lookbackDays 天、最近 maxSamples 条执行耗时的中位数（nodeId -> ms），
+     * 供物化时估算关键路径。默认无历史数据。
+     */
+    default Map<String, Long> findMedianExecutionTimeByWorkflowNode(Long workflowDefinitionId,
+                                                                    List<String> nodeIds,
+                                                                    int lookbackDays,
+                                                                    int maxSamples) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * 统计各 agentKey 近 lookbackDays 天、最近 maxSamples 条执行耗时的中位数（agentKey -> ms），作为节点无历史时的回退。
+     * 默认无历史数据。
+     */
+    default Map<String, Long> findMedianExecutionTimeByAgentKey(List<String> agentKeys, int lookbackDays, int maxSamples) {
+        return Collections.emptyMap();
+    }
+
     /**
      * 批量保存执行记录
      */
@@ -78,6 +78,11 @@ public class AgentTaskEntity {
      */
     private Integer currentRetry;
 
+    /**
+     * 剩余关键路径耗时（ms）：本节点与其最长下游链的预估耗时之和，物化时计算，同 plan 内 claim 越大越优先
+     */
+    private Long criticalPathMs;
+
     /**
      * claim 持有者
      */
@@ -98,6 +103,11 @@ public class AgentTaskEntity {
      */
     private Integer executionAttempt;
 
+    /**
+     * 模型限流退避归还次数（计入 execution_attempt，但不算重试）
+     */
+    private Integer throttleDeferCount;
+
     /**
      * 是否由过期 lease 重领（仅运行时观测字段，不持久化）
      */
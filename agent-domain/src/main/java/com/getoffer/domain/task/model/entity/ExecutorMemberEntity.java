@@ -0,0 +1,28 @@
+package com.getoffer.domain.task.model.entity;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 执行实例成员领域实体：实例按心跳登记容量与 in-flight 数，heartbeat_at 在 TTL 内视为存活。
+ */
+@Data
+public class ExecutorMemberEntity {
+
+    private String instanceId;
+    private Integer workerCapacity;
+    private Integer inflightCount;
+    private LocalDateTime startedAt;
+    private LocalDateTime heartbeatAt;
+
+    /**
+     * 负载比例 inflight / capacity；容量未知时返回 0。
+     */
+    public double loadRatio() {
+        if (workerCapacity == null || workerCapacity <= 0 || inflightCount == null) {
+            return 0D;
+        }
+        return Math.max(inflightCount, 0) / (double) workerCapacity;
+    }
+}
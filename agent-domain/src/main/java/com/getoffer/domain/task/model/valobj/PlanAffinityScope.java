@@ -0,0 +1,40 @@
+package com.getoffer.domain.task.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Plan 亲和 claim 范围：plan_id 按 slotCount 取模落入槽位，只 claim 本实例持有槽位内的任务；
+ * foreignStaleSeconds &gt;= 0 时额外放行在可 claim 状态停留超过该秒数的其它槽位任务（持有者未及时处理时兜底）；
+ * stealFromOwners 非空时只 claim 这些实例当前有 RUNNING 任务的 plan（work stealing），与槽位过滤相互独立。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanAffinityScope {
+
+    /**
+     * 槽位总数
+     */
+    private Integer slotCount;
+
+    /**
+     * 本实例持有的槽位
+     */
+    private List<Integer> ownedSlots;
+
+    /**
+     * 其它槽位任务的放行阈值（秒），小于 0 表示不放行
+     */
+    private Integer foreignStaleSeconds;
+
+    /**
+     * 被 steal 的过载实例
+     */
+    private List<String> stealFromOwners;
+}
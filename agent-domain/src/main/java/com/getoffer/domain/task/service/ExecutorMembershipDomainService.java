@@ -0,0 +1,71 @@
+package com.getoffer.domain.task.service;
+
+import com.getoffer.domain.task.model.entity.ExecutorMemberEntity;
+import com.getoffer.domain.task.model.valobj.PlanAffinityScope;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 执行实例成员负载领域服务：按成员上报的容量与 in-flight 数判定过载实例与空闲实例，给出 work stealing 的 claim 范围。
+ */
+@Service
+public class ExecutorMembershipDomainService {
+
+    /**
+     * 负载比例不低于 overloadRatio 的其它实例，按负载从高到低排列；容量未上报（&lt;= 0）的实例不参与判定。
+     */
+    public List<String> overloadedPeers(Collection<ExecutorMemberEntity> members, String selfInstanceId, double overloadRatio) {
+        if (members == null || members.isEmpty()) {
+            return List.of();
+        }
+        double threshold = normalizeRatio(overloadRatio, 1D);
+        List<ExecutorMemberEntity> overloaded = new ArrayList<>();
+        for (ExecutorMemberEntity member : members) {
+            if (member == null || member.getInstanceId() == null
+                    || Objects.equals(member.getInstanceId(), selfInstanceId)
+                    || member.getWorkerCapacity() == null || member.getWorkerCapacity() <= 0) {
+                continue;
+            }
+            if (member.loadRatio() >= threshold) {
+                overloaded.add(member);
+            }
+        }
+        overloaded.sort(Comparator.comparingDouble(ExecutorMemberEntity::loadRatio).reversed()
+                .thenComparing(ExecutorMemberEntity::getInstanceId));
+        return overloaded.stream().map(ExecutorMemberEntity::getInstanceId).toList();
+    }
+
+    /**
+     * 本实例负载比例不高于 spareRatio 时才去 steal，避免两个半忙实例互相抢对方的 plan。
+     */
+    public boolean hasSpareCapacity(int workerCapacity, int inflightCount, double spareRatio) {
+        if (workerCapacity <= 0) {
+            return false;
+        }
+        return Math.max(inflightCount, 0) / (double) workerCapacity <= normalizeRatio(spareRatio, 0D);
+    }
+
+    /**
+     * work stealing 的 claim 范围：只取过载实例当前有 RUNNING 任务的 plan，不受亲和槽位与停留阈值限制。
+     */
+    public PlanAffinityScope stealScope(List<String> overloadedPeers) {
+        if (overloadedPeers == null || overloadedPeers.isEmpty()) {
+            return null;
+        }
+        return PlanAffinityScope.builder()
+                .stealFromOwners(List.copyOf(overloadedPeers))
+                .build();
+    }
+
+    private double normalizeRatio(double ratio, double fallback) {
+        if (Double.isNaN(ratio) || Double.isInfinite(ratio)) {
+            return fallback;
+        }
+        return Math.max(0D, ratio);
+    }
+}
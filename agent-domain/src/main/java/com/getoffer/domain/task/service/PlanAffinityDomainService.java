@@ -0,0 +1,147 @@
+package com.getoffer.domain.task.service;
+
+import com.getoffer.domain.task.model.valobj.PlanAffinityScope;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Plan 亲和分片领域服务：
+ * 1) plan_id 按固定槽位数取模落入槽位，SQL 侧只需 MOD(plan_id, slotCount) 即可过滤，无需复刻哈希函数；
+ * 2) 槽位通过一致性哈希环（每个成员若干虚拟节点）分配给存活成员，成员加入 / 离开时只迁移约 1/N 的槽位；
+ * 3) 哈希只依赖成员 ID 与槽位号，各实例基于同一份存活成员视图独立计算即可得到一致的分配。
+ */
+@Service
+public class PlanAffinityDomainService {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    public int slotOf(Long planId, int slotCount) {
+        if (planId == null || slotCount <= 0) {
+            return -1;
+        }
+        return (int) Math.floorMod(planId, (long) slotCount);
+    }
+
+    /**
+     * 按存活成员构建槽位分配；成员为空时返回空分配（所有槽位无主）。
+     */
+    public SlotAssignment assign(Collection<String> memberIds, int slotCount, int virtualNodes) {
+        int normalizedSlotCount = Math.max(slotCount, 1);
+        TreeSet<String> members = new TreeSet<>();
+        if (memberIds != null) {
+            for (String memberId : memberIds) {
+                if (memberId != null && !memberId.isBlank()) {
+                    members.add(memberId);
+                }
+            }
+        }
+        String[] owners = new String[normalizedSlotCount];
+        if (!members.isEmpty()) {
+            TreeMap<Long, String> ring = new TreeMap<>();
+            int replicas = Math.max(virtualNodes, 1);
+            for (String member : members) {
+                for (int i = 0; i < replicas; i++) {
+                    // 哈希碰撞时保留字典序较小的成员，保证各实例计算结果一致
+                    ring.merge(hash(member + "#" + i), member, (left, right) -> left.compareTo(right) <= 0 ? left : right);
+                }
+            }
+            for (int slot = 0; slot < normalizedSlotCount; slot++) {
+                Map.Entry<Long, String> entry = ring.ceilingEntry(hash("slot#" + slot));
+                owners[slot] = entry == null ? ring.firstEntry().getValue() : entry.getValue();
+            }
+        }
+        return new SlotAssignment(List.copyOf(members), Collections.unmodifiableList(Arrays.asList(owners)));
+    }
+
+    /**
+     * 持有槽位的 claim 范围：只 claim 本实例槽位内的任务。
+     */
+    public PlanAffinityScope ownedScope(SlotAssignment assignment, String instanceId) {
+        return PlanAffinityScope.builder()
+                .slotCount(assignment.slotCount())
+                .ownedSlots(assignment.slotsOwnedBy(instanceId))
+                .foreignStaleSeconds(-1)
+                .build();
+    }
+
+    /**
+     * 兜底 claim 范围：放行在可 claim 状态停留超过 staleSeconds 的其它槽位任务，避免持有者过载或失联时任务饿死。
+     */
+    public PlanAffinityScope foreignScope(SlotAssignment assignment, int staleSeconds) {
+        return PlanAffinityScope.builder()
+                .slotCount(assignment.slotCount())
+                .ownedSlots(List.of())
+                .foreignStaleSeconds(Math.max(staleSeconds, 0))
+                .build();
+    }
+
+    static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        // FNV 对短串尾部变化扩散不足，追加 fmix64 打散
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * 槽位分配快照：members 为参与分配的存活成员（升序），ownerBySlot 为每个槽位的持有者（无成员时为 null）。
+     */
+    public record SlotAssignment(List<String> members, List<String> ownerBySlot) {
+
+        public int slotCount() {
+            return ownerBySlot.size();
+        }
+
+        public String ownerOfSlot(int slot) {
+            return slot < 0 || slot >= ownerBySlot.size() ? null : ownerBySlot.get(slot);
+        }
+
+        public String ownerOf(Long planId) {
+            return planId == null ? null : ownerOfSlot((int) Math.floorMod(planId, (long) ownerBySlot.size()));
+        }
+
+        public List<Integer> slotsOwnedBy(String instanceId) {
+            List<Integer> slots = new ArrayList<>();
+            for (int slot = 0; slot < ownerBySlot.size(); slot++) {
+                if (Objects.equals(ownerBySlot.get(slot), instanceId)) {
+                    slots.add(slot);
+                }
+            }
+            return slots;
+        }
+
+        /**
+         * 与上一份分配相比持有者发生变化的槽位数（槽位数不同时视为全部变化）。
+         */
+        public int movedSlotsSince(SlotAssignment previous) {
+            if (previous == null || previous.slotCount() != slotCount()) {
+                return slotCount();
+            }
+            int moved = 0;
+            for (int slot = 0; slot < ownerBySlot.size(); slot++) {
+                if (!Objects.equals(ownerBySlot.get(slot), previous.ownerBySlot.get(slot))) {
+                    moved++;
+                }
+            }
+            return moved;
+        }
+    }
+}
@@ -111,6 +111,42 @@ public class TaskAgentSelectionDomainService {
         return ClientSelectionResult.unavailable(attemptedKeys);
     }
 
+    /**
+     * 对冲请求策略（显式开启）：任务 configSnapshot.hedge 优先，其次是所选 Agent 的 modelOptions.hedge。
+     * 取值 true 表示向同一 Agent 发起相同请求；Map 形式支持 enabled / agentKey / fallback，
+     * fallback=true 时取 fallback 列表中第一个与当前 Agent 不同的 key。
+     */
+    public HedgePolicy resolveHedgePolicy(AgentTaskEntity task,
+                                          Map<String, Object> agentModelOptions,
+                                          SelectionPlan selectionPlan,
+                                          String selectedAgentKey) {
+        Object taskHedge = task == null || task.getConfigSnapshot() == null ? null : task.getConfigSnapshot().get("hedge");
+        Object hedge = taskHedge != null ? taskHedge : (agentModelOptions == null ? null : agentModelOptions.get("hedge"));
+        if (hedge == null) {
+            return HedgePolicy.disabled();
+        }
+        if (!(hedge instanceof Map<?, ?> hedgeMap)) {
+            return Boolean.parseBoolean(String.valueOf(hedge).trim()) ? new HedgePolicy(true, null) : HedgePolicy.disabled();
+        }
+        Object enabled = hedgeMap.get("enabled");
+        if (enabled != null && !Boolean.parseBoolean(String.valueOf(enabled).trim())) {
+            return HedgePolicy.disabled();
+        }
+        Object agentKey = hedgeMap.get("agentKey");
+        if (agentKey != null && isNotBlank(String.valueOf(agentKey))) {
+            return new HedgePolicy(true, String.valueOf(agentKey).trim());
+        }
+        Object fallback = hedgeMap.get("fallback");
+        if (fallback != null && Boolean.parseBoolean(String.valueOf(fallback).trim()) && selectionPlan != null) {
+            for (String fallbackKey : safeCopy(selectionPlan.fallbackKeys())) {
+                if (!fallbackKey.equalsIgnoreCase(defaultString(selectedAgentKey).trim())) {
+                    return new HedgePolicy(true, fallbackKey);
+                }
+            }
+        }
+        return new HedgePolicy(true, null);
+    }
+
     public String joinAgentKeys(List<String> agentKeys) {
         if (agentKeys == null || agentKeys.isEmpty()) {
             return "-";
@@ -236,6 +272,16 @@ public class TaskAgentSelectionDomainService {
                                 List<String> fallbackKeys) {
     }
 
+    /**
+     * agentKey 为空表示向同一 Agent 发起相同请求。
+     */
+    public record HedgePolicy(boolean enabled, String agentKey) {
+
+        public static HedgePolicy disabled() {
+            return new HedgePolicy(false, null);
+        }
+    }
+
     public enum ClientSelectionSource {
         CONFIGURED_AGENT_ID,
         CONFIGURED_AGENT_KEY,
@@ -0,0 +1,245 @@
+package com.getoffer.domain.task.service;
+
+import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.types.enums.TaskStatusEnum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plan 级依赖图索引：
+ * 1) 节点 ID 在构建时驻留为 int 下标，依赖与下游邻接表均为 int 数组，之后不再做字符串查找；
+ * 2) COMPLETED、FAILED/SKIPPED、PENDING 用 BitSet 表示，每个节点维护已完成 / 已失败依赖计数；
+ * 3) 节点状态变化只调整其直接下游的计数，join 判定直接读计数，代价与变化的边数成正比。
+ * 非线程安全，由调用方按 plan 串行访问。
+ */
+public final class TaskDependencyGraph {
+
+    private static final int[] NO_EDGES = new int[0];
+
+    private final TaskDependencyPolicyDomainService policyService;
+    private final Map<String, Integer> indexByNode;
+    private final String[] nodeIds;
+    private final Long[] taskIds;
+    private final TaskStatusEnum[] statuses;
+    private final TaskDependencyPolicyDomainService.GraphPolicy[] policies;
+    private final int[] dependencyTotals;
+    private final int[][] dependencies;
+    private final int[][] dependents;
+    private final int[] completedDependencyCounts;
+    private final int[] failedDependencyCounts;
+    private final BitSet completed;
+    private final BitSet failedOrSkipped;
+    private final BitSet pending;
+
+    private TaskDependencyGraph(TaskDependencyPolicyDomainService policyService,
+                                Map<String, Integer> indexByNode,
+                                List<AgentTaskEntity> tasks) {
+        int size = tasks.size();
+        this.policyService = policyService;
+        this.indexByNode = indexByNode;
+        this.nodeIds = new String[size];
+        this.taskIds = new Long[size];
+        this.statuses = new TaskStatusEnum[size];
+        this.policies = new TaskDependencyPolicyDomainService.GraphPolicy[size];
+        this.dependencyTotals = new int[size];
+        this.dependencies = new int[size][];
+        this.dependents = new int[size][];
+        this.completedDependencyCounts = new int[size];
+        this.failedDependencyCounts = new int[size];
+        this.completed = new BitSet(size);
+        this.failedOrSkipped = new BitSet(size);
+        this.pending = new BitSet(size);
+
+        int[] dependentCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            AgentTaskEntity task = tasks.get(i);
+            nodeIds[i] = task.getNodeId();
+            taskIds[i] = task.getId();
+            policies[i] = policyService.resolveGraphPolicy(task);
+            List<String> dependencyNodeIds = task.getDependencyNodeIds();
+            if (dependencyNodeIds == null || dependencyNodeIds.isEmpty()) {
+                dependencies[i] = NO_EDGES;
+                continue;
+            }
+            // total 与按状态表判定保持一致：重复、空白或不在本 plan 的依赖同样计入，后两者永远不会满足
+            dependencyTotals[i] = dependencyNodeIds.size();
+            int[] edges = new int[dependencyNodeIds.size()];
+            int edgeCount = 0;
+            for (String dependency : dependencyNodeIds) {
+                Integer dependencyIndex = dependency == null ? null : indexByNode.get(dependency);
+                if (dependencyIndex != null) {
+                    edges[edgeCount++] = dependencyIndex;
+                    dependentCounts[dependencyIndex]++;
+                }
+            }
+            dependencies[i] = edgeCount == edges.length ? edges : Arrays.copyOf(edges, edgeCount);
+        }
+
+        for (int i = 0; i < size; i++) {
+            dependents[i] = dependentCounts[i] == 0 ? NO_EDGES : new int[dependentCounts[i]];
+            dependentCounts[i] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            for (int dependency : dependencies[i]) {
+                dependents[dependency][dependentCounts[dependency]++] = i;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            statuses[i] = tasks.get(i).getStatus();
+            applyStatus(i, statuses[i], 1);
+        }
+    }
+
+    /**
+     * 由同一 plan 的全部任务构建依赖图；存在空白或重复 nodeId 时无法唯一驻留，返回 null 由调用方回退。
+     */
+    static TaskDependencyGraph build(List<AgentTaskEntity> tasks,
+                                     TaskDependencyPolicyDomainService policyService) {
+        if (tasks == null || tasks.isEmpty() || policyService == null) {
+            return null;
+        }
+        Map<String, Integer> indexByNode = new HashMap<>(tasks.size() * 2);
+        List<AgentTaskEntity> nodes = new ArrayList<>(tasks.size());
+        for (AgentTaskEntity task : tasks) {
+            if (task == null || task.getNodeId() == null || task.getNodeId().isBlank()) {
+                return null;
+            }
+            if (indexByNode.putIfAbsent(task.getNodeId(), nodes.size()) != null) {
+                return null;
+            }
+            nodes.add(task);
+        }
+        return new TaskDependencyGraph(policyService, indexByNode, nodes);
+    }
+
+    /**
+     * 更新节点状态并调整下游计数，返回状态是否发生变化；未知节点忽略。
+     */
+    public boolean updateStatus(String nodeId, TaskStatusEnum status) {
+        Integer index = nodeId == null ? null : indexByNode.get(nodeId);
+        if (index == null || status == null || statuses[index] == status) {
+            return false;
+        }
+        applyStatus(index, statuses[index], -1);
+        statuses[index] = status;
+        applyStatus(index, status, 1);
+        return true;
+    }
+
+    /**
+     * 按计数判定节点的依赖是否满足；非 PENDING 或未知节点返回 WAITING，与按状态表判定一致。
+     */
+    public TaskDependencyPolicy.DependencyDecision decide(String nodeId) {
+        Integer index = nodeId == null ? null : indexByNode.get(nodeId);
+        if (index == null || !pending.get(index)) {
+            return TaskDependencyPolicy.DependencyDecision.WAITING;
+        }
+        if (dependencyTotals[index] == 0) {
+            return TaskDependencyPolicy.DependencyDecision.SATISFIED;
+        }
+        return policyService.decide(policies[index],
+                dependencyTotals[index],
+                completedDependencyCounts[index],
+                failedDependencyCounts[index]);
+    }
+
+    /**
+     * 返回给定节点中已进入终态者的直接下游里仍为 PENDING 的节点（去重，按驻留顺序）；
+     * 非终态变化不会让任何下游的判定前进，直接忽略。
+     */
+    public List<String> pendingDependentsOf(Collection<String> changedNodeIds) {
+        if (changedNodeIds == null || changedNodeIds.isEmpty()) {
+            return List.of();
+        }
+        BitSet candidates = new BitSet(nodeIds.length);
+        for (String nodeId : changedNodeIds) {
+            Integer index = nodeId == null ? null : indexByNode.get(nodeId);
+            if (index == null || !(completed.get(index) || failedOrSkipped.get(index))) {
+                continue;
+            }
+            for (int dependent : dependents[index]) {
+                if (pending.get(dependent)) {
+                    candidates.set(dependent);
+                }
+            }
+        }
+        return toNodeIds(candidates);
+    }
+
+    /**
+     * 返回给定节点在本 plan 内可解析的直接依赖（去重）。
+     */
+    public List<String> dependenciesOf(Collection<String> nodeIdsToResolve) {
+        if (nodeIdsToResolve == null || nodeIdsToResolve.isEmpty()) {
+            return List.of();
+        }
+        BitSet resolved = new BitSet(nodeIds.length);
+        for (String nodeId : nodeIdsToResolve) {
+            Integer index = nodeId == null ? null : indexByNode.get(nodeId);
+            if (index == null) {
+                continue;
+            }
+            for (int dependency : dependencies[index]) {
+                resolved.set(dependency);
+            }
+        }
+        return toNodeIds(resolved);
+    }
+
+    public List<String> pendingNodeIds() {
+        return toNodeIds(pending);
+    }
+
+    public boolean isPending(String nodeId) {
+        Integer index = nodeId == null ? null : indexByNode.get(nodeId);
+        return index != null && pending.get(index);
+    }
+
+    public boolean hasPendingNodes() {
+        return !pending.isEmpty();
+    }
+
+    public Long taskIdOf(String nodeId) {
+        Integer index = nodeId == null ? null : indexByNode.get(nodeId);
+        return index == null ? null : taskIds[index];
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    private void applyStatus(int index, TaskStatusEnum status, int delta) {
+        boolean present = delta > 0;
+        if (status == TaskStatusEnum.PENDING) {
+            pending.set(index, present);
+            return;
+        }
+        int[] counts;
+        if (status == TaskStatusEnum.COMPLETED) {
+            completed.set(index, present);
+            counts = completedDependencyCounts;
+        } else if (status == TaskStatusEnum.FAILED || status == TaskStatusEnum.SKIPPED) {
+            failedOrSkipped.set(index, present);
+            counts = failedDependencyCounts;
+        } else {
+            return;
+        }
+        for (int dependent : dependents[index]) {
+            counts[dependent] += delta;
+        }
+    }
+
+    private List<String> toNodeIds(BitSet indexes) {
+        List<String> result = new ArrayList<>(indexes.cardinality());
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            result.add(nodeIds[i]);
+        }
+        return result;
+    }
+}
@@ -3,6 +3,7 @@ package com.getoffer.domain.task.service;
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
 import com.getoffer.types.enums.TaskStatusEnum;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -13,6 +14,13 @@ public interface TaskDependencyPolicy {
     DependencyDecision resolveDependencyDecision(AgentTaskEntity task,
                                                  Map<String, TaskStatusEnum> statusByNode);
 
+    /**
+     * 由同一 plan 的全部任务构建依赖图，供增量推进复用；返回 null 表示不支持，调用方回退到按状态表逐条判定。
+     */
+    default TaskDependencyGraph buildDependencyGraph(List<AgentTaskEntity> tasks) {
+        return null;
+    }
+
     enum DependencyDecision {
         SATISFIED,
         WAITING,
@@ -38,7 +38,23 @@ public class TaskDependencyPolicyDomainService implements TaskDependencyPolicy {
 
         GraphPolicy policy = resolveGraphPolicy(task);
         DependencyStatusSummary summary = summarizeDependencies(dependencies, statusByNode);
+        return decide(policy, summary);
+    }
+
+    @Override
+    public TaskDependencyGraph buildDependencyGraph(List<AgentTaskEntity> tasks) {
+        return TaskDependencyGraph.build(tasks, this);
+    }
+
+    /**
+     * 按依赖计数判定，供 {@link TaskDependencyGraph} 复用同一套 join 规则。
+     */
+    DependencyDecision decide(GraphPolicy policy, int total, int completed, int failedOrSkipped) {
+        int terminal = completed + failedOrSkipped;
+        return decide(policy, new DependencyStatusSummary(total, completed, failedOrSkipped, total - terminal, terminal));
+    }
 
+    private DependencyDecision decide(GraphPolicy policy, DependencyStatusSummary summary) {
         if (JOIN_POLICY_ANY.equals(policy.joinPolicy)) {
             return resolveAnyPolicy(summary, policy);
         }
@@ -144,7 +160,7 @@ public class TaskDependencyPolicyDomainService implements TaskDependencyPolicy {
         );
     }
 
-    private GraphPolicy resolveGraphPolicy(AgentTaskEntity task) {
+    GraphPolicy resolveGraphPolicy(AgentTaskEntity task) {
         Map<String, Object> configSnapshot = task == null ? null : task.getConfigSnapshot();
         Map<String, Object> graphPolicy = extractGraphPolicy(configSnapshot);
         String joinPolicy = normalizeJoinPolicy(readText(graphPolicy, "joinPolicy", "join_policy", "dependencyJoinPolicy"));
@@ -268,9 +284,9 @@ public class TaskDependencyPolicyDomainService implements TaskDependencyPolicy {
         return left.equalsIgnoreCase(right);
     }
 
-    private record GraphPolicy(String joinPolicy,
-                               boolean failFast,
-                               Integer quorum) {
+    record GraphPolicy(String joinPolicy,
+                       boolean failFast,
+                       Integer quorum) {
     }
 
     private record DependencyStatusSummary(int total,
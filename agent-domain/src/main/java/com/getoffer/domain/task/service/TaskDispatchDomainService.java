@@ -3,9 +3,16 @@ package com.getoffer.domain.task.service;
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Task 调度决策领域服务：负责 claim 限额、READY/REFINING 配额与兜底顺序策略。
@@ -49,10 +56,247 @@ public class TaskDispatchDomainService {
         return new ClaimPlan(normalizedLimit, primarySlots, fallbackOrder);
     }
 
+    /**
+     * AIMD 自适应 claim：
+     * 1) 拥塞信号（worker 排队、claim->start 延迟超标、lease 回收比例过高）时 claim 上限乘性下降；
+     * 2) 本轮领满且无拥塞时加性增长；
+     * 3) 空轮询时 poll 间隔乘性退避，领到任务后回到最小间隔。
+     */
+    public AdaptiveClaimState adaptClaim(AdaptiveClaimState current,
+                                         ClaimFeedback feedback,
+                                         AdaptiveClaimPolicy policy) {
+        if (policy == null) {
+            return current;
+        }
+        int minLimit = Math.max(policy.minLimit(), 1);
+        int maxLimit = Math.max(policy.maxLimit(), minLimit);
+        long minDelay = Math.max(policy.minPollDelayMs(), 0L);
+        long maxDelay = Math.max(policy.maxPollDelayMs(), minDelay);
+        int limit = current == null ? maxLimit : Math.max(Math.min(current.claimLimit(), maxLimit), minLimit);
+        long delay = current == null ? minDelay : Math.max(Math.min(current.pollDelayMs(), maxDelay), minDelay);
+        if (feedback == null) {
+            return new AdaptiveClaimState(limit, delay, "no_feedback");
+        }
+
+        String congestion = resolveCongestion(feedback, policy);
+        String reason;
+        if (congestion != null) {
+            double factor = Double.isNaN(policy.decreaseFactor()) ? 0.5D : Math.max(0.1D, Math.min(policy.decreaseFactor(), 0.9D));
+            limit = Math.max((int) Math.floor(limit * factor), minLimit);
+            reason = congestion;
+        } else if (feedback.requested() > 0 && feedback.claimed() >= feedback.requested()) {
+            limit = Math.min(limit + Math.max(policy.additiveStep(), 1), maxLimit);
+            reason = "saturated_claim";
+        } else {
+            reason = "steady";
+        }
+
+        if (feedback.requested() > 0 && feedback.claimed() <= 0) {
+            delay = Math.min(Math.max(delay * 2, Math.max(minDelay, 1L)), maxDelay);
+            if (congestion == null) {
+                reason = "empty_poll";
+            }
+        } else if (feedback.claimed() > 0) {
+            delay = minDelay;
+        }
+        return new AdaptiveClaimState(limit, delay, reason);
+    }
+
+    /**
+     * 梯度式模型并发限流（Gradient2 简化）：
+     * 1) 长窗口 RTT 作为基线，gradient = clamp(tolerance * longRtt / rtt, 0.5, 1)，newLimit = limit * gradient + sqrt(limit)；
+     * 2) 调用失败或超时视为丢弃，limit 按 backoffRatio 乘性下降；
+     * 3) in-flight 不足 limit 一半时视为应用受限，不再增长。
+     */
+    public ConcurrencyLimitState adaptConcurrencyLimit(ConcurrencyLimitState current,
+                                                       ConcurrencySample sample,
+                                                       ConcurrencyLimitPolicy policy) {
+        if (policy == null) {
+            return current;
+        }
+        int minLimit = Math.max(policy.minLimit(), 1);
+        int maxLimit = Math.max(policy.maxLimit(), minLimit);
+        double limit = current == null ? maxLimit : clamp(current.limit(), minLimit, maxLimit);
+        double longRtt = current == null ? 0D : Math.max(current.longRttMs(), 0D);
+        if (sample == null) {
+            return new ConcurrencyLimitState(limit, longRtt);
+        }
+        if (sample.dropped()) {
+            double backoffRatio = clamp(policy.backoffRatio(), 0.5D, 1D);
+            return new ConcurrencyLimitState(clamp(limit * backoffRatio, minLimit, maxLimit), longRtt);
+        }
+        double rtt = Math.max(sample.rttMs(), 1L);
+        int longWindow = Math.max(policy.longWindow(), 1);
+        longRtt = longRtt <= 0D ? rtt : longRtt + (rtt - longRtt) / longWindow;
+        if (sample.inflight() < limit / 2) {
+            return new ConcurrencyLimitState(limit, longRtt);
+        }
+        double tolerance = Math.max(policy.rttTolerance(), 1D);
+        double gradient = clamp(tolerance * longRtt / rtt, 0.5D, 1D);
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        double smoothing = clamp(policy.smoothing(), 0.01D, 1D);
+        newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        return new ConcurrencyLimitState(clamp(newLimit, minLimit, maxLimit), longRtt);
+    }
+
+    /**
+     * 请求数 / token 数双令牌桶预占：
+     * 1) 两个桶都按每分钟配额线性回填，容量为一分钟配额；配额 <= 0 表示该维度不限；
+     * 2) 预估 token 超过桶容量时按容量计，避免超大 prompt 永远无法通过；
+     * 3) 任一维度不足则不扣减，并返回两维度中较长的等待时间。
+     */
+    public RateBudgetDecision reserveRateBudget(RateBudgetState current,
+                                                RateBudgetPolicy policy,
+                                                long estimatedTokens,
+                                                long nowMillis) {
+        RateBudgetState state = refillRateBudget(current, policy, nowMillis);
+        if (policy == null) {
+            return new RateBudgetDecision(state, true, 0L);
+        }
+        boolean requestLimited = policy.requestsPerMinute() > 0;
+        boolean tokenLimited = policy.tokensPerMinute() > 0;
+        double tokenNeed = tokenLimited ? Math.min(Math.max(estimatedTokens, 0L), policy.tokensPerMinute()) : 0D;
+        long requestWaitMs = requestLimited && state.requestBudget() < 1D
+                ? (long) Math.ceil((1D - state.requestBudget()) * 60000D / policy.requestsPerMinute())
+                : 0L;
+        long tokenWaitMs = tokenLimited && state.tokenBudget() < tokenNeed
+                ? (long) Math.ceil((tokenNeed - state.tokenBudget()) * 60000D / policy.tokensPerMinute())
+                : 0L;
+        if (requestWaitMs > 0L || tokenWaitMs > 0L) {
+            return new RateBudgetDecision(state, false, Math.max(requestWaitMs, tokenWaitMs));
+        }
+        RateBudgetState reserved = new RateBudgetState(
+                requestLimited ? state.requestBudget() - 1D : state.requestBudget(),
+                tokenLimited ? state.tokenBudget() - tokenNeed : state.tokenBudget(),
+                state.refilledAtMillis());
+        return new RateBudgetDecision(reserved, true, 0L);
+    }
+
+    /**
+     * 用实际 token 用量修正预占：多退少补，token 桶允许透支为负，由后续回填偿还。
+     */
+    public RateBudgetState reconcileRateBudget(RateBudgetState current,
+                                               RateBudgetPolicy policy,
+                                               long reservedTokens,
+                                               long actualTokens) {
+        if (current == null || policy == null || policy.tokensPerMinute() <= 0 || actualTokens < 0L) {
+            return current;
+        }
+        double reserved = Math.min(Math.max(reservedTokens, 0L), policy.tokensPerMinute());
+        double tokenBudget = Math.min(current.tokenBudget() + reserved - actualTokens, policy.tokensPerMinute());
+        return new RateBudgetState(current.requestBudget(), tokenBudget, current.refilledAtMillis());
+    }
+
+    public RateBudgetState refillRateBudget(RateBudgetState current, RateBudgetPolicy policy, long nowMillis) {
+        if (policy == null) {
+            return current == null ? new RateBudgetState(0D, 0D, nowMillis) : current;
+        }
+        double requestCapacity = Math.max(policy.requestsPerMinute(), 0);
+        double tokenCapacity = Math.max(policy.tokensPerMinute(), 0L);
+        if (current == null) {
+            return new RateBudgetState(requestCapacity, tokenCapacity, nowMillis);
+        }
+        long elapsedMs = Math.max(nowMillis - current.refilledAtMillis(), 0L);
+        double requestBudget = Math.min(current.requestBudget() + requestCapacity * elapsedMs / 60000D, requestCapacity);
+        double tokenBudget = Math.min(current.tokenBudget() + tokenCapacity * elapsedMs / 60000D, tokenCapacity);
+        return new RateBudgetState(requestBudget, tokenBudget, Math.max(nowMillis, current.refilledAtMillis()));
+    }
+
+    /**
+     * 剩余关键路径：节点自身预估耗时 + 其下游中最长的剩余关键路径，按逆拓扑序一次遍历得到（nodeId -> ms）。
+     * 缺少预估耗时的节点使用 defaultDurationMs；指向本批之外的依赖忽略；环上节点无法排序，只累计已确定的下游。
+     */
+    public Map<String, Long> computeRemainingCriticalPath(List<AgentTaskEntity> tasks,
+                                                          Map<String, Long> durationByNode,
+                                                          long defaultDurationMs) {
+        if (tasks == null || tasks.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> indexByNode = new HashMap<>();
+        List<String> nodeIds = new ArrayList<>();
+        for (AgentTaskEntity task : tasks) {
+            if (task != null && task.getNodeId() != null && !indexByNode.containsKey(task.getNodeId())) {
+                indexByNode.put(task.getNodeId(), nodeIds.size());
+                nodeIds.add(task.getNodeId());
+            }
+        }
+        int size = nodeIds.size();
+        List<Set<Integer>> dependenciesByNode = new ArrayList<>(size);
+        int[] pendingDependents = new int[size];
+        for (int i = 0; i < size; i++) {
+            dependenciesByNode.add(new LinkedHashSet<>());
+        }
+        for (AgentTaskEntity task : tasks) {
+            Integer index = task == null ? null : indexByNode.get(task.getNodeId());
+            if (index == null || task.getDependencyNodeIds() == null) {
+                continue;
+            }
+            for (String dependency : task.getDependencyNodeIds()) {
+                Integer dependencyIndex = dependency == null ? null : indexByNode.get(dependency);
+                if (dependencyIndex != null && dependenciesByNode.get(index).add(dependencyIndex)) {
+                    pendingDependents[dependencyIndex]++;
+                }
+            }
+        }
+
+        long fallbackDuration = Math.max(defaultDurationMs, 0L);
+        long[] longestDownstream = new long[size];
+        long[] criticalPath = new long[size];
+        boolean[] resolved = new boolean[size];
+        Deque<Integer> sinks = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            if (pendingDependents[i] == 0) {
+                sinks.add(i);
+            }
+        }
+        while (!sinks.isEmpty()) {
+            int index = sinks.poll();
+            resolved[index] = true;
+            criticalPath[index] = saturatedAdd(resolveDuration(durationByNode, nodeIds.get(index), fallbackDuration),
+                    longestDownstream[index]);
+            for (int dependency : dependenciesByNode.get(index)) {
+                longestDownstream[dependency] = Math.max(longestDownstream[dependency], criticalPath[index]);
+                if (--pendingDependents[dependency] == 0) {
+                    sinks.add(dependency);
+                }
+            }
+        }
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            long value = resolved[i]
+                    ? criticalPath[i]
+                    : saturatedAdd(resolveDuration(durationByNode, nodeIds.get(i), fallbackDuration), longestDownstream[i]);
+            result.put(nodeIds.get(i), value);
+        }
+        return result;
+    }
+
     public boolean hasValidClaim(AgentTaskEntity task) {
         return task != null && task.hasValidClaim();
     }
 
+    private String resolveCongestion(ClaimFeedback feedback, AdaptiveClaimPolicy policy) {
+        if (feedback.workerBacklog() > 0) {
+            return "worker_backlog";
+        }
+        if (policy.latencyTargetMs() > 0 && feedback.claimToStartLatencyMs() > policy.latencyTargetMs()) {
+            return "claim_to_start_latency";
+        }
+        if (feedback.claimed() > 0 && policy.reclaimRatioThreshold() > 0
+                && (double) feedback.reclaimed() / feedback.claimed() > policy.reclaimRatioThreshold()) {
+            return "lease_reclaim";
+        }
+        return null;
+    }
+
+    private double clamp(double value, double min, double max) {
+        if (Double.isNaN(value)) {
+            return min;
+        }
+        return Math.max(min, Math.min(value, max));
+    }
+
     private int resolveRefiningQuota(int claimLimit, double refiningMaxRatio, int refiningMinPerTick) {
         int normalizedLimit = Math.max(claimLimit, 0);
         if (normalizedLimit <= 0) {
@@ -72,9 +316,62 @@ public class TaskDispatchDomainService {
         return Math.min(Math.max(quota, 0), normalizedLimit);
     }
 
+    private long resolveDuration(Map<String, Long> durationByNode, String nodeId, long fallbackDuration) {
+        Long duration = durationByNode == null ? null : durationByNode.get(nodeId);
+        return duration == null || duration <= 0L ? fallbackDuration : duration;
+    }
+
+    private long saturatedAdd(long left, long right) {
+        long sum = left + right;
+        return sum < 0L ? Long.MAX_VALUE : sum;
+    }
+
     public record ClaimSlot(boolean readyLike, int limit, boolean fallback) {
     }
 
+    public record ClaimFeedback(int requested,
+                                int claimed,
+                                int reclaimed,
+                                int workerBacklog,
+                                double claimToStartLatencyMs) {
+    }
+
+    public record AdaptiveClaimPolicy(int minLimit,
+                                      int maxLimit,
+                                      long minPollDelayMs,
+                                      long maxPollDelayMs,
+                                      int additiveStep,
+                                      double decreaseFactor,
+                                      long latencyTargetMs,
+                                      double reclaimRatioThreshold) {
+    }
+
+    public record AdaptiveClaimState(int claimLimit, long pollDelayMs, String reason) {
+    }
+
+    public record ConcurrencyLimitState(double limit, double longRttMs) {
+    }
+
+    public record ConcurrencySample(long rttMs, int inflight, boolean dropped) {
+    }
+
+    public record ConcurrencyLimitPolicy(int minLimit,
+                                         int maxLimit,
+                                         double rttTolerance,
+                                         double smoothing,
+                                         double backoffRatio,
+                                         int longWindow) {
+    }
+
+    public record RateBudgetPolicy(int requestsPerMinute, long tokensPerMinute) {
+    }
+
+    public record RateBudgetState(double requestBudget, double tokenBudget, long refilledAtMillis) {
+    }
+
+    public record RateBudgetDecision(RateBudgetState state, boolean granted, long waitMs) {
+    }
+
     public record ClaimPlan(int claimLimit,
                             List<ClaimSlot> primarySlots,
                             List<Boolean> fallbackOrder) {
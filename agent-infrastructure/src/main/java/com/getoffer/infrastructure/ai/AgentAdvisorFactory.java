@@ -205,6 +205,13 @@ public class AgentAdvisorFactory {
         return vectorStoreProvider.getIfAvailable();
     }
 
+    /**
+     * 判断 Agent 是否启用会话记忆顾问（调用会写入 ChatMemory）。
+     */
+    public boolean isMemoryEnabled(AgentRegistryEntity agent) {
+        return isEnabled(resolveAdvisorConfig(agent).getMemory());
+    }
+
     /**
      * 检查是否启用。
      */
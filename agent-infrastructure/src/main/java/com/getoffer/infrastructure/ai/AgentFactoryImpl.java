@@ -200,6 +200,30 @@ public class AgentFactoryImpl implements IAgentFactory {
         return createAgent(agent, conversationId, systemPromptSuffix, null);
     }
 
+    /**
+     * 启用会话记忆或绑定了可用工具的 Agent 视为带副作用。
+     */
+    @Override
+    public boolean hasCallSideEffects(AgentRegistryEntity agent) {
+        if (agent == null) {
+            return true;
+        }
+        if (advisorFactory.isMemoryEnabled(agent)) {
+            return true;
+        }
+        if (agent.getId() == null) {
+            return false;
+        }
+        try {
+            List<AgentToolCatalogEntity> tools = agentToolCatalogRepository.findEnabledByAgentId(agent.getId());
+            return tools != null && tools.stream().anyMatch(tool -> tool != null && Boolean.TRUE.equals(tool.getIsActive()));
+        } catch (Exception ex) {
+            log.debug("Resolve agent tools failed, treat as side-effecting. agentKey={}, error={}",
+                    agent.getKey(), ex.getMessage());
+            return true;
+        }
+    }
+
     @Override
     public ChatClient createAgent(AgentRegistryEntity agent,
                                   String conversationId,
@@ -326,6 +350,11 @@ public class AgentFactoryImpl implements IAgentFactory {
         if (StringUtils.isNotBlank(agent.getModelName())) {
             options.setModel(agent.getModelName());
         }
+        // 流式调用（增量输出、异步执行）默认在末尾分片回传 Usage，保证 token 统计与配额修正不因走流式而丢失；
+        // modelOptions 显式配置时以配置为准
+        if (modelOptions == null || (!modelOptions.containsKey("streamUsage") && !modelOptions.containsKey("stream_options"))) {
+            options.setStreamUsage(true);
+        }
         if (!legacyOptionsToolWrite) {
             clearToolOptions(options);
             if (containsToolConfig) {
@@ -1,6 +1,7 @@
 package com.getoffer.infrastructure.dao;
 
 import com.getoffer.infrastructure.dao.po.AgentPlanPO;
+import com.getoffer.infrastructure.dao.po.StatusCountPO;
 import com.getoffer.types.enums.PlanStatusEnum;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -36,6 +37,11 @@ public interface AgentPlanDao {
      */
     AgentPlanPO selectById(@Param("id") Long id);
 
+    /**
+     * 只查询版本号（本地计划缓存校验）
+     */
+    Integer selectVersionById(@Param("id") Long id);
+
     /**
      * 根据会话 ID 查询
      */
@@ -52,11 +58,11 @@ public interface AgentPlanDao {
     List<AgentPlanPO> selectByStatusAndPriority(@Param("status") PlanStatusEnum status);
 
     /**
-     * 按状态分页查询。
+     * 按状态做 ID 游标分页查询（id &gt; afterId，按 id 升序）。
      */
-    List<AgentPlanPO> selectByStatusPaged(@Param("status") PlanStatusEnum status,
-                                          @Param("offset") Integer offset,
-                                          @Param("limit") Integer limit);
+    List<AgentPlanPO> selectByStatusAfterId(@Param("status") PlanStatusEnum status,
+                                            @Param("afterId") Long afterId,
+                                            @Param("limit") Integer limit);
 
     /**
      * 查询所有计划
@@ -73,6 +79,11 @@ public interface AgentPlanDao {
      */
     Long countByStatus(@Param("status") PlanStatusEnum status);
 
+    /**
+     * 按状态分组统计计划数量。
+     */
+    List<StatusCountPO> countGroupByStatus();
+
     /**
      * 查询最近更新计划。
      */
@@ -82,4 +93,19 @@ public interface AgentPlanDao {
      * 根据 Workflow Definition ID 查询
      */
     List<AgentPlanPO> selectByWorkflowDefinitionId(@Param("workflowDefinitionId") Long workflowDefinitionId);
+
+    /**
+     * 按 ID 批量查询
+     */
+    List<AgentPlanPO> selectByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 写入 plan 状态脏标记（已存在则忽略）
+     */
+    int insertStatusDirty(@Param("planIds") List<Long> planIds);
+
+    /**
+     * 领取并删除脏标记，返回对应计划
+     */
+    List<AgentPlanPO> claimStatusDirtyPlans(@Param("limit") Integer limit);
 }
@@ -2,11 +2,13 @@ package com.getoffer.infrastructure.dao;
 
 import com.getoffer.infrastructure.dao.po.AgentTaskPO;
 import com.getoffer.infrastructure.dao.po.PlanTaskStatusStatPO;
+import com.getoffer.infrastructure.dao.po.StatusCountPO;
 import com.getoffer.types.enums.TaskStatusEnum;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 任务 DAO
@@ -74,6 +76,17 @@ public interface AgentTaskDao {
      */
     Long countByStatus(@Param("status") TaskStatusEnum status);
 
+    /**
+     * 按状态分组统计任务数量（读取 plan_task_counters 与归档计数）。
+     */
+    List<StatusCountPO> countGroupByStatus();
+
+    /**
+     * 把已结束超过 graceSeconds 或已删除的 plan 的计数移入归档表，返回归档的 plan 数。
+     */
+    Integer archiveFinishedPlanCounters(@Param("graceSeconds") int graceSeconds,
+                                        @Param("limit") int limit);
+
     /**
      * 查询最近更新任务。
      */
@@ -110,24 +123,37 @@ public interface AgentTaskDao {
 
     /**
      * 原子 claim 可执行任务。
+     * fairShare=true 时按 plan 内排名 / 优先级权重在用户间轮转（加权公平），否则按 plan_id + created_at 顺序。
      */
     List<AgentTaskPO> claimExecutableTasks(@Param("claimOwner") String claimOwner,
                                            @Param("limit") Integer limit,
-                                           @Param("leaseSeconds") Integer leaseSeconds);
+                                           @Param("leaseSeconds") Integer leaseSeconds,
+                                           @Param("fairShare") boolean fairShare);
 
     /**
      * 原子 claim READY + 过期 RUNNING（READY 优先路径）。
+     * affinitySlotCount 非空时按 plan 亲和槽位过滤，stealFromOwners 非空时只取这些实例正在执行的 plan（见 Claim_Affinity_Filter）。
      */
     List<AgentTaskPO> claimReadyLikeTasks(@Param("claimOwner") String claimOwner,
                                           @Param("limit") Integer limit,
-                                          @Param("leaseSeconds") Integer leaseSeconds);
+                                          @Param("leaseSeconds") Integer leaseSeconds,
+                                          @Param("fairShare") boolean fairShare,
+                                          @Param("affinitySlotCount") Integer affinitySlotCount,
+                                          @Param("affinitySlots") List<Integer> affinitySlots,
+                                          @Param("affinityStaleSeconds") Integer affinityStaleSeconds,
+                                          @Param("stealFromOwners") List<String> stealFromOwners);
 
     /**
      * 原子 claim REFINING。
      */
     List<AgentTaskPO> claimRefiningTasks(@Param("claimOwner") String claimOwner,
                                          @Param("limit") Integer limit,
-                                         @Param("leaseSeconds") Integer leaseSeconds);
+                                         @Param("leaseSeconds") Integer leaseSeconds,
+                                         @Param("fairShare") boolean fairShare,
+                                         @Param("affinitySlotCount") Integer affinitySlotCount,
+                                         @Param("affinitySlots") List<Integer> affinitySlots,
+                                         @Param("affinityStaleSeconds") Integer affinityStaleSeconds,
+                                         @Param("stealFromOwners") List<String> stealFromOwners);
 
     /**
      * 续约 claim lease。
@@ -137,11 +163,39 @@ public interface AgentTaskDao {
                         @Param("executionAttempt") Integer executionAttempt,
                         @Param("leaseSeconds") Integer leaseSeconds);
 
+    /**
+     * 按 owner 批量续约 claim lease，返回续约成功的任务 ID。
+     */
+    List<Long> renewClaimLeases(@Param("claimOwner") String claimOwner,
+                                @Param("leases") Map<Long, Integer> leases,
+                                @Param("leaseSeconds") Integer leaseSeconds);
+
+    /**
+     * 按 owner 批量归还 claim，返回归还成功的任务 ID。
+     */
+    List<Long> releaseClaims(@Param("claimOwner") String claimOwner,
+                             @Param("leases") Map<Long, Integer> leases);
+
+    /**
+     * 让失联 owner 仍持有、且 staleSeconds 内未续约的 RUNNING 任务 lease 立即过期，返回受影响行数。
+     */
+    int expireLeasesByOwners(@Param("claimOwners") List<String> claimOwners,
+                             @Param("staleSeconds") int staleSeconds);
+
     /**
      * 按 claim_owner + execution_attempt 条件更新任务状态。
      */
     int updateClaimedTaskState(AgentTaskPO po);
 
+    /**
+     * 按 claim_owner + execution_attempt 条件退避归还 claim，dispatch_after 之前不再被 claim，throttle_defer_count 加一。
+     */
+    int deferClaimedTask(@Param("id") Long id,
+                         @Param("claimOwner") String claimOwner,
+                         @Param("executionAttempt") Integer executionAttempt,
+                         @Param("status") TaskStatusEnum status,
+                         @Param("delayMillis") Long delayMillis);
+
     /**
      * 查询过期 RUNNING 数量。
      */
@@ -152,6 +206,34 @@ public interface AgentTaskDao {
      */
     int batchInsert(@Param("list") List<AgentTaskPO> list);
 
+    /**
+     * 集合式推进 all + failFast 且依赖全部 COMPLETED 的 PENDING 任务，返回每个被推进任务的 planId。
+     */
+    List<Long> promoteSatisfiedAllJoinTasks();
+
+    /**
+     * 集合式跳过 all + failFast 且存在 FAILED/SKIPPED 依赖的 PENDING 任务，返回每个被跳过任务的 planId。
+     */
+    List<Long> skipBlockedAllJoinTasks();
+
+    /**
+     * 查询需要按依赖策略逐条判定的 PENDING 任务（any / quorum / failSafe）。
+     */
+    List<AgentTaskPO> selectPendingTasksForPolicyEvaluation();
+
+    /**
+     * 查询同一 plan 下指定节点的状态（仅填充 id / plan_id / node_id / status）。
+     */
+    List<AgentTaskPO> selectStatusByNodeIds(@Param("planId") Long planId,
+                                            @Param("nodeIds") List<String> nodeIds);
+
+    /**
+     * 按 status = PENDING 守卫把指定节点推进为目标状态，返回实际推进的 nodeId。
+     */
+    List<String> transitionPendingTasks(@Param("planId") Long planId,
+                                        @Param("nodeIds") List<String> nodeIds,
+                                        @Param("toStatus") TaskStatusEnum toStatus);
+
     /**
      * 批量更新状态
      */
@@ -0,0 +1,24 @@
+package com.getoffer.infrastructure.dao;
+
+import com.getoffer.infrastructure.dao.po.ExecutorMemberPO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 执行实例成员 DAO。
+ */
+@Mapper
+public interface ExecutorMemberDao {
+
+    int upsertHeartbeat(@Param("instanceId") String instanceId,
+                        @Param("workerCapacity") int workerCapacity,
+                        @Param("inflightCount") int inflightCount);
+
+    List<ExecutorMemberPO> selectLive(@Param("ttlSeconds") int ttlSeconds);
+
+    int deleteByInstanceId(@Param("instanceId") String instanceId);
+
+    List<String> deleteExpired(@Param("ttlSeconds") int ttlSeconds);
+}
@@ -14,10 +14,20 @@ public interface PlanTaskEventDao {
 
     int insert(PlanTaskEventPO po);
 
+    /**
+     * 多行 INSERT ... RETURNING，仅回填 id 与 created_at。
+     */
+    List<PlanTaskEventPO> insertBatch(@Param("events") List<PlanTaskEventPO> events);
+
     List<PlanTaskEventPO> selectByPlanIdAfterEventId(@Param("planId") Long planId,
                                                      @Param("afterEventId") Long afterEventId,
                                                      @Param("limit") Integer limit);
 
+    /**
+     * 每个 plan 的最大事件 id（plan_id, id），无事件时 id 为 null。
+     */
+    List<PlanTaskEventPO> selectLatestEventIds(@Param("planIds") List<Long> planIds);
+
     List<PlanTaskEventPO> selectLogsPaged(@Param("planIds") List<Long> planIds,
                                           @Param("taskId") Long taskId,
                                           @Param("level") String level,
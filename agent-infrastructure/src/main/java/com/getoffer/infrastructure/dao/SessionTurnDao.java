@@ -44,5 +44,6 @@ public interface SessionTurnDao {
                                                    @Param("status") TurnStatusEnum status);
 
     List<SessionTurnPO> selectPlanningTurnsOlderThan(@Param("cutoff") LocalDateTime cutoff,
+                                                     @Param("afterId") Long afterId,
                                                      @Param("limit") Integer limit);
 }
@@ -1,5 +1,6 @@
 package com.getoffer.infrastructure.dao;
 
+import com.getoffer.infrastructure.dao.po.ExecutionDurationStatPO;
 import com.getoffer.infrastructure.dao.po.TaskExecutionPO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -72,6 +73,21 @@ public interface TaskExecutionDao {
      */
     List<TaskExecutionPO> selectLatestExecutionByTaskIds(@Param("taskIds") List<Long> taskIds);
 
+    /**
+     * 按节点统计同一 workflow 定义下的历史执行耗时中位数。
+     */
+    List<ExecutionDurationStatPO> selectMedianExecutionTimeByWorkflowNode(@Param("workflowDefinitionId") Long workflowDefinitionId,
+                                                                          @Param("nodeIds") List<String> nodeIds,
+                                                                          @Param("lookbackDays") Integer lookbackDays,
+                                                                          @Param("maxSamples") Integer maxSamples);
+
+    /**
+     * 按 agentKey 统计历史执行耗时中位数。
+     */
+    List<ExecutionDurationStatPO> selectMedianExecutionTimeByAgentKey(@Param("agentKeys") List<String> agentKeys,
+                                                                      @Param("lookbackDays") Integer lookbackDays,
+                                                                      @Param("maxSamples") Integer maxSamples);
+
     /**
      * 批量插入执行记录
      */
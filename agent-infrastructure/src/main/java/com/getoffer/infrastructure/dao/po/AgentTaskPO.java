@@ -81,6 +81,11 @@ public class AgentTaskPO {
      */
     private Integer currentRetry;
 
+    /**
+     * 剩余关键路径耗时（ms）：本节点与其最长下游链的预估耗时之和
+     */
+    private Long criticalPathMs;
+
     /**
      * claim 持有者
      */
@@ -101,6 +106,11 @@ public class AgentTaskPO {
      */
     private Integer executionAttempt;
 
+    /**
+     * 模型限流退避归还次数（仅由退避归还递增，查询映射字段）
+     */
+    private Integer throttleDeferCount;
+
     /**
      * 是否由过期 lease 重领（仅查询映射字段，不持久化）
      */
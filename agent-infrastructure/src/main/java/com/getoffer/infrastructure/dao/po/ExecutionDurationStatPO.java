@@ -0,0 +1,26 @@
+package com.getoffer.infrastructure.dao.po;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 历史执行耗时聚合统计 PO（按节点或 agentKey 分组）。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionDurationStatPO {
+
+    /**
+     * 分组键（nodeId 或 agentKey）
+     */
+    private String statKey;
+
+    /**
+     * 执行耗时中位数（ms）
+     */
+    private Long medianTimeMs;
+}
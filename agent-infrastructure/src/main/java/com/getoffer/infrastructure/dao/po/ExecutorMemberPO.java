@@ -0,0 +1,24 @@
+package com.getoffer.infrastructure.dao.po;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 执行实例成员 PO。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutorMemberPO {
+
+    private String instanceId;
+    private Integer workerCapacity;
+    private Integer inflightCount;
+    private LocalDateTime startedAt;
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,26 @@
+package com.getoffer.infrastructure.dao.po;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 按状态分组计数 PO。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusCountPO {
+
+    /**
+     * 状态（枚举名）
+     */
+    private String status;
+
+    /**
+     * 数量
+     */
+    private Long total;
+}
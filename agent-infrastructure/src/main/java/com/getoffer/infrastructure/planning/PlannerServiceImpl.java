@@ -13,7 +13,9 @@ import com.getoffer.domain.planning.service.PlannerFallbackPolicyDomainService;
 import com.getoffer.domain.planning.service.PlannerService;
 import com.getoffer.domain.planning.service.WorkflowRoutingPolicyDomainService;
 import com.getoffer.domain.task.adapter.repository.IAgentTaskRepository;
+import com.getoffer.domain.task.adapter.repository.ITaskExecutionRepository;
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.domain.task.service.TaskDispatchDomainService;
 import com.getoffer.infrastructure.util.JsonCodec;
 import com.getoffer.types.enums.PlanStatusEnum;
 import com.getoffer.types.enums.ResponseCode;
@@ -46,6 +48,10 @@ public class PlannerServiceImpl implements PlannerService, DisposableBean {
 
     private static final int DEFAULT_PRIORITY = 0;
     private static final long DEFAULT_ROOT_SOFT_TIMEOUT_MS = 15_000L;
+    private static final long DEFAULT_CRITICAL_PATH_DURATION_MS = 30_000L;
+    private static final int DEFAULT_CRITICAL_PATH_LOOKBACK_DAYS = 14;
+    private static final int DEFAULT_CRITICAL_PATH_MAX_SAMPLES = 5000;
+    private static final long DEFAULT_CRITICAL_PATH_CACHE_TTL_MS = 300_000L;
     private static final String MISSING_REQUIRED_INPUT_PREFIX = "Missing required input:";
     private static final String ROUTE_REASON_PRODUCTION_INPUT_MISSING = "PRODUCTION_DEFINITION_INPUT_MISSING";
     private static final AtomicInteger ROOT_PLANNER_THREAD_SEQ = new AtomicInteger(1);
@@ -153,6 +159,48 @@ public class PlannerServiceImpl implements PlannerService, DisposableBean {
                 WorkflowRoutingPolicyDomainService.defaultInstance());
     }
 
+    public PlannerServiceImpl(IWorkflowDefinitionRepository workflowDefinitionRepository,
+                              IWorkflowDraftRepository workflowDraftRepository,
+                              IRoutingDecisionRepository routingDecisionRepository,
+                              IAgentPlanRepository agentPlanRepository,
+                              IAgentTaskRepository agentTaskRepository,
+                              JsonCodec jsonCodec,
+                              IRootWorkflowDraftPlanner rootWorkflowDraftPlanner,
+                              IAgentRegistryRepository agentRegistryRepository,
+                              boolean rootPlannerEnabled,
+                              String rootAgentKey,
+                              int rootMaxAttempts,
+                              long rootRetryBackoffMs,
+                              boolean fallbackSingleNodeEnabled,
+                              String fallbackAgentKey,
+                              long rootSoftTimeoutMs,
+                              PlannerFallbackPolicyDomainService plannerFallbackPolicyDomainService,
+                              WorkflowRoutingPolicyDomainService workflowRoutingPolicyDomainService) {
+        this(workflowDefinitionRepository,
+                workflowDraftRepository,
+                routingDecisionRepository,
+                agentPlanRepository,
+                agentTaskRepository,
+                jsonCodec,
+                rootWorkflowDraftPlanner,
+                agentRegistryRepository,
+                rootPlannerEnabled,
+                rootAgentKey,
+                rootMaxAttempts,
+                rootRetryBackoffMs,
+                fallbackSingleNodeEnabled,
+                fallbackAgentKey,
+                rootSoftTimeoutMs,
+                plannerFallbackPolicyDomainService,
+                workflowRoutingPolicyDomainService,
+                null,
+                true,
+                DEFAULT_CRITICAL_PATH_DURATION_MS,
+                DEFAULT_CRITICAL_PATH_LOOKBACK_DAYS,
+                DEFAULT_CRITICAL_PATH_MAX_SAMPLES,
+                DEFAULT_CRITICAL_PATH_CACHE_TTL_MS);
+    }
+
     @Autowired
     public PlannerServiceImpl(IWorkflowDefinitionRepository workflowDefinitionRepository,
                               IWorkflowDraftRepository workflowDraftRepository,
@@ -170,7 +218,13 @@ public class PlannerServiceImpl implements PlannerService, DisposableBean {
                               @Value("${planner.root.fallback.agent-key:assistant}") String fallbackAgentKey,
                               @Value("${planner.root.timeout.soft-ms:15000}") long rootSoftTimeoutMs,
                               PlannerFallbackPolicyDomainService plannerFallbackPolicyDomainService,
-                              WorkflowRoutingPolicyDomainService workflowRoutingPolicyDomainService) {
+                              WorkflowRoutingPolicyDomainService workflowRoutingPolicyDomainService,
+                              @Autowired(required = false) ITaskExecutionRepository taskExecutionRepository,
+                              @Value("${planner.critical-path.enabled:true}") boolean criticalPathEnabled,
+                              @Value("${planner.critical-path.default-duration-ms:30000}") long criticalPathDefaultDurationMs,
+                              @Value("${planner.critical-path.lookback-days:14}") int criticalPathLookbackDays,
+                              @Value("${planner.critical-path.max-samples:5000}") int criticalPathMaxSamples,
+                              @Value("${planner.critical-path.cache-ttl-ms:300000}") long criticalPathCacheTtlMs) {
         this.agentPlanRepository = agentPlanRepository;
         this.agentTaskRepository = agentTaskRepository;
         this.jsonCodec = jsonCodec;
@@ -188,7 +242,14 @@ public class PlannerServiceImpl implements PlannerService, DisposableBean {
         WorkflowRoutingPolicyDomainService resolvedRoutingPolicy = workflowRoutingPolicyDomainService == null
                 ? WorkflowRoutingPolicyDomainService.defaultInstance()
                 : workflowRoutingPolicyDomainService;
-        this.workflowTaskMaterializationService = new WorkflowTaskMaterializationService(jsonCodec);
+        this.workflowTaskMaterializationService = new WorkflowTaskMaterializationService(jsonCodec,
+                new TaskCriticalPathEstimator(taskExecutionRepository,
+                        new TaskDispatchDomainService(),
+                        criticalPathEnabled,
+                        criticalPathDefaultDurationMs,
+                        criticalPathLookbackDays,
+                        criticalPathMaxSamples,
+                        criticalPathCacheTtlMs));
         this.workflowPlanSnapshotService = new WorkflowPlanSnapshotService(jsonCodec);
         this.workflowDraftLifecycleService = new WorkflowDraftLifecycleService(
                 workflowDraftRepository,
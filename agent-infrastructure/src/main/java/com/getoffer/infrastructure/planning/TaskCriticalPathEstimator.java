@@ -0,0 +1,175 @@
+package com.getoffer.infrastructure.planning;
+
+import com.getoffer.domain.planning.model.entity.AgentPlanEntity;
+import com.getoffer.domain.task.adapter.repository.ITaskExecutionRepository;
+import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.domain.task.service.TaskDispatchDomainService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 物化时估算各节点剩余关键路径长度（ms），写入任务作为派发优先级：
+ * 1) 单节点耗时依次取同一 workflow 定义下该节点的历史中位数、同 agentKey 的历史中位数、默认耗时；
+ * 2) 关键路径由 {@link TaskDispatchDomainService#computeRemainingCriticalPath} 按逆拓扑序计算；
+ * 3) 历史查询失败只降级为默认耗时，不影响物化本身；
+ * 4) 中位数（含无历史的空结果）按 key 缓存 cacheTtlMs，物化路径上只查询未命中的 key；
+ *    单次统计只取窗口内最近 maxSamples 条样本，限制同步扫描量。
+ */
+@Slf4j
+public class TaskCriticalPathEstimator {
+
+    private static final int MAX_CACHE_ENTRIES = 4096;
+
+    private final ITaskExecutionRepository taskExecutionRepository;
+    private final TaskDispatchDomainService taskDispatchDomainService;
+    private final boolean enabled;
+    private final long defaultDurationMs;
+    private final int lookbackDays;
+    private final int maxSamples;
+    private final long cacheTtlMs;
+    private final ConcurrentMap<String, CachedMedian> medianCache;
+
+    public TaskCriticalPathEstimator(ITaskExecutionRepository taskExecutionRepository,
+                                     TaskDispatchDomainService taskDispatchDomainService,
+                                     boolean enabled,
+                                     long defaultDurationMs,
+                                     int lookbackDays,
+                                     int maxSamples,
+                                     long cacheTtlMs) {
+        this.taskExecutionRepository = taskExecutionRepository;
+        this.taskDispatchDomainService = taskDispatchDomainService;
+        this.enabled = enabled;
+        this.defaultDurationMs = Math.max(defaultDurationMs, 1L);
+        this.lookbackDays = Math.max(lookbackDays, 0);
+        this.maxSamples = Math.max(maxSamples, 0);
+        this.cacheTtlMs = Math.max(cacheTtlMs, 0L);
+        this.medianCache = new ConcurrentHashMap<>();
+    }
+
+    public void assign(AgentPlanEntity plan, List<AgentTaskEntity> tasks) {
+        if (!enabled || taskDispatchDomainService == null || tasks == null || tasks.isEmpty()) {
+            return;
+        }
+        Map<String, Long> durationByNode = resolveDurations(plan, tasks);
+        Map<String, Long> criticalPath = taskDispatchDomainService.computeRemainingCriticalPath(
+                tasks, durationByNode, defaultDurationMs);
+        for (AgentTaskEntity task : tasks) {
+            if (task != null) {
+                task.setCriticalPathMs(criticalPath.getOrDefault(task.getNodeId(), 0L));
+            }
+        }
+    }
+
+    private Map<String, Long> resolveDurations(AgentPlanEntity plan, List<AgentTaskEntity> tasks) {
+        if (taskExecutionRepository == null || lookbackDays <= 0 || maxSamples <= 0) {
+            return Collections.emptyMap();
+        }
+        List<String> nodeIds = new ArrayList<>(tasks.size());
+        for (AgentTaskEntity task : tasks) {
+            if (task != null && StringUtils.isNotBlank(task.getNodeId())) {
+                nodeIds.add(task.getNodeId());
+            }
+        }
+        Map<String, Long> durationByNode = new HashMap<>();
+        Long workflowDefinitionId = plan == null ? null : plan.getWorkflowDefinitionId();
+        try {
+            if (workflowDefinitionId != null) {
+                durationByNode.putAll(cachedMedians("node:" + workflowDefinitionId + ":", nodeIds,
+                        missing -> taskExecutionRepository.findMedianExecutionTimeByWorkflowNode(
+                                workflowDefinitionId, missing, lookbackDays, maxSamples)));
+            }
+            Map<String, String> agentKeyByNode = new HashMap<>();
+            Set<String> agentKeys = new LinkedHashSet<>();
+            for (AgentTaskEntity task : tasks) {
+                if (task == null || durationByNode.containsKey(task.getNodeId())) {
+                    continue;
+                }
+                String agentKey = resolveAgentKey(task);
+                if (agentKey != null) {
+                    agentKeyByNode.put(task.getNodeId(), agentKey);
+                    agentKeys.add(agentKey);
+                }
+            }
+            if (!agentKeys.isEmpty()) {
+                Map<String, Long> durationByAgentKey = cachedMedians("agent:", new ArrayList<>(agentKeys),
+                        missing -> taskExecutionRepository.findMedianExecutionTimeByAgentKey(
+                                missing, lookbackDays, maxSamples));
+                for (Map.Entry<String, String> entry : agentKeyByNode.entrySet()) {
+                    Long duration = durationByAgentKey.get(entry.getValue());
+                    if (duration != null) {
+                        durationByNode.put(entry.getKey(), duration);
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to load historical task durations, fallback to default duration. planId={}, workflowDefinitionId={}, error={}",
+                    plan == null ? null : plan.getId(), workflowDefinitionId, ex.getMessage());
+        }
+        return durationByNode;
+    }
+
+    /**
+     * 先读缓存，只对过期或未缓存的 key 调用 loader；loader 未返回的 key 以空值缓存，避免无历史的 key 反复查询。
+     */
+    private Map<String, Long> cachedMedians(String cachePrefix,
+                                            List<String> keys,
+                                            Function<List<String>, Map<String, Long>> loader) {
+        Map<String, Long> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (String key : keys) {
+            CachedMedian cached = medianCache.get(cachePrefix + key);
+            if (cached != null && now - cached.cachedAtMillis() < cacheTtlMs) {
+                if (cached.medianMs() != null) {
+                    result.put(key, cached.medianMs());
+                }
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        Map<String, Long> loaded = loader.apply(missing);
+        if (medianCache.size() >= MAX_CACHE_ENTRIES) {
+            medianCache.clear();
+        }
+        for (String key : missing) {
+            Long median = loaded == null ? null : loaded.get(key);
+            if (cacheTtlMs > 0L) {
+                medianCache.put(cachePrefix + key, new CachedMedian(median, now));
+            }
+            if (median != null) {
+                result.put(key, median);
+            }
+        }
+        return result;
+    }
+
+    private String resolveAgentKey(AgentTaskEntity task) {
+        Map<String, Object> config = task.getConfigSnapshot();
+        if (config == null) {
+            return null;
+        }
+        Object value = config.get("agentKey");
+        if (value == null) {
+            value = config.get("agent_key");
+        }
+        String agentKey = value == null ? null : String.valueOf(value).trim();
+        return StringUtils.isBlank(agentKey) ? null : agentKey;
+    }
+
+    private record CachedMedian(Long medianMs, long cachedAtMillis) {
+    }
+}
@@ -23,9 +23,15 @@ public class WorkflowTaskMaterializationService {
 
     private static final int DEFAULT_MAX_RETRIES = 3;
     private final JsonCodec jsonCodec;
+    private final TaskCriticalPathEstimator criticalPathEstimator;
 
     public WorkflowTaskMaterializationService(JsonCodec jsonCodec) {
+        this(jsonCodec, null);
+    }
+
+    public WorkflowTaskMaterializationService(JsonCodec jsonCodec, TaskCriticalPathEstimator criticalPathEstimator) {
         this.jsonCodec = jsonCodec;
+        this.criticalPathEstimator = criticalPathEstimator;
     }
 
     public List<AgentTaskEntity> materializeTasks(AgentPlanEntity plan,
@@ -86,6 +92,9 @@ public class WorkflowTaskMaterializationService {
             task.setVersion(0);
             tasks.add(task);
         }
+        if (criticalPathEstimator != null) {
+            criticalPathEstimator.assign(plan, tasks);
+        }
         return tasks;
     }
 
@@ -4,13 +4,18 @@ import com.getoffer.domain.planning.model.entity.AgentPlanEntity;
 import com.getoffer.domain.planning.adapter.repository.IAgentPlanRepository;
 import com.getoffer.infrastructure.dao.AgentPlanDao;
 import com.getoffer.infrastructure.dao.po.AgentPlanPO;
+import com.getoffer.infrastructure.dao.po.StatusCountPO;
 import com.getoffer.infrastructure.util.JsonCodec;
 import com.getoffer.types.enums.PlanStatusEnum;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -92,6 +97,11 @@ public class AgentPlanRepositoryImpl implements IAgentPlanRepository {
         return po != null ? toEntity(po) : null;
     }
 
+    @Override
+    public Integer findVersionById(Long id) {
+        return id == null ? null : agentPlanDao.selectVersionById(id);
+    }
+
     /**
      * 按会话 ID 查询。
      */
@@ -123,12 +133,11 @@ public class AgentPlanRepositoryImpl implements IAgentPlanRepository {
     }
 
     @Override
-    public List<AgentPlanEntity> findByStatusPaged(PlanStatusEnum status, int offset, int limit) {
-        if (limit <= 0) {
-            return java.util.Collections.emptyList();
+    public List<AgentPlanEntity> findByStatusAfterId(PlanStatusEnum status, long afterId, int limit) {
+        if (status == null || limit <= 0) {
+            return Collections.emptyList();
         }
-        int safeOffset = Math.max(0, offset);
-        return agentPlanDao.selectByStatusPaged(status, safeOffset, limit).stream()
+        return agentPlanDao.selectByStatusAfterId(status, Math.max(0L, afterId), limit).stream()
                 .map(this::toEntity)
                 .collect(Collectors.toList());
     }
@@ -158,6 +167,26 @@ public class AgentPlanRepositoryImpl implements IAgentPlanRepository {
         return count == null ? 0L : count;
     }
 
+    @Override
+    public Map<PlanStatusEnum, Long> countGroupByStatus() {
+        Map<PlanStatusEnum, Long> counts = new EnumMap<>(PlanStatusEnum.class);
+        List<StatusCountPO> rows = agentPlanDao.countGroupByStatus();
+        if (rows == null) {
+            return counts;
+        }
+        for (StatusCountPO row : rows) {
+            if (row == null || row.getStatus() == null || row.getTotal() == null || row.getTotal() <= 0L) {
+                continue;
+            }
+            try {
+                counts.put(PlanStatusEnum.valueOf(row.getStatus()), row.getTotal());
+            } catch (IllegalArgumentException ex) {
+                log.warn("Ignore unknown plan status in counts. status={}", row.getStatus());
+            }
+        }
+        return counts;
+    }
+
     @Override
     public List<AgentPlanEntity> findRecent(int limit) {
         if (limit <= 0) {
@@ -178,6 +207,36 @@ public class AgentPlanRepositoryImpl implements IAgentPlanRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<AgentPlanEntity> findByIds(Collection<Long> ids) {
+        List<Long> normalizedIds = normalizePlanIds(ids);
+        if (normalizedIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return agentPlanDao.selectByIds(normalizedIds).stream()
+                .map(this::toEntity)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean markStatusDirty(Collection<Long> planIds) {
+        List<Long> normalizedIds = normalizePlanIds(planIds);
+        if (!normalizedIds.isEmpty()) {
+            agentPlanDao.insertStatusDirty(normalizedIds);
+        }
+        return true;
+    }
+
+    @Override
+    public List<AgentPlanEntity> claimStatusDirtyPlans(int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        return agentPlanDao.claimStatusDirtyPlans(limit).stream()
+                .map(this::toEntity)
+                .collect(Collectors.toList());
+    }
+
     /**
      * 查询 executable plans。
      */
@@ -188,6 +247,19 @@ public class AgentPlanRepositoryImpl implements IAgentPlanRepository {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 过滤空值并去重 planId。
+     */
+    private List<Long> normalizePlanIds(Collection<Long> planIds) {
+        if (planIds == null || planIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return planIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
     /**
      * PO 转换为 Entity
      */
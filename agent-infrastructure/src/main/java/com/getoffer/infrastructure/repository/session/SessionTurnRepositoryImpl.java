@@ -115,11 +115,11 @@ public class SessionTurnRepositoryImpl implements ISessionTurnRepository {
     }
 
     @Override
-    public List<SessionTurnEntity> findPlanningTurnsOlderThan(LocalDateTime cutoff, int limit) {
+    public List<SessionTurnEntity> findPlanningTurnsOlderThan(LocalDateTime cutoff, long afterId, int limit) {
         if (cutoff == null || limit <= 0) {
             return Collections.emptyList();
         }
-        List<SessionTurnPO> list = sessionTurnDao.selectPlanningTurnsOlderThan(cutoff, limit);
+        List<SessionTurnPO> list = sessionTurnDao.selectPlanningTurnsOlderThan(cutoff, Math.max(0L, afterId), limit);
         if (list == null || list.isEmpty()) {
             return Collections.emptyList();
         }
@@ -1,20 +1,28 @@
 package com.getoffer.infrastructure.repository.task;
 
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.domain.task.model.valobj.PlanAffinityScope;
 import com.getoffer.domain.task.model.valobj.PlanTaskStatusStat;
 import com.getoffer.domain.task.adapter.repository.IAgentTaskRepository;
 import com.getoffer.infrastructure.dao.AgentTaskDao;
 import com.getoffer.infrastructure.dao.po.AgentTaskPO;
 import com.getoffer.infrastructure.dao.po.PlanTaskStatusStatPO;
+import com.getoffer.infrastructure.dao.po.StatusCountPO;
 import com.getoffer.infrastructure.util.JsonCodec;
 import com.getoffer.types.enums.TaskStatusEnum;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -40,13 +48,17 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
 
     private final AgentTaskDao agentTaskDao;
     private final JsonCodec jsonCodec;
+    private final boolean claimFairShare;
 
     /**
      * 创建 AgentTaskRepositoryImpl。
      */
-    public AgentTaskRepositoryImpl(AgentTaskDao agentTaskDao, JsonCodec jsonCodec) {
+    public AgentTaskRepositoryImpl(AgentTaskDao agentTaskDao,
+                                   JsonCodec jsonCodec,
+                                   @Value("${executor.claim.fair-share.enabled:true}") boolean claimFairShare) {
         this.agentTaskDao = agentTaskDao;
         this.jsonCodec = jsonCodec;
+        this.claimFairShare = claimFairShare;
     }
 
     /**
@@ -147,6 +159,51 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Long> promoteSatisfiedAllJoinTasks() {
+        List<Long> planIds = agentTaskDao.promoteSatisfiedAllJoinTasks();
+        return planIds == null ? Collections.emptyList() : planIds;
+    }
+
+    @Override
+    public List<Long> skipBlockedAllJoinTasks() {
+        List<Long> planIds = agentTaskDao.skipBlockedAllJoinTasks();
+        return planIds == null ? Collections.emptyList() : planIds;
+    }
+
+    @Override
+    public List<AgentTaskEntity> findPendingTasksForPolicyEvaluation() {
+        return agentTaskDao.selectPendingTasksForPolicyEvaluation().stream()
+                .map(this::toEntity)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, TaskStatusEnum> findStatusByNodeIds(Long planId, Collection<String> nodeIds) {
+        List<String> normalizedNodeIds = normalizeNodeIds(nodeIds);
+        if (planId == null || normalizedNodeIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, TaskStatusEnum> statusByNode = new HashMap<>();
+        for (AgentTaskPO po : agentTaskDao.selectStatusByNodeIds(planId, normalizedNodeIds)) {
+            if (po != null && po.getNodeId() != null) {
+                statusByNode.put(po.getNodeId(), po.getStatus());
+            }
+        }
+        return statusByNode;
+    }
+
+    @Override
+    public List<String> transitionPendingTasks(Long planId, Collection<String> nodeIds, TaskStatusEnum toStatus) {
+        List<String> normalizedNodeIds = normalizeNodeIds(nodeIds);
+        if (planId == null || normalizedNodeIds.isEmpty()
+                || (toStatus != TaskStatusEnum.READY && toStatus != TaskStatusEnum.SKIPPED)) {
+            return Collections.emptyList();
+        }
+        List<String> transitioned = agentTaskDao.transitionPendingTasks(planId, normalizedNodeIds, toStatus);
+        return transitioned == null ? Collections.emptyList() : transitioned;
+    }
+
     @Override
     public long countAll() {
         Long count = agentTaskDao.countAll();
@@ -162,6 +219,35 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
         return count == null ? 0L : count;
     }
 
+    @Override
+    public Map<TaskStatusEnum, Long> countGroupByStatus() {
+        Map<TaskStatusEnum, Long> counts = new EnumMap<>(TaskStatusEnum.class);
+        List<StatusCountPO> rows = agentTaskDao.countGroupByStatus();
+        if (rows == null) {
+            return counts;
+        }
+        for (StatusCountPO row : rows) {
+            if (row == null || row.getStatus() == null || row.getTotal() == null || row.getTotal() <= 0L) {
+                continue;
+            }
+            try {
+                counts.put(TaskStatusEnum.valueOf(row.getStatus()), row.getTotal());
+            } catch (IllegalArgumentException ex) {
+                log.warn("Ignore unknown task status in counters. status={}", row.getStatus());
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public int archiveFinishedPlanCounters(int graceSeconds, int limit) {
+        if (limit <= 0) {
+            return 0;
+        }
+        Integer archived = agentTaskDao.archiveFinishedPlanCounters(Math.max(graceSeconds, 0), limit);
+        return archived == null ? 0 : archived;
+    }
+
     @Override
     public List<AgentTaskEntity> findRecent(int limit) {
         if (limit <= 0) {
@@ -234,7 +320,7 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
         if (claimOwner == null || claimOwner.trim().isEmpty() || limit <= 0 || leaseSeconds <= 0) {
             return Collections.emptyList();
         }
-        List<AgentTaskPO> pos = agentTaskDao.claimExecutableTasks(claimOwner, limit, leaseSeconds);
+        List<AgentTaskPO> pos = agentTaskDao.claimExecutableTasks(claimOwner, limit, leaseSeconds, claimFairShare);
         if (pos == null || pos.isEmpty()) {
             return Collections.emptyList();
         }
@@ -243,10 +329,19 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
 
     @Override
     public List<AgentTaskEntity> claimReadyLikeTasks(String claimOwner, int limit, int leaseSeconds) {
+        return claimReadyLikeTasks(claimOwner, limit, leaseSeconds, null);
+    }
+
+    @Override
+    public List<AgentTaskEntity> claimReadyLikeTasks(String claimOwner, int limit, int leaseSeconds, PlanAffinityScope scope) {
         if (claimOwner == null || claimOwner.trim().isEmpty() || limit <= 0 || leaseSeconds <= 0) {
             return Collections.emptyList();
         }
-        List<AgentTaskPO> pos = agentTaskDao.claimReadyLikeTasks(claimOwner, limit, leaseSeconds);
+        List<AgentTaskPO> pos = agentTaskDao.claimReadyLikeTasks(claimOwner, limit, leaseSeconds, claimFairShare,
+                scope == null ? null : scope.getSlotCount(),
+                scope == null ? null : scope.getOwnedSlots(),
+                scope == null ? null : scope.getForeignStaleSeconds(),
+                scope == null ? null : scope.getStealFromOwners());
         if (pos == null || pos.isEmpty()) {
             return Collections.emptyList();
         }
@@ -255,10 +350,19 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
 
     @Override
     public List<AgentTaskEntity> claimRefiningTasks(String claimOwner, int limit, int leaseSeconds) {
+        return claimRefiningTasks(claimOwner, limit, leaseSeconds, null);
+    }
+
+    @Override
+    public List<AgentTaskEntity> claimRefiningTasks(String claimOwner, int limit, int leaseSeconds, PlanAffinityScope scope) {
         if (claimOwner == null || claimOwner.trim().isEmpty() || limit <= 0 || leaseSeconds <= 0) {
             return Collections.emptyList();
         }
-        List<AgentTaskPO> pos = agentTaskDao.claimRefiningTasks(claimOwner, limit, leaseSeconds);
+        List<AgentTaskPO> pos = agentTaskDao.claimRefiningTasks(claimOwner, limit, leaseSeconds, claimFairShare,
+                scope == null ? null : scope.getSlotCount(),
+                scope == null ? null : scope.getOwnedSlots(),
+                scope == null ? null : scope.getForeignStaleSeconds(),
+                scope == null ? null : scope.getStealFromOwners());
         if (pos == null || pos.isEmpty()) {
             return Collections.emptyList();
         }
@@ -274,6 +378,56 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
         return agentTaskDao.renewClaimLease(taskId, claimOwner, executionAttempt, leaseSeconds) > 0;
     }
 
+    @Override
+    public List<Long> renewClaimLeases(String claimOwner, Map<Long, Integer> attemptsByTaskId, int leaseSeconds) {
+        if (attemptsByTaskId == null || attemptsByTaskId.isEmpty() || leaseSeconds <= 0
+                || claimOwner == null || claimOwner.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Integer> leases = new LinkedHashMap<>();
+        attemptsByTaskId.forEach((taskId, attempt) -> {
+            if (taskId != null && attempt != null) {
+                leases.put(taskId, attempt);
+            }
+        });
+        if (leases.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> renewed = agentTaskDao.renewClaimLeases(claimOwner, leases, leaseSeconds);
+        return renewed == null ? Collections.emptyList() : renewed;
+    }
+
+    @Override
+    public List<Long> releaseClaims(String claimOwner, Map<Long, Integer> attemptsByTaskId) {
+        if (attemptsByTaskId == null || attemptsByTaskId.isEmpty()
+                || claimOwner == null || claimOwner.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Integer> leases = new LinkedHashMap<>();
+        attemptsByTaskId.forEach((taskId, attempt) -> {
+            if (taskId != null && attempt != null) {
+                leases.put(taskId, attempt);
+            }
+        });
+        if (leases.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> released = agentTaskDao.releaseClaims(claimOwner, leases);
+        return released == null ? Collections.emptyList() : released;
+    }
+
+    @Override
+    public int expireLeasesOfOwners(Collection<String> claimOwners, int staleSeconds) {
+        if (claimOwners == null || claimOwners.isEmpty()) {
+            return 0;
+        }
+        List<String> owners = claimOwners.stream()
+                .filter(owner -> owner != null && !owner.trim().isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        return owners.isEmpty() ? 0 : agentTaskDao.expireLeasesByOwners(owners, Math.max(staleSeconds, 0));
+    }
+
     @Override
     public boolean updateClaimedTaskState(AgentTaskEntity entity) {
         if (entity == null || entity.getId() == null
@@ -286,6 +440,21 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
         return affected > 0;
     }
 
+    @Override
+    public boolean deferClaimedTask(AgentTaskEntity entity, long delayMillis) {
+        if (entity == null || entity.getId() == null
+                || entity.getClaimOwner() == null || entity.getClaimOwner().trim().isEmpty()
+                || entity.getExecutionAttempt() == null || entity.getStatus() == null) {
+            return false;
+        }
+        int affected = agentTaskDao.deferClaimedTask(entity.getId(),
+                entity.getClaimOwner(),
+                entity.getExecutionAttempt(),
+                entity.getStatus(),
+                Math.max(delayMillis, 0L));
+        return affected > 0;
+    }
+
     @Override
     public long countExpiredRunningTasks() {
         Long count = agentTaskDao.countExpiredRunningTasks();
@@ -355,10 +524,12 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
         entity.setOutputResult(po.getOutputResult());
         entity.setMaxRetries(po.getMaxRetries());
         entity.setCurrentRetry(po.getCurrentRetry());
+        entity.setCriticalPathMs(po.getCriticalPathMs());
         entity.setClaimOwner(po.getClaimOwner());
         entity.setClaimAt(po.getClaimAt());
         entity.setLeaseUntil(po.getLeaseUntil());
         entity.setExecutionAttempt(po.getExecutionAttempt());
+        entity.setThrottleDeferCount(po.getThrottleDeferCount());
         entity.setLeaseReclaimed(po.getLeaseReclaimed());
         entity.setVersion(po.getVersion());
         entity.setCreatedAt(po.getCreatedAt());
@@ -383,6 +554,7 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
                 .outputResult(entity.getOutputResult())
                 .maxRetries(entity.getMaxRetries())
                 .currentRetry(entity.getCurrentRetry())
+                .criticalPathMs(entity.getCriticalPathMs())
                 .claimOwner(entity.getClaimOwner())
                 .claimAt(entity.getClaimAt())
                 .leaseUntil(entity.getLeaseUntil())
@@ -438,4 +610,14 @@ public class AgentTaskRepositoryImpl implements IAgentTaskRepository {
                 .collect(Collectors.toCollection(ArrayList::new));
         return normalized.isEmpty() ? Collections.emptyList() : normalized;
     }
+
+    private List<String> normalizeNodeIds(Collection<String> nodeIds) {
+        if (nodeIds == null || nodeIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return nodeIds.stream()
+                .filter(nodeId -> nodeId != null && !nodeId.trim().isEmpty())
+                .distinct()
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
 }
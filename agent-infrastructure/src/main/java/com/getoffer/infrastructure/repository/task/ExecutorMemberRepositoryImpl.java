@@ -0,0 +1,71 @@
+package com.getoffer.infrastructure.repository.task;
+
+import com.getoffer.domain.task.adapter.repository.IExecutorMemberRepository;
+import com.getoffer.domain.task.model.entity.ExecutorMemberEntity;
+import com.getoffer.infrastructure.dao.ExecutorMemberDao;
+import com.getoffer.infrastructure.dao.po.ExecutorMemberPO;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 执行实例成员仓储实现。
+ */
+@Repository
+public class ExecutorMemberRepositoryImpl implements IExecutorMemberRepository {
+
+    private final ExecutorMemberDao executorMemberDao;
+
+    public ExecutorMemberRepositoryImpl(ExecutorMemberDao executorMemberDao) {
+        this.executorMemberDao = executorMemberDao;
+    }
+
+    @Override
+    public boolean heartbeat(String instanceId, int workerCapacity, int inflightCount) {
+        if (instanceId == null || instanceId.isBlank()) {
+            return false;
+        }
+        return executorMemberDao.upsertHeartbeat(instanceId, Math.max(workerCapacity, 0), Math.max(inflightCount, 0)) > 0;
+    }
+
+    @Override
+    public List<ExecutorMemberEntity> findLiveMembers(int ttlSeconds) {
+        if (ttlSeconds <= 0) {
+            return Collections.emptyList();
+        }
+        List<ExecutorMemberPO> rows = executorMemberDao.selectLive(ttlSeconds);
+        if (rows == null || rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return rows.stream().map(this::toEntity).collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean remove(String instanceId) {
+        if (instanceId == null || instanceId.isBlank()) {
+            return false;
+        }
+        return executorMemberDao.deleteByInstanceId(instanceId) > 0;
+    }
+
+    @Override
+    public List<String> removeExpired(int ttlSeconds) {
+        if (ttlSeconds <= 0) {
+            return Collections.emptyList();
+        }
+        List<String> removed = executorMemberDao.deleteExpired(ttlSeconds);
+        return removed == null ? Collections.emptyList() : removed;
+    }
+
+    private ExecutorMemberEntity toEntity(ExecutorMemberPO po) {
+        ExecutorMemberEntity entity = new ExecutorMemberEntity();
+        entity.setInstanceId(po.getInstanceId());
+        entity.setWorkerCapacity(po.getWorkerCapacity());
+        entity.setInflightCount(po.getInflightCount());
+        entity.setStartedAt(po.getStartedAt());
+        entity.setHeartbeatAt(po.getHeartbeatAt());
+        return entity;
+    }
+}
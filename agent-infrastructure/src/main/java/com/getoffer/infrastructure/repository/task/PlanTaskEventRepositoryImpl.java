@@ -8,10 +8,15 @@ import com.getoffer.infrastructure.util.JsonCodec;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -21,6 +26,8 @@ import java.util.stream.Collectors;
 @Repository
 public class PlanTaskEventRepositoryImpl implements IPlanTaskEventRepository {
 
+    private static final int LATEST_EVENT_ID_CHUNK_SIZE = 500;
+
     private final PlanTaskEventDao planTaskEventDao;
     private final JsonCodec jsonCodec;
 
@@ -37,6 +44,40 @@ public class PlanTaskEventRepositoryImpl implements IPlanTaskEventRepository {
         return toEntity(po);
     }
 
+    @Override
+    public List<PlanTaskEventEntity> saveAll(List<PlanTaskEventEntity> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<PlanTaskEventPO> pos = new ArrayList<>(entities.size());
+        for (PlanTaskEventEntity entity : entities) {
+            entity.validate();
+            pos.add(toPO(entity));
+        }
+        List<PlanTaskEventPO> generated = planTaskEventDao.insertBatch(pos);
+        if (generated == null || generated.size() != pos.size()) {
+            throw new IllegalStateException("Batch insert returned unexpected row count: expected "
+                    + pos.size() + ", actual " + (generated == null ? 0 : generated.size()));
+        }
+        // RETURNING 不保证行序，按 id 升序回填即对应入参顺序
+        List<PlanTaskEventPO> ordered = new ArrayList<>(generated);
+        ordered.sort(Comparator.comparing(PlanTaskEventPO::getId));
+        List<PlanTaskEventEntity> saved = new ArrayList<>(pos.size());
+        for (int i = 0; i < entities.size(); i++) {
+            // 事件数据沿用入参，省去对刚写入的 JSON 再反序列化一次
+            PlanTaskEventEntity source = entities.get(i);
+            PlanTaskEventEntity entity = new PlanTaskEventEntity();
+            entity.setId(ordered.get(i).getId());
+            entity.setPlanId(source.getPlanId());
+            entity.setTaskId(source.getTaskId());
+            entity.setEventType(source.getEventType());
+            entity.setEventData(source.getEventData());
+            entity.setCreatedAt(ordered.get(i).getCreatedAt());
+            saved.add(entity);
+        }
+        return saved;
+    }
+
     @Override
     public List<PlanTaskEventEntity> findByPlanIdAfterEventId(Long planId, Long afterEventId, int limit) {
         if (planId == null || limit <= 0) {
@@ -50,6 +91,29 @@ public class PlanTaskEventRepositoryImpl implements IPlanTaskEventRepository {
         return events.stream().map(this::toEntity).collect(Collectors.toList());
     }
 
+    @Override
+    public Map<Long, Long> findLatestEventIds(Collection<Long> planIds) {
+        List<Long> normalizedPlanIds = normalizePlanIds(planIds == null ? null : new ArrayList<>(planIds));
+        if (normalizedPlanIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Long> latest = new HashMap<>();
+        for (int from = 0; from < normalizedPlanIds.size(); from += LATEST_EVENT_ID_CHUNK_SIZE) {
+            List<Long> chunk = normalizedPlanIds.subList(from,
+                    Math.min(from + LATEST_EVENT_ID_CHUNK_SIZE, normalizedPlanIds.size()));
+            List<PlanTaskEventPO> rows = planTaskEventDao.selectLatestEventIds(chunk);
+            if (rows == null) {
+                continue;
+            }
+            for (PlanTaskEventPO row : rows) {
+                if (row != null && row.getPlanId() != null) {
+                    latest.put(row.getPlanId(), row.getId() == null ? 0L : row.getId());
+                }
+            }
+        }
+        return latest;
+    }
+
     @Override
     public List<PlanTaskEventEntity> findLogsPaged(List<Long> planIds,
                                                    Long taskId,
@@ -3,6 +3,7 @@ package com.getoffer.infrastructure.repository.task;
 import com.getoffer.domain.task.model.entity.TaskExecutionEntity;
 import com.getoffer.domain.task.adapter.repository.ITaskExecutionRepository;
 import com.getoffer.infrastructure.dao.TaskExecutionDao;
+import com.getoffer.infrastructure.dao.po.ExecutionDurationStatPO;
 import com.getoffer.infrastructure.dao.po.TaskExecutionPO;
 import com.getoffer.infrastructure.util.JsonCodec;
 import lombok.extern.slf4j.Slf4j;
@@ -183,6 +184,28 @@ public class TaskExecutionRepositoryImpl implements ITaskExecutionRepository {
         return result;
     }
 
+    @Override
+    public Map<String, Long> findMedianExecutionTimeByWorkflowNode(Long workflowDefinitionId,
+                                                                   List<String> nodeIds,
+                                                                   int lookbackDays,
+                                                                   int maxSamples) {
+        List<String> keys = normalizeStatKeys(nodeIds);
+        if (workflowDefinitionId == null || keys.isEmpty() || lookbackDays <= 0 || maxSamples <= 0) {
+            return Collections.emptyMap();
+        }
+        return toDurationMap(taskExecutionDao.selectMedianExecutionTimeByWorkflowNode(
+                workflowDefinitionId, keys, lookbackDays, maxSamples));
+    }
+
+    @Override
+    public Map<String, Long> findMedianExecutionTimeByAgentKey(List<String> agentKeys, int lookbackDays, int maxSamples) {
+        List<String> keys = normalizeStatKeys(agentKeys);
+        if (keys.isEmpty() || lookbackDays <= 0 || maxSamples <= 0) {
+            return Collections.emptyMap();
+        }
+        return toDurationMap(taskExecutionDao.selectMedianExecutionTimeByAgentKey(keys, lookbackDays, maxSamples));
+    }
+
     /**
      * 执行 batch save。
      */
@@ -254,6 +277,30 @@ public class TaskExecutionRepositoryImpl implements ITaskExecutionRepository {
         return po;
     }
 
+    private List<String> normalizeStatKeys(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return keys.stream()
+                .filter(key -> key != null && !key.isBlank())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Long> toDurationMap(List<ExecutionDurationStatPO> stats) {
+        if (stats == null || stats.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (ExecutionDurationStatPO stat : stats) {
+            if (stat == null || stat.getStatKey() == null || stat.getMedianTimeMs() == null) {
+                continue;
+            }
+            result.put(stat.getStatKey(), stat.getMedianTimeMs());
+        }
+        return result;
+    }
+
     private long toLong(Object value) {
         if (value == null) {
             return 0L;
@@ -16,6 +16,7 @@ import com.getoffer.domain.session.model.entity.AgentSessionEntity;
 import com.getoffer.domain.session.model.entity.SessionMessageEntity;
 import com.getoffer.domain.session.model.entity.SessionTurnEntity;
 import com.getoffer.domain.session.service.SessionConversationDomainService;
+import com.getoffer.trigger.event.TaskClaimWakeupNotifier;
 import com.getoffer.types.enums.ResponseCode;
 import com.getoffer.types.enums.TurnStatusEnum;
 import com.getoffer.types.exception.AppException;
@@ -57,6 +58,7 @@ public class ChatConversationCommandService {
     private final boolean chatPlanningEnabled;
     private final int chatPlanningTrafficPercent;
     private final boolean chatPlanningKillSwitch;
+    private final TaskClaimWakeupNotifier taskClaimWakeupNotifier;
 
     public ChatConversationCommandService(PlannerService plannerService,
                                           IAgentSessionRepository agentSessionRepository,
@@ -81,6 +83,33 @@ public class ChatConversationCommandService {
                 false);
     }
 
+    public ChatConversationCommandService(PlannerService plannerService,
+                                          IAgentSessionRepository agentSessionRepository,
+                                          ISessionTurnRepository sessionTurnRepository,
+                                          ISessionMessageRepository sessionMessageRepository,
+                                          IAgentPlanRepository agentPlanRepository,
+                                          IRoutingDecisionRepository routingDecisionRepository,
+                                          IAgentRegistryRepository agentRegistryRepository,
+                                          SessionConversationDomainService sessionConversationDomainService,
+                                          Executor commonThreadPoolExecutor,
+                                          boolean chatPlanningEnabled,
+                                          int chatPlanningTrafficPercent,
+                                          boolean chatPlanningKillSwitch) {
+        this(plannerService,
+                agentSessionRepository,
+                sessionTurnRepository,
+                sessionMessageRepository,
+                agentPlanRepository,
+                routingDecisionRepository,
+                agentRegistryRepository,
+                sessionConversationDomainService,
+                commonThreadPoolExecutor,
+                chatPlanningEnabled,
+                chatPlanningTrafficPercent,
+                chatPlanningKillSwitch,
+                null);
+    }
+
     @Autowired
     public ChatConversationCommandService(PlannerService plannerService,
                                           IAgentSessionRepository agentSessionRepository,
@@ -93,7 +122,8 @@ public class ChatConversationCommandService {
                                           @Qualifier("commonThreadPoolExecutor") Executor commonThreadPoolExecutor,
                                           @Value("${release-control.chat-planning.enabled:true}") boolean chatPlanningEnabled,
                                           @Value("${release-control.chat-planning.traffic-percent:100}") int chatPlanningTrafficPercent,
-                                          @Value("${release-control.chat-planning.kill-switch:false}") boolean chatPlanningKillSwitch) {
+                                          @Value("${release-control.chat-planning.kill-switch:false}") boolean chatPlanningKillSwitch,
+                                          @Autowired(required = false) TaskClaimWakeupNotifier taskClaimWakeupNotifier) {
         this.plannerService = plannerService;
         this.agentSessionRepository = agentSessionRepository;
         this.sessionTurnRepository = sessionTurnRepository;
@@ -106,6 +136,7 @@ public class ChatConversationCommandService {
         this.chatPlanningEnabled = chatPlanningEnabled;
         this.chatPlanningTrafficPercent = normalizeTrafficPercent(chatPlanningTrafficPercent);
         this.chatPlanningKillSwitch = chatPlanningKillSwitch;
+        this.taskClaimWakeupNotifier = taskClaimWakeupNotifier;
     }
 
     public ConversationSubmitResult submitMessage(ChatMessageSubmitRequestV3DTO request) {
@@ -335,6 +366,9 @@ public class ChatConversationCommandService {
         }
         try {
             AgentPlanEntity plan = plannerService.createPlan(session.getId(), userMessage, extraContext);
+            if (taskClaimWakeupNotifier != null && plan != null) {
+                taskClaimWakeupNotifier.signalPlanCreated(plan.getId());
+            }
 
             SessionTurnEntity latestTurn = sessionTurnRepository.findById(savedTurn.getId());
             if (latestTurn == null || latestTurn.isTerminal()) {
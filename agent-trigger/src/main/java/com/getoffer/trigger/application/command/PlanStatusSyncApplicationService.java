@@ -8,21 +8,38 @@ import com.getoffer.domain.task.model.entity.AgentTaskEntity;
 import com.getoffer.domain.task.model.valobj.PlanTaskStatusStat;
 import com.getoffer.domain.task.service.TaskFailurePolicyDomainService;
 import com.getoffer.trigger.event.PlanTaskEventPublisher;
+import com.getoffer.trigger.event.TaskClaimWakeupNotifier;
 import com.getoffer.types.enums.PlanStatusEnum;
 import com.getoffer.types.enums.PlanTaskEventTypeEnum;
 import com.getoffer.types.enums.TaskStatusEnum;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Plan 状态同步写用例：统一承载 Plan 聚合推进、终态 finalize 与事件发布。
+ * <p>
+ * 两种收敛方式：
+ * 1) {@link #syncPlanStatuses(int, int)} 按状态以 ID 游标（keyset）分页扫描 READY / RUNNING / CANCELLED plan，作为低频兜底；
+ * 游标跨轮保留，每轮从上次停下的位置继续，扫到末尾后回绕，单轮代价固定且所有 plan 都会被轮到；
+ * 2) {@link #syncDirtyPlanStatuses(int, int)} 只收敛脏 plan：任务被领取、进入终态或被跳过时登记到进程内脏集合，
+ * 每轮先把脏集合合并写入持久化脏标记（一条 INSERT），再领取一批标记（SKIP LOCKED），
+ * 其它实例登记的脏 plan 因此也能被收敛；仓储不支持持久化标记时直接处理本实例的脏集合。
+ * 收敛失败或乐观锁冲突的 plan 重新登记，下一轮重试。
+ * full-scan 模式不登记脏 plan，避免无人消费的脏集合持续增长。
  */
 @Slf4j
 @Service
@@ -37,6 +54,9 @@ public class PlanStatusSyncApplicationService {
     private final TurnFinalizeApplicationService turnFinalizeApplicationService;
     private final PlanTransitionDomainService planTransitionDomainService;
     private final TaskFailurePolicyDomainService taskFailurePolicyDomainService;
+    private final boolean dirtyTracking;
+    private final Set<Long> dirtyPlanIds;
+    private final Map<PlanStatusEnum, AtomicLong> scanCursors;
 
     public PlanStatusSyncApplicationService(IAgentPlanRepository agentPlanRepository,
                                             IAgentTaskRepository agentTaskRepository,
@@ -44,12 +64,153 @@ public class PlanStatusSyncApplicationService {
                                             TurnFinalizeApplicationService turnFinalizeApplicationService,
                                             PlanTransitionDomainService planTransitionDomainService,
                                             TaskFailurePolicyDomainService taskFailurePolicyDomainService) {
+        this(agentPlanRepository,
+                agentTaskRepository,
+                planTaskEventPublisher,
+                turnFinalizeApplicationService,
+                planTransitionDomainService,
+                taskFailurePolicyDomainService,
+                null);
+    }
+
+    public PlanStatusSyncApplicationService(IAgentPlanRepository agentPlanRepository,
+                                            IAgentTaskRepository agentTaskRepository,
+                                            PlanTaskEventPublisher planTaskEventPublisher,
+                                            TurnFinalizeApplicationService turnFinalizeApplicationService,
+                                            PlanTransitionDomainService planTransitionDomainService,
+                                            TaskFailurePolicyDomainService taskFailurePolicyDomainService,
+                                            TaskClaimWakeupNotifier taskClaimWakeupNotifier) {
+        this(agentPlanRepository,
+                agentTaskRepository,
+                planTaskEventPublisher,
+                turnFinalizeApplicationService,
+                planTransitionDomainService,
+                taskFailurePolicyDomainService,
+                taskClaimWakeupNotifier,
+                "event-driven");
+    }
+
+    @Autowired
+    public PlanStatusSyncApplicationService(IAgentPlanRepository agentPlanRepository,
+                                            IAgentTaskRepository agentTaskRepository,
+                                            PlanTaskEventPublisher planTaskEventPublisher,
+                                            TurnFinalizeApplicationService turnFinalizeApplicationService,
+                                            PlanTransitionDomainService planTransitionDomainService,
+                                            TaskFailurePolicyDomainService taskFailurePolicyDomainService,
+                                            @Autowired(required = false) TaskClaimWakeupNotifier taskClaimWakeupNotifier,
+                                            @Value("${plan-status.mode:full-scan}") String syncMode) {
         this.agentPlanRepository = agentPlanRepository;
         this.agentTaskRepository = agentTaskRepository;
         this.planTaskEventPublisher = planTaskEventPublisher;
         this.turnFinalizeApplicationService = turnFinalizeApplicationService;
         this.planTransitionDomainService = planTransitionDomainService;
         this.taskFailurePolicyDomainService = taskFailurePolicyDomainService;
+        this.dirtyTracking = !"full-scan".equalsIgnoreCase(syncMode == null ? "" : syncMode.trim());
+        this.dirtyPlanIds = ConcurrentHashMap.newKeySet();
+        this.scanCursors = new EnumMap<>(PlanStatusEnum.class);
+        this.scanCursors.put(PlanStatusEnum.READY, new AtomicLong(0L));
+        this.scanCursors.put(PlanStatusEnum.RUNNING, new AtomicLong(0L));
+        this.scanCursors.put(PlanStatusEnum.CANCELLED, new AtomicLong(0L));
+        if (taskClaimWakeupNotifier != null && dirtyTracking) {
+            taskClaimWakeupNotifier.addPlanProgressListener(this::markPlanDirty);
+        }
+    }
+
+    /**
+     * 登记 plan 聚合状态可能发生变化，下一轮脏 plan 收敛时处理。
+     */
+    public void markPlanDirty(Long planId) {
+        if (planId != null && dirtyTracking) {
+            dirtyPlanIds.add(planId);
+        }
+    }
+
+    public int dirtyPlanCount() {
+        return dirtyPlanIds.size();
+    }
+
+    /**
+     * 只收敛脏 plan：本实例脏集合与持久化脏标记合并后按批处理，单轮最多 maxPlansPerRound 个。
+     */
+    public SyncResult syncDirtyPlanStatuses(int batchSize, int maxPlansPerRound) {
+        int normalizedBatchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        int normalizedMaxPlans = maxPlansPerRound > 0 ? maxPlansPerRound : DEFAULT_MAX_PLANS_PER_ROUND;
+
+        List<Long> localPlanIds = drainDirtyPlanIds(normalizedMaxPlans);
+        List<AgentPlanEntity> dirtyPlans;
+        try {
+            dirtyPlans = loadDirtyPlans(localPlanIds, normalizedMaxPlans);
+        } catch (RuntimeException ex) {
+            localPlanIds.forEach(this::markPlanDirty);
+            log.warn("Failed to load dirty plans, will retry next round. localDirty={}, error={}",
+                    localPlanIds.size(), ex.getMessage());
+            return new SyncResult(0, 0, 0, 0, 0, 1);
+        }
+        if (dirtyPlans.isEmpty()) {
+            return SyncResult.empty();
+        }
+
+        List<AgentPlanEntity> activePlans = new ArrayList<>();
+        List<AgentPlanEntity> cancelledPlans = new ArrayList<>();
+        for (AgentPlanEntity plan : dirtyPlans) {
+            if (plan.getStatus() == PlanStatusEnum.READY || plan.getStatus() == PlanStatusEnum.RUNNING) {
+                activePlans.add(plan);
+            } else if (plan.getStatus() == PlanStatusEnum.CANCELLED) {
+                cancelledPlans.add(plan);
+            }
+        }
+
+        SyncStats syncStats = new SyncStats();
+        for (int index = 0; index < activePlans.size(); index += normalizedBatchSize) {
+            int end = Math.min(index + normalizedBatchSize, activePlans.size());
+            List<AgentPlanEntity> batch = activePlans.subList(index, end);
+            try {
+                processActiveBatch(batch, syncStats);
+            } catch (RuntimeException ex) {
+                syncStats.errorCount++;
+                batch.forEach(plan -> markPlanDirty(plan.getId()));
+                log.warn("Dirty plan batch reconcile failed, will retry next round. size={}, error={}",
+                        batch.size(), ex.getMessage());
+            }
+        }
+        processCancelledPlans(cancelledPlans, syncStats);
+
+        return syncStats.toResult();
+    }
+
+    private List<Long> drainDirtyPlanIds(int maxCount) {
+        if (dirtyPlanIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> drained = new ArrayList<>();
+        Iterator<Long> iterator = dirtyPlanIds.iterator();
+        while (iterator.hasNext() && drained.size() < maxCount) {
+            Long planId = iterator.next();
+            iterator.remove();
+            drained.add(planId);
+        }
+        return drained;
+    }
+
+    private List<AgentPlanEntity> loadDirtyPlans(List<Long> localPlanIds, int maxCount) {
+        boolean persisted = localPlanIds.isEmpty();
+        if (!localPlanIds.isEmpty()) {
+            try {
+                persisted = agentPlanRepository.markStatusDirty(localPlanIds);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to persist plan status dirty markers, reconcile locally. size={}, error={}",
+                        localPlanIds.size(), ex.getMessage());
+            }
+        }
+        Map<Long, AgentPlanEntity> planMap = new LinkedHashMap<>();
+        if (!persisted) {
+            appendPlans(planMap, agentPlanRepository.findByIds(localPlanIds));
+        }
+        appendPlans(planMap, agentPlanRepository.claimStatusDirtyPlans(maxCount));
+        if (planMap.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(planMap.values());
     }
 
     public SyncResult syncPlanStatuses(int batchSize, int maxPlansPerRound) {
@@ -82,29 +243,47 @@ public class PlanStatusSyncApplicationService {
         return syncStats.toResult();
     }
 
+    /**
+     * 从该状态的游标位置起按 id 翻页加载至多 maxCount 个 plan；读到不足一页即视为扫到末尾，游标回绕到起点。
+     */
     private List<AgentPlanEntity> loadPlansByStatus(PlanStatusEnum status,
                                                      int maxCount,
                                                      int batchSize) {
-        if (status == null || maxCount <= 0) {
+        AtomicLong cursor = status == null ? null : scanCursors.get(status);
+        if (cursor == null || maxCount <= 0) {
             return Collections.emptyList();
         }
         List<AgentPlanEntity> result = new ArrayList<>();
-        int offset = 0;
+        long afterId = cursor.get();
         while (result.size() < maxCount) {
             int limit = Math.min(batchSize, maxCount - result.size());
-            List<AgentPlanEntity> page = agentPlanRepository.findByStatusPaged(status, offset, limit);
+            List<AgentPlanEntity> page = agentPlanRepository.findByStatusAfterId(status, afterId, limit);
             if (page == null || page.isEmpty()) {
+                afterId = 0L;
                 break;
             }
             result.addAll(page);
-            if (page.size() < limit) {
+            long lastId = maxPlanId(page);
+            if (page.size() < limit || lastId <= afterId) {
+                afterId = 0L;
                 break;
             }
-            offset += page.size();
+            afterId = lastId;
         }
+        cursor.set(afterId);
         return result;
     }
 
+    private long maxPlanId(List<AgentPlanEntity> plans) {
+        long maxId = 0L;
+        for (AgentPlanEntity plan : plans) {
+            if (plan != null && plan.getId() != null) {
+                maxId = Math.max(maxId, plan.getId());
+            }
+        }
+        return maxId;
+    }
+
     private List<AgentPlanEntity> mergePlans(List<AgentPlanEntity> readyPlans,
                                              List<AgentPlanEntity> runningPlans) {
         Map<Long, AgentPlanEntity> planMap = new LinkedHashMap<>();
@@ -195,6 +374,7 @@ public class PlanStatusSyncApplicationService {
             }
         } catch (RuntimeException ex) {
             syncStats.errorCount++;
+            markPlanDirty(plan.getId());
             log.warn("Cancelled plan finalize failed. planId={}, error={}", plan.getId(), ex.getMessage());
         }
     }
@@ -239,6 +419,8 @@ public class PlanStatusSyncApplicationService {
                     beforeStatus,
                     targetStatus);
         } catch (RuntimeException ex) {
+            // plan 被并发修改或写入失败，重新登记以便下一轮按最新状态再收敛
+            markPlanDirty(plan.getId());
             if (isOptimisticLock(ex)) {
                 log.debug("Plan status reconcile skipped due to optimistic lock. planId={}, status={}, error={}",
                         plan.getId(),
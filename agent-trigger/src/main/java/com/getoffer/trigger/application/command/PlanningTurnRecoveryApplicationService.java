@@ -11,9 +11,11 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 规划超时回合恢复写用例：扫描长期停留 PLANNING 的回合并收敛为失败终态。
+ * 按 id 游标翻页，游标跨轮保留、扫到末尾后回绕，无法收敛的回合不会一直占住队首。
  */
 @Slf4j
 @Service
@@ -26,6 +28,7 @@ public class PlanningTurnRecoveryApplicationService {
     private final ISessionTurnRepository sessionTurnRepository;
     private final ISessionMessageRepository sessionMessageRepository;
     private final SessionConversationDomainService sessionConversationDomainService;
+    private final AtomicLong scanCursor;
 
     public PlanningTurnRecoveryApplicationService(ISessionTurnRepository sessionTurnRepository,
                                                   ISessionMessageRepository sessionMessageRepository,
@@ -33,6 +36,7 @@ public class PlanningTurnRecoveryApplicationService {
         this.sessionTurnRepository = sessionTurnRepository;
         this.sessionMessageRepository = sessionMessageRepository;
         this.sessionConversationDomainService = sessionConversationDomainService;
+        this.scanCursor = new AtomicLong(0L);
     }
 
     public RecoveryResult recoverStalePlanningTurns(int batchSize, int timeoutMinutes) {
@@ -40,10 +44,18 @@ public class PlanningTurnRecoveryApplicationService {
         int normalizedTimeoutMinutes = timeoutMinutes > 0 ? timeoutMinutes : DEFAULT_TIMEOUT_MINUTES;
         LocalDateTime cutoff = LocalDateTime.now().minusMinutes(normalizedTimeoutMinutes);
 
-        List<SessionTurnEntity> staleTurns = sessionTurnRepository.findPlanningTurnsOlderThan(cutoff, normalizedBatchSize);
+        long afterId = scanCursor.get();
+        List<SessionTurnEntity> staleTurns = sessionTurnRepository.findPlanningTurnsOlderThan(cutoff, afterId, normalizedBatchSize);
         if (staleTurns == null || staleTurns.isEmpty()) {
+            scanCursor.set(0L);
             return RecoveryResult.empty();
         }
+        long lastId = staleTurns.stream()
+                .filter(turn -> turn != null && turn.getId() != null)
+                .mapToLong(SessionTurnEntity::getId)
+                .max()
+                .orElse(afterId);
+        scanCursor.set(staleTurns.size() < normalizedBatchSize || lastId <= afterId ? 0L : lastId);
 
         int processedCount = 0;
         int recoveredCount = 0;
@@ -10,14 +10,19 @@ import com.getoffer.domain.task.model.entity.QualityEvaluationEventEntity;
 import com.getoffer.domain.task.model.entity.TaskExecutionEntity;
 import com.getoffer.domain.task.service.TaskBlackboardDomainService;
 import com.getoffer.domain.task.service.TaskPersistencePolicyDomainService;
+import com.getoffer.trigger.event.TaskClaimWakeupNotifier;
+import com.getoffer.types.enums.TaskStatusEnum;
 import com.getoffer.types.enums.TaskTypeEnum;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -36,6 +41,7 @@ public class TaskPersistenceApplicationService {
     private final TaskBlackboardDomainService taskBlackboardDomainService;
     private final TaskPersistencePolicyDomainService taskPersistencePolicyDomainService;
     private final IQualityEvaluationEventRepository qualityEvaluationEventRepository;
+    private final TaskClaimWakeupNotifier taskClaimWakeupNotifier;
 
     public TaskPersistenceApplicationService(IAgentTaskRepository agentTaskRepository,
                                              ITaskExecutionRepository taskExecutionRepository,
@@ -50,33 +56,90 @@ public class TaskPersistenceApplicationService {
                 null);
     }
 
+    public TaskPersistenceApplicationService(IAgentTaskRepository agentTaskRepository,
+                                             ITaskExecutionRepository taskExecutionRepository,
+                                             IAgentPlanRepository agentPlanRepository,
+                                             TaskBlackboardDomainService taskBlackboardDomainService,
+                                             TaskPersistencePolicyDomainService taskPersistencePolicyDomainService,
+                                             IQualityEvaluationEventRepository qualityEvaluationEventRepository) {
+        this(agentTaskRepository,
+                taskExecutionRepository,
+                agentPlanRepository,
+                taskBlackboardDomainService,
+                taskPersistencePolicyDomainService,
+                qualityEvaluationEventRepository,
+                null);
+    }
+
     @Autowired
     public TaskPersistenceApplicationService(IAgentTaskRepository agentTaskRepository,
                                              ITaskExecutionRepository taskExecutionRepository,
                                              IAgentPlanRepository agentPlanRepository,
                                              TaskBlackboardDomainService taskBlackboardDomainService,
                                              TaskPersistencePolicyDomainService taskPersistencePolicyDomainService,
-                                             @Autowired(required = false) IQualityEvaluationEventRepository qualityEvaluationEventRepository) {
+                                             @Autowired(required = false) IQualityEvaluationEventRepository qualityEvaluationEventRepository,
+                                             @Autowired(required = false) TaskClaimWakeupNotifier taskClaimWakeupNotifier) {
         this.agentTaskRepository = agentTaskRepository;
         this.taskExecutionRepository = taskExecutionRepository;
         this.agentPlanRepository = agentPlanRepository;
         this.taskBlackboardDomainService = taskBlackboardDomainService;
         this.taskPersistencePolicyDomainService = taskPersistencePolicyDomainService;
         this.qualityEvaluationEventRepository = qualityEvaluationEventRepository;
+        this.taskClaimWakeupNotifier = taskClaimWakeupNotifier;
     }
 
+    /**
+     * 非 claim 守卫的整行更新（如 Critic 回滚目标任务）；落库后与 claim 路径一致地按新状态发出唤醒与进度信号。
+     */
     public TaskUpdateResult updateTask(AgentTaskEntity task) {
         if (task == null) {
             return TaskUpdateResult.error("task is null");
         }
         try {
             agentTaskRepository.update(task);
+            signalStatusChanged(task);
             return TaskUpdateResult.success();
         } catch (Exception ex) {
             return TaskUpdateResult.error(taskPersistencePolicyDomainService.normalizeErrorMessage(ex));
         }
     }
 
+    /**
+     * 一轮 claim 完成后按 plan 去重发出进度信号：任务进入 RUNNING 可能让 READY plan 推进为 RUNNING。
+     */
+    public void signalTasksClaimed(Collection<AgentTaskEntity> claimedTasks) {
+        if (taskClaimWakeupNotifier == null || claimedTasks == null || claimedTasks.isEmpty()) {
+            return;
+        }
+        for (Long planId : distinctPlanIds(claimedTasks)) {
+            taskClaimWakeupNotifier.signalPlanProgress(planId);
+        }
+    }
+
+    /**
+     * 停机排空批量归还 claim 后按 plan 去重发出进度信号，并唤醒（含跨实例）claim 循环接手回到 READY 的任务。
+     */
+    public void signalTasksReleased(Collection<AgentTaskEntity> releasedTasks) {
+        if (taskClaimWakeupNotifier == null || releasedTasks == null || releasedTasks.isEmpty()) {
+            return;
+        }
+        Set<Long> planIds = distinctPlanIds(releasedTasks);
+        for (Long planId : planIds) {
+            taskClaimWakeupNotifier.signalPlanProgress(planId);
+        }
+        taskClaimWakeupNotifier.signalTasksReady(planIds.size() == 1 ? planIds.iterator().next() : null);
+    }
+
+    private Set<Long> distinctPlanIds(Collection<AgentTaskEntity> tasks) {
+        Set<Long> planIds = new LinkedHashSet<>();
+        for (AgentTaskEntity task : tasks) {
+            if (task != null && task.getPlanId() != null) {
+                planIds.add(task.getPlanId());
+            }
+        }
+        return planIds;
+    }
+
     public ClaimedTaskUpdateResult updateClaimedTask(AgentTaskEntity task) {
         if (task == null) {
             return ClaimedTaskUpdateResult.error("task is null");
@@ -84,6 +147,7 @@ public class TaskPersistenceApplicationService {
         try {
             boolean updated = agentTaskRepository.updateClaimedTaskState(task);
             if (updated) {
+                signalStatusChanged(task);
                 return ClaimedTaskUpdateResult.updated();
             }
             return ClaimedTaskUpdateResult.guardRejected();
@@ -92,6 +156,45 @@ public class TaskPersistenceApplicationService {
         }
     }
 
+    /**
+     * 模型限流时退避归还 claim：delayMillis 内不可再 claim，不发 ready 唤醒（由兜底轮询在退避到期后拾取），
+     * 避免限流未解除时 claim -> 归还 -> 唤醒 -> claim 空转；只登记 plan 进度供状态收敛。
+     */
+    public ClaimedTaskUpdateResult deferClaimedTask(AgentTaskEntity task, long delayMillis) {
+        if (task == null) {
+            return ClaimedTaskUpdateResult.error("task is null");
+        }
+        try {
+            boolean updated = agentTaskRepository.deferClaimedTask(task, delayMillis);
+            if (!updated) {
+                return ClaimedTaskUpdateResult.guardRejected();
+            }
+            if (taskClaimWakeupNotifier != null) {
+                taskClaimWakeupNotifier.signalPlanProgress(task.getPlanId());
+            }
+            return ClaimedTaskUpdateResult.updated();
+        } catch (Exception ex) {
+            return ClaimedTaskUpdateResult.error(taskPersistencePolicyDomainService.normalizeErrorMessage(ex));
+        }
+    }
+
+    private void signalStatusChanged(AgentTaskEntity task) {
+        if (taskClaimWakeupNotifier == null) {
+            return;
+        }
+        // 进入终态后只需重新评估该节点的下游，终态信号同时登记 plan 进度
+        if (task.getStatus() == TaskStatusEnum.COMPLETED || task.getStatus() == TaskStatusEnum.FAILED
+                || task.getStatus() == TaskStatusEnum.SKIPPED) {
+            taskClaimWakeupNotifier.signalTaskTerminal(task.getPlanId(), task.getNodeId());
+            return;
+        }
+        // 释放 claim 回到 READY/REFINING（重试、计划不可执行回退）后立即唤醒 claim 循环
+        if (task.getStatus() == TaskStatusEnum.READY || task.getStatus() == TaskStatusEnum.REFINING) {
+            taskClaimWakeupNotifier.signalTasksReady(task.getPlanId());
+        }
+        taskClaimWakeupNotifier.signalPlanProgress(task.getPlanId());
+    }
+
     public ExecutionSaveResult saveExecution(TaskExecutionEntity execution) {
         if (execution == null) {
             return ExecutionSaveResult.error("execution is null");
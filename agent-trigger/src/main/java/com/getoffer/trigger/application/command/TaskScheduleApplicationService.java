@@ -2,43 +2,135 @@ package com.getoffer.trigger.application.command;
 
 import com.getoffer.domain.task.adapter.repository.IAgentTaskRepository;
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.domain.task.service.TaskDependencyGraph;
 import com.getoffer.domain.task.service.TaskDependencyPolicy;
+import com.getoffer.trigger.event.TaskClaimWakeupNotifier;
 import com.getoffer.types.enums.TaskStatusEnum;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
  * Task 调度写用例：统一承载 PENDING 任务依赖判定与状态推进。
+ * <p>
+ * 两种推进方式：
+ * 1) {@link #schedulePendingTasks()} 全量扫描所有 PENDING 任务，作为兜底；默认 all + failFast 的任务
+ * 由仓储一条集合式 UPDATE 推进/跳过，只有 any / quorum / failSafe 任务回到逐条判定；
+ * 2) {@link #scheduleChangedTasks()} 只处理发生变化的 plan：任务终态信号登记 (planId, nodeId)，
+ * 本轮仅重新评估这些节点的直接下游；新 Plan 物化信号登记整个 plan。
+ * 增量推进按 plan 缓存 {@link TaskDependencyGraph}：首次或整 plan 变化时由全部任务构建一次，
+ * 之后每轮只回读变化节点、候选下游及其依赖的状态，按依赖计数判定并用集合式 UPDATE 写回。
  */
 @Slf4j
 @Service
 public class TaskScheduleApplicationService {
 
+    private static final String WHOLE_PLAN = "*";
+    private static final int SET_BASED_SKIP_MAX_PASSES = 8;
+    private static final int DEFAULT_GRAPH_CACHE_MAX_PLANS = 1024;
+
     private final IAgentTaskRepository agentTaskRepository;
     private final TaskDependencyPolicy taskDependencyPolicy;
+    private final TaskClaimWakeupNotifier taskClaimWakeupNotifier;
+    private final boolean setBasedPromotionEnabled;
+    private final int graphCacheMaxPlans;
+    private final ConcurrentMap<Long, Set<String>> changedNodesByPlan;
+    private final ConcurrentMap<Long, TaskDependencyGraph> dependencyGraphs;
+    private final AtomicBoolean fullScanRequested;
 
     public TaskScheduleApplicationService(IAgentTaskRepository agentTaskRepository,
                                           TaskDependencyPolicy taskDependencyPolicy) {
+        this(agentTaskRepository, taskDependencyPolicy, null);
+    }
+
+    public TaskScheduleApplicationService(IAgentTaskRepository agentTaskRepository,
+                                          TaskDependencyPolicy taskDependencyPolicy,
+                                          TaskClaimWakeupNotifier taskClaimWakeupNotifier) {
+        this(agentTaskRepository, taskDependencyPolicy, taskClaimWakeupNotifier, true, DEFAULT_GRAPH_CACHE_MAX_PLANS);
+    }
+
+    @Autowired
+    public TaskScheduleApplicationService(IAgentTaskRepository agentTaskRepository,
+                                          TaskDependencyPolicy taskDependencyPolicy,
+                                          @Autowired(required = false) TaskClaimWakeupNotifier taskClaimWakeupNotifier,
+                                          @Value("${scheduler.promotion.set-based-enabled:true}") boolean setBasedPromotionEnabled,
+                                          @Value("${scheduler.promotion.graph-cache-max-plans:1024}") int graphCacheMaxPlans) {
         this.agentTaskRepository = agentTaskRepository;
         this.taskDependencyPolicy = taskDependencyPolicy;
+        this.taskClaimWakeupNotifier = taskClaimWakeupNotifier;
+        this.setBasedPromotionEnabled = setBasedPromotionEnabled;
+        this.graphCacheMaxPlans = Math.max(graphCacheMaxPlans, 0);
+        this.changedNodesByPlan = new ConcurrentHashMap<>();
+        this.dependencyGraphs = new ConcurrentHashMap<>();
+        this.fullScanRequested = new AtomicBoolean(false);
+        if (taskClaimWakeupNotifier != null) {
+            taskClaimWakeupNotifier.addTaskTerminalListener(this::markTaskTerminal);
+            taskClaimWakeupNotifier.addListener(TaskClaimWakeupNotifier.WakeupKind.PLAN_CREATED, this::markPlanChanged);
+        }
+    }
+
+    /**
+     * 登记任务进入终态，下一轮增量推进只重新评估依赖该节点的 PENDING 任务。
+     */
+    public void markTaskTerminal(Long planId, String nodeId) {
+        if (planId == null) {
+            return;
+        }
+        markChanged(planId, nodeId == null || nodeId.isBlank() ? WHOLE_PLAN : nodeId);
+    }
+
+    /**
+     * 登记整个 plan 需要重新评估；planId 为空时下一轮增量推进退化为全量扫描。
+     */
+    public void markPlanChanged(Long planId) {
+        if (planId == null) {
+            fullScanRequested.set(true);
+            return;
+        }
+        markChanged(planId, WHOLE_PLAN);
+    }
+
+    private void markChanged(Long planId, String nodeId) {
+        // compute 与 drain 侧的 remove 在同一 key 上互斥，登记不会写进已被取走的集合
+        changedNodesByPlan.compute(planId, (key, nodes) -> {
+            Set<String> changed = nodes == null ? new HashSet<>() : nodes;
+            changed.add(nodeId);
+            return changed;
+        });
     }
 
     public ScheduleResult schedulePendingTasks() {
-        List<AgentTaskEntity> pendingTasks = agentTaskRepository.findByStatus(TaskStatusEnum.PENDING);
+        // 全量扫描覆盖此前登记的所有变化
+        changedNodesByPlan.clear();
+        fullScanRequested.set(false);
+        // 集合式推进不经过依赖图，缓存的图可能落后，交由下一次增量推进重建
+        dependencyGraphs.clear();
+        RoundTally tally = new RoundTally();
+        boolean setBasedApplied = setBasedPromotionEnabled && applySetBasedPromotion(tally);
+        int setBasedCount = tally.promotedCount + tally.skippedCount;
+        List<AgentTaskEntity> pendingTasks = setBasedApplied
+                ? agentTaskRepository.findPendingTasksForPolicyEvaluation()
+                : agentTaskRepository.findByStatus(TaskStatusEnum.PENDING);
         if (pendingTasks == null || pendingTasks.isEmpty()) {
-            return ScheduleResult.empty();
+            signalTasksReady(tally.promotedPlanIds);
+            signalPlansProgressed(tally.skippedPlanIds);
+            return tally.toResult(setBasedCount);
         }
 
-        int promotedCount = 0;
-        int skippedCount = 0;
-        int waitingCount = 0;
-        int errorCount = 0;
-
         Map<Long, List<AgentTaskEntity>> pendingByPlan = pendingTasks.stream()
                 .filter(task -> task != null && task.getPlanId() != null)
                 .collect(Collectors.groupingBy(AgentTaskEntity::getPlanId));
@@ -47,65 +139,354 @@ public class TaskScheduleApplicationService {
             Long planId = entry.getKey();
             List<AgentTaskEntity> tasksForPlan = agentTaskRepository.findByPlanId(planId);
             if (tasksForPlan == null || tasksForPlan.isEmpty()) {
-                waitingCount += entry.getValue().size();
+                tally.waitingCount += entry.getValue().size();
                 continue;
             }
 
-            Map<String, TaskStatusEnum> statusByNode = new HashMap<>();
-            for (AgentTaskEntity task : tasksForPlan) {
-                if (task != null && task.getNodeId() != null) {
-                    statusByNode.put(task.getNodeId(), task.getStatus());
-                }
-            }
-
+            Map<String, TaskStatusEnum> statusByNode = indexStatusByNode(tasksForPlan);
             for (AgentTaskEntity task : entry.getValue()) {
                 if (task == null || task.getStatus() != TaskStatusEnum.PENDING) {
                     continue;
                 }
+                applyDecision(planId, task, statusByNode, tally);
+            }
+        }
 
-                TaskDependencyPolicy.DependencyDecision decision =
-                        taskDependencyPolicy.resolveDependencyDecision(task, statusByNode);
-                if (decision == TaskDependencyPolicy.DependencyDecision.WAITING) {
-                    waitingCount++;
-                    continue;
+        signalTasksReady(tally.promotedPlanIds);
+        signalPlansProgressed(tally.skippedPlanIds);
+        return tally.toResult(setBasedCount + pendingTasks.size());
+    }
+
+    /**
+     * 集合式推进：一条 UPDATE 推进依赖已全部完成的任务，再按轮次跳过依赖失败的任务（每轮向下游传播一层）。
+     * 失败时返回 false，本轮回退到全部逐条判定。
+     */
+    private boolean applySetBasedPromotion(RoundTally tally) {
+        try {
+            List<Long> promotedPlanIds = agentTaskRepository.promoteSatisfiedAllJoinTasks();
+            if (promotedPlanIds != null && !promotedPlanIds.isEmpty()) {
+                tally.promotedCount += promotedPlanIds.size();
+                tally.promotedPlanIds.addAll(promotedPlanIds);
+            }
+            for (int pass = 0; pass < SET_BASED_SKIP_MAX_PASSES; pass++) {
+                List<Long> skippedPlanIds = agentTaskRepository.skipBlockedAllJoinTasks();
+                if (skippedPlanIds == null || skippedPlanIds.isEmpty()) {
+                    break;
                 }
+                tally.skippedCount += skippedPlanIds.size();
+                tally.skippedPlanIds.addAll(skippedPlanIds);
+            }
+            return true;
+        } catch (Exception ex) {
+            tally.errorCount++;
+            log.warn("Set-based task promotion failed, falling back to per-task evaluation. error={}", ex.getMessage());
+            return false;
+        }
+    }
 
-                if (decision == TaskDependencyPolicy.DependencyDecision.BLOCKED) {
-                    try {
-                        task.skip();
-                        agentTaskRepository.update(task);
-                        skippedCount++;
-                        log.debug("Task skipped due to failed dependency. planId={}, nodeId={}",
-                                planId,
-                                task.getNodeId());
-                    } catch (Exception ex) {
-                        errorCount++;
-                        log.warn("Failed to skip task. planId={}, nodeId={}, error={}",
-                                planId,
-                                task.getNodeId(),
-                                ex.getMessage());
-                    }
-                    continue;
+    /**
+     * 增量推进：只加载有变化的 plan，并只评估变化节点的直接下游；
+     * 本轮因依赖失败被 SKIPPED 的任务也是终态，其下游在同一轮内继续评估。
+     */
+    public ScheduleResult scheduleChangedTasks() {
+        if (fullScanRequested.getAndSet(false)) {
+            return schedulePendingTasks();
+        }
+        if (changedNodesByPlan.isEmpty()) {
+            return ScheduleResult.empty();
+        }
+
+        RoundTally tally = new RoundTally();
+        int evaluatedCount = 0;
+        for (Long planId : new ArrayList<>(changedNodesByPlan.keySet())) {
+            Set<String> changedNodes = changedNodesByPlan.remove(planId);
+            if (changedNodes == null || changedNodes.isEmpty()) {
+                continue;
+            }
+            try {
+                evaluatedCount += scheduleChangedPlan(planId, changedNodes, tally);
+            } catch (Exception ex) {
+                tally.errorCount++;
+                dependencyGraphs.remove(planId);
+                markPlanChanged(planId);
+                log.warn("Failed to schedule changed plan. planId={}, error={}", planId, ex.getMessage());
+            }
+        }
+
+        signalTasksReady(tally.promotedPlanIds);
+        signalPlansProgressed(tally.skippedPlanIds);
+        return tally.toResult(evaluatedCount);
+    }
+
+    /**
+     * 推进单个 plan 的变化，返回本轮评估的任务数。缓存命中时不再读取整个 plan；
+     * 策略不支持依赖图（例如存在重复 nodeId）时回退到按状态表逐条判定。
+     */
+    private int scheduleChangedPlan(Long planId, Set<String> changedNodes, RoundTally tally) {
+        boolean wholePlan = changedNodes.contains(WHOLE_PLAN);
+        TaskDependencyGraph graph = wholePlan ? null : dependencyGraphs.get(planId);
+        boolean cached = graph != null;
+        if (!cached) {
+            List<AgentTaskEntity> tasksForPlan = agentTaskRepository.findByPlanId(planId);
+            if (tasksForPlan == null || tasksForPlan.isEmpty()) {
+                dependencyGraphs.remove(planId);
+                return 0;
+            }
+            graph = taskDependencyPolicy.buildDependencyGraph(tasksForPlan);
+            if (graph == null) {
+                dependencyGraphs.remove(planId);
+                return scheduleChangedPlanByStatusMap(planId, tasksForPlan, changedNodes, tally);
+            }
+        }
+
+        int evaluated;
+        synchronized (graph) {
+            evaluated = promoteByGraph(planId, graph, cached, wholePlan ? null : changedNodes, tally);
+        }
+        if (!graph.hasPendingNodes() || graphCacheMaxPlans <= 0) {
+            dependencyGraphs.remove(planId);
+        } else if (cached || dependencyGraphs.size() < graphCacheMaxPlans) {
+            dependencyGraphs.put(planId, graph);
+        }
+        return evaluated;
+    }
+
+    /**
+     * 在依赖图上推进：changedNodes 为 null 表示评估全部 PENDING 节点。
+     * 缓存的图先回读变化节点，再回读候选下游及其依赖，其余节点的状态不参与本轮判定。
+     */
+    private int promoteByGraph(Long planId,
+                               TaskDependencyGraph graph,
+                               boolean refresh,
+                               Set<String> changedNodes,
+                               RoundTally tally) {
+        List<String> candidates;
+        if (changedNodes == null) {
+            candidates = graph.pendingNodeIds();
+        } else {
+            if (refresh) {
+                refreshStatuses(planId, graph, changedNodes);
+            }
+            candidates = graph.pendingDependentsOf(changedNodes);
+            if (refresh && !candidates.isEmpty()) {
+                Set<String> refreshNodes = new HashSet<>(candidates);
+                refreshNodes.addAll(graph.dependenciesOf(candidates));
+                refreshStatuses(planId, graph, refreshNodes);
+                candidates = candidates.stream().filter(graph::isPending).collect(Collectors.toList());
+            }
+        }
+
+        Set<String> evaluatedNodes = new HashSet<>();
+        while (!candidates.isEmpty()) {
+            List<String> satisfied = new ArrayList<>();
+            List<String> blocked = new ArrayList<>();
+            for (String nodeId : candidates) {
+                evaluatedNodes.add(nodeId);
+                TaskDependencyPolicy.DependencyDecision decision = graph.decide(nodeId);
+                if (decision == TaskDependencyPolicy.DependencyDecision.SATISFIED) {
+                    satisfied.add(nodeId);
+                } else if (decision == TaskDependencyPolicy.DependencyDecision.BLOCKED) {
+                    blocked.add(nodeId);
+                } else {
+                    tally.waitingCount++;
                 }
+            }
+            transitionByGraph(planId, graph, satisfied, TaskStatusEnum.READY, tally);
+            List<String> skipped = transitionByGraph(planId, graph, blocked, TaskStatusEnum.SKIPPED, tally);
+            // 本轮跳过的任务也是终态，其下游在同一轮内继续评估
+            candidates = graph.pendingDependentsOf(skipped);
+        }
+        return evaluatedNodes.size();
+    }
+
+    private void refreshStatuses(Long planId, TaskDependencyGraph graph, Set<String> nodeIds) {
+        Map<String, TaskStatusEnum> statusByNode = agentTaskRepository.findStatusByNodeIds(planId, nodeIds);
+        if (statusByNode != null) {
+            statusByNode.forEach(graph::updateStatus);
+        }
+    }
+
+    /**
+     * 集合式写回一组判定结果，返回实际推进的节点；未推进的节点已被其它执行者改变，下一轮回读时纠正。
+     */
+    private List<String> transitionByGraph(Long planId,
+                                           TaskDependencyGraph graph,
+                                           List<String> nodeIds,
+                                           TaskStatusEnum toStatus,
+                                           RoundTally tally) {
+        if (nodeIds.isEmpty()) {
+            return List.of();
+        }
+        List<String> transitioned;
+        try {
+            transitioned = agentTaskRepository.transitionPendingTasks(planId, nodeIds, toStatus);
+        } catch (Exception ex) {
+            tally.errorCount += nodeIds.size();
+            // 写入失败时重新登记整个 plan，下一轮重建依赖图
+            markPlanChanged(planId);
+            log.warn("Failed to transition pending tasks. planId={}, toStatus={}, nodeIds={}, error={}",
+                    planId,
+                    toStatus,
+                    nodeIds,
+                    ex.getMessage());
+            return List.of();
+        }
+        if (transitioned == null || transitioned.isEmpty()) {
+            return List.of();
+        }
+        for (String nodeId : transitioned) {
+            graph.updateStatus(nodeId, toStatus);
+        }
+        if (toStatus == TaskStatusEnum.READY) {
+            tally.promotedCount += transitioned.size();
+            tally.promotedPlanIds.add(planId);
+        } else {
+            tally.skippedCount += transitioned.size();
+            tally.skippedPlanIds.add(planId);
+        }
+        log.debug("Tasks transitioned by dependency graph. planId={}, toStatus={}, nodeIds={}",
+                planId,
+                toStatus,
+                transitioned);
+        return transitioned;
+    }
 
-                try {
-                    task.markReady();
-                    agentTaskRepository.update(task);
-                    promotedCount++;
-                    log.debug("Task promoted to READY. planId={}, nodeId={}",
-                            planId,
-                            task.getNodeId());
-                } catch (Exception ex) {
-                    errorCount++;
-                    log.warn("Failed to promote task to READY. planId={}, nodeId={}, error={}",
-                            planId,
-                            task.getNodeId(),
-                            ex.getMessage());
+    /**
+     * 不使用依赖图时的增量推进：按状态表逐条判定变化节点的直接下游。
+     */
+    private int scheduleChangedPlanByStatusMap(Long planId,
+                                               List<AgentTaskEntity> tasksForPlan,
+                                               Set<String> changedNodes,
+                                               RoundTally tally) {
+        Map<String, TaskStatusEnum> statusByNode = indexStatusByNode(tasksForPlan);
+        List<AgentTaskEntity> pendingTasks = tasksForPlan.stream()
+                .filter(task -> task != null && task.getStatus() == TaskStatusEnum.PENDING)
+                .collect(Collectors.toList());
+        Deque<String> changedQueue = new ArrayDeque<>(changedNodes);
+        boolean wholePlan = changedNodes.contains(WHOLE_PLAN);
+        Set<Long> evaluatedTaskIds = new HashSet<>();
+        while (!changedQueue.isEmpty()) {
+            String changedNode = changedQueue.poll();
+            for (AgentTaskEntity task : pendingTasks) {
+                if (task.getStatus() != TaskStatusEnum.PENDING
+                        || !(wholePlan || dependsOn(task, changedNode))) {
+                    continue;
+                }
+                evaluatedTaskIds.add(task.getId());
+                if (applyDecision(planId, task, statusByNode, tally) == TaskStatusEnum.SKIPPED) {
+                    changedQueue.add(task.getNodeId());
                 }
             }
+            wholePlan = false;
         }
+        return evaluatedTaskIds.size();
+    }
 
-        return new ScheduleResult(pendingTasks.size(), promotedCount, skippedCount, waitingCount, errorCount);
+    private boolean dependsOn(AgentTaskEntity task, String nodeId) {
+        List<String> dependencies = task.getDependencyNodeIds();
+        return dependencies != null && dependencies.contains(nodeId);
+    }
+
+    private Map<String, TaskStatusEnum> indexStatusByNode(List<AgentTaskEntity> tasksForPlan) {
+        Map<String, TaskStatusEnum> statusByNode = new HashMap<>();
+        for (AgentTaskEntity task : tasksForPlan) {
+            if (task != null && task.getNodeId() != null) {
+                statusByNode.put(task.getNodeId(), task.getStatus());
+            }
+        }
+        return statusByNode;
+    }
+
+    /**
+     * 按依赖判定推进单个 PENDING 任务，返回推进后的状态（未推进或写入失败时为 PENDING）。
+     */
+    private TaskStatusEnum applyDecision(Long planId,
+                                         AgentTaskEntity task,
+                                         Map<String, TaskStatusEnum> statusByNode,
+                                         RoundTally tally) {
+        TaskDependencyPolicy.DependencyDecision decision =
+                taskDependencyPolicy.resolveDependencyDecision(task, statusByNode);
+        if (decision == TaskDependencyPolicy.DependencyDecision.WAITING) {
+            tally.waitingCount++;
+            return TaskStatusEnum.PENDING;
+        }
+
+        if (decision == TaskDependencyPolicy.DependencyDecision.BLOCKED) {
+            try {
+                task.skip();
+                agentTaskRepository.update(task);
+                tally.skippedCount++;
+                tally.skippedPlanIds.add(planId);
+                statusByNode.put(task.getNodeId(), TaskStatusEnum.SKIPPED);
+                log.debug("Task skipped due to failed dependency. planId={}, nodeId={}",
+                        planId,
+                        task.getNodeId());
+                return TaskStatusEnum.SKIPPED;
+            } catch (Exception ex) {
+                tally.errorCount++;
+                // 写入失败时重新登记，保证增量推进不会丢失这次变化
+                markPlanChanged(planId);
+                log.warn("Failed to skip task. planId={}, nodeId={}, error={}",
+                        planId,
+                        task.getNodeId(),
+                        ex.getMessage());
+                return TaskStatusEnum.PENDING;
+            }
+        }
+
+        try {
+            task.markReady();
+            agentTaskRepository.update(task);
+            tally.promotedCount++;
+            tally.promotedPlanIds.add(planId);
+            statusByNode.put(task.getNodeId(), TaskStatusEnum.READY);
+            log.debug("Task promoted to READY. planId={}, nodeId={}",
+                    planId,
+                    task.getNodeId());
+            return TaskStatusEnum.READY;
+        } catch (Exception ex) {
+            tally.errorCount++;
+            markPlanChanged(planId);
+            log.warn("Failed to promote task to READY. planId={}, nodeId={}, error={}",
+                    planId,
+                    task.getNodeId(),
+                    ex.getMessage());
+            return TaskStatusEnum.PENDING;
+        }
+    }
+
+    private void signalTasksReady(Set<Long> promotedPlanIds) {
+        if (taskClaimWakeupNotifier == null || promotedPlanIds.isEmpty()) {
+            return;
+        }
+        // 一轮推进只发一次信号：多 plan 时不携带 planId，由 claim 循环自行按队列顺序领取
+        Long planId = promotedPlanIds.size() == 1 ? promotedPlanIds.iterator().next() : null;
+        taskClaimWakeupNotifier.signalTasksReady(planId);
+    }
+
+    /**
+     * 被跳过的任务也是终态，可能让 plan 聚合状态收敛，通知 Plan 状态同步（逐条与集合式跳过均按 plan 登记）。
+     */
+    private void signalPlansProgressed(Set<Long> skippedPlanIds) {
+        if (taskClaimWakeupNotifier == null || skippedPlanIds.isEmpty()) {
+            return;
+        }
+        for (Long planId : skippedPlanIds) {
+            taskClaimWakeupNotifier.signalPlanProgress(planId);
+        }
+    }
+
+    private static final class RoundTally {
+        private int promotedCount;
+        private int skippedCount;
+        private int waitingCount;
+        private int errorCount;
+        private final Set<Long> promotedPlanIds = new HashSet<>();
+        private final Set<Long> skippedPlanIds = new HashSet<>();
+
+        private ScheduleResult toResult(int pendingCount) {
+            return new ScheduleResult(pendingCount, promotedCount, skippedCount, waitingCount, errorCount);
+        }
     }
 
     public record ScheduleResult(int pendingCount,
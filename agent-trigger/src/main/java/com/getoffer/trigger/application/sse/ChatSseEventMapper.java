@@ -48,6 +48,15 @@ public class ChatSseEventMapper {
             payload.setMessage("任务开始：" + StringUtils.defaultIfBlank(valueOf(eventData.get("nodeId")), "unknown"));
             return payload;
         }
+        if (type == PlanTaskEventTypeEnum.TASK_DELTA) {
+            // 增量文本放在 message，metadata 只保留 seq/offset 等拼接信息，避免重复传输
+            Map<String, Object> deltaMetadata = new LinkedHashMap<>(eventData);
+            deltaMetadata.remove("delta");
+            payload.setType("answer.delta");
+            payload.setMessage(StringUtils.defaultString(valueOf(eventData.get("delta"))));
+            payload.setMetadata(deltaMetadata);
+            return payload;
+        }
         if (type == PlanTaskEventTypeEnum.TASK_COMPLETED) {
             payload.setType("task.completed");
             payload.setMessage("任务结束：" + StringUtils.defaultIfBlank(valueOf(eventData.get("status")), "UNKNOWN"));
@@ -0,0 +1,257 @@
+package com.getoffer.trigger.event;
+
+import com.getoffer.domain.task.adapter.repository.IPlanTaskEventRepository;
+import com.getoffer.domain.task.model.entity.PlanTaskEventEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * 事件组提交写入器：
+ * 1) 调用方只入队，单个写线程攒批（首条入队后最多等待 maxDelayMillis 或攒满 maxBatchSize）后一条多行 INSERT 落库；
+ * 2) 单线程按入队顺序落库与回调，同一调用线程先后发布的事件 id 单调递增，分发顺序与 id 顺序一致；
+ * 3) 批量写入失败时退化为逐条写入，只有真正写不进去的事件才失败，不拖累同批其它事件；
+ * 4) 队列有界，写入跟不上时入队阻塞形成背压，而不是无限堆积内存。
+ */
+@Slf4j
+final class PlanTaskEventBatchWriter {
+
+    private static final long IDLE_POLL_MILLIS = 1000L;
+    private static final long SHUTDOWN_DRAIN_MILLIS = 5000L;
+
+    private final IPlanTaskEventRepository planTaskEventRepository;
+    private final Consumer<List<PlanTaskEventEntity>> flushedListener;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingEvent> queue;
+    private final Thread writerThread;
+    private final Counter flushCounter;
+    private final Counter fallbackCounter;
+    private final Counter failedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private volatile boolean running;
+
+    PlanTaskEventBatchWriter(IPlanTaskEventRepository planTaskEventRepository,
+                             Consumer<List<PlanTaskEventEntity>> flushedListener,
+                             int maxBatchSize,
+                             long maxDelayMillis,
+                             int queueCapacity,
+                             MeterRegistry meterRegistry) {
+        this.planTaskEventRepository = planTaskEventRepository;
+        this.flushedListener = flushedListener;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(maxDelayMillis, 0L));
+        this.queue = new LinkedBlockingQueue<>(Math.max(queueCapacity, this.maxBatchSize));
+        this.writerThread = new Thread(this::writeLoop, "plan-event-batch-writer");
+        this.writerThread.setDaemon(true);
+        this.flushCounter = meterRegistry.counter("agent.event.writer.flush.total");
+        this.fallbackCounter = meterRegistry.counter("agent.event.writer.fallback.total");
+        this.failedCounter = meterRegistry.counter("agent.event.writer.failed.total");
+        this.batchSizeSummary = DistributionSummary.builder("agent.event.writer.batch.size")
+                .description("单次组提交写入的事件数")
+                .register(meterRegistry);
+        Gauge.builder("agent.event.writer.queue.size", queue, BlockingQueue::size)
+                .description("等待组提交的事件数")
+                .register(meterRegistry);
+    }
+
+    void start() {
+        running = true;
+        writerThread.start();
+    }
+
+    /**
+     * 停止接收新事件，并在有限时间内把已入队事件写完。
+     */
+    void shutdown() {
+        running = false;
+        try {
+            writerThread.join(SHUTDOWN_DRAIN_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // 写线程退出后才入队的事件（与停止标记竞争）在调用线程补写
+        List<PendingEvent> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        if (!leftovers.isEmpty() && !writerThread.isAlive()) {
+            flush(leftovers);
+        } else if (!leftovers.isEmpty()) {
+            log.warn("Plan event batch writer stopped with pending events. pending={}", leftovers.size());
+            failAll(leftovers, new IllegalStateException("Plan event batch writer stopped"));
+        }
+    }
+
+    /**
+     * 入队；写入器未运行或在写线程内重入（订阅回调里再发布）时同步直写，保证不丢、不自锁。
+     */
+    CompletableFuture<PlanTaskEventEntity> submit(PlanTaskEventEntity event) {
+        if (!running || Thread.currentThread() == writerThread) {
+            return writeDirectly(event);
+        }
+        PendingEvent pending = new PendingEvent(event);
+        try {
+            queue.put(pending);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return writeDirectly(event);
+        }
+        return pending.future;
+    }
+
+    /**
+     * 等待事件落库并拿到分配的 id；超时只表示调用方不再等待，事件仍会按序写入。
+     */
+    PlanTaskEventEntity await(CompletableFuture<PlanTaskEventEntity> future, long timeoutMillis) {
+        try {
+            return future.get(Math.max(timeoutMillis, 1L), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for plan event flush", ex);
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException("Plan event flush timed out after " + timeoutMillis + "ms", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause.getMessage(), cause);
+        }
+    }
+
+    int pendingCount() {
+        return queue.size();
+    }
+
+    private CompletableFuture<PlanTaskEventEntity> writeDirectly(PlanTaskEventEntity event) {
+        PlanTaskEventEntity saved = planTaskEventRepository.save(event);
+        flushedListener.accept(List.of(saved));
+        return CompletableFuture.completedFuture(saved);
+    }
+
+    private void writeLoop() {
+        List<PendingEvent> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEvent first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingEvent next = queue.poll();
+                    if (next == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0L || !running) {
+                            break;
+                        }
+                        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            } catch (Exception ex) {
+                log.warn("Plan event batch writer loop failed. batchSize={}, error={}", batch.size(), ex.getMessage());
+                failAll(batch, ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PlanTaskEventEntity> saved = saveBatch(batch);
+        List<PlanTaskEventEntity> flushed = new ArrayList<>(saved.size());
+        for (PlanTaskEventEntity event : saved) {
+            if (event != null) {
+                flushed.add(event);
+            }
+        }
+        // 先分发再回执：等待落库的调用方返回时，本实例订阅者已按 id 顺序收到事件
+        try {
+            flushedListener.accept(flushed);
+        } catch (Exception ex) {
+            log.debug("Plan event flush listener failed. batchSize={}, error={}", flushed.size(), ex.getMessage());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (saved.get(i) != null) {
+                batch.get(i).future.complete(saved.get(i));
+            }
+        }
+        flushCounter.increment();
+        batchSizeSummary.record(batch.size());
+    }
+
+    private List<PlanTaskEventEntity> saveBatch(List<PendingEvent> batch) {
+        List<PlanTaskEventEntity> events = new ArrayList<>(batch.size());
+        for (PendingEvent pending : batch) {
+            events.add(pending.event);
+        }
+        try {
+            List<PlanTaskEventEntity> saved = planTaskEventRepository.saveAll(events);
+            if (saved != null && saved.size() == events.size()) {
+                return saved;
+            }
+            log.warn("Plan event batch insert returned unexpected size, retrying row by row. expected={}, actual={}",
+                    events.size(), saved == null ? 0 : saved.size());
+        } catch (Exception ex) {
+            log.warn("Plan event batch insert failed, retrying row by row. batchSize={}, error={}",
+                    events.size(), ex.getMessage());
+        }
+        fallbackCounter.increment();
+        List<PlanTaskEventEntity> saved = new ArrayList<>(batch.size());
+        for (PendingEvent pending : batch) {
+            try {
+                saved.add(planTaskEventRepository.save(pending.event));
+            } catch (Exception ex) {
+                failedCounter.increment();
+                log.warn("Plan event insert failed. planId={}, taskId={}, type={}, error={}",
+                        pending.event.getPlanId(), pending.event.getTaskId(), pending.event.getEventType(),
+                        ex.getMessage());
+                pending.future.completeExceptionally(ex);
+                saved.add(null);
+            }
+        }
+        return saved;
+    }
+
+    private void failAll(List<PendingEvent> batch, Exception ex) {
+        for (PendingEvent pending : batch) {
+            if (pending.future.completeExceptionally(ex)) {
+                failedCounter.increment();
+            }
+        }
+    }
+
+    private static final class PendingEvent {
+        private final PlanTaskEventEntity event;
+        private final CompletableFuture<PlanTaskEventEntity> future;
+
+        private PendingEvent(PlanTaskEventEntity event) {
+            this.event = event;
+            this.future = new CompletableFuture<>();
+        }
+    }
+}
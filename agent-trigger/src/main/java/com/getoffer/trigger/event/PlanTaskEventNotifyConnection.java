@@ -0,0 +1,82 @@
+package com.getoffer.trigger.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * 事件通知专用长连接（Plan 事件与 claim 唤醒各持一条）：
+ * 1) 独占一条连接发 NOTIFY，不再每个事件从连接池借还一次；
+ * 2) 一批通知用 unnest 数组一条语句发出，一次往返、一个事务，订阅方按发送顺序收到；
+ * 3) 发送失败时丢弃连接并用新连接重试一次，仍失败只记录日志（跨实例实时性靠断线重放兜底）。
+ */
+@Slf4j
+final class PlanTaskEventNotifyConnection {
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, payload) FROM unnest(?::text[]) AS payload";
+
+    private final DataSource dataSource;
+    private final String channel;
+    private Connection connection;
+
+    PlanTaskEventNotifyConnection(DataSource dataSource, String channel) {
+        this.dataSource = dataSource;
+        this.channel = channel;
+    }
+
+    synchronized void send(List<String> payloads) {
+        if (dataSource == null || payloads == null || payloads.isEmpty()) {
+            return;
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                Connection current = obtain();
+                Array array = current.createArrayOf("text", payloads.toArray());
+                try (PreparedStatement statement = current.prepareStatement(NOTIFY_SQL)) {
+                    statement.setString(1, channel);
+                    statement.setArray(2, array);
+                    statement.execute();
+                    return;
+                } finally {
+                    array.free();
+                }
+            } catch (Exception ex) {
+                closeQuietly();
+                if (attempt > 0) {
+                    log.debug("Notify failed. channel={}, payloadCount={}, error={}",
+                            channel, payloads.size(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    synchronized void close() {
+        closeQuietly();
+    }
+
+    private Connection obtain() throws Exception {
+        if (connection == null || connection.isClosed()) {
+            connection = dataSource.getConnection();
+            if (!connection.getAutoCommit()) {
+                connection.setAutoCommit(true);
+            }
+        }
+        return connection;
+    }
+
+    private void closeQuietly() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (Exception ignored) {
+            // 连接已失效，直接丢弃
+        }
+        connection = null;
+    }
+}
@@ -0,0 +1,119 @@
+package com.getoffer.trigger.event;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.getoffer.domain.task.model.entity.PlanTaskEventEntity;
+import com.getoffer.types.enums.PlanTaskEventTypeEnum;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Plan 事件跨实例通知载荷：
+ * 1) 首行固定为 "planId:eventId:publisherId"，与旧格式一致，旧版本实例仍可按 id 回源读取；
+ * 2) 事件序列化后不超过 NOTIFY 上限（8000 字节）时，换行后追加事件 JSON，接收方直接分发，无需回源；
+ * 3) 超限事件只发首行，接收方回退为按 id 读库；
+ * 4) 接收方先只解析首行（{@link #decodeHeader(String)}），过滤掉本实例与无关 plan 的通知后再按需解析事件 JSON。
+ * <p>
+ * JSON 编解码使用应用共享的 ObjectMapper（含 JavaTimeModule 等模块），与其它组件的序列化配置一致。
+ */
+public final class PlanTaskEventNotifyPayload {
+
+    /**
+     * PostgreSQL NOTIFY 载荷须短于 8000 字节。
+     */
+    public static final int MAX_PAYLOAD_BYTES = 7999;
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    public PlanTaskEventNotifyPayload(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper == null ? new ObjectMapper().findAndRegisterModules() : objectMapper;
+    }
+
+    public String encode(PlanTaskEventEntity event, String publisherId) {
+        String header = event.getPlanId() + ":" + event.getId() + ":" + publisherId;
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("taskId", event.getTaskId());
+            body.put("eventType", event.getEventType() == null ? null : event.getEventType().name());
+            body.put("createdAt", event.getCreatedAt() == null ? null : event.getCreatedAt().toString());
+            body.put("eventData", event.getEventData());
+            String payload = header + "\n" + objectMapper.writeValueAsString(body);
+            if (payload.getBytes(StandardCharsets.UTF_8).length <= MAX_PAYLOAD_BYTES) {
+                return payload;
+            }
+        } catch (Exception ignored) {
+            // 事件数据无法序列化时只发首行，由接收方回源读取
+        }
+        return header;
+    }
+
+    /**
+     * 只解析首行，不解析事件 JSON；格式非法返回 null。
+     */
+    public static Header decodeHeader(String payload) {
+        if (payload == null || payload.isBlank()) {
+            return null;
+        }
+        int lineBreak = payload.indexOf('\n');
+        String header = lineBreak < 0 ? payload : payload.substring(0, lineBreak);
+        String[] parts = header.split(":", 3);
+        if (parts.length < 3) {
+            return null;
+        }
+        Long planId;
+        Long eventId;
+        try {
+            planId = Long.parseLong(parts[0].trim());
+            eventId = Long.parseLong(parts[1].trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        return new Header(planId, eventId, parts[2], lineBreak < 0 ? null : payload.substring(lineBreak + 1));
+    }
+
+    /**
+     * 解析首行携带的事件 JSON；未携带事件体或无法解析时返回 null，由调用方按 id 回源读取。
+     */
+    public PlanTaskEventEntity decodeEvent(Header header) {
+        if (header == null || header.body() == null) {
+            return null;
+        }
+        Long planId = header.planId();
+        Long eventId = header.eventId();
+        try {
+            Map<String, Object> body = objectMapper.readValue(header.body(), MAP_TYPE);
+            Object eventType = body.get("eventType");
+            if (eventType == null) {
+                return null;
+            }
+            PlanTaskEventEntity event = new PlanTaskEventEntity();
+            event.setId(eventId);
+            event.setPlanId(planId);
+            Object taskId = body.get("taskId");
+            event.setTaskId(taskId instanceof Number number ? number.longValue() : null);
+            event.setEventType(PlanTaskEventTypeEnum.valueOf(String.valueOf(eventType)));
+            Object createdAt = body.get("createdAt");
+            event.setCreatedAt(createdAt == null ? null : LocalDateTime.parse(String.valueOf(createdAt)));
+            Object eventData = body.get("eventData");
+            if (eventData instanceof Map<?, ?> data) {
+                Map<String, Object> copied = new LinkedHashMap<>();
+                data.forEach((key, value) -> copied.put(String.valueOf(key), value));
+                event.setEventData(copied);
+            } else {
+                event.setEventData(new LinkedHashMap<>());
+            }
+            return event;
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    public record Header(Long planId, Long eventId, String publisherId, String body) {
+    }
+}
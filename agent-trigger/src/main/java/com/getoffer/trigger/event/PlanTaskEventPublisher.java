@@ -1,9 +1,14 @@
 package com.getoffer.trigger.event;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.getoffer.domain.task.adapter.repository.IPlanTaskEventRepository;
 import com.getoffer.domain.task.model.entity.PlanTaskEventEntity;
 import com.getoffer.types.enums.PlanTaskEventTypeEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.postgresql.PGConnection;
 import org.postgresql.PGNotification;
 import org.springframework.beans.factory.ObjectProvider;
@@ -17,19 +22,38 @@ import javax.sql.DataSource;
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
  * Plan/Task 事件发布器：持久化 + 跨实例通知 + 进程内实时分发。
+ * <p>
+ * 开启组提交后持久化交给 {@link PlanTaskEventBatchWriter} 攒批写入，落库后按 id 顺序分发与通知；
+ * 按事件类型区分持久化语义：默认等待落库拿到事件 id 再返回，配置为异步的类型入队即返回（返回快照，不含事件 id）。
+ * 组提交由写线程在自身事务中落库，不参与调用方事务：调用方事务回滚不会撤销已发布的事件，
+ * 事件也可能在调用方事务提交前就被订阅者看到；需要与业务数据同事务提交的场景应关闭组提交。
+ * <p>
+ * 跨实例通知经专用长连接批量发出，载荷尽量携带完整事件（见 {@link PlanTaskEventNotifyPayload}），
+ * 接收方只对超出 NOTIFY 上限的事件回源读库。
+ * <p>
+ * 进程内订阅者经 {@link PlanTaskEventSubscribers} 的有界队列异步投递，发布耗时与客户端网速无关。
+ * <p>
+ * 本实例落库与收到通知的事件同时写入 {@link PlanTaskEventReplayBuffer}，游标落在缓冲覆盖范围内的回放不再读库。
  */
 @Slf4j
 @Component
@@ -42,24 +66,90 @@ public class PlanTaskEventPublisher {
 
     private final IPlanTaskEventRepository planTaskEventRepository;
     private final DataSource dataSource;
-    private final ConcurrentMap<Long, ConcurrentMap<String, Consumer<PlanTaskEventEntity>>> subscribersByPlan;
+    private final PlanTaskEventSubscribers subscribers;
     private final ExecutorService notifyListenExecutor;
     private final String notifyChannel;
     private final String publisherInstanceId;
+    private final PlanTaskEventNotifyConnection notifyConnection;
+    private final PlanTaskEventNotifyPayload notifyPayload;
+    private final PlanTaskEventBatchWriter batchWriter;
+    private final PlanTaskEventReplayBuffer replayBuffer;
+    private final Set<PlanTaskEventTypeEnum> asyncEventTypes;
+    private final long flushTimeoutMillis;
+    private final Counter notifyInlineCounter;
+    private final Counter notifyReloadCounter;
     private volatile boolean running;
+    private volatile boolean listening;
 
     public PlanTaskEventPublisher(IPlanTaskEventRepository planTaskEventRepository) {
         this(planTaskEventRepository, null, "plan_task_events_channel", null);
     }
 
+    public PlanTaskEventPublisher(IPlanTaskEventRepository planTaskEventRepository,
+                                  ObjectProvider<DataSource> dataSourceProvider,
+                                  String notifyChannel,
+                                  String configuredInstanceId) {
+        this(planTaskEventRepository, dataSourceProvider, notifyChannel, configuredInstanceId,
+                null, null, false, 0, 0L, 0, 0L, null, 0, 0, null,
+                false, 0, 0L, 0, 0L, 0L);
+    }
+
     @Autowired
     public PlanTaskEventPublisher(IPlanTaskEventRepository planTaskEventRepository,
                                   ObjectProvider<DataSource> dataSourceProvider,
                                   @Value("${event.notify.channel:plan_task_events_channel}") String notifyChannel,
-                                  @Value("${event.publisher.instance-id:}") String configuredInstanceId) {
+                                  @Value("${event.publisher.instance-id:}") String configuredInstanceId,
+                                  ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                  ObjectProvider<ObjectMapper> objectMapperProvider,
+                                  @Value("${event.writer.batch.enabled:false}") boolean batchEnabled,
+                                  @Value("${event.writer.batch.max-size:128}") int maxBatchSize,
+                                  @Value("${event.writer.batch.max-delay-ms:5}") long maxDelayMillis,
+                                  @Value("${event.writer.batch.queue-capacity:4096}") int queueCapacity,
+                                  @Value("${event.writer.flush-timeout-ms:3000}") long flushTimeoutMillis,
+                                  @Value("${event.writer.async-event-types:TASK_LOG}") String asyncEventTypes,
+                                  @Value("${event.subscriber.delivery-threads:4}") int deliveryThreads,
+                                  @Value("${event.subscriber.queue-capacity:1024}") int subscriberQueueCapacity,
+                                  @Value("${event.subscriber.overflow-policy:DROP_AND_RESYNC}") String overflowPolicy,
+                                  @Value("${event.replay.buffer.enabled:false}") boolean replayBufferEnabled,
+                                  @Value("${event.replay.buffer.max-events-per-plan:512}") int replayBufferMaxEvents,
+                                  @Value("${event.replay.buffer.max-bytes-per-plan:262144}") long replayBufferMaxBytes,
+                                  @Value("${event.replay.buffer.max-plans:256}") int replayBufferMaxPlans,
+                                  @Value("${event.replay.buffer.finished-grace-seconds:60}") long replayBufferGraceSeconds,
+                                  @Value("${event.replay.buffer.settle-ms:1000}") long replayBufferSettleMillis) {
+        this(planTaskEventRepository, dataSourceProvider, notifyChannel, configuredInstanceId,
+                meterRegistryProvider, objectMapperProvider, batchEnabled, maxBatchSize, maxDelayMillis, queueCapacity,
+                flushTimeoutMillis, asyncEventTypes, deliveryThreads, subscriberQueueCapacity, overflowPolicy,
+                replayBufferEnabled, replayBufferMaxEvents, replayBufferMaxBytes, replayBufferMaxPlans,
+                replayBufferGraceSeconds, replayBufferSettleMillis, Clock.systemUTC());
+    }
+
+    /**
+     * clock 供回放缓冲计算宽限期与清理周期，测试可注入可控时钟。
+     */
+    public PlanTaskEventPublisher(IPlanTaskEventRepository planTaskEventRepository,
+                                  ObjectProvider<DataSource> dataSourceProvider,
+                                  String notifyChannel,
+                                  String configuredInstanceId,
+                                  ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                  ObjectProvider<ObjectMapper> objectMapperProvider,
+                                  boolean batchEnabled,
+                                  int maxBatchSize,
+                                  long maxDelayMillis,
+                                  int queueCapacity,
+                                  long flushTimeoutMillis,
+                                  String asyncEventTypes,
+                                  int deliveryThreads,
+                                  int subscriberQueueCapacity,
+                                  String overflowPolicy,
+                                  boolean replayBufferEnabled,
+                                  int replayBufferMaxEvents,
+                                  long replayBufferMaxBytes,
+                                  int replayBufferMaxPlans,
+                                  long replayBufferGraceSeconds,
+                                  long replayBufferSettleMillis,
+                                  Clock clock) {
         this.planTaskEventRepository = planTaskEventRepository;
         this.dataSource = dataSourceProvider == null ? null : dataSourceProvider.getIfAvailable();
-        this.subscribersByPlan = new ConcurrentHashMap<>();
         this.notifyListenExecutor = Executors.newSingleThreadExecutor(r -> {
             Thread thread = new Thread(r, "plan-event-notify-listener");
             thread.setDaemon(true);
@@ -69,11 +159,45 @@ public class PlanTaskEventPublisher {
                 ? "plan_task_events_channel"
                 : notifyChannel;
         this.publisherInstanceId = resolvePublisherId(configuredInstanceId);
+        this.notifyConnection = new PlanTaskEventNotifyConnection(dataSource, this.notifyChannel);
+        this.notifyPayload = new PlanTaskEventNotifyPayload(
+                objectMapperProvider == null ? null : objectMapperProvider.getIfAvailable());
+        MeterRegistry meterRegistry = meterRegistryProvider == null
+                ? new SimpleMeterRegistry()
+                : meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        this.subscribers = new PlanTaskEventSubscribers(deliveryThreads,
+                subscriberQueueCapacity,
+                SubscriberOverflowPolicy.parse(overflowPolicy),
+                meterRegistry);
+        this.batchWriter = batchEnabled
+                ? new PlanTaskEventBatchWriter(planTaskEventRepository,
+                this::onEventsPersisted,
+                maxBatchSize,
+                maxDelayMillis,
+                queueCapacity,
+                meterRegistry)
+                : null;
+        this.replayBuffer = replayBufferEnabled
+                ? new PlanTaskEventReplayBuffer(replayBufferMaxEvents,
+                replayBufferMaxBytes,
+                replayBufferMaxPlans,
+                TimeUnit.SECONDS.toMillis(Math.max(replayBufferGraceSeconds, 0L)),
+                replayBufferSettleMillis,
+                clock == null ? Clock.systemUTC() : clock,
+                meterRegistry)
+                : null;
+        this.notifyInlineCounter = meterRegistry.counter("agent.event.notify.received.total", "source", "inline");
+        this.notifyReloadCounter = meterRegistry.counter("agent.event.notify.received.total", "source", "reload");
+        this.asyncEventTypes = parseEventTypes(asyncEventTypes);
+        this.flushTimeoutMillis = Math.max(flushTimeoutMillis, 1L);
         this.running = false;
     }
 
     @PostConstruct
     public void startNotifyListener() {
+        if (batchWriter != null) {
+            batchWriter.start();
+        }
         if (dataSource == null) {
             log.info("PlanTaskEventPublisher notify listener disabled because DataSource is unavailable.");
             return;
@@ -84,10 +208,21 @@ public class PlanTaskEventPublisher {
 
     @PreDestroy
     public void shutdown() {
+        if (batchWriter != null) {
+            batchWriter.shutdown();
+        }
         running = false;
         notifyListenExecutor.shutdownNow();
+        notifyConnection.close();
+        subscribers.shutdown();
     }
 
+    /**
+     * 发布并持久化事件。
+     * <p>
+     * 同步类型返回已落库事件（含 id 与 createdAt）；异步类型返回入队时的快照，不含 id，之后也不会被回填，
+     * 落库失败只记录日志与指标，不反馈给调用方。
+     */
     public PlanTaskEventEntity publish(PlanTaskEventTypeEnum eventType,
                                        Long planId,
                                        Long taskId,
@@ -100,69 +235,136 @@ public class PlanTaskEventPublisher {
         event.setTaskId(taskId);
         event.setEventType(eventType);
         event.setEventData(eventData == null ? Collections.emptyMap() : eventData);
-        PlanTaskEventEntity saved = planTaskEventRepository.save(event);
-        dispatch(saved);
-        notifyCrossInstance(saved);
-        return saved;
+        if (batchWriter == null) {
+            PlanTaskEventEntity saved = planTaskEventRepository.save(event);
+            onEventsPersisted(List.of(saved));
+            return saved;
+        }
+        CompletableFuture<PlanTaskEventEntity> future = batchWriter.submit(event);
+        if (asyncEventTypes.contains(eventType)) {
+            // 写线程持有的实体落库后会被赋值，返回独立快照，调用方读到的字段不随写线程变化
+            return future.isDone() && !future.isCompletedExceptionally()
+                    ? future.join()
+                    : snapshot(eventType, planId, taskId, eventData);
+        }
+        return batchWriter.await(future, flushTimeoutMillis);
+    }
+
+    /**
+     * 瞬时事件：只分发给本实例的实时订阅者，不持久化、不跨实例通知，也没有事件 id（不参与断线重放）。
+     */
+    public void publishTransient(PlanTaskEventTypeEnum eventType,
+                                 Long planId,
+                                 Long taskId,
+                                 Map<String, Object> eventData) {
+        if (eventType == null || planId == null) {
+            return;
+        }
+        if (!subscribers.hasSubscribers(planId)) {
+            return;
+        }
+        PlanTaskEventEntity event = new PlanTaskEventEntity();
+        event.setPlanId(planId);
+        event.setTaskId(taskId);
+        event.setEventType(eventType);
+        event.setEventData(eventData == null ? Collections.emptyMap() : eventData);
+        event.setCreatedAt(LocalDateTime.now());
+        dispatch(event);
     }
 
+    /**
+     * 回放 afterEventId 之后的事件：游标落在本实例回放缓冲覆盖范围内时直接读内存，否则读库。
+     */
     public List<PlanTaskEventEntity> replay(Long planId, Long afterEventId, int limit) {
+        if (replayBufferActive()) {
+            List<PlanTaskEventEntity> buffered = replayBuffer.replay(planId, afterEventId, limit);
+            if (buffered != null) {
+                return buffered;
+            }
+        }
         return planTaskEventRepository.findByPlanIdAfterEventId(planId, afterEventId, limit);
     }
 
+    /**
+     * 各 plan 已落库的最新事件 id，供回放扫描跳过没有新事件的 plan；返回中缺失的 plan 视为未知。
+     */
+    public Map<Long, Long> latestEventIds(Collection<Long> planIds) {
+        if (planIds == null || planIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Long> latest = planTaskEventRepository.findLatestEventIds(planIds);
+        return latest == null ? Collections.emptyMap() : latest;
+    }
+
     public void subscribe(Long planId, String subscriberId, Consumer<PlanTaskEventEntity> consumer) {
+        subscribe(planId, subscriberId, consumer, null);
+    }
+
+    /**
+     * 订阅实时事件；overflowHandler 在投递线程上按队列顺序回调：
+     * DROP_AND_RESYNC 表示积压已丢弃，订阅方应按自身游标回放补齐；DISCONNECT 表示订阅已被移除，订阅方应断开连接。
+     */
+    public void subscribe(Long planId,
+                          String subscriberId,
+                          Consumer<PlanTaskEventEntity> consumer,
+                          Consumer<SubscriberOverflowPolicy> overflowHandler) {
         if (planId == null || subscriberId == null || consumer == null) {
             return;
         }
-        subscribersByPlan.computeIfAbsent(planId, key -> new ConcurrentHashMap<>()).put(subscriberId, consumer);
+        subscribers.subscribe(planId, subscriberId, consumer, overflowHandler);
     }
 
     public void unsubscribe(Long planId, String subscriberId) {
         if (planId == null || subscriberId == null) {
             return;
         }
-        ConcurrentMap<String, Consumer<PlanTaskEventEntity>> subscribers = subscribersByPlan.get(planId);
-        if (subscribers == null) {
-            return;
-        }
-        subscribers.remove(subscriberId);
-        if (subscribers.isEmpty()) {
-            subscribersByPlan.remove(planId, subscribers);
-        }
+        subscribers.unsubscribe(planId, subscriberId);
     }
 
     private void dispatch(PlanTaskEventEntity event) {
-        if (event == null || event.getPlanId() == null) {
-            return;
-        }
-        ConcurrentMap<String, Consumer<PlanTaskEventEntity>> subscribers = subscribersByPlan.get(event.getPlanId());
-        if (subscribers == null || subscribers.isEmpty()) {
+        subscribers.dispatch(event);
+    }
+
+    private PlanTaskEventEntity snapshot(PlanTaskEventTypeEnum eventType,
+                                         Long planId,
+                                         Long taskId,
+                                         Map<String, Object> eventData) {
+        PlanTaskEventEntity snapshot = new PlanTaskEventEntity();
+        snapshot.setPlanId(planId);
+        snapshot.setTaskId(taskId);
+        snapshot.setEventType(eventType);
+        snapshot.setEventData(eventData == null
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(eventData)));
+        return snapshot;
+    }
+
+    /**
+     * 落库后按 id 顺序先写回放缓冲并做进程内分发，再经通知长连接一次发出本批跨实例通知。
+     */
+    private void onEventsPersisted(List<PlanTaskEventEntity> events) {
+        if (events == null || events.isEmpty()) {
             return;
         }
-        for (Map.Entry<String, Consumer<PlanTaskEventEntity>> entry : subscribers.entrySet()) {
-            try {
-                entry.getValue().accept(event);
-            } catch (Exception ex) {
-                log.debug("Plan event dispatch failed. planId={}, subscriberId={}, eventId={}, error={}",
-                        event.getPlanId(), entry.getKey(), event.getId(), ex.getMessage());
-            }
+        for (PlanTaskEventEntity event : events) {
+            appendToReplayBuffer(event);
+            dispatch(event);
         }
+        notifyCrossInstance(events);
     }
 
-    private void notifyCrossInstance(PlanTaskEventEntity event) {
-        if (dataSource == null || event == null || event.getPlanId() == null || event.getId() == null) {
+    private void notifyCrossInstance(List<PlanTaskEventEntity> events) {
+        if (dataSource == null || events == null || events.isEmpty()) {
             return;
         }
-        String payload = event.getPlanId() + ":" + event.getId() + ":" + publisherInstanceId;
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
-            statement.setString(1, notifyChannel);
-            statement.setString(2, payload);
-            statement.execute();
-        } catch (Exception ex) {
-            log.debug("Plan event notify failed. planId={}, eventId={}, error={}",
-                    event.getPlanId(), event.getId(), ex.getMessage());
+        List<String> payloads = new ArrayList<>(events.size());
+        for (PlanTaskEventEntity event : events) {
+            if (event == null || event.getPlanId() == null || event.getId() == null) {
+                continue;
+            }
+            payloads.add(notifyPayload.encode(event, publisherInstanceId));
         }
+        notifyConnection.send(payloads);
     }
 
     private void listenLoop() {
@@ -170,6 +372,9 @@ public class PlanTaskEventPublisher {
             try (Connection connection = dataSource.getConnection();
                  Statement statement = connection.createStatement()) {
                 statement.execute("LISTEN " + notifyChannel);
+                // 未监听期间的跨实例事件不在缓冲里，丢弃已有缓冲避免回放出缺口；此后缓冲才重新接收与提供回放
+                invalidateReplayBuffer();
+                listening = true;
                 PGConnection pgConnection = connection.unwrap(PGConnection.class);
                 while (running && !connection.isClosed()) {
                     PGNotification[] notifications = pgConnection.getNotifications(LISTEN_TIMEOUT_MILLIS);
@@ -180,10 +385,13 @@ public class PlanTaskEventPublisher {
                         handleNotification(notification == null ? null : notification.getParameter());
                     }
                 }
+                stopListening();
             } catch (InterruptedException interruptedException) {
+                stopListening();
                 Thread.currentThread().interrupt();
                 return;
             } catch (Exception ex) {
+                stopListening();
                 if (!running) {
                     return;
                 }
@@ -200,16 +408,65 @@ public class PlanTaskEventPublisher {
     }
 
     private void handleNotification(String payload) throws InterruptedException {
-        NotifyPayload notifyPayload = NotifyPayload.parse(payload);
-        if (notifyPayload == null || notifyPayload.planId == null || notifyPayload.eventId == null) {
+        // 先只解析首行：本实例发出或无人关注的通知不解析事件 JSON
+        PlanTaskEventNotifyPayload.Header decoded = PlanTaskEventNotifyPayload.decodeHeader(payload);
+        if (decoded == null || publisherInstanceId.equals(decoded.publisherId())) {
             return;
         }
-        if (publisherInstanceId.equals(notifyPayload.publisherId)) {
+        boolean subscribed = subscribers.hasSubscribers(decoded.planId());
+        boolean buffered = replayBuffer != null && replayBuffer.tracks(decoded.planId());
+        if (!subscribed && !buffered) {
             return;
         }
-        PlanTaskEventEntity event = loadEventById(notifyPayload.planId, notifyPayload.eventId);
-        if (event != null) {
-            dispatch(event);
+        PlanTaskEventEntity inline = notifyPayload.decodeEvent(decoded);
+        if (inline != null) {
+            notifyInlineCounter.increment();
+            appendToReplayBuffer(inline);
+            dispatch(inline);
+            return;
+        }
+        if (!subscribed) {
+            // 无本地订阅者时不为缓冲回源读库，直接让该 plan 的缓冲失效
+            replayBuffer.invalidate(decoded.planId());
+            return;
+        }
+        // 超出 NOTIFY 上限（或旧版本实例发出）的通知只带 id，回源读取
+        notifyReloadCounter.increment();
+        PlanTaskEventEntity event = loadEventById(decoded.planId(), decoded.eventId());
+        if (event == null) {
+            if (replayBuffer != null) {
+                replayBuffer.invalidate(decoded.planId());
+            }
+            return;
+        }
+        appendToReplayBuffer(event);
+        dispatch(event);
+    }
+
+    private void appendToReplayBuffer(PlanTaskEventEntity event) {
+        if (replayBufferActive()) {
+            replayBuffer.append(event);
+        }
+    }
+
+    /**
+     * 缓冲只在能收到全部跨实例事件时可用：无数据源（单实例）或 LISTEN 处于连接状态。
+     */
+    private boolean replayBufferActive() {
+        return replayBuffer != null && (dataSource == null || listening);
+    }
+
+    /**
+     * 监听中断后立即停用并清空缓冲：断开期间的跨实例事件收不到，继续读缓冲会返回有缺口的结果。
+     */
+    private void stopListening() {
+        listening = false;
+        invalidateReplayBuffer();
+    }
+
+    private void invalidateReplayBuffer() {
+        if (replayBuffer != null) {
+            replayBuffer.invalidateAll();
         }
     }
 
@@ -219,7 +476,7 @@ public class PlanTaskEventPublisher {
         }
         long cursor = eventId - 1;
         for (int i = 0; i < LOAD_RETRY_TIMES; i++) {
-            List<PlanTaskEventEntity> events = replay(planId, cursor, 1);
+            List<PlanTaskEventEntity> events = planTaskEventRepository.findByPlanIdAfterEventId(planId, cursor, 1);
             if (events != null && !events.isEmpty()) {
                 PlanTaskEventEntity event = events.get(0);
                 if (event != null && eventId.equals(event.getId())) {
@@ -240,6 +497,47 @@ public class PlanTaskEventPublisher {
         Thread.sleep(millis);
     }
 
+    /**
+     * 订阅者投递队列溢出策略。
+     */
+    public enum SubscriberOverflowPolicy {
+        /** 丢弃积压，由订阅方按游标回放补齐 */
+        DROP_AND_RESYNC,
+        /** 移除订阅并断开，由客户端带游标重连 */
+        DISCONNECT;
+
+        static SubscriberOverflowPolicy parse(String raw) {
+            if (StringUtils.isBlank(raw)) {
+                return DROP_AND_RESYNC;
+            }
+            try {
+                return valueOf(raw.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException ex) {
+                log.warn("Unknown subscriber overflow policy, fallback to DROP_AND_RESYNC. policy={}", raw);
+                return DROP_AND_RESYNC;
+            }
+        }
+    }
+
+    private static Set<PlanTaskEventTypeEnum> parseEventTypes(String raw) {
+        Set<PlanTaskEventTypeEnum> types = EnumSet.noneOf(PlanTaskEventTypeEnum.class);
+        if (StringUtils.isBlank(raw)) {
+            return types;
+        }
+        for (String item : raw.split(",")) {
+            String name = item.trim().toUpperCase(Locale.ROOT);
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                types.add(PlanTaskEventTypeEnum.valueOf(name));
+            } catch (IllegalArgumentException ex) {
+                log.warn("Ignore unknown async plan event type. type={}", item);
+            }
+        }
+        return types;
+    }
+
     private String resolvePublisherId(String configuredInstanceId) {
         if (configuredInstanceId != null && !configuredInstanceId.isBlank()) {
             return configuredInstanceId;
@@ -252,34 +550,4 @@ public class PlanTaskEventPublisher {
             return "instance-" + System.nanoTime();
         }
     }
-
-    private static final class NotifyPayload {
-        private final Long planId;
-        private final Long eventId;
-        private final String publisherId;
-
-        private NotifyPayload(Long planId, Long eventId, String publisherId) {
-            this.planId = planId;
-            this.eventId = eventId;
-            this.publisherId = publisherId;
-        }
-
-        private static NotifyPayload parse(String payload) {
-            if (payload == null || payload.isBlank()) {
-                return null;
-            }
-            String[] parts = payload.split(":", 3);
-            if (parts.length < 3) {
-                return null;
-            }
-            try {
-                Long planId = Long.parseLong(parts[0].trim());
-                Long eventId = Long.parseLong(parts[1].trim());
-                String publisherId = parts[2];
-                return new NotifyPayload(planId, eventId, publisherId);
-            } catch (NumberFormatException ex) {
-                return null;
-            }
-        }
-    }
 }
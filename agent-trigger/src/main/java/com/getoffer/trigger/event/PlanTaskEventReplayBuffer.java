@@ -0,0 +1,243 @@
+package com.getoffer.trigger.event;
+
+import com.getoffer.domain.task.model.entity.PlanTaskEventEntity;
+import com.getoffer.types.enums.PlanTaskEventTypeEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按 plan 缓存近期已落库事件，SSE 断线续传与回放优先从内存读取：
+ * 1) 每个 plan 记录覆盖起点 coveredAfter，缓冲内含本实例收到的全部 id &gt; coveredAfter 的事件；
+ *    游标不低于 coveredAfter 时命中，否则返回 null 由调用方回源读库；
+ * 2) 单 plan 按事件数与估算字节数淘汰最旧事件（覆盖起点随之前移），plan 数超限时淘汰最久未写入的 plan；
+ * 3) 收到 PLAN_FINISHED 后保留一个宽限期供收尾重连，之后整体移除；
+ * 4) 跨实例通知可能丢失（监听重连、超限通知未回源）时由发布器按 plan 或整体失效，宁可回源也不返回有缺口的结果；
+ * 5) 其它实例的事件 id 先分配、后提交与通知，可能晚于 id 更大的事件到达；事件写入缓冲满 settleMillis 后才对回放可见，
+ *    回放按 id 顺序遇到未过水位的事件即截止，不越过可能仍在途的较小 id 推进调用方游标。
+ */
+final class PlanTaskEventReplayBuffer {
+
+    private static final long CLEANUP_INTERVAL_MILLIS = 1000L;
+    private static final int EVENT_OVERHEAD_BYTES = 128;
+
+    private final int maxEventsPerPlan;
+    private final long maxBytesPerPlan;
+    private final int maxPlans;
+    private final long finishedGraceMillis;
+    private final long settleMillis;
+    private final Clock clock;
+    private final ConcurrentMap<Long, PlanEvents> plans;
+    private final AtomicLong lastCleanupAt;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    PlanTaskEventReplayBuffer(int maxEventsPerPlan,
+                              long maxBytesPerPlan,
+                              int maxPlans,
+                              long finishedGraceMillis,
+                              long settleMillis,
+                              Clock clock,
+                              MeterRegistry meterRegistry) {
+        this.maxEventsPerPlan = Math.max(maxEventsPerPlan, 1);
+        this.maxBytesPerPlan = Math.max(maxBytesPerPlan, EVENT_OVERHEAD_BYTES);
+        this.maxPlans = Math.max(maxPlans, 1);
+        this.finishedGraceMillis = Math.max(finishedGraceMillis, 0L);
+        this.settleMillis = Math.max(settleMillis, 0L);
+        this.clock = clock;
+        this.plans = new ConcurrentHashMap<>();
+        this.lastCleanupAt = new AtomicLong(clock.millis());
+        this.hitCounter = meterRegistry.counter("agent.event.replay.buffer.requests.total", "result", "hit");
+        this.missCounter = meterRegistry.counter("agent.event.replay.buffer.requests.total", "result", "miss");
+        Gauge.builder("agent.event.replay.buffer.plans", plans, Map::size)
+                .description("回放缓冲中的 plan 数")
+                .register(meterRegistry);
+        Gauge.builder("agent.event.replay.buffer.events", this, PlanTaskEventReplayBuffer::eventCount)
+                .description("回放缓冲中的事件数")
+                .register(meterRegistry);
+        Gauge.builder("agent.event.replay.buffer.bytes", this, PlanTaskEventReplayBuffer::estimatedBytes)
+                .description("回放缓冲估算占用字节数")
+                .register(meterRegistry);
+    }
+
+    boolean tracks(Long planId) {
+        return planId != null && plans.containsKey(planId);
+    }
+
+    /**
+     * 追加已落库事件，可乱序到达；首次出现的 plan 以该事件作为覆盖起点。
+     */
+    void append(PlanTaskEventEntity event) {
+        if (event == null || event.getPlanId() == null || event.getId() == null) {
+            return;
+        }
+        plans.computeIfAbsent(event.getPlanId(), key -> new PlanEvents(event.getId() - 1)).add(event);
+        cleanupIfDue();
+    }
+
+    /**
+     * 读取 id &gt; afterEventId 且已过水位的事件；游标落在覆盖范围之外返回 null。
+     */
+    List<PlanTaskEventEntity> replay(Long planId, Long afterEventId, int limit) {
+        if (planId == null || limit <= 0) {
+            return null;
+        }
+        long cursor = afterEventId == null ? 0L : Math.max(afterEventId, 0L);
+        PlanEvents planEvents = plans.get(planId);
+        List<PlanTaskEventEntity> events = planEvents == null ? null : planEvents.after(cursor, limit, clock.millis() - settleMillis);
+        if (events == null) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return events;
+    }
+
+    void invalidate(Long planId) {
+        if (planId != null) {
+            plans.remove(planId);
+        }
+    }
+
+    void invalidateAll() {
+        plans.clear();
+    }
+
+    int eventCount() {
+        int count = 0;
+        for (PlanEvents planEvents : plans.values()) {
+            count += planEvents.size();
+        }
+        return count;
+    }
+
+    long estimatedBytes() {
+        long bytes = 0L;
+        for (PlanEvents planEvents : plans.values()) {
+            bytes += planEvents.bytes();
+        }
+        return bytes;
+    }
+
+    private void cleanupIfDue() {
+        long now = clock.millis();
+        long last = lastCleanupAt.get();
+        if (plans.size() <= maxPlans && now - last < CLEANUP_INTERVAL_MILLIS) {
+            return;
+        }
+        if (!lastCleanupAt.compareAndSet(last, now)) {
+            return;
+        }
+        Iterator<PlanEvents> iterator = plans.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expired(now, finishedGraceMillis)) {
+                iterator.remove();
+            }
+        }
+        while (plans.size() > maxPlans) {
+            Long eldestPlanId = null;
+            long eldestTouchedAt = Long.MAX_VALUE;
+            for (Map.Entry<Long, PlanEvents> entry : plans.entrySet()) {
+                long touchedAt = entry.getValue().touchedAt();
+                if (touchedAt < eldestTouchedAt) {
+                    eldestTouchedAt = touchedAt;
+                    eldestPlanId = entry.getKey();
+                }
+            }
+            if (eldestPlanId == null) {
+                return;
+            }
+            plans.remove(eldestPlanId);
+        }
+    }
+
+    private static int estimateBytes(PlanTaskEventEntity event) {
+        Map<String, Object> eventData = event.getEventData();
+        return EVENT_OVERHEAD_BYTES + (eventData == null ? 0 : String.valueOf(eventData).length() * 2);
+    }
+
+    private final class PlanEvents {
+        private final TreeMap<Long, BufferedEvent> events;
+        private long coveredAfter;
+        private long bytes;
+        private long touchedAt;
+        private long finishedAt;
+
+        private PlanEvents(long coveredAfter) {
+            this.events = new TreeMap<>();
+            this.coveredAfter = coveredAfter;
+            this.touchedAt = clock.millis();
+        }
+
+        private synchronized void add(PlanTaskEventEntity event) {
+            touchedAt = clock.millis();
+            if (event.getEventType() == PlanTaskEventTypeEnum.PLAN_FINISHED && finishedAt == 0L) {
+                finishedAt = touchedAt;
+            }
+            long id = event.getId();
+            if (id <= coveredAfter || events.containsKey(id)) {
+                return;
+            }
+            BufferedEvent buffered = new BufferedEvent(event, estimateBytes(event), touchedAt);
+            events.put(id, buffered);
+            bytes += buffered.bytes;
+            while (!events.isEmpty() && (events.size() > maxEventsPerPlan || bytes > maxBytesPerPlan)) {
+                Map.Entry<Long, BufferedEvent> eldest = events.pollFirstEntry();
+                bytes -= eldest.getValue().bytes;
+                coveredAfter = Math.max(coveredAfter, eldest.getKey());
+            }
+        }
+
+        private synchronized List<PlanTaskEventEntity> after(long cursor, int limit, long watermark) {
+            if (cursor < coveredAfter) {
+                return null;
+            }
+            List<PlanTaskEventEntity> result = new ArrayList<>();
+            for (BufferedEvent buffered : events.tailMap(cursor, false).values()) {
+                if (result.size() >= limit || buffered.appendedAt > watermark) {
+                    break;
+                }
+                result.add(buffered.event);
+            }
+            return result;
+        }
+
+        private synchronized boolean expired(long now, long graceMillis) {
+            return finishedAt > 0L && now - finishedAt >= graceMillis;
+        }
+
+        private synchronized int size() {
+            return events.size();
+        }
+
+        private synchronized long bytes() {
+            return bytes;
+        }
+
+        private synchronized long touchedAt() {
+            return touchedAt;
+        }
+    }
+
+    private static final class BufferedEvent {
+        private final PlanTaskEventEntity event;
+        private final int bytes;
+        private final long appendedAt;
+
+        private BufferedEvent(PlanTaskEventEntity event, int bytes, long appendedAt) {
+            this.event = event;
+            this.bytes = bytes;
+            this.appendedAt = appendedAt;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.getoffer.trigger.event;
+
+import com.getoffer.domain.task.model.entity.PlanTaskEventEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 进程内订阅者投递：
+ * 1) 每个订阅者一条有界队列，发布线程（写入线程 / NOTIFY 监听线程 / 增量推送线程）只入队不等待；
+ * 2) 小规模投递线程池按订阅者串行排空队列，单个订阅者的事件保持入队顺序，单次最多投递一批后让出线程，慢客户端不独占；
+ * 3) 队列溢出按策略处理：DROP_AND_RESYNC 清空积压并在队首插入一次补发（订阅方按自身游标回放），
+ *    DISCONNECT 直接移除订阅并通知订阅方断开（客户端带游标重连）；
+ * 4) 投递线程数 &lt;= 0 时退化为在发布线程内联投递。
+ */
+@Slf4j
+final class PlanTaskEventSubscribers {
+
+    private static final int MAX_DRAIN_BATCH = 64;
+
+    private final ConcurrentMap<Long, ConcurrentMap<String, SubscriberQueue>> subscribersByPlan;
+    private final ExecutorService deliveryExecutor;
+    private final int queueCapacity;
+    private final PlanTaskEventPublisher.SubscriberOverflowPolicy overflowPolicy;
+    private final Counter droppedCounter;
+    private final Counter overflowCounter;
+
+    PlanTaskEventSubscribers(int deliveryThreads,
+                             int queueCapacity,
+                             PlanTaskEventPublisher.SubscriberOverflowPolicy overflowPolicy,
+                             MeterRegistry meterRegistry) {
+        this.subscribersByPlan = new ConcurrentHashMap<>();
+        this.queueCapacity = Math.max(queueCapacity, 1);
+        this.overflowPolicy = overflowPolicy == null
+                ? PlanTaskEventPublisher.SubscriberOverflowPolicy.DROP_AND_RESYNC
+                : overflowPolicy;
+        if (deliveryThreads > 0) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.deliveryExecutor = Executors.newFixedThreadPool(deliveryThreads, r -> {
+                Thread thread = new Thread(r, "plan-event-delivery-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.deliveryExecutor = null;
+        }
+        this.droppedCounter = meterRegistry.counter("agent.event.subscriber.dropped.total",
+                "policy", this.overflowPolicy.name());
+        this.overflowCounter = meterRegistry.counter("agent.event.subscriber.overflow.total",
+                "policy", this.overflowPolicy.name());
+        Gauge.builder("agent.event.subscriber.count", this, PlanTaskEventSubscribers::subscriberCount)
+                .description("本实例实时事件订阅者数")
+                .register(meterRegistry);
+        Gauge.builder("agent.event.subscriber.queue.depth", this, PlanTaskEventSubscribers::totalQueueDepth)
+                .description("全部订阅者待投递事件数")
+                .register(meterRegistry);
+        Gauge.builder("agent.event.subscriber.queue.max_depth", this, PlanTaskEventSubscribers::maxQueueDepth)
+                .description("单个订阅者最大待投递事件数")
+                .register(meterRegistry);
+    }
+
+    void subscribe(Long planId,
+                   String subscriberId,
+                   Consumer<PlanTaskEventEntity> consumer,
+                   Consumer<PlanTaskEventPublisher.SubscriberOverflowPolicy> overflowHandler) {
+        SubscriberQueue queue = new SubscriberQueue(planId, subscriberId, consumer, overflowHandler);
+        SubscriberQueue previous = subscribersByPlan.computeIfAbsent(planId, key -> new ConcurrentHashMap<>())
+                .put(subscriberId, queue);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    void unsubscribe(Long planId, String subscriberId) {
+        ConcurrentMap<String, SubscriberQueue> subscribers = subscribersByPlan.get(planId);
+        if (subscribers == null) {
+            return;
+        }
+        SubscriberQueue removed = subscribers.remove(subscriberId);
+        if (removed != null) {
+            removed.close();
+        }
+        if (subscribers.isEmpty()) {
+            subscribersByPlan.remove(planId, subscribers);
+        }
+    }
+
+    boolean hasSubscribers(Long planId) {
+        ConcurrentMap<String, SubscriberQueue> subscribers = planId == null ? null : subscribersByPlan.get(planId);
+        return subscribers != null && !subscribers.isEmpty();
+    }
+
+    void dispatch(PlanTaskEventEntity event) {
+        if (event == null || event.getPlanId() == null) {
+            return;
+        }
+        ConcurrentMap<String, SubscriberQueue> subscribers = subscribersByPlan.get(event.getPlanId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        for (SubscriberQueue subscriber : subscribers.values()) {
+            subscriber.offer(event);
+        }
+    }
+
+    void shutdown() {
+        if (deliveryExecutor != null) {
+            deliveryExecutor.shutdownNow();
+        }
+    }
+
+    int subscriberCount() {
+        int count = 0;
+        for (ConcurrentMap<String, SubscriberQueue> subscribers : subscribersByPlan.values()) {
+            count += subscribers.size();
+        }
+        return count;
+    }
+
+    int totalQueueDepth() {
+        int depth = 0;
+        for (ConcurrentMap<String, SubscriberQueue> subscribers : subscribersByPlan.values()) {
+            for (SubscriberQueue subscriber : subscribers.values()) {
+                depth += subscriber.depth();
+            }
+        }
+        return depth;
+    }
+
+    int maxQueueDepth() {
+        int depth = 0;
+        for (ConcurrentMap<String, SubscriberQueue> subscribers : subscribersByPlan.values()) {
+            for (SubscriberQueue subscriber : subscribers.values()) {
+                depth = Math.max(depth, subscriber.depth());
+            }
+        }
+        return depth;
+    }
+
+    private final class SubscriberQueue {
+        private final Long planId;
+        private final String subscriberId;
+        private final Consumer<PlanTaskEventEntity> consumer;
+        private final Consumer<PlanTaskEventPublisher.SubscriberOverflowPolicy> overflowHandler;
+        private final ArrayDeque<PlanTaskEventEntity> pending;
+        private PlanTaskEventPublisher.SubscriberOverflowPolicy pendingOverflow;
+        private boolean scheduled;
+        private boolean closed;
+
+        private SubscriberQueue(Long planId,
+                                String subscriberId,
+                                Consumer<PlanTaskEventEntity> consumer,
+                                Consumer<PlanTaskEventPublisher.SubscriberOverflowPolicy> overflowHandler) {
+            this.planId = planId;
+            this.subscriberId = subscriberId;
+            this.consumer = consumer;
+            this.overflowHandler = overflowHandler;
+            this.pending = new ArrayDeque<>();
+        }
+
+        private void offer(PlanTaskEventEntity event) {
+            if (deliveryExecutor == null) {
+                deliver(event);
+                return;
+            }
+            boolean schedule;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (pending.size() >= queueCapacity) {
+                    overflow(event);
+                } else {
+                    pending.addLast(event);
+                }
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if (schedule) {
+                submitDrain();
+            }
+        }
+
+        /**
+         * 调用方持有 this 锁。
+         */
+        private void overflow(PlanTaskEventEntity event) {
+            overflowCounter.increment();
+            droppedCounter.increment(pending.size() + 1D);
+            log.warn("Plan event subscriber queue overflow. planId={}, subscriberId={}, dropped={}, policy={}",
+                    planId, subscriberId, pending.size() + 1, overflowPolicy);
+            pending.clear();
+            pendingOverflow = overflowPolicy;
+            if (overflowPolicy == PlanTaskEventPublisher.SubscriberOverflowPolicy.DISCONNECT) {
+                closed = true;
+                unsubscribe(planId, subscriberId);
+            }
+        }
+
+        private void drain() {
+            for (int i = 0; i < MAX_DRAIN_BATCH; i++) {
+                PlanTaskEventEntity event;
+                PlanTaskEventPublisher.SubscriberOverflowPolicy overflow;
+                synchronized (this) {
+                    overflow = pendingOverflow;
+                    pendingOverflow = null;
+                    event = overflow == null && !closed ? pending.pollFirst() : null;
+                    if (overflow == null && event == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                if (overflow != null) {
+                    handleOverflow(overflow);
+                } else {
+                    deliver(event);
+                }
+            }
+            submitDrain();
+        }
+
+        private void submitDrain() {
+            try {
+                deliveryExecutor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                synchronized (this) {
+                    scheduled = false;
+                }
+            }
+        }
+
+        private void deliver(PlanTaskEventEntity event) {
+            try {
+                consumer.accept(event);
+            } catch (Exception ex) {
+                log.debug("Plan event dispatch failed. planId={}, subscriberId={}, eventId={}, error={}",
+                        planId, subscriberId, event.getId(), ex.getMessage());
+            }
+        }
+
+        private void handleOverflow(PlanTaskEventPublisher.SubscriberOverflowPolicy policy) {
+            if (overflowHandler == null) {
+                return;
+            }
+            try {
+                overflowHandler.accept(policy);
+            } catch (Exception ex) {
+                log.debug("Plan event overflow handler failed. planId={}, subscriberId={}, policy={}, error={}",
+                        planId, subscriberId, policy, ex.getMessage());
+            }
+        }
+
+        private synchronized int depth() {
+            return pending.size();
+        }
+
+        private synchronized void close() {
+            closed = true;
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.getoffer.trigger.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Task 可调度信号：任务进入 READY/REFINING 或新 Plan 物化后，
+ * 通过 pg_notify 跨实例唤醒 claim/调度循环，替代固定间隔空轮询。
+ * <p>
+ * 本实例发出的信号直接在进程内分发，LISTEN 回环的同源通知会被忽略；跨实例 NOTIFY 复用一条专用长连接发送。
+ * 任务终态信号只在进程内分发：写终态的实例自身的调度守护即可推进其下游，其它实例靠兜底全量扫描。
+ * Plan 进度信号（任务被领取、终态、被调度跳过）同样只在进程内分发，由 Plan 状态同步登记脏 plan，
+ * 跨实例可见性由其持久化脏标记负责。
+ */
+@Slf4j
+@Component
+public class TaskClaimWakeupNotifier {
+
+    private static final String DEFAULT_CHANNEL = "task_claim_wakeup_channel";
+    private static final int LISTEN_TIMEOUT_MILLIS = 3000;
+    private static final int RECONNECT_BACKOFF_MILLIS = 1000;
+
+    /**
+     * 唤醒信号类型。
+     */
+    public enum WakeupKind {
+        /** 任务进入 READY/REFINING，唤醒 claim 循环 */
+        TASK_READY,
+        /** 新 Plan 任务已物化（PENDING），唤醒依赖推进 */
+        PLAN_CREATED
+    }
+
+    private final DataSource dataSource;
+    private final ConcurrentMap<WakeupKind, List<Consumer<Long>>> listenersByKind;
+    private final List<BiConsumer<Long, String>> taskTerminalListeners;
+    private final List<Consumer<Long>> planProgressListeners;
+    private final ExecutorService notifyListenExecutor;
+    private final PlanTaskEventNotifyConnection notifyConnection;
+    private final String notifyChannel;
+    private final String instanceId;
+    private volatile boolean running;
+
+    public TaskClaimWakeupNotifier() {
+        this(null, DEFAULT_CHANNEL, null);
+    }
+
+    @Autowired
+    public TaskClaimWakeupNotifier(ObjectProvider<DataSource> dataSourceProvider,
+                                   @Value("${executor.claim.wakeup.channel:task_claim_wakeup_channel}") String notifyChannel,
+                                   @Value("${event.publisher.instance-id:}") String configuredInstanceId) {
+        this.dataSource = dataSourceProvider == null ? null : dataSourceProvider.getIfAvailable();
+        this.listenersByKind = new ConcurrentHashMap<>();
+        this.taskTerminalListeners = new CopyOnWriteArrayList<>();
+        this.planProgressListeners = new CopyOnWriteArrayList<>();
+        this.notifyListenExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "task-claim-wakeup-listener");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.notifyChannel = (notifyChannel == null || notifyChannel.isBlank()) ? DEFAULT_CHANNEL : notifyChannel;
+        this.instanceId = resolveInstanceId(configuredInstanceId);
+        this.notifyConnection = new PlanTaskEventNotifyConnection(this.dataSource, this.notifyChannel);
+        this.running = false;
+    }
+
+    @PostConstruct
+    public void startNotifyListener() {
+        if (dataSource == null) {
+            log.info("TaskClaimWakeupNotifier listener disabled because DataSource is unavailable.");
+            return;
+        }
+        running = true;
+        notifyListenExecutor.execute(this::listenLoop);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        notifyListenExecutor.shutdownNow();
+        notifyConnection.close();
+    }
+
+    public void addListener(WakeupKind kind, Consumer<Long> listener) {
+        if (kind == null || listener == null) {
+            return;
+        }
+        listenersByKind.computeIfAbsent(kind, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * 监听任务进入终态（COMPLETED/FAILED/SKIPPED），回调参数为 planId 与 nodeId。
+     */
+    public void addTaskTerminalListener(BiConsumer<Long, String> listener) {
+        if (listener != null) {
+            taskTerminalListeners.add(listener);
+        }
+    }
+
+    /**
+     * 监听 plan 内任务状态推进（可能改变 plan 聚合状态），回调参数为 planId。
+     */
+    public void addPlanProgressListener(Consumer<Long> listener) {
+        if (listener != null) {
+            planProgressListeners.add(listener);
+        }
+    }
+
+    /**
+     * 任务终态写入成功后调用，仅进程内分发；同时视为该 plan 的进度信号。
+     */
+    public void signalTaskTerminal(Long planId, String nodeId) {
+        if (planId == null) {
+            return;
+        }
+        for (BiConsumer<Long, String> listener : taskTerminalListeners) {
+            try {
+                listener.accept(planId, nodeId);
+            } catch (Exception ex) {
+                log.debug("Task terminal signal dispatch failed. planId={}, nodeId={}, error={}",
+                        planId, nodeId, ex.getMessage());
+            }
+        }
+        signalPlanProgress(planId);
+    }
+
+    /**
+     * plan 内任务被领取或被调度跳过后调用，仅进程内分发；调用方应按 plan 去重。
+     */
+    public void signalPlanProgress(Long planId) {
+        if (planId == null) {
+            return;
+        }
+        for (Consumer<Long> listener : planProgressListeners) {
+            try {
+                listener.accept(planId);
+            } catch (Exception ex) {
+                log.debug("Plan progress signal dispatch failed. planId={}, error={}", planId, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 任务进入 READY/REFINING 后调用；调用方应按“轮”聚合，避免逐任务发信号。
+     */
+    public void signalTasksReady(Long planId) {
+        signal(WakeupKind.TASK_READY, planId);
+    }
+
+    public void signalPlanCreated(Long planId) {
+        signal(WakeupKind.PLAN_CREATED, planId);
+    }
+
+    private void signal(WakeupKind kind, Long planId) {
+        dispatch(kind, planId);
+        notifyCrossInstance(kind, planId);
+    }
+
+    private void dispatch(WakeupKind kind, Long planId) {
+        List<Consumer<Long>> listeners = listenersByKind.get(kind);
+        if (listeners == null || listeners.isEmpty()) {
+            return;
+        }
+        for (Consumer<Long> listener : listeners) {
+            try {
+                listener.accept(planId);
+            } catch (Exception ex) {
+                log.debug("Task claim wakeup dispatch failed. kind={}, planId={}, error={}",
+                        kind, planId, ex.getMessage());
+            }
+        }
+    }
+
+    private void notifyCrossInstance(WakeupKind kind, Long planId) {
+        if (dataSource == null) {
+            return;
+        }
+        notifyConnection.send(List.of(kind.name() + ":" + (planId == null ? "" : planId) + ":" + instanceId));
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + notifyChannel);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running && !connection.isClosed()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(LISTEN_TIMEOUT_MILLIS);
+                    if (notifications == null || notifications.length == 0) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        handleNotification(notification == null ? null : notification.getParameter());
+                    }
+                }
+            } catch (Exception ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Task claim wakeup listener failed, retrying. channel={}, error={}",
+                        notifyChannel, ex.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_BACKOFF_MILLIS);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handleNotification(String payload) {
+        if (payload == null || payload.isBlank()) {
+            return;
+        }
+        String[] parts = payload.split(":", 3);
+        if (parts.length < 3 || instanceId.equals(parts[2])) {
+            return;
+        }
+        WakeupKind kind;
+        try {
+            kind = WakeupKind.valueOf(parts[0].trim());
+        } catch (IllegalArgumentException ex) {
+            return;
+        }
+        Long planId = null;
+        if (!parts[1].isBlank()) {
+            try {
+                planId = Long.parseLong(parts[1].trim());
+            } catch (NumberFormatException ignore) {
+                planId = null;
+            }
+        }
+        dispatch(kind, planId);
+    }
+
+    private String resolveInstanceId(String configuredInstanceId) {
+        if (configuredInstanceId != null && !configuredInstanceId.isBlank()) {
+            return configuredInstanceId;
+        }
+        try {
+            String host = InetAddress.getLocalHost().getHostName();
+            String pid = ManagementFactory.getRuntimeMXBean().getName();
+            return host + "-" + pid;
+        } catch (Exception ex) {
+            return "instance-" + System.nanoTime();
+        }
+    }
+}
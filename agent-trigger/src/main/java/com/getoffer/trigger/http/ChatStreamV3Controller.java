@@ -30,6 +30,7 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -66,6 +67,9 @@ public class ChatStreamV3Controller {
     @Value("${sse.replay.max-batches-per-sweep:1}")
     private int replayMaxBatchesPerSweep;
 
+    @Value("${sse.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
     public ChatStreamV3Controller(IAgentSessionRepository agentSessionRepository,
                                   IAgentPlanRepository agentPlanRepository,
                                   ISessionTurnRepository sessionTurnRepository,
@@ -136,6 +140,10 @@ public class ChatStreamV3Controller {
             return;
         }
         for (StreamSubscriber subscriber : subscribers.values()) {
+            if (subscriber.sendingSince.get() > 0L) {
+                // 正在写出的连接无需心跳，也避免调度线程排在卡住的写出后面
+                continue;
+            }
             sendSystemEvent(subscriber,
                     "stream.heartbeat",
                     "heartbeat",
@@ -143,14 +151,94 @@ public class ChatStreamV3Controller {
         }
     }
 
+    /**
+     * 单次写出超过 send-timeout-ms 的连接视为慢客户端：移除订阅并以错误结束 emitter，关闭底层连接，
+     * 让阻塞在写出上的投递线程尽快失败返回；客户端带 Last-Event-ID 重连后从游标续传。
+     */
+    @Scheduled(fixedDelayString = "${sse.stall-check-interval-ms:1000}", scheduler = "daemonScheduler")
+    public void evictStalledSubscribers() {
+        if (subscribers.isEmpty() || sendTimeoutMs <= 0L) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (StreamSubscriber subscriber : subscribers.values()) {
+            long sendingSince = subscriber.sendingSince.get();
+            if (sendingSince <= 0L || now - sendingSince < sendTimeoutMs) {
+                continue;
+            }
+            log.warn("CHAT_V3_STREAM_SEND_STALLED sessionId={}, planId={}, subscriberId={}, cursor={}, stalledMs={}",
+                    subscriber.sessionId,
+                    subscriber.planId,
+                    subscriber.subscriberId,
+                    subscriber.lastEventId.get(),
+                    now - sendingSince);
+            removeSubscriber(subscriber);
+            try {
+                subscriber.emitter.completeWithError(new IOException("SSE send timed out after " + sendTimeoutMs + "ms"));
+            } catch (Exception ex) {
+                log.debug("CHAT_V3_STREAM_COMPLETE_FAILED subscriberId={}, error={}", subscriber.subscriberId, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 兜底回放按 plan 合并：先一次批量取各 plan 最新事件 id，没有订阅者落后的 plan 直接跳过；
+     * 其余 plan 从订阅者最小游标查询一次，结果在内存中分发给该 plan 的全部订阅者。
+     * 落后最新事件超过一个批次的订阅者单独按自身游标回放，共享查询只从未超出该差距的游标开始，个别掉队连接不拖慢其它订阅者。
+     * 投递队列溢出待补发的订阅者在这里逐个补齐，正在写出的订阅者留到下一轮，调度线程不排在慢连接后面。
+     */
     @Scheduled(fixedDelayString = "${sse.replay-interval-ms:3000}", scheduler = "daemonScheduler")
     public void sweepReplayMissedEvents() {
-        if (subscribers.isEmpty()) {
+        if (subscribersByPlan.isEmpty()) {
             return;
         }
-        for (StreamSubscriber subscriber : subscribers.values()) {
-            replayMissedEvents(subscriber);
+        Map<Long, List<StreamSubscriber>> subscribersSnapshot = new HashMap<>();
+        for (Map.Entry<Long, ConcurrentMap<String, StreamSubscriber>> entry : subscribersByPlan.entrySet()) {
+            for (StreamSubscriber subscriber : entry.getValue().values()) {
+                if (subscriber.sendingSince.get() > 0L) {
+                    continue;
+                }
+                if (subscriber.resyncPending) {
+                    resync(subscriber);
+                    continue;
+                }
+                subscribersSnapshot.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(subscriber);
+            }
         }
+        if (subscribersSnapshot.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> latestEventIds = planTaskEventPublisher.latestEventIds(subscribersSnapshot.keySet());
+        int batchSize = Math.max(1, replayBatchSize);
+        int skippedPlans = 0;
+        int laggards = 0;
+        for (Map.Entry<Long, List<StreamSubscriber>> entry : subscribersSnapshot.entrySet()) {
+            Long latestEventId = latestEventIds == null ? null : latestEventIds.get(entry.getKey());
+            long leadCursor = 0L;
+            for (StreamSubscriber subscriber : entry.getValue()) {
+                leadCursor = Math.max(leadCursor, subscriber.lastEventId.get());
+            }
+            long sharedFloor = (latestEventId == null ? leadCursor : latestEventId) - batchSize;
+            List<StreamSubscriber> shared = new ArrayList<>();
+            long minCursor = Long.MAX_VALUE;
+            for (StreamSubscriber subscriber : entry.getValue()) {
+                long cursor = Math.max(subscriber.lastEventId.get(), 0L);
+                if (cursor < sharedFloor) {
+                    laggards++;
+                    replayMissedEvents(subscriber);
+                    continue;
+                }
+                shared.add(subscriber);
+                minCursor = Math.min(minCursor, cursor);
+            }
+            if (shared.isEmpty() || (latestEventId != null && latestEventId <= minCursor)) {
+                skippedPlans++;
+                continue;
+            }
+            replayPlanEvents(entry.getKey(), shared, minCursor);
+        }
+        log.debug("CHAT_V3_STREAM_REPLAY_SWEEP plans={}, skipped={}, laggards={}",
+                subscribersSnapshot.size(), skippedPlans, laggards);
     }
 
     private void applySseResponseHeaders(HttpServletResponse response) {
@@ -231,11 +319,96 @@ public class ChatStreamV3Controller {
         }
     }
 
+    private void replayPlanEvents(Long planId, List<StreamSubscriber> planSubscribers, long fromCursor) {
+        int batchSize = Math.max(1, replayBatchSize);
+        int maxBatches = Math.max(1, replayMaxBatchesPerSweep);
+        long cursor = Math.max(fromCursor, 0L);
+
+        for (int batchIndex = 0; batchIndex < maxBatches; batchIndex++) {
+            List<PlanTaskEventEntity> events = planTaskEventPublisher.replay(planId, cursor, batchSize);
+            if (events == null || events.isEmpty()) {
+                return;
+            }
+            for (StreamSubscriber subscriber : planSubscribers) {
+                for (PlanTaskEventEntity event : events) {
+                    if (!subscribers.containsKey(subscriber.subscriberId)) {
+                        break;
+                    }
+                    if (event == null || event.getId() == null || event.getId() <= subscriber.lastEventId.get()) {
+                        continue;
+                    }
+                    deliverPlanEvent(subscriber, event);
+                }
+            }
+
+            PlanTaskEventEntity latest = events.get(events.size() - 1);
+            if (latest == null || latest.getId() == null) {
+                return;
+            }
+            cursor = Math.max(cursor, latest.getId());
+            if (events.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 溢出后的补发：先按游标回放，再持订阅者锁确认已无遗漏后恢复实时投递。
+     * 确认期间到达的实时事件等锁释放后按正常路径投递，不会越过尚未补发的事件推进游标。
+     */
+    private void resync(StreamSubscriber subscriber) {
+        replayMissedEvents(subscriber);
+        synchronized (subscriber) {
+            if (!subscribers.containsKey(subscriber.subscriberId)) {
+                return;
+            }
+            List<PlanTaskEventEntity> remaining = planTaskEventPublisher.replay(subscriber.planId,
+                    subscriber.lastEventId.get(), 1);
+            if (remaining == null || remaining.isEmpty()) {
+                subscriber.resyncPending = false;
+            }
+        }
+    }
+
     private void subscribeRealtime(StreamSubscriber subscriber) {
-        planTaskEventPublisher.subscribe(subscriber.planId, subscriber.subscriberId, event -> deliverPlanEvent(subscriber, event));
+        planTaskEventPublisher.subscribe(subscriber.planId,
+                subscriber.subscriberId,
+                event -> deliverPlanEvent(subscriber, event, true),
+                policy -> handleDeliveryOverflow(subscriber, policy));
+    }
+
+    /**
+     * 客户端消费跟不上导致投递队列溢出：标记待补发，由回放 sweep 在调度线程上按游标补齐（投递线程不读库），
+     * 或断开让客户端带 Last-Event-ID 重连。
+     */
+    private void handleDeliveryOverflow(StreamSubscriber subscriber, PlanTaskEventPublisher.SubscriberOverflowPolicy policy) {
+        log.warn("CHAT_V3_STREAM_DELIVERY_OVERFLOW sessionId={}, planId={}, subscriberId={}, cursor={}, policy={}",
+                subscriber.sessionId,
+                subscriber.planId,
+                subscriber.subscriberId,
+                subscriber.lastEventId.get(),
+                policy);
+        if (policy == PlanTaskEventPublisher.SubscriberOverflowPolicy.DISCONNECT) {
+            removeSubscriber(subscriber);
+            try {
+                subscriber.emitter.complete();
+            } catch (Exception ex) {
+                log.debug("CHAT_V3_STREAM_COMPLETE_FAILED subscriberId={}, error={}", subscriber.subscriberId, ex.getMessage());
+            }
+            return;
+        }
+        subscriber.resyncPending = true;
     }
 
     private void deliverPlanEvent(StreamSubscriber subscriber, PlanTaskEventEntity event) {
+        deliverPlanEvent(subscriber, event, false);
+    }
+
+    private void deliverPlanEvent(StreamSubscriber subscriber, PlanTaskEventEntity event, boolean realtime) {
+        if (subscriber != null && event != null && event.getEventType() == PlanTaskEventTypeEnum.TASK_DELTA) {
+            deliverDeltaEvent(subscriber, event);
+            return;
+        }
         if (subscriber == null || event == null || event.getId() == null) {
             return;
         }
@@ -243,6 +416,10 @@ public class ChatStreamV3Controller {
             if (event.getId() <= subscriber.lastEventId.get()) {
                 return;
             }
+            if (realtime && subscriber.resyncPending) {
+                // 补发完成前实时事件交给回放按游标补齐，游标不越过被丢弃的积压
+                return;
+            }
             try {
                 if (event.getEventType() == PlanTaskEventTypeEnum.PLAN_FINISHED) {
                     sendPlanFinishedEvents(subscriber, event);
@@ -266,6 +443,21 @@ public class ChatStreamV3Controller {
         }
     }
 
+    /**
+     * 增量输出事件没有事件 id：不推进断线重放游标，也不带 SSE id，断线期间丢失的分片以最终 answer.final 为准。
+     */
+    private void deliverDeltaEvent(StreamSubscriber subscriber, PlanTaskEventEntity event) {
+        synchronized (subscriber) {
+            if (!subscribers.containsKey(subscriber.subscriberId)) {
+                return;
+            }
+            ChatStreamEventV3DTO payload = mapTaskEvent(subscriber, event);
+            if (!sendEvent(subscriber, payload, null)) {
+                removeSubscriber(subscriber);
+            }
+        }
+    }
+
     private void sendPlanFinishedEvents(StreamSubscriber subscriber, PlanTaskEventEntity event) {
         Map<String, Object> rawEventData = event.getEventData() == null ? Collections.emptyMap() : event.getEventData();
         Map<String, Object> eventData = chatSseEventMapper.normalizeMetadata(rawEventData);
@@ -342,7 +534,14 @@ public class ChatStreamV3Controller {
             if (eventId != null) {
                 builder.id(String.valueOf(eventId));
             }
-            subscriber.emitter.send(builder);
+            boolean tracking = subscriber.sendingSince.compareAndSet(0L, System.currentTimeMillis());
+            try {
+                subscriber.emitter.send(builder);
+            } finally {
+                if (tracking) {
+                    subscriber.sendingSince.set(0L);
+                }
+            }
             return true;
         } catch (IOException | RuntimeException ex) {
             log.debug("CHAT_V3_STREAM_SEND_FAILED sessionId={}, planId={}, subscriberId={}, eventType={}, eventId={}, error={}",
@@ -431,6 +630,10 @@ public class ChatStreamV3Controller {
         private final Long turnId;
         private final SseEmitter emitter;
         private final AtomicLong lastEventId;
+        /** 当前写出开始时间（ms），0 表示空闲 */
+        private final AtomicLong sendingSince;
+        /** 投递队列溢出后待补发，补齐前不接收实时事件 */
+        private volatile boolean resyncPending;
 
         private StreamSubscriber(String subscriberId,
                                  Long sessionId,
@@ -444,6 +647,7 @@ public class ChatStreamV3Controller {
             this.turnId = turnId;
             this.emitter = emitter;
             this.lastEventId = new AtomicLong(Math.max(lastEventId, 0L));
+            this.sendingSince = new AtomicLong();
         }
     }
 }
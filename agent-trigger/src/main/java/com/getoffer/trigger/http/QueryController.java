@@ -208,39 +208,39 @@ public class QueryController {
 
     private Map<String, Object> buildTaskStats() {
         Map<String, Object> stats = new HashMap<>();
-        long total = agentTaskRepository.countAll();
-        long pending = agentTaskRepository.countByStatus(TaskStatusEnum.PENDING);
-        long ready = agentTaskRepository.countByStatus(TaskStatusEnum.READY);
-        long running = agentTaskRepository.countByStatus(TaskStatusEnum.RUNNING)
-                + agentTaskRepository.countByStatus(TaskStatusEnum.VALIDATING)
-                + agentTaskRepository.countByStatus(TaskStatusEnum.REFINING);
-        long completed = agentTaskRepository.countByStatus(TaskStatusEnum.COMPLETED);
-        long failed = agentTaskRepository.countByStatus(TaskStatusEnum.FAILED);
-        long skipped = agentTaskRepository.countByStatus(TaskStatusEnum.SKIPPED);
+        Map<TaskStatusEnum, Long> counts = safeCounts(agentTaskRepository.countGroupByStatus());
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        long running = counts.getOrDefault(TaskStatusEnum.RUNNING, 0L)
+                + counts.getOrDefault(TaskStatusEnum.VALIDATING, 0L)
+                + counts.getOrDefault(TaskStatusEnum.REFINING, 0L);
         stats.put("total", total);
-        stats.put("pending", pending);
-        stats.put("ready", ready);
+        stats.put("pending", counts.getOrDefault(TaskStatusEnum.PENDING, 0L));
+        stats.put("ready", counts.getOrDefault(TaskStatusEnum.READY, 0L));
         stats.put("runningLike", running);
-        stats.put("completed", completed);
-        stats.put("failed", failed);
-        stats.put("skipped", skipped);
+        stats.put("completed", counts.getOrDefault(TaskStatusEnum.COMPLETED, 0L));
+        stats.put("failed", counts.getOrDefault(TaskStatusEnum.FAILED, 0L));
+        stats.put("skipped", counts.getOrDefault(TaskStatusEnum.SKIPPED, 0L));
         return stats;
     }
 
     private Map<String, Object> buildPlanStats() {
         Map<String, Object> stats = new HashMap<>();
-        long total = agentPlanRepository.countAll();
-        stats.put("total", total);
-        stats.put("planning", agentPlanRepository.countByStatus(PlanStatusEnum.PLANNING));
-        stats.put("ready", agentPlanRepository.countByStatus(PlanStatusEnum.READY));
-        stats.put("running", agentPlanRepository.countByStatus(PlanStatusEnum.RUNNING));
-        stats.put("paused", agentPlanRepository.countByStatus(PlanStatusEnum.PAUSED));
-        stats.put("completed", agentPlanRepository.countByStatus(PlanStatusEnum.COMPLETED));
-        stats.put("failed", agentPlanRepository.countByStatus(PlanStatusEnum.FAILED));
-        stats.put("cancelled", agentPlanRepository.countByStatus(PlanStatusEnum.CANCELLED));
+        Map<PlanStatusEnum, Long> counts = safeCounts(agentPlanRepository.countGroupByStatus());
+        stats.put("total", counts.values().stream().mapToLong(Long::longValue).sum());
+        stats.put("planning", counts.getOrDefault(PlanStatusEnum.PLANNING, 0L));
+        stats.put("ready", counts.getOrDefault(PlanStatusEnum.READY, 0L));
+        stats.put("running", counts.getOrDefault(PlanStatusEnum.RUNNING, 0L));
+        stats.put("paused", counts.getOrDefault(PlanStatusEnum.PAUSED, 0L));
+        stats.put("completed", counts.getOrDefault(PlanStatusEnum.COMPLETED, 0L));
+        stats.put("failed", counts.getOrDefault(PlanStatusEnum.FAILED, 0L));
+        stats.put("cancelled", counts.getOrDefault(PlanStatusEnum.CANCELLED, 0L));
         return stats;
     }
 
+    private <K> Map<K, Long> safeCounts(Map<K, Long> counts) {
+        return counts == null ? Collections.emptyMap() : counts;
+    }
+
     private <T> List<T> safeList(List<T> source) {
         return source == null ? Collections.emptyList() : source;
     }
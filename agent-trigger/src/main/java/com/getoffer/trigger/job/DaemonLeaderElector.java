@@ -0,0 +1,281 @@
+package com.getoffer.trigger.job;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 守护进程选主：基于 PostgreSQL 会话级 advisory lock。
+ * <p>
+ * 1) 每个守护进程名映射为 (namespace, hash) 两段式锁键，实例在一条专用连接上 pg_try_advisory_lock，持锁者即该守护的 leader；
+ * 2) 心跳线程按 heartbeat-interval-ms 校验专用连接，并为尚未持有的守护重试加锁；连接失效时立即放弃全部 leadership 并重连。
+ * leader 进程退出或连接断开后锁由数据库释放，其它实例在下一次心跳内接管；
+ * 3) 专用连接的 application_name 带上实例 ID，{@link #clusterLeaders()} 通过 pg_locks 关联 pg_stat_activity 给出全集群视图；
+ * 4) 未配置 DataSource 或关闭选主时每个实例都视为 leader，单实例行为不变。
+ */
+@Slf4j
+@Component
+public class DaemonLeaderElector {
+
+    public static final String TASK_SCHEDULER = "task-scheduler";
+    public static final String PLAN_STATUS = "plan-status";
+    public static final String PLANNING_TURN_RECOVERY = "planning-turn-recovery";
+    public static final String ALERT_CATALOG_PROBE = "alert-catalog-probe";
+    public static final String PLAN_COUNTER_ARCHIVE = "plan-counter-archive";
+
+    private static final List<String> KNOWN_DAEMONS =
+            List.of(TASK_SCHEDULER, PLAN_STATUS, PLANNING_TURN_RECOVERY, ALERT_CATALOG_PROBE, PLAN_COUNTER_ARCHIVE);
+    private static final int DEFAULT_LOCK_NAMESPACE = 20261016;
+    private static final long DEFAULT_HEARTBEAT_INTERVAL_MS = 2000L;
+    private static final int VALIDATE_TIMEOUT_SECONDS = 2;
+    private static final String APPLICATION_NAME_PREFIX = "agent-daemon:";
+    private static final int APPLICATION_NAME_MAX_LENGTH = 63;
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final int lockNamespace;
+    private final long heartbeatIntervalMs;
+    private final String instanceId;
+    private final ConcurrentMap<String, AtomicBoolean> leadership;
+    private final ScheduledExecutorService heartbeatExecutor;
+    private Connection lockConnection;
+    private volatile boolean running;
+
+    /**
+     * 不选主：每个守护都视为 leader。
+     */
+    public DaemonLeaderElector() {
+        this(null, false, DEFAULT_LOCK_NAMESPACE, DEFAULT_HEARTBEAT_INTERVAL_MS, null);
+    }
+
+    @Autowired
+    public DaemonLeaderElector(ObjectProvider<DataSource> dataSourceProvider,
+                               @Value("${daemon.leader-election.enabled:false}") boolean enabled,
+                               @Value("${daemon.leader-election.lock-namespace:20261016}") int lockNamespace,
+                               @Value("${daemon.leader-election.heartbeat-interval-ms:2000}") long heartbeatIntervalMs,
+                               @Value("${executor.instance-id:}") String configuredInstanceId) {
+        this.dataSource = dataSourceProvider == null ? null : dataSourceProvider.getIfAvailable();
+        this.enabled = enabled && this.dataSource != null;
+        this.lockNamespace = lockNamespace > 0 ? lockNamespace : DEFAULT_LOCK_NAMESPACE;
+        this.heartbeatIntervalMs = heartbeatIntervalMs > 0L ? heartbeatIntervalMs : DEFAULT_HEARTBEAT_INTERVAL_MS;
+        // 与 claim owner / 执行器成员使用同一实例 ID，/actuator/daemons 与 /actuator/executors 可直接对应
+        this.instanceId = TaskExecutor.resolveInstanceId(configuredInstanceId);
+        this.leadership = new ConcurrentHashMap<>();
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "daemon-leader-elector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.running = false;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Daemon leader election disabled, every instance runs all daemons. instanceId={}", instanceId);
+            return;
+        }
+        running = true;
+        for (String daemonName : KNOWN_DAEMONS) {
+            register(daemonName);
+        }
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, 0L, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        heartbeatExecutor.shutdownNow();
+        synchronized (this) {
+            // 主动释放，其它实例无需等待连接超时即可接管
+            stepDownAll("shutdown");
+            closeLockConnection();
+        }
+    }
+
+    /**
+     * 当前实例是否为该守护的 leader；首次查询时登记该守护并立即尝试加锁。
+     */
+    public boolean isLeader(String daemonName) {
+        if (!enabled || daemonName == null) {
+            return true;
+        }
+        AtomicBoolean held = leadership.get(daemonName);
+        if (held == null) {
+            register(daemonName);
+            heartbeat();
+            held = leadership.get(daemonName);
+        }
+        return held != null && held.get();
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 本实例持有的 leadership（守护名 -> 是否为 leader）。
+     */
+    public Map<String, Boolean> localLeadership() {
+        Map<String, Boolean> result = new TreeMap<>();
+        if (!enabled) {
+            KNOWN_DAEMONS.forEach(daemonName -> result.put(daemonName, Boolean.TRUE));
+            return result;
+        }
+        leadership.forEach((daemonName, held) -> result.put(daemonName, held.get()));
+        return result;
+    }
+
+    /**
+     * 全集群视图（守护名 -> leader 实例 ID），无 leader 的守护不返回；查询失败时返回空视图。
+     */
+    public Map<String, String> clusterLeaders() {
+        Map<String, String> result = new TreeMap<>();
+        if (!enabled) {
+            KNOWN_DAEMONS.forEach(daemonName -> result.put(daemonName, instanceId));
+            return result;
+        }
+        Map<Long, String> daemonsByObjectId = new LinkedHashMap<>();
+        for (String daemonName : leadership.keySet()) {
+            daemonsByObjectId.put(Integer.toUnsignedLong(lockKey(daemonName)), daemonName);
+        }
+        String sql = "SELECT l.objid::bigint AS lock_key, a.application_name "
+                + "FROM pg_locks l JOIN pg_stat_activity a ON a.pid = l.pid "
+                + "WHERE l.locktype = 'advisory' AND l.granted AND l.objsubid = 2 AND l.classid::bigint = ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lockNamespace);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long objectId = resultSet.getLong("lock_key");
+                    String daemonName = daemonsByObjectId.getOrDefault(objectId, "lock-" + objectId);
+                    String applicationName = resultSet.getString("application_name");
+                    result.put(daemonName, applicationName != null && applicationName.startsWith(APPLICATION_NAME_PREFIX)
+                            ? applicationName.substring(APPLICATION_NAME_PREFIX.length())
+                            : applicationName);
+                }
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to query daemon cluster leaders. error={}", ex.getMessage());
+        }
+        return result;
+    }
+
+    private void register(String daemonName) {
+        leadership.computeIfAbsent(daemonName, key -> {
+            AtomicBoolean held = new AtomicBoolean(false);
+            Gauge.builder("agent.daemon.leader", held, value -> value.get() ? 1D : 0D)
+                    .tag("daemon", key)
+                    .description("当前实例是否为该守护进程的 leader（1 为 leader）")
+                    .register(Metrics.globalRegistry);
+            return held;
+        });
+    }
+
+    synchronized void heartbeat() {
+        if (!running) {
+            return;
+        }
+        try {
+            Connection connection = ensureLockConnection();
+            if (!connection.isValid(VALIDATE_TIMEOUT_SECONDS)) {
+                throw new SQLException("daemon lock connection is no longer valid");
+            }
+            for (Map.Entry<String, AtomicBoolean> entry : leadership.entrySet()) {
+                if (entry.getValue().get() || !tryLock(connection, entry.getKey())) {
+                    continue;
+                }
+                entry.getValue().set(true);
+                log.info("Daemon leadership acquired. daemon={}, instanceId={}", entry.getKey(), instanceId);
+            }
+        } catch (Exception ex) {
+            stepDownAll(ex.getMessage());
+            closeLockConnection();
+        }
+    }
+
+    private Connection ensureLockConnection() throws SQLException {
+        if (lockConnection != null && !lockConnection.isClosed()) {
+            return lockConnection;
+        }
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(true);
+        try (PreparedStatement statement = connection.prepareStatement("SELECT set_config('application_name', ?, false)")) {
+            String applicationName = APPLICATION_NAME_PREFIX + instanceId;
+            statement.setString(1, applicationName.length() > APPLICATION_NAME_MAX_LENGTH
+                    ? applicationName.substring(0, APPLICATION_NAME_MAX_LENGTH)
+                    : applicationName);
+            statement.execute();
+        }
+        lockConnection = connection;
+        return connection;
+    }
+
+    private boolean tryLock(Connection connection, String daemonName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?, ?)")) {
+            statement.setInt(1, lockNamespace);
+            statement.setInt(2, lockKey(daemonName));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private void stepDownAll(String reason) {
+        leadership.forEach((daemonName, held) -> {
+            if (held.getAndSet(false)) {
+                log.warn("Daemon leadership released. daemon={}, instanceId={}, reason={}", daemonName, instanceId, reason);
+            }
+        });
+    }
+
+    private void closeLockConnection() {
+        if (lockConnection == null) {
+            return;
+        }
+        // 归还连接池前显式释放会话级锁并恢复 application_name，避免残留在池化连接上
+        try (Statement statement = lockConnection.createStatement()) {
+            statement.execute("SELECT pg_advisory_unlock_all()");
+            statement.execute("RESET application_name");
+        } catch (Exception ignore) {
+            // 连接已失效时锁随会话结束由数据库释放
+        }
+        try {
+            lockConnection.close();
+        } catch (Exception ignore) {
+            // ignore
+        }
+        lockConnection = null;
+    }
+
+    private int lockKey(String daemonName) {
+        return daemonName.hashCode();
+    }
+}
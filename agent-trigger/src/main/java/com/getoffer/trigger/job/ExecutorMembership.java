@@ -0,0 +1,350 @@
+package com.getoffer.trigger.job;
+
+import com.getoffer.domain.task.adapter.repository.IAgentTaskRepository;
+import com.getoffer.domain.task.adapter.repository.IExecutorMemberRepository;
+import com.getoffer.domain.task.model.entity.ExecutorMemberEntity;
+import com.getoffer.domain.task.model.valobj.PlanAffinityScope;
+import com.getoffer.domain.task.service.ExecutorMembershipDomainService;
+import com.getoffer.domain.task.service.PlanAffinityDomainService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * 执行实例成员视图：
+ * 1) 实例按 heartbeat-interval-ms 向 executor_members upsert 心跳、worker 容量与 in-flight 数，并读取 member-ttl-seconds 内的存活成员；
+ * 2) 心跳超时的成员由存活实例原子删除，删除者立即让其仍持有的 RUNNING 任务 lease 过期，无需等待 lease_until；
+ * 3) work stealing：本实例负载不高于 spare-ratio 且存在负载不低于 overload-ratio 的实例时，claim 先取过载实例正在执行的 plan；
+ * 4) plan 亲和（可选）：存活成员集合变化时按一致性哈希重新分配 plan 槽位，只迁移约 1/N 的槽位；
+ * claim 先取本实例持有槽位内的任务，余量再取在可 claim 状态停留超过 foreign-stale-seconds 的其它槽位任务，持有者过载或失联时任务不会饿死；
+ * 5) 以上都只是调度偏好，正确性仍由 claim 的 SKIP LOCKED 与 owner/attempt 守卫保证；关闭成员心跳时不做任何数据库访问。
+ */
+@Slf4j
+@Component
+public class ExecutorMembership {
+
+    private static final int DEFAULT_SLOT_COUNT = 1024;
+    private static final int DEFAULT_VIRTUAL_NODES = 64;
+    private static final long DEFAULT_HEARTBEAT_INTERVAL_MS = 3000L;
+    private static final int DEFAULT_MEMBER_TTL_SECONDS = 15;
+    private static final int DEFAULT_CLAIM_HEARTBEAT_SECONDS = 30;
+
+    private final IExecutorMemberRepository executorMemberRepository;
+    private final IAgentTaskRepository agentTaskRepository;
+    private final ExecutorMembershipDomainService executorMembershipDomainService;
+    private final PlanAffinityDomainService planAffinityDomainService;
+    private final boolean enabled;
+    private final boolean affinityEnabled;
+    private final boolean stealEnabled;
+    private final boolean deadLeaseReclaimEnabled;
+    private final double overloadRatio;
+    private final double spareRatio;
+    private final int slotCount;
+    private final int virtualNodes;
+    private final long heartbeatIntervalMs;
+    private final int memberTtlSeconds;
+    private final int leaseStaleSeconds;
+    private final int foreignStaleSeconds;
+    private final String instanceId;
+    private final ScheduledExecutorService heartbeatExecutor;
+    private final Counter rebalanceCounter;
+    private final Counter heartbeatErrorCounter;
+    private final Counter deadMemberCounter;
+    private final Counter deadLeaseExpiredCounter;
+    private volatile IntSupplier workerCapacitySupplier;
+    private volatile IntSupplier inflightCountSupplier;
+    private volatile List<ExecutorMemberEntity> liveMembers;
+    private volatile List<String> overloadedPeers;
+    private volatile PlanAffinityDomainService.SlotAssignment assignment;
+    private volatile PlanAffinityScope ownedScope;
+    private volatile PlanAffinityScope foreignScope;
+    private volatile PlanAffinityScope stealScope;
+
+    /**
+     * 关闭成员心跳（同时关闭 work stealing 与 plan 亲和）。
+     */
+    public ExecutorMembership() {
+        this(null, null, new ExecutorMembershipDomainService(), new PlanAffinityDomainService(), null,
+                false, DEFAULT_HEARTBEAT_INTERVAL_MS, DEFAULT_MEMBER_TTL_SECONDS, false, 0.9D, 0.5D, false,
+                DEFAULT_CLAIM_HEARTBEAT_SECONDS, false, DEFAULT_SLOT_COUNT, DEFAULT_VIRTUAL_NODES, 0, null);
+    }
+
+    @Autowired
+    public ExecutorMembership(@Autowired(required = false) IExecutorMemberRepository executorMemberRepository,
+                              @Autowired(required = false) IAgentTaskRepository agentTaskRepository,
+                              ExecutorMembershipDomainService executorMembershipDomainService,
+                              PlanAffinityDomainService planAffinityDomainService,
+                              ObjectProvider<MeterRegistry> meterRegistryProvider,
+                              @Value("${executor.membership.enabled:true}") boolean enabled,
+                              @Value("${executor.membership.heartbeat-interval-ms:3000}") long heartbeatIntervalMs,
+                              @Value("${executor.membership.member-ttl-seconds:15}") int memberTtlSeconds,
+                              @Value("${executor.membership.steal.enabled:true}") boolean stealEnabled,
+                              @Value("${executor.membership.steal.overload-ratio:0.9}") double overloadRatio,
+                              @Value("${executor.membership.steal.spare-ratio:0.5}") double spareRatio,
+                              @Value("${executor.membership.dead-lease-reclaim.enabled:false}") boolean deadLeaseReclaimEnabled,
+                              @Value("${executor.claim.heartbeat-seconds:30}") int claimHeartbeatSeconds,
+                              @Value("${executor.affinity.enabled:false}") boolean affinityEnabled,
+                              @Value("${executor.affinity.slot-count:1024}") int slotCount,
+                              @Value("${executor.affinity.virtual-nodes:64}") int virtualNodes,
+                              @Value("${executor.affinity.foreign-stale-seconds:10}") int foreignStaleSeconds,
+                              @Value("${executor.instance-id:}") String configuredInstanceId) {
+        this.executorMemberRepository = executorMemberRepository;
+        this.agentTaskRepository = agentTaskRepository;
+        this.executorMembershipDomainService = executorMembershipDomainService;
+        this.planAffinityDomainService = planAffinityDomainService;
+        this.enabled = enabled && executorMemberRepository != null;
+        this.affinityEnabled = this.enabled && affinityEnabled;
+        this.stealEnabled = this.enabled && stealEnabled;
+        this.deadLeaseReclaimEnabled = this.enabled && deadLeaseReclaimEnabled && agentTaskRepository != null;
+        this.overloadRatio = overloadRatio;
+        this.spareRatio = spareRatio;
+        this.slotCount = slotCount > 0 ? slotCount : DEFAULT_SLOT_COUNT;
+        this.virtualNodes = virtualNodes > 0 ? virtualNodes : DEFAULT_VIRTUAL_NODES;
+        this.heartbeatIntervalMs = heartbeatIntervalMs > 0L ? heartbeatIntervalMs : DEFAULT_HEARTBEAT_INTERVAL_MS;
+        // TTL 至少覆盖两个心跳周期，单次心跳抖动不触发重新分配与 lease 回收
+        long minTtlSeconds = TimeUnit.MILLISECONDS.toSeconds(this.heartbeatIntervalMs * 2) + 1;
+        this.memberTtlSeconds = (int) Math.max(memberTtlSeconds > 0 ? memberTtlSeconds : DEFAULT_MEMBER_TTL_SECONDS,
+                minTtlSeconds);
+        // 续约按 claim 心跳周期刷新 updated_at；超过一个续约周期加成员 TTL 仍未刷新，才认定 owner 确已停止续约
+        this.leaseStaleSeconds = (claimHeartbeatSeconds > 0 ? claimHeartbeatSeconds : DEFAULT_CLAIM_HEARTBEAT_SECONDS)
+                + this.memberTtlSeconds;
+        this.foreignStaleSeconds = foreignStaleSeconds;
+        this.instanceId = TaskExecutor.resolveInstanceId(configuredInstanceId);
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "executor-membership");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workerCapacitySupplier = () -> 0;
+        this.inflightCountSupplier = () -> 0;
+        this.liveMembers = List.of();
+        this.overloadedPeers = List.of();
+        MeterRegistry meterRegistry = meterRegistryProvider == null
+                ? new SimpleMeterRegistry()
+                : meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        this.rebalanceCounter = Counter.builder("agent.executor.affinity.rebalance.total")
+                .description("plan 亲和槽位重新分配次数")
+                .register(meterRegistry);
+        this.heartbeatErrorCounter = Counter.builder("agent.executor.membership.heartbeat.error.total")
+                .description("执行实例成员心跳失败次数")
+                .register(meterRegistry);
+        this.deadMemberCounter = Counter.builder("agent.executor.membership.dead.total")
+                .description("本实例清理的失联执行实例数")
+                .register(meterRegistry);
+        this.deadLeaseExpiredCounter = Counter.builder("agent.executor.membership.dead_lease_expired.total")
+                .description("因 owner 失联而提前过期的 RUNNING 任务 lease 数")
+                .register(meterRegistry);
+        Gauge.builder("agent.executor.membership.live", this, membership -> membership.liveMembers.size())
+                .description("当前存活的执行实例数")
+                .register(meterRegistry);
+        Gauge.builder("agent.executor.membership.overloaded", this, membership -> membership.overloadedPeers.size())
+                .description("当前过载（可被 steal）的其它执行实例数")
+                .register(meterRegistry);
+        Gauge.builder("agent.executor.affinity.owned_slots", this, ExecutorMembership::localOwnedSlotCount)
+                .description("本实例持有的 plan 亲和槽位数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        heartbeatExecutor.scheduleWithFixedDelay(this::refresh, 0L, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Executor membership enabled. instanceId={}, memberTtlSeconds={}, steal={}, deadLeaseReclaim={}, affinity={}",
+                instanceId, memberTtlSeconds, stealEnabled, deadLeaseReclaimEnabled, affinityEnabled);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        if (!enabled) {
+            return;
+        }
+        // 主动注销，其它实例下一次心跳即可接管本实例的槽位，无需等待 TTL；未归还的 claim 已由执行器停机排空处理
+        try {
+            executorMemberRepository.remove(instanceId);
+        } catch (Exception ex) {
+            log.warn("Failed to deregister executor member. instanceId={}, error={}", instanceId, ex.getMessage());
+        }
+    }
+
+    /**
+     * 绑定本实例负载来源（由执行器在构造时注册），心跳时上报。
+     */
+    public void bindLoad(IntSupplier workerCapacity, IntSupplier inflightCount) {
+        if (workerCapacity != null) {
+            this.workerCapacitySupplier = workerCapacity;
+        }
+        if (inflightCount != null) {
+            this.inflightCountSupplier = inflightCount;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isAffinityEnabled() {
+        return affinityEnabled;
+    }
+
+    public boolean isStealEnabled() {
+        return stealEnabled;
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    public List<ExecutorMemberEntity> liveMembers() {
+        return liveMembers;
+    }
+
+    public List<String> overloadedPeers() {
+        return overloadedPeers;
+    }
+
+    public int workerCapacity() {
+        return workerCapacitySupplier.getAsInt();
+    }
+
+    public int inflightCount() {
+        return inflightCountSupplier.getAsInt();
+    }
+
+    /**
+     * 本实例持有槽位的 claim 范围；未开启亲和或尚未完成首次分配时返回 null（不限范围）。
+     */
+    public PlanAffinityScope ownedScope() {
+        return affinityEnabled ? ownedScope : null;
+    }
+
+    /**
+     * 其它槽位的兜底 claim 范围；未开启亲和或尚未完成首次分配时返回 null。
+     */
+    public PlanAffinityScope foreignScope() {
+        return affinityEnabled ? foreignScope : null;
+    }
+
+    /**
+     * work stealing 的 claim 范围：无过载实例或本实例自身不空闲时返回 null。
+     */
+    public PlanAffinityScope stealScope() {
+        PlanAffinityScope current = stealScope;
+        if (!stealEnabled || current == null) {
+            return null;
+        }
+        return executorMembershipDomainService.hasSpareCapacity(workerCapacity(), inflightCount(), spareRatio)
+                ? current
+                : null;
+    }
+
+    /**
+     * plan 当前是否归本实例所有；未开启亲和模式时返回 false。
+     */
+    public boolean ownsPlan(Long planId) {
+        PlanAffinityDomainService.SlotAssignment current = assignment;
+        return affinityEnabled && current != null && Objects.equals(current.ownerOf(planId), instanceId);
+    }
+
+    /**
+     * 槽位持有者；未开启亲和或尚未完成首次分配时返回 null。
+     */
+    public String affinityOwnerOf(Long planId) {
+        PlanAffinityDomainService.SlotAssignment current = assignment;
+        return affinityEnabled && current != null ? current.ownerOf(planId) : null;
+    }
+
+    /**
+     * 指定实例持有的亲和槽位数；未开启亲和时返回 0。
+     */
+    public int ownedSlotCount(String memberId) {
+        PlanAffinityDomainService.SlotAssignment current = assignment;
+        return affinityEnabled && current != null ? current.slotsOwnedBy(memberId).size() : 0;
+    }
+
+    private double localOwnedSlotCount() {
+        PlanAffinityScope current = ownedScope;
+        return current == null || current.getOwnedSlots() == null ? 0D : current.getOwnedSlots().size();
+    }
+
+    synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        List<ExecutorMemberEntity> members;
+        try {
+            executorMemberRepository.heartbeat(instanceId, workerCapacity(), inflightCount());
+            reclaimDeadMembers();
+            members = executorMemberRepository.findLiveMembers(memberTtlSeconds);
+        } catch (Exception ex) {
+            // 沿用上一份视图：成员视图只影响 claim 偏好，短暂失联不应让所有实例同时失去持有槽位
+            heartbeatErrorCounter.increment();
+            log.warn("Executor membership heartbeat failed. instanceId={}, error={}", instanceId, ex.getMessage());
+            return;
+        }
+        liveMembers = members == null ? List.of() : List.copyOf(members);
+        if (stealEnabled) {
+            overloadedPeers = executorMembershipDomainService.overloadedPeers(liveMembers, instanceId, overloadRatio);
+            stealScope = executorMembershipDomainService.stealScope(overloadedPeers);
+        }
+        if (affinityEnabled) {
+            rebalance(liveMembers);
+        }
+    }
+
+    private void reclaimDeadMembers() {
+        List<String> deadMembers = new ArrayList<>(executorMemberRepository.removeExpired(memberTtlSeconds));
+        deadMembers.remove(instanceId);
+        if (deadMembers.isEmpty()) {
+            return;
+        }
+        deadMemberCounter.increment(deadMembers.size());
+        int expired = deadLeaseReclaimEnabled ? agentTaskRepository.expireLeasesOfOwners(deadMembers, leaseStaleSeconds) : 0;
+        deadLeaseExpiredCounter.increment(expired);
+        log.warn("Executor members expired, stale leases released for immediate reclaim. instanceId={}, deadMembers={}, expiredLeases={}",
+                instanceId, deadMembers, expired);
+    }
+
+    private void rebalance(List<ExecutorMemberEntity> members) {
+        List<String> memberIds = new ArrayList<>();
+        for (ExecutorMemberEntity member : members) {
+            if (member != null && member.getInstanceId() != null) {
+                memberIds.add(member.getInstanceId());
+            }
+        }
+        if (!memberIds.contains(instanceId)) {
+            memberIds.add(instanceId);
+        }
+        PlanAffinityDomainService.SlotAssignment previous = assignment;
+        PlanAffinityDomainService.SlotAssignment next = planAffinityDomainService.assign(memberIds, slotCount, virtualNodes);
+        if (previous != null && previous.members().equals(next.members())) {
+            return;
+        }
+        assignment = next;
+        ownedScope = planAffinityDomainService.ownedScope(next, instanceId);
+        foreignScope = foreignStaleSeconds < 0 ? null : planAffinityDomainService.foreignScope(next, foreignStaleSeconds);
+        if (previous != null) {
+            rebalanceCounter.increment();
+        }
+        log.info("Executor plan affinity rebalanced. instanceId={}, members={}, ownedSlots={}, movedSlots={}",
+                instanceId, next.members(), ownedScope.getOwnedSlots().size(), next.movedSlotsSince(previous));
+    }
+}
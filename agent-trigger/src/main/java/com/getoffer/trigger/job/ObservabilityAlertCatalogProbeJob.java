@@ -4,6 +4,7 @@ import com.getoffer.trigger.application.observability.ObservabilityAlertCatalogL
 import com.getoffer.trigger.application.observability.ObservabilityAlertCatalogProbeStateStore;
 import com.getoffer.trigger.http.ObservabilityAlertCatalogController;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -13,7 +14,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
- * 告警目录链接健康巡检作业。
+ * 告警目录链接健康巡检作业。多实例部署时只由 leader（{@link DaemonLeaderElector}）执行。
  */
 @Slf4j
 @Component
@@ -24,13 +25,25 @@ public class ObservabilityAlertCatalogProbeJob {
     private final ObservabilityAlertCatalogProbeStateStore probeStateStore;
     private final boolean enabled;
     private final int maxIssueLogCount;
+    private final DaemonLeaderElector daemonLeaderElector;
 
+    public ObservabilityAlertCatalogProbeJob(ObservabilityAlertCatalogController catalogController,
+                                             ObservabilityAlertCatalogLinkProbeService linkProbeService,
+                                             ObservabilityAlertCatalogProbeStateStore probeStateStore,
+                                             boolean enabled,
+                                             int maxIssueLogCount) {
+        this(catalogController, linkProbeService, probeStateStore, enabled, maxIssueLogCount, null);
+    }
+
+    @Autowired
     public ObservabilityAlertCatalogProbeJob(ObservabilityAlertCatalogController catalogController,
                                              ObservabilityAlertCatalogLinkProbeService linkProbeService,
                                              ObservabilityAlertCatalogProbeStateStore probeStateStore,
                                              @Value("${observability.alert-catalog.link-check.enabled:false}") boolean enabled,
-                                             @Value("${observability.alert-catalog.link-check.max-issue-log-count:20}") int maxIssueLogCount) {
+                                             @Value("${observability.alert-catalog.link-check.max-issue-log-count:20}") int maxIssueLogCount,
+                                             @Autowired(required = false) DaemonLeaderElector daemonLeaderElector) {
         this.catalogController = catalogController;
+        this.daemonLeaderElector = daemonLeaderElector;
         this.linkProbeService = linkProbeService;
         this.probeStateStore = probeStateStore;
         this.enabled = enabled;
@@ -46,6 +59,9 @@ public class ObservabilityAlertCatalogProbeJob {
             probeStateStore.markDisabled();
             return;
         }
+        if (daemonLeaderElector != null && !daemonLeaderElector.isLeader(DaemonLeaderElector.ALERT_CATALOG_PROBE)) {
+            return;
+        }
         List<Map<String, Object>> rows = catalogController.getCatalogSnapshot();
         ObservabilityAlertCatalogLinkProbeService.ProbeSummary summary = linkProbeService.probe(rows);
         probeStateStore.record(summary);
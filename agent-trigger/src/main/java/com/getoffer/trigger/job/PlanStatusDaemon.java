@@ -4,12 +4,18 @@ import com.getoffer.trigger.application.command.PlanStatusSyncApplicationService
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * Plan 状态推进守护进程：由 Task 聚合状态驱动 Plan 状态闭环。
+ * <p>
+ * event-driven 模式下每轮只收敛脏 plan，按 full-sweep-interval-ms 周期做一次全量扫描兜底；
+ * full-scan 模式保持每轮全量扫描。
+ * 多实例部署时全量扫描只由 leader（{@link DaemonLeaderElector}）执行；event-driven 模式下各实例仍收敛脏 plan，
+ * 脏标记以 SKIP LOCKED 领取，工作在实例间切分而不重复。
  */
 @Slf4j
 @Component
@@ -21,13 +27,39 @@ public class PlanStatusDaemon {
     private final Counter finalizeAttemptCounter;
     private final Counter finalizeDedupCounter;
     private final Counter finishedPublishCounter;
+    private final boolean eventDriven;
+    private final long fullSweepIntervalMs;
+    private final DaemonLeaderElector daemonLeaderElector;
+    private volatile long nextFullSweepAtMillis;
 
+    public PlanStatusDaemon(PlanStatusSyncApplicationService planStatusSyncApplicationService,
+                            int batchSize,
+                            int maxPlansPerRound) {
+        this(planStatusSyncApplicationService, batchSize, maxPlansPerRound, "full-scan", 0L);
+    }
+
+    public PlanStatusDaemon(PlanStatusSyncApplicationService planStatusSyncApplicationService,
+                            int batchSize,
+                            int maxPlansPerRound,
+                            String syncMode,
+                            long fullSweepIntervalMs) {
+        this(planStatusSyncApplicationService, batchSize, maxPlansPerRound, syncMode, fullSweepIntervalMs, null);
+    }
+
+    @Autowired
     public PlanStatusDaemon(PlanStatusSyncApplicationService planStatusSyncApplicationService,
                             @Value("${plan-status.batch-size:200}") int batchSize,
-                            @Value("${plan-status.max-plans-per-round:1000}") int maxPlansPerRound) {
+                            @Value("${plan-status.max-plans-per-round:1000}") int maxPlansPerRound,
+                            @Value("${plan-status.mode:full-scan}") String syncMode,
+                            @Value("${plan-status.full-sweep-interval-ms:60000}") long fullSweepIntervalMs,
+                            @Autowired(required = false) DaemonLeaderElector daemonLeaderElector) {
         this.planStatusSyncApplicationService = planStatusSyncApplicationService;
         this.batchSize = batchSize > 0 ? batchSize : 200;
         this.maxPlansPerRound = maxPlansPerRound > 0 ? maxPlansPerRound : 1000;
+        this.eventDriven = !"full-scan".equalsIgnoreCase(syncMode == null ? "" : syncMode.trim());
+        this.fullSweepIntervalMs = Math.max(fullSweepIntervalMs, 0L);
+        this.daemonLeaderElector = daemonLeaderElector;
+        this.nextFullSweepAtMillis = 0L;
         this.finalizeAttemptCounter = Counter.builder("agent.plan.finalize.attempt.total").register(Metrics.globalRegistry);
         this.finalizeDedupCounter = Counter.builder("agent.plan.finalize.dedup.total").register(Metrics.globalRegistry);
         this.finishedPublishCounter = Counter.builder("agent.plan.finished.publish.total").register(Metrics.globalRegistry);
@@ -35,8 +67,18 @@ public class PlanStatusDaemon {
 
     @Scheduled(fixedDelayString = "${plan-status.poll-interval-ms:1000}", scheduler = "daemonScheduler")
     public void syncPlanStatuses() {
-        PlanStatusSyncApplicationService.SyncResult result =
-                planStatusSyncApplicationService.syncPlanStatuses(batchSize, maxPlansPerRound);
+        PlanStatusSyncApplicationService.SyncResult result;
+        long now = System.currentTimeMillis();
+        boolean leader = daemonLeaderElector == null || daemonLeaderElector.isLeader(DaemonLeaderElector.PLAN_STATUS);
+        if (!eventDriven && !leader) {
+            return;
+        }
+        if (leader && (!eventDriven || now >= nextFullSweepAtMillis)) {
+            nextFullSweepAtMillis = now + fullSweepIntervalMs;
+            result = planStatusSyncApplicationService.syncPlanStatuses(batchSize, maxPlansPerRound);
+        } else {
+            result = planStatusSyncApplicationService.syncDirtyPlanStatuses(batchSize, maxPlansPerRound);
+        }
         if (result.processedCount() <= 0) {
             return;
         }
@@ -0,0 +1,44 @@
+package com.getoffer.trigger.job;
+
+import com.getoffer.domain.task.adapter.repository.IAgentTaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Plan 任务计数归档守护进程：把已结束（或已删除）plan 的状态计数从 plan_task_counters 移入归档表，
+ * 计数表只保留活跃 plan。多实例部署时只由 leader（{@link DaemonLeaderElector}）执行。
+ */
+@Slf4j
+@Component
+public class PlanTaskCounterArchiveJob {
+
+    private final IAgentTaskRepository agentTaskRepository;
+    private final int graceSeconds;
+    private final int batchSize;
+    private final DaemonLeaderElector daemonLeaderElector;
+
+    @Autowired
+    public PlanTaskCounterArchiveJob(IAgentTaskRepository agentTaskRepository,
+                                     @Value("${plan-status.counter-archive.grace-seconds:600}") int graceSeconds,
+                                     @Value("${plan-status.counter-archive.batch-size:500}") int batchSize,
+                                     @Autowired(required = false) DaemonLeaderElector daemonLeaderElector) {
+        this.agentTaskRepository = agentTaskRepository;
+        this.graceSeconds = Math.max(graceSeconds, 0);
+        this.batchSize = batchSize > 0 ? batchSize : 500;
+        this.daemonLeaderElector = daemonLeaderElector;
+    }
+
+    @Scheduled(fixedDelayString = "${plan-status.counter-archive.poll-interval-ms:60000}", scheduler = "daemonScheduler")
+    public void archiveFinishedPlanCounters() {
+        if (daemonLeaderElector != null && !daemonLeaderElector.isLeader(DaemonLeaderElector.PLAN_COUNTER_ARCHIVE)) {
+            return;
+        }
+        int archived = agentTaskRepository.archiveFinishedPlanCounters(graceSeconds, batchSize);
+        if (archived > 0) {
+            log.info("Plan task counters archived. plans={}", archived);
+        }
+    }
+}
@@ -2,12 +2,14 @@ package com.getoffer.trigger.job;
 
 import com.getoffer.trigger.application.command.PlanningTurnRecoveryApplicationService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * 规划超时回合恢复守护进程：对悬挂在 PLANNING 的回合执行兜底收敛。
+ * 多实例部署时只由 leader（{@link DaemonLeaderElector}）执行。
  */
 @Slf4j
 @Component
@@ -16,17 +18,30 @@ public class PlanningTurnRecoveryJob {
     private final PlanningTurnRecoveryApplicationService planningTurnRecoveryApplicationService;
     private final int batchSize;
     private final int timeoutMinutes;
+    private final DaemonLeaderElector daemonLeaderElector;
 
+    public PlanningTurnRecoveryJob(PlanningTurnRecoveryApplicationService planningTurnRecoveryApplicationService,
+                                   int batchSize,
+                                   int timeoutMinutes) {
+        this(planningTurnRecoveryApplicationService, batchSize, timeoutMinutes, null);
+    }
+
+    @Autowired
     public PlanningTurnRecoveryJob(PlanningTurnRecoveryApplicationService planningTurnRecoveryApplicationService,
                                    @Value("${chat.planning-recovery.batch-size:100}") int batchSize,
-                                   @Value("${chat.planning-recovery.timeout-minutes:2}") int timeoutMinutes) {
+                                   @Value("${chat.planning-recovery.timeout-minutes:2}") int timeoutMinutes,
+                                   @Autowired(required = false) DaemonLeaderElector daemonLeaderElector) {
         this.planningTurnRecoveryApplicationService = planningTurnRecoveryApplicationService;
+        this.daemonLeaderElector = daemonLeaderElector;
         this.batchSize = batchSize > 0 ? batchSize : 100;
         this.timeoutMinutes = timeoutMinutes > 0 ? timeoutMinutes : 2;
     }
 
     @Scheduled(fixedDelayString = "${chat.planning-recovery.poll-interval-ms:30000}", scheduler = "daemonScheduler")
     public void recoverStalePlanningTurns() {
+        if (daemonLeaderElector != null && !daemonLeaderElector.isLeader(DaemonLeaderElector.PLANNING_TURN_RECOVERY)) {
+            return;
+        }
         PlanningTurnRecoveryApplicationService.RecoveryResult result =
                 planningTurnRecoveryApplicationService.recoverStalePlanningTurns(batchSize, timeoutMinutes);
         if (result.processedCount() <= 0) {
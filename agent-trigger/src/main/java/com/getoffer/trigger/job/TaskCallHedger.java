@@ -0,0 +1,152 @@
+package com.getoffer.trigger.job;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.ai.chat.model.ChatResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 对冲请求（hedged request）：
+ * 1) 按模型记录最近成功调用的耗时，调用超过该模型 p9x 耗时仍未返回时再发起一次相同请求；
+ * 2) 两路取先返回者，另一路被取消；主请求先失败时直接失败，不等待对冲请求（不改变原有错误语义）；
+ * 3) 对冲请求数受 maxInflight 约束，并记录 eligible / fired / win / skipped 计数，便于评估额外成本；
+ * 4) 对冲请求由调用方按模型配额与并发许可放行（secondary 返回 null 表示不发起），耗时窗口只接收主请求的耗时。
+ */
+@Slf4j
+final class TaskCallHedger {
+
+    private static final int LATENCY_WINDOW = 256;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final int minSamples;
+    private final long minDelayMs;
+    private final int maxInflight;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, LatencyWindow> latencyByModel;
+    private final AtomicInteger inflightHedges;
+
+    TaskCallHedger(boolean enabled,
+                   double percentile,
+                   int minSamples,
+                   long minDelayMs,
+                   int maxInflight,
+                   MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.percentile = Double.isNaN(percentile) ? 0.95D : Math.max(0.5D, Math.min(percentile, 0.999D));
+        this.minSamples = Math.max(minSamples, 1);
+        this.minDelayMs = Math.max(minDelayMs, 0L);
+        this.maxInflight = Math.max(maxInflight, 0);
+        this.meterRegistry = meterRegistry;
+        this.latencyByModel = new ConcurrentHashMap<>();
+        this.inflightHedges = new AtomicInteger(0);
+    }
+
+    /**
+     * 记录一次成功调用的耗时。
+     */
+    void recordLatency(String modelKey, long latencyMs) {
+        if (!enabled || latencyMs < 0L) {
+            return;
+        }
+        latencyByModel.computeIfAbsent(normalize(modelKey), key -> new LatencyWindow()).record(latencyMs);
+    }
+
+    /**
+     * 返回该模型的对冲触发延迟；样本不足或未开启时返回 -1（不对冲）。
+     */
+    long hedgeDelayMs(String modelKey) {
+        if (!enabled || maxInflight <= 0) {
+            return -1L;
+        }
+        LatencyWindow window = latencyByModel.get(normalize(modelKey));
+        if (window == null) {
+            return -1L;
+        }
+        long quantile = window.quantile(percentile, minSamples);
+        return quantile < 0L ? -1L : Math.max(quantile, minDelayMs);
+    }
+
+    Mono<ChatResponse> hedge(String modelKey,
+                             long delayMs,
+                             Mono<ChatResponse> primary,
+                             Supplier<Mono<ChatResponse>> secondary) {
+        String normalizedKey = normalize(modelKey);
+        meterRegistry.counter("agent.task.hedge.eligible.total", "model", normalizedKey).increment();
+        Mono<HedgeOutcome> primaryOutcome = primary.map(response -> new HedgeOutcome(response, false));
+        Mono<HedgeOutcome> hedgeOutcome = Mono.defer(() -> fireHedge(normalizedKey, secondary))
+                .delaySubscription(Duration.ofMillis(Math.max(delayMs, 0L)));
+        return Mono.firstWithSignal(primaryOutcome, hedgeOutcome)
+                .doOnNext(outcome -> {
+                    if (outcome.hedged()) {
+                        meterRegistry.counter("agent.task.hedge.win.total", "model", normalizedKey).increment();
+                    }
+                })
+                .map(HedgeOutcome::response);
+    }
+
+    private Mono<HedgeOutcome> fireHedge(String modelKey, Supplier<Mono<ChatResponse>> secondary) {
+        if (inflightHedges.incrementAndGet() > maxInflight) {
+            inflightHedges.decrementAndGet();
+            meterRegistry.counter("agent.task.hedge.skipped.total", "model", modelKey, "reason", "max_inflight").increment();
+            return Mono.never();
+        }
+        Mono<ChatResponse> call;
+        try {
+            call = secondary.get();
+        } catch (RuntimeException ex) {
+            inflightHedges.decrementAndGet();
+            meterRegistry.counter("agent.task.hedge.skipped.total", "model", modelKey, "reason", "client_error").increment();
+            log.debug("Skip hedged request because hedge client is unavailable. model={}, error={}", modelKey, ex.getMessage());
+            return Mono.never();
+        }
+        if (call == null) {
+            inflightHedges.decrementAndGet();
+            meterRegistry.counter("agent.task.hedge.skipped.total", "model", modelKey, "reason", "model_limit").increment();
+            return Mono.never();
+        }
+        meterRegistry.counter("agent.task.hedge.fired.total", "model", modelKey).increment();
+        return call
+                .map(response -> new HedgeOutcome(response, true))
+                // 对冲请求先失败时不抢占结果，继续等待主请求
+                .onErrorResume(ex -> Mono.never())
+                .doFinally(signal -> inflightHedges.decrementAndGet());
+    }
+
+    private String normalize(String modelKey) {
+        return StringUtils.defaultIfBlank(modelKey, TaskModelConcurrencyLimiter.DEFAULT_MODEL_KEY);
+    }
+
+    private record HedgeOutcome(ChatResponse response, boolean hedged) {
+    }
+
+    private static final class LatencyWindow {
+        private final long[] samples = new long[LATENCY_WINDOW];
+        private int size;
+        private int next;
+
+        private synchronized void record(long latencyMs) {
+            samples[next] = latencyMs;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        private synchronized long quantile(double q, int minSamples) {
+            if (size < minSamples) {
+                return -1L;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(q * size) - 1;
+            return sorted[Math.max(0, Math.min(index, size - 1))];
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.getoffer.trigger.job;
+
+import com.getoffer.domain.task.service.TaskDispatchDomainService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 自适应 claim 控制器：持有当前 claim 上限、poll 间隔与 claim->start 延迟 EWMA，
+ * 每轮 claim 后根据反馈调用 {@link TaskDispatchDomainService#adaptClaim} 更新决策并以 gauge 暴露。
+ */
+final class TaskClaimAdaptiveController {
+
+    private static final double LATENCY_EWMA_ALPHA = 0.2D;
+
+    private final TaskDispatchDomainService taskDispatchDomainService;
+    private final TaskDispatchDomainService.AdaptiveClaimPolicy policy;
+    private final boolean enabled;
+    private final AtomicReference<TaskDispatchDomainService.AdaptiveClaimState> state;
+    private final AtomicLong latencyEwmaMicros;
+    private final AtomicLong nextPollAtMillis;
+    private final MeterRegistry meterRegistry;
+
+    TaskClaimAdaptiveController(TaskDispatchDomainService taskDispatchDomainService,
+                                TaskDispatchDomainService.AdaptiveClaimPolicy policy,
+                                boolean enabled,
+                                MeterRegistry meterRegistry) {
+        this.taskDispatchDomainService = taskDispatchDomainService;
+        this.policy = policy;
+        this.enabled = enabled;
+        long initialDelay = enabled ? policy.minPollDelayMs() : policy.maxPollDelayMs();
+        this.state = new AtomicReference<>(
+                new TaskDispatchDomainService.AdaptiveClaimState(policy.maxLimit(), initialDelay, "initial"));
+        this.latencyEwmaMicros = new AtomicLong(0L);
+        this.nextPollAtMillis = new AtomicLong(0L);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("agent.task.claim.adaptive.limit", state, ref -> ref.get().claimLimit())
+                .description("自适应 claim 当前单轮上限")
+                .register(meterRegistry);
+        Gauge.builder("agent.task.claim.adaptive.poll_delay_ms", state, ref -> ref.get().pollDelayMs())
+                .description("自适应 claim 当前兜底轮询间隔（ms）")
+                .register(meterRegistry);
+        Gauge.builder("agent.task.claim.adaptive.claim_to_start_ewma_ms", latencyEwmaMicros, value -> value.get() / 1000D)
+                .description("claim 到执行开始延迟的 EWMA（ms）")
+                .register(meterRegistry);
+    }
+
+    int currentClaimLimit() {
+        return state.get().claimLimit();
+    }
+
+    /**
+     * 调度 tick 是否应执行一轮 claim；推送唤醒不经过该判定。
+     */
+    boolean isPollDue(long nowMillis) {
+        return nowMillis >= nextPollAtMillis.get();
+    }
+
+    void recordClaimToStartLatency(long latencyMs) {
+        long sampleMicros = Math.max(latencyMs, 0L) * 1000L;
+        latencyEwmaMicros.updateAndGet(previous -> previous <= 0L
+                ? sampleMicros
+                : (long) (previous + LATENCY_EWMA_ALPHA * (sampleMicros - previous)));
+    }
+
+    void onRoundFinished(int requested, int claimed, int reclaimed, int workerBacklog, long nowMillis) {
+        TaskDispatchDomainService.AdaptiveClaimState current = state.get();
+        if (!enabled) {
+            nextPollAtMillis.set(nowMillis + current.pollDelayMs());
+            return;
+        }
+        TaskDispatchDomainService.ClaimFeedback feedback = new TaskDispatchDomainService.ClaimFeedback(
+                requested, claimed, reclaimed, workerBacklog, latencyEwmaMicros.get() / 1000D);
+        TaskDispatchDomainService.AdaptiveClaimState next =
+                taskDispatchDomainService.adaptClaim(current, feedback, policy);
+        state.set(next);
+        nextPollAtMillis.set(nowMillis + next.pollDelayMs());
+        if (next.claimLimit() < current.claimLimit()) {
+            meterRegistry.counter("agent.task.claim.adaptive.decrease.total", "reason", next.reason()).increment();
+        }
+    }
+}
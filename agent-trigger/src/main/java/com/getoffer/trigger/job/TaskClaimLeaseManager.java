@@ -0,0 +1,283 @@
+package com.getoffer.trigger.job;
+
+import com.getoffer.domain.task.adapter.repository.IAgentTaskRepository;
+import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Claim lease 批量续约：
+ * 1) 执行中的 claim 登记到并发注册表，单个心跳线程每 tick 按 owner 分组做一次集合式续约；
+ * 2) 续约被 owner/attempt 守卫拒绝的任务视为 lease 丢失，执行放弃动作（阻塞模式中断执行线程，流式模式取消调用）；
+ * 3) 执行结束后注销，注销与放弃在同一把锁内完成，避免误中断复用的 worker 线程；
+ * 4) 停机排空时按 owner 分批归还剩余 claim，归还成功的执行随即放弃，其后的回写会被 owner/attempt 守卫拒绝。
+ */
+@Slf4j
+final class TaskClaimLeaseManager {
+
+    private final IAgentTaskRepository agentTaskRepository;
+    private final TaskExecutionRuntimeSupport runtimeSupport;
+    private final ScheduledExecutorService heartbeatScheduler;
+    private final int claimLeaseSeconds;
+    private final int claimHeartbeatSeconds;
+    private final int renewBatchSize;
+    private final Counter heartbeatSuccessCounter;
+    private final Counter heartbeatGuardRejectCounter;
+    private final Counter heartbeatErrorCounter;
+    private final Counter heartbeatBatchCounter;
+    private final Counter leaseLostAbortCounter;
+    private final ConcurrentMap<Long, LeaseEntry> leases;
+    private final AtomicBoolean started;
+
+    TaskClaimLeaseManager(IAgentTaskRepository agentTaskRepository,
+                          TaskExecutionRuntimeSupport runtimeSupport,
+                          ScheduledExecutorService heartbeatScheduler,
+                          int claimLeaseSeconds,
+                          int claimHeartbeatSeconds,
+                          int renewBatchSize,
+                          Counter heartbeatSuccessCounter,
+                          Counter heartbeatGuardRejectCounter,
+                          Counter heartbeatErrorCounter,
+                          Counter heartbeatBatchCounter,
+                          Counter leaseLostAbortCounter) {
+        this.agentTaskRepository = agentTaskRepository;
+        this.runtimeSupport = runtimeSupport;
+        this.heartbeatScheduler = heartbeatScheduler;
+        this.claimLeaseSeconds = claimLeaseSeconds;
+        this.claimHeartbeatSeconds = claimHeartbeatSeconds;
+        this.renewBatchSize = Math.max(renewBatchSize, 1);
+        this.heartbeatSuccessCounter = heartbeatSuccessCounter;
+        this.heartbeatGuardRejectCounter = heartbeatGuardRejectCounter;
+        this.heartbeatErrorCounter = heartbeatErrorCounter;
+        this.heartbeatBatchCounter = heartbeatBatchCounter;
+        this.leaseLostAbortCounter = leaseLostAbortCounter;
+        this.leases = new ConcurrentHashMap<>();
+        this.started = new AtomicBoolean(false);
+    }
+
+    /**
+     * 登记 lease，lease 丢失时中断当前执行线程（阻塞执行模式）。
+     */
+    void register(AgentTaskEntity task) {
+        Thread executionThread = Thread.currentThread();
+        register(task, executionThread::interrupt);
+    }
+
+    /**
+     * 登记不绑定线程的 lease（流式执行模式），放弃动作由 {@link #bindAbortAction} 在调用发起后绑定。
+     */
+    void registerDetached(AgentTaskEntity task) {
+        register(task, null);
+    }
+
+    void bindAbortAction(AgentTaskEntity task, Runnable abortAction) {
+        if (task == null || task.getId() == null || abortAction == null) {
+            return;
+        }
+        LeaseEntry entry = leases.get(task.getId());
+        if (entry != null && Objects.equals(entry.executionAttempt, task.getExecutionAttempt())) {
+            entry.bind(abortAction);
+        }
+    }
+
+    private void register(AgentTaskEntity task, Runnable abortAction) {
+        if (task == null || task.getId() == null || StringUtils.isBlank(task.getClaimOwner())
+                || task.getExecutionAttempt() == null || claimHeartbeatSeconds <= 0) {
+            return;
+        }
+        ensureStarted();
+        leases.put(task.getId(), new LeaseEntry(task, abortAction));
+    }
+
+    void unregister(AgentTaskEntity task) {
+        if (task == null || task.getId() == null) {
+            return;
+        }
+        leases.computeIfPresent(task.getId(), (taskId, entry) -> {
+            if (!Objects.equals(entry.executionAttempt, task.getExecutionAttempt())) {
+                return entry;
+            }
+            entry.release();
+            return null;
+        });
+    }
+
+    int trackedCount() {
+        return leases.size();
+    }
+
+    void renewAll() {
+        if (leases.isEmpty()) {
+            return;
+        }
+        Map<String, List<LeaseEntry>> entriesByOwner = leases.values().stream()
+                .collect(Collectors.groupingBy(entry -> entry.claimOwner));
+        for (Map.Entry<String, List<LeaseEntry>> ownerEntries : entriesByOwner.entrySet()) {
+            List<LeaseEntry> entries = ownerEntries.getValue();
+            for (int from = 0; from < entries.size(); from += renewBatchSize) {
+                List<LeaseEntry> chunk = entries.subList(from, Math.min(from + renewBatchSize, entries.size()));
+                renewChunk(ownerEntries.getKey(), chunk);
+            }
+        }
+    }
+
+    /**
+     * 批量归还 claim 并放弃对应执行，返回归还成功的任务 ID；单批失败只记录日志，剩余任务等待 lease 过期后被重领。
+     */
+    List<Long> releaseClaims(Collection<AgentTaskEntity> tasks) {
+        if (tasks == null || tasks.isEmpty()) {
+            return List.of();
+        }
+        Map<String, List<AgentTaskEntity>> tasksByOwner = tasks.stream()
+                .filter(task -> task != null && task.getId() != null && task.getExecutionAttempt() != null
+                        && StringUtils.isNotBlank(task.getClaimOwner()))
+                .collect(Collectors.groupingBy(AgentTaskEntity::getClaimOwner));
+        List<Long> released = new ArrayList<>();
+        for (Map.Entry<String, List<AgentTaskEntity>> ownerTasks : tasksByOwner.entrySet()) {
+            List<AgentTaskEntity> owned = ownerTasks.getValue();
+            for (int from = 0; from < owned.size(); from += renewBatchSize) {
+                List<AgentTaskEntity> chunk = owned.subList(from, Math.min(from + renewBatchSize, owned.size()));
+                released.addAll(releaseChunk(ownerTasks.getKey(), chunk));
+            }
+        }
+        return released;
+    }
+
+    private List<Long> releaseChunk(String claimOwner, List<AgentTaskEntity> chunk) {
+        Map<Long, Integer> attemptsByTaskId = new LinkedHashMap<>();
+        for (AgentTaskEntity task : chunk) {
+            attemptsByTaskId.put(task.getId(), task.getExecutionAttempt());
+        }
+        List<Long> releasedIds;
+        try {
+            releasedIds = agentTaskRepository.releaseClaims(claimOwner, attemptsByTaskId);
+        } catch (Exception ex) {
+            log.warn("Failed to release claims in batch. owner={}, size={}, error={}",
+                    claimOwner, chunk.size(), ex.getMessage());
+            return List.of();
+        }
+        if (releasedIds == null || releasedIds.isEmpty()) {
+            return List.of();
+        }
+        for (Long taskId : releasedIds) {
+            LeaseEntry entry = leases.remove(taskId);
+            if (entry != null) {
+                entry.abort();
+            }
+        }
+        return releasedIds;
+    }
+
+    private void renewChunk(String claimOwner, List<LeaseEntry> chunk) {
+        Map<Long, Integer> attemptsByTaskId = new LinkedHashMap<>();
+        for (LeaseEntry entry : chunk) {
+            attemptsByTaskId.put(entry.task.getId(), entry.executionAttempt);
+        }
+        heartbeatBatchCounter.increment();
+        List<Long> renewedIds;
+        try {
+            renewedIds = agentTaskRepository.renewClaimLeases(claimOwner, attemptsByTaskId, claimLeaseSeconds);
+        } catch (Exception ex) {
+            heartbeatErrorCounter.increment(chunk.size());
+            log.warn("Failed to renew claim leases in batch. owner={}, size={}, error={}",
+                    claimOwner, chunk.size(), ex.getMessage());
+            for (LeaseEntry entry : chunk) {
+                runtimeSupport.auditLeaseRenewError(entry.task, ex);
+            }
+            return;
+        }
+        Set<Long> renewed = renewedIds == null ? Set.of() : new HashSet<>(renewedIds);
+        List<Long> rejectedIds = new ArrayList<>();
+        for (LeaseEntry entry : chunk) {
+            Long taskId = entry.task.getId();
+            if (renewed.contains(taskId)) {
+                heartbeatSuccessCounter.increment();
+                continue;
+            }
+            // 注册表里可能已被同 taskId 的新 attempt 替换，只处理仍是本条目的 lease
+            if (leases.get(taskId) != entry) {
+                continue;
+            }
+            heartbeatGuardRejectCounter.increment();
+            rejectedIds.add(taskId);
+            runtimeSupport.auditLeaseRenewGuardReject(entry.task);
+            if (entry.abort()) {
+                leaseLostAbortCounter.increment();
+            }
+        }
+        if (!rejectedIds.isEmpty()) {
+            log.debug("Claim lease renew rejected by guard, aborting executions. owner={}, taskIds={}",
+                    claimOwner, rejectedIds);
+        }
+    }
+
+    private void ensureStarted() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        heartbeatScheduler.scheduleAtFixedRate(() -> {
+            try {
+                renewAll();
+            } catch (Exception ex) {
+                log.warn("Claim lease renew tick failed. error={}", ex.getMessage());
+            }
+        }, claimHeartbeatSeconds, claimHeartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    private static final class LeaseEntry {
+        private final AgentTaskEntity task;
+        private final String claimOwner;
+        private final Integer executionAttempt;
+        private Runnable abortAction;
+        private boolean released;
+        private boolean aborted;
+
+        private LeaseEntry(AgentTaskEntity task, Runnable abortAction) {
+            this.task = task;
+            this.claimOwner = task.getClaimOwner();
+            this.executionAttempt = task.getExecutionAttempt();
+            this.abortAction = abortAction;
+        }
+
+        private synchronized void bind(Runnable action) {
+            if (released) {
+                return;
+            }
+            abortAction = action;
+            if (aborted) {
+                action.run();
+            }
+        }
+
+        private synchronized void release() {
+            released = true;
+        }
+
+        private synchronized boolean abort() {
+            if (released || aborted) {
+                return false;
+            }
+            aborted = true;
+            if (abortAction != null) {
+                abortAction.run();
+            }
+            return true;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.getoffer.trigger.job;
 
-import com.getoffer.domain.planning.adapter.repository.IAgentPlanRepository;
 import com.getoffer.domain.planning.model.entity.AgentPlanEntity;
 import com.getoffer.domain.task.adapter.repository.ITaskExecutionRepository;
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
@@ -10,9 +9,12 @@ import com.getoffer.domain.task.service.TaskExecutionDomainService;
 import com.getoffer.types.enums.TaskTypeEnum;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
 import java.util.Map;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * TaskExecutionRunner 调用域支持适配器。
@@ -21,29 +23,44 @@ final class TaskExecutionCallSupportAdapter implements TaskExecutionRunner.CallS
 
     private final TaskExecutionRuntimeSupport runtimeSupport;
     private final TaskDispatchDomainService taskDispatchDomainService;
-    private final IAgentPlanRepository agentPlanRepository;
+    private final TaskPlanContextCache taskPlanContextCache;
     private final TaskExecutionDomainService taskExecutionDomainService;
     private final ITaskExecutionRepository taskExecutionRepository;
     private final int executionTimeoutRetryMax;
     private final TaskExecutionFlowSupport taskExecutionFlowSupport;
     private final TaskExecutionClientResolver taskExecutionClientResolver;
+    private final TaskClaimLeaseManager taskClaimLeaseManager;
+    private final TaskModelConcurrencyLimiter taskModelConcurrencyLimiter;
+    private final TaskModelRateLimiter taskModelRateLimiter;
+    private final TaskCallHedger taskCallHedger;
+    private final boolean streamingExecution;
 
     TaskExecutionCallSupportAdapter(TaskExecutionRuntimeSupport runtimeSupport,
                                     TaskDispatchDomainService taskDispatchDomainService,
-                                    IAgentPlanRepository agentPlanRepository,
+                                    TaskPlanContextCache taskPlanContextCache,
                                     TaskExecutionDomainService taskExecutionDomainService,
                                     ITaskExecutionRepository taskExecutionRepository,
                                     int executionTimeoutRetryMax,
                                     TaskExecutionFlowSupport taskExecutionFlowSupport,
-                                    TaskExecutionClientResolver taskExecutionClientResolver) {
+                                    TaskExecutionClientResolver taskExecutionClientResolver,
+                                    TaskClaimLeaseManager taskClaimLeaseManager,
+                                    TaskModelConcurrencyLimiter taskModelConcurrencyLimiter,
+                                    TaskModelRateLimiter taskModelRateLimiter,
+                                    TaskCallHedger taskCallHedger,
+                                    boolean streamingExecution) {
         this.runtimeSupport = runtimeSupport;
         this.taskDispatchDomainService = taskDispatchDomainService;
-        this.agentPlanRepository = agentPlanRepository;
+        this.taskPlanContextCache = taskPlanContextCache;
         this.taskExecutionDomainService = taskExecutionDomainService;
         this.taskExecutionRepository = taskExecutionRepository;
         this.executionTimeoutRetryMax = executionTimeoutRetryMax;
         this.taskExecutionFlowSupport = taskExecutionFlowSupport;
         this.taskExecutionClientResolver = taskExecutionClientResolver;
+        this.taskClaimLeaseManager = taskClaimLeaseManager;
+        this.taskModelConcurrencyLimiter = taskModelConcurrencyLimiter;
+        this.taskModelRateLimiter = taskModelRateLimiter;
+        this.taskCallHedger = taskCallHedger;
+        this.streamingExecution = streamingExecution;
     }
 
     @Override
@@ -52,18 +69,22 @@ final class TaskExecutionCallSupportAdapter implements TaskExecutionRunner.CallS
     }
 
     @Override
-    public ScheduledFuture<?> startHeartbeat(AgentTaskEntity task) {
-        return runtimeSupport.startHeartbeat(task);
+    public void startHeartbeat(AgentTaskEntity task) {
+        if (streamingExecution) {
+            taskClaimLeaseManager.registerDetached(task);
+        } else {
+            taskClaimLeaseManager.register(task);
+        }
     }
 
     @Override
-    public void stopHeartbeat(ScheduledFuture<?> future) {
-        runtimeSupport.stopHeartbeat(future);
+    public void stopHeartbeat(AgentTaskEntity task) {
+        taskClaimLeaseManager.unregister(task);
     }
 
     @Override
     public AgentPlanEntity findPlan(Long planId) {
-        return agentPlanRepository.findById(planId);
+        return taskPlanContextCache.find(planId);
     }
 
     @Override
@@ -71,6 +92,16 @@ final class TaskExecutionCallSupportAdapter implements TaskExecutionRunner.CallS
         return runtimeSupport.releaseClaimForNonExecutablePlan(task, plan);
     }
 
+    @Override
+    public boolean releaseClaimForThrottledModel(AgentTaskEntity task, String modelKey) {
+        return runtimeSupport.releaseClaimForThrottledModel(task, modelKey, 0L);
+    }
+
+    @Override
+    public boolean releaseClaimForThrottledModel(AgentTaskEntity task, String modelKey, long retryAfterMs) {
+        return runtimeSupport.releaseClaimForThrottledModel(task, modelKey, retryAfterMs);
+    }
+
     @Override
     public void recordRetryDistribution(AgentTaskEntity task) {
         runtimeSupport.recordRetryDistribution(task);
@@ -116,7 +147,159 @@ final class TaskExecutionCallSupportAdapter implements TaskExecutionRunner.CallS
 
     @Override
     public ChatResponse callTaskClientWithTimeout(ChatClient taskClient, String prompt) {
-        return runtimeSupport.callTaskClientWithTimeout(taskClient, prompt);
+        return callTaskClientWithTimeout(null, taskClient, prompt);
+    }
+
+    @Override
+    public ChatResponse callTaskClientWithTimeout(AgentTaskEntity task, ChatClient taskClient, String prompt) {
+        String modelKey = taskExecutionClientResolver.modelKeyOf(taskClient);
+        TaskModelRateLimiter.Reservation reservation = taskModelRateLimiter.tryReserve(modelKey, prompt);
+        if (reservation == null) {
+            throw new TaskExecutionRunner.TaskModelThrottledException(modelKey,
+                    taskModelRateLimiter.retryAfterMs(modelKey, prompt));
+        }
+        TaskModelConcurrencyLimiter.Permit permit = taskModelConcurrencyLimiter.tryAcquire(modelKey);
+        if (permit == null) {
+            taskModelRateLimiter.cancel(reservation);
+            throw new TaskExecutionRunner.TaskModelThrottledException(modelKey);
+        }
+        boolean dropped = true;
+        long startedNanos = System.nanoTime();
+        try {
+            TaskOutputDeltaStreamer deltaStreamer = runtimeSupport.openOutputDeltaStreamer(task);
+            Mono<ChatResponse> hedgedCall = hedgedCall(modelKey, taskClient, prompt, deltaStreamer);
+            ChatResponse chatResponse;
+            if (hedgedCall == null) {
+                chatResponse = runtimeSupport.callTaskClientWithTimeout(taskClient, prompt, deltaStreamer);
+                taskCallHedger.recordLatency(modelKey, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos));
+            } else {
+                chatResponse = runtimeSupport.awaitCall(runtimeSupport.withCallTimeout(hedgedCall));
+            }
+            dropped = false;
+            taskModelRateLimiter.reconcile(reservation, chatResponse);
+            return chatResponse;
+        } catch (RuntimeException ex) {
+            taskModelRateLimiter.onFailure(reservation, ex);
+            throw ex;
+        } finally {
+            taskModelConcurrencyLimiter.release(permit, dropped);
+        }
+    }
+
+    /**
+     * 流式调用在 taskCallExecutor 上发起，配额与模型许可均不等待，拿不到立即按限流延后，
+     * 避免少量调用线程被 max-wait-ms / acquire-wait-ms 的等待占满。
+     */
+    @Override
+    public CompletableFuture<ChatResponse> callTaskClientAsync(AgentTaskEntity task, ChatClient taskClient, String prompt) {
+        String modelKey = taskExecutionClientResolver.modelKeyOf(taskClient);
+        TaskModelRateLimiter.Reservation reservation = taskModelRateLimiter.tryReserve(modelKey, prompt, 0L);
+        if (reservation == null) {
+            return CompletableFuture.failedFuture(new TaskExecutionRunner.TaskModelThrottledException(modelKey,
+                    taskModelRateLimiter.retryAfterMs(modelKey, prompt)));
+        }
+        TaskModelConcurrencyLimiter.Permit permit = taskModelConcurrencyLimiter.tryAcquire(modelKey, 0L);
+        if (permit == null) {
+            taskModelRateLimiter.cancel(reservation);
+            return CompletableFuture.failedFuture(new TaskExecutionRunner.TaskModelThrottledException(modelKey));
+        }
+        long startedNanos = System.nanoTime();
+        CompletableFuture<ChatResponse> callFuture;
+        boolean hedged;
+        try {
+            TaskOutputDeltaStreamer deltaStreamer = runtimeSupport.openOutputDeltaStreamer(task);
+            Mono<ChatResponse> hedgedCall = hedgedCall(modelKey, taskClient, prompt, deltaStreamer);
+            hedged = hedgedCall != null;
+            callFuture = hedgedCall == null
+                    ? runtimeSupport.streamTaskClientWithTimeout(taskClient, prompt, deltaStreamer)
+                    : runtimeSupport.withCallTimeout(hedgedCall);
+        } catch (RuntimeException ex) {
+            taskModelConcurrencyLimiter.release(permit, true);
+            taskModelRateLimiter.onFailure(reservation, ex);
+            return CompletableFuture.failedFuture(ex);
+        }
+        taskClaimLeaseManager.bindAbortAction(task, () -> callFuture.cancel(true));
+        return callFuture.whenComplete((chatResponse, throwable) -> {
+            taskModelConcurrencyLimiter.release(permit, throwable != null);
+            if (throwable == null) {
+                if (!hedged) {
+                    taskCallHedger.recordLatency(modelKey, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos));
+                }
+                taskModelRateLimiter.reconcile(reservation, chatResponse);
+            } else {
+                taskModelRateLimiter.onFailure(reservation, throwable);
+            }
+        });
+    }
+
+    /**
+     * 任务或 Agent 开启对冲且该模型已有足够耗时样本时，返回带对冲的调用链；否则返回 null 走普通调用。
+     * 增量输出只跟随主请求，对冲请求胜出时以最终结果为准。
+     * 耗时窗口只记录主请求：主请求完成时记实际耗时，被对冲请求抢先而取消时记已等待时长（主请求耗时的下界），
+     * 避免对冲胜出的短耗时把 p9x 拉低、进而越对冲越早。
+     */
+    private Mono<ChatResponse> hedgedCall(String modelKey,
+                                          ChatClient taskClient,
+                                          String prompt,
+                                          TaskOutputDeltaStreamer deltaStreamer) {
+        TaskExecutionClientResolver.HedgeTarget hedgeTarget = taskExecutionClientResolver.hedgeTargetOf(taskClient);
+        if (hedgeTarget == null) {
+            return null;
+        }
+        long hedgeDelayMs = taskCallHedger.hedgeDelayMs(modelKey);
+        if (hedgeDelayMs < 0L) {
+            return null;
+        }
+        Mono<ChatResponse> primary = Mono.defer(() -> {
+            long startedNanos = System.nanoTime();
+            return runtimeSupport.streamResponse(taskClient, prompt, deltaStreamer)
+                    .doFinally(signal -> {
+                        if (signal != SignalType.ON_ERROR) {
+                            taskCallHedger.recordLatency(modelKey,
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos));
+                        }
+                    });
+        });
+        return taskCallHedger.hedge(modelKey,
+                hedgeDelayMs,
+                primary,
+                () -> hedgeRequest(modelKey, hedgeTarget, taskClient, prompt));
+    }
+
+    /**
+     * 对冲请求与主请求一样预占配额、获取模型许可（均不等待），拿不到时放弃本次对冲；返回 null 表示不发起。
+     */
+    private Mono<ChatResponse> hedgeRequest(String modelKey,
+                                            TaskExecutionClientResolver.HedgeTarget hedgeTarget,
+                                            ChatClient taskClient,
+                                            String prompt) {
+        String hedgeModelKey = hedgeTarget.modelKey() == null ? modelKey : hedgeTarget.modelKey();
+        TaskModelRateLimiter.Reservation reservation = taskModelRateLimiter.tryReserve(hedgeModelKey, prompt, 0L);
+        if (reservation == null) {
+            return null;
+        }
+        TaskModelConcurrencyLimiter.Permit permit = taskModelConcurrencyLimiter.tryAcquire(hedgeModelKey, 0L);
+        if (permit == null) {
+            taskModelRateLimiter.cancel(reservation);
+            return null;
+        }
+        ChatClient hedgeClient;
+        try {
+            hedgeClient = hedgeTarget.clientSupplier() == null ? taskClient : hedgeTarget.clientSupplier().get();
+        } catch (RuntimeException ex) {
+            taskModelConcurrencyLimiter.release(permit, false);
+            taskModelRateLimiter.cancel(reservation);
+            throw ex;
+        }
+        if (hedgeClient == null) {
+            taskModelConcurrencyLimiter.release(permit, false);
+            taskModelRateLimiter.cancel(reservation);
+            return null;
+        }
+        return runtimeSupport.streamResponse(hedgeClient, prompt, null)
+                .doOnNext(response -> taskModelRateLimiter.reconcile(reservation, response))
+                .doOnError(ex -> taskModelRateLimiter.onFailure(reservation, ex))
+                .doFinally(signal -> taskModelConcurrencyLimiter.release(permit, signal == SignalType.ON_ERROR));
     }
 
     @Override
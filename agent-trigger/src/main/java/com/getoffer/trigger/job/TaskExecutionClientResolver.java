@@ -18,9 +18,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 /**
- * 单任务执行客户端解析组件：负责 TaskClient 选路与默认 Agent 缓存。
+ * 单任务执行客户端解析组件：负责 TaskClient 选路、默认 Agent 缓存与 client 所属模型、对冲目标登记。
  */
 @Slf4j
 final class TaskExecutionClientResolver {
@@ -32,6 +36,9 @@ final class TaskExecutionClientResolver {
     private final List<String> criticFallbackAgentKeys;
     private final long defaultAgentCacheTtlMs;
     private final PlanTaskEventPublisher planTaskEventPublisher;
+    private final Map<ChatClient, String> modelKeyByClient;
+    private final Map<ChatClient, HedgeTarget> hedgeTargetByClient;
+    private final ConcurrentMap<String, CachedAgentProfile> profileByAgent;
     private volatile AgentRegistryEntity cachedDefaultAgent;
     private volatile long cachedDefaultAgentAtMillis;
 
@@ -49,6 +56,9 @@ final class TaskExecutionClientResolver {
         this.criticFallbackAgentKeys = criticFallbackAgentKeys;
         this.defaultAgentCacheTtlMs = defaultAgentCacheTtlMs;
         this.planTaskEventPublisher = planTaskEventPublisher;
+        this.modelKeyByClient = Collections.synchronizedMap(new WeakHashMap<>());
+        this.hedgeTargetByClient = Collections.synchronizedMap(new WeakHashMap<>());
+        this.profileByAgent = new ConcurrentHashMap<>();
         this.cachedDefaultAgent = null;
         this.cachedDefaultAgentAtMillis = 0L;
     }
@@ -90,9 +100,89 @@ final class TaskExecutionClientResolver {
         if (!toolPolicy.isEmpty()) {
             publishToolPolicyAuditEvent(task, selected, toolPolicy);
         }
+        CachedAgentProfile profile = resolveAgentProfile(selected.selectedAgentId(), selected.selectedAgentKey());
+        modelKeyByClient.put(selected.client(), profile.modelKey());
+        TaskAgentSelectionDomainService.HedgePolicy hedgePolicy = taskAgentSelectionDomainService.resolveHedgePolicy(
+                task, profile.modelOptions(), selectionPlan, selected.selectedAgentKey());
+        if (hedgePolicy.enabled()) {
+            registerHedgeTarget(selected.client(), profile, hedgePolicy.agentKey(), conversationId, effectiveSystemPrompt, toolPolicy);
+        }
         return selected.client();
     }
 
+    /**
+     * 返回 client 的对冲目标；任务与 Agent 均未开启对冲时返回 null。
+     */
+    HedgeTarget hedgeTargetOf(ChatClient client) {
+        return client == null ? null : hedgeTargetByClient.get(client);
+    }
+
+    /**
+     * 返回 client 解析时所选 Agent 的模型标识（provider:model），未知时返回 default。
+     */
+    String modelKeyOf(ChatClient client) {
+        String modelKey = client == null ? null : modelKeyByClient.get(client);
+        return StringUtils.defaultIfBlank(modelKey, TaskModelConcurrencyLimiter.DEFAULT_MODEL_KEY);
+    }
+
+    /**
+     * 登记对冲目标：主/对冲任一 Agent 带副作用（会话记忆、工具）时不登记，重复发送会重复写记忆或重复执行工具。
+     */
+    private void registerHedgeTarget(ChatClient client,
+                                     CachedAgentProfile profile,
+                                     String hedgeAgentKey,
+                                     String conversationId,
+                                     String effectiveSystemPrompt,
+                                     Map<String, Object> toolPolicy) {
+        if (profile.sideEffects()) {
+            return;
+        }
+        if (StringUtils.isBlank(hedgeAgentKey)) {
+            // 同 Agent 对冲不持有 client 引用，避免 WeakHashMap 的 value 强引用 key
+            hedgeTargetByClient.put(client, new HedgeTarget(null, profile.modelKey(), null));
+            return;
+        }
+        CachedAgentProfile hedgeProfile = resolveAgentProfile(null, hedgeAgentKey);
+        if (hedgeProfile.sideEffects()) {
+            return;
+        }
+        hedgeTargetByClient.put(client, new HedgeTarget(hedgeAgentKey, hedgeProfile.modelKey(),
+                () -> agentFactory.createAgent(hedgeAgentKey, conversationId, effectiveSystemPrompt, toolPolicy)));
+    }
+
+    private CachedAgentProfile resolveAgentProfile(Long agentId, String agentKey) {
+        String cacheKey = agentId != null
+                ? "id:" + agentId
+                : "key:" + StringUtils.defaultString(agentKey);
+        long now = System.currentTimeMillis();
+        CachedAgentProfile cached = profileByAgent.get(cacheKey);
+        if (cached != null && now - cached.cachedAtMillis() <= defaultAgentCacheTtlMs) {
+            return cached;
+        }
+        String modelKey = TaskModelConcurrencyLimiter.DEFAULT_MODEL_KEY;
+        Map<String, Object> modelOptions = Collections.emptyMap();
+        boolean sideEffects = true;
+        try {
+            AgentRegistryEntity agent = agentId != null
+                    ? agentRegistryRepository.findById(agentId)
+                    : (StringUtils.isBlank(agentKey) ? null
+                    : agentRegistryRepository.findByKey(agentKey));
+            if (agent != null) {
+                sideEffects = agentFactory.hasCallSideEffects(agent);
+                modelKey = StringUtils.defaultIfBlank(agent.getModelProvider(), "default") + ":"
+                        + StringUtils.defaultIfBlank(agent.getModelName(), "default");
+                if (agent.getModelOptions() != null) {
+                    modelOptions = agent.getModelOptions();
+                }
+            }
+        } catch (Exception ex) {
+            log.debug("Resolve agent model key failed. cacheKey={}, error={}", cacheKey, ex.getMessage());
+        }
+        CachedAgentProfile profile = new CachedAgentProfile(modelKey, modelOptions, sideEffects, now);
+        profileByAgent.put(cacheKey, profile);
+        return profile;
+    }
+
     private void publishToolPolicyAuditEvent(AgentTaskEntity task,
                                              TaskAgentSelectionDomainService.ClientSelectionResult<ChatClient> selected,
                                              Map<String, Object> toolPolicy) {
@@ -256,4 +346,16 @@ final class TaskExecutionClientResolver {
         }
         return result;
     }
+
+    private record CachedAgentProfile(String modelKey,
+                                      Map<String, Object> modelOptions,
+                                      boolean sideEffects,
+                                      long cachedAtMillis) {
+    }
+
+    /**
+     * 对冲目标：clientSupplier 为空表示向同一 client 重发相同请求；modelKey 为对冲请求所用模型，用于配额与并发许可。
+     */
+    record HedgeTarget(String agentKey, String modelKey, Supplier<ChatClient> clientSupplier) {
+    }
 }
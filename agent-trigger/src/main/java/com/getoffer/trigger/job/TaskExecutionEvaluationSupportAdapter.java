@@ -12,13 +12,16 @@ final class TaskExecutionEvaluationSupportAdapter implements TaskExecutionRunner
     private final TaskEvaluationDomainService taskEvaluationDomainService;
     private final TaskExecutionFlowSupport taskExecutionFlowSupport;
     private final TaskExecutionRuntimeSupport runtimeSupport;
+    private final TaskPlanContextCache taskPlanContextCache;
 
     TaskExecutionEvaluationSupportAdapter(TaskEvaluationDomainService taskEvaluationDomainService,
                                           TaskExecutionFlowSupport taskExecutionFlowSupport,
-                                          TaskExecutionRuntimeSupport runtimeSupport) {
+                                          TaskExecutionRuntimeSupport runtimeSupport,
+                                          TaskPlanContextCache taskPlanContextCache) {
         this.taskEvaluationDomainService = taskEvaluationDomainService;
         this.taskExecutionFlowSupport = taskExecutionFlowSupport;
         this.runtimeSupport = runtimeSupport;
+        this.taskPlanContextCache = taskPlanContextCache;
     }
 
     @Override
@@ -49,5 +52,6 @@ final class TaskExecutionEvaluationSupportAdapter implements TaskExecutionRunner
     @Override
     public void syncBlackboard(AgentPlanEntity plan, AgentTaskEntity task, String output) {
         taskExecutionFlowSupport.syncBlackboard(plan, task, output);
+        taskPlanContextCache.refresh(plan);
     }
 }
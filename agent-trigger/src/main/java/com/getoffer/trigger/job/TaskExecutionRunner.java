@@ -9,7 +9,10 @@ import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatResponse;
 
 import java.util.Map;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 /**
  * 单任务执行运行器：负责执行主流程，TaskExecutor 负责调度与并发协调。
@@ -25,189 +28,329 @@ public class TaskExecutionRunner {
                                CallSupport callSupport,
                                EvaluationSupport evaluationSupport,
                                PersistenceSupport persistenceSupport) {
-        String outcome = "unknown";
-        String errorType = "none";
-        ScheduledFuture<?> heartbeatFuture = null;
-        TaskExecutionEntity execution = null;
-
+        RunContext context = new RunContext(task);
         try {
-            if (task == null) {
-                outcome = "skip_null_task";
-                return new ExecutionResult(outcome, errorType);
-            }
-            if (!callSupport.hasValidClaim(task)) {
-                outcome = "skip_invalid_claim";
-                log.warn("Skip claimed task execution because claim metadata missing. taskId={}, claimOwner={}, attempt={}",
-                        task.getId(), task.getClaimOwner(), task.getExecutionAttempt());
-                return new ExecutionResult(outcome, errorType);
-            }
-
-            AgentPlanEntity plan = callSupport.findPlan(task.getPlanId());
-            if (plan == null) {
-                outcome = "skip_plan_not_found";
-                log.warn("Skip task execution because plan not found. taskId={}, planId={}", task.getId(), task.getPlanId());
-                return new ExecutionResult(outcome, errorType);
-            }
-            if (!plan.isExecutable()) {
-                outcome = callSupport.releaseClaimForNonExecutablePlan(task, plan)
-                        ? "skip_plan_not_executable_released"
-                        : "skip_plan_not_executable_release_failed";
-                log.debug("Skip task execution because plan is not executable. planId={}, status={}, taskId={}",
-                        plan.getId(), plan.getStatus(), task.getId());
-                return new ExecutionResult(outcome, errorType);
+            ExecutionResult skipped = prepare(context, callSupport);
+            if (skipped != null) {
+                return skipped;
             }
-
-            callSupport.recordRetryDistribution(task);
-            boolean criticTask = callSupport.isCriticTask(task);
-            boolean refining = task.getCurrentRetry() != null && task.getCurrentRetry() > 0;
-            heartbeatFuture = callSupport.startHeartbeat(task);
-
-            ChatResponse chatResponse;
-            String response;
-            int timeoutRetryCount = 0;
             while (true) {
-                long startTime = System.currentTimeMillis();
-                String prompt = criticTask ? callSupport.buildCriticPrompt(task, plan)
-                        : (refining ? callSupport.buildRefinePrompt(task, plan) : callSupport.buildPrompt(task, plan));
-                execution = new TaskExecutionEntity();
-                execution.setTaskId(task.getId());
-                execution.setAttemptNumber(callSupport.resolveAttemptNumber(task));
-                execution.setPromptSnapshot(prompt);
-
-                String systemPromptSuffix = callSupport.buildRetrySystemPrompt(task);
-                ChatClient taskClient = callSupport.resolveTaskClient(task, plan, systemPromptSuffix);
+                CallAttempt attempt = beginAttempt(context, callSupport);
+                ChatResponse chatResponse;
                 try {
-                    chatResponse = callSupport.callTaskClientWithTimeout(taskClient, prompt);
+                    chatResponse = callSupport.callTaskClientWithTimeout(context.task, attempt.taskClient(), attempt.prompt());
+                } catch (TaskModelThrottledException throttledException) {
+                    return onThrottled(context, callSupport, throttledException);
                 } catch (TaskCallTimeoutException timeoutException) {
-                    callSupport.persistTimeoutExecution(execution, startTime, timeoutException);
-                    boolean retrying = callSupport.canTimeoutRetry(task, timeoutRetryCount);
-                    callSupport.recordTimeoutMetrics(task, retrying);
-                    if (retrying) {
-                        timeoutRetryCount++;
-                        callSupport.applyTimeoutRetry(task, timeoutException.getMessage());
-                        refining = true;
-                        outcome = "timeout_retrying";
-                        errorType = "timeout";
+                    ExecutionResult timeoutResult = onTimeout(context, attempt, timeoutException, callSupport, persistenceSupport);
+                    if (timeoutResult == null) {
                         continue;
                     }
-                    errorType = "timeout";
-                    outcome = "failed";
-                    task.fail(timeoutException.getMessage());
-                    if (persistenceSupport.safeUpdateClaimedTask(task)) {
-                        persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_COMPLETED, task, persistenceSupport.buildTaskData(task));
-                        persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, persistenceSupport.buildTaskLog(task));
-                    }
-                    log.warn("Task execution timed out and exhausted retries. taskId={}, nodeId={}",
-                            task.getId(), task.getNodeId());
-                    return new ExecutionResult(outcome, errorType);
+                    return timeoutResult;
                 }
+                return onResponse(context, attempt, chatResponse, callSupport, evaluationSupport, persistenceSupport);
+            }
+        } catch (Exception ex) {
+            return onFailure(context, ex, callSupport, persistenceSupport);
+        } finally {
+            callSupport.stopHeartbeat(task);
+        }
+    }
 
-                response = callSupport.extractContent(chatResponse);
-                execution.setModelName(callSupport.extractModelName(chatResponse));
-                execution.setTokenUsage(callSupport.extractTokenUsage(chatResponse));
-                execution.setLlmResponseRaw(response);
-                execution.setExecutionTime(startTime);
-                break;
+    /**
+     * 非阻塞执行：模型调用期间不占用线程，调用完成后的评估/持久化在 continuationExecutor 上继续。
+     * continuationExecutor 需使用无界队列，避免续跑被拒绝导致结果永不完成。
+     */
+    public CompletableFuture<ExecutionResult> runAsync(AgentTaskEntity task,
+                                                       CallSupport callSupport,
+                                                       EvaluationSupport evaluationSupport,
+                                                       PersistenceSupport persistenceSupport,
+                                                       Executor continuationExecutor) {
+        RunContext context = new RunContext(task);
+        CompletableFuture<ExecutionResult> result = new CompletableFuture<>();
+        try {
+            ExecutionResult skipped = prepare(context, callSupport);
+            if (skipped != null) {
+                result.complete(skipped);
+            } else {
+                attemptAsync(context, callSupport, evaluationSupport, persistenceSupport, continuationExecutor, result);
             }
+        } catch (Exception ex) {
+            result.complete(onFailure(context, ex, callSupport, persistenceSupport));
+        }
+        return result.whenComplete((executionResult, throwable) -> callSupport.stopHeartbeat(task));
+    }
 
-            if (criticTask) {
-                CriticDecision decision = evaluationSupport.parseCriticDecision(response);
-                if (decision.pass()) {
-                    execution.markAsValid(decision.feedback());
-                } else {
-                    execution.markAsInvalid(decision.feedback());
+    private void attemptAsync(RunContext context,
+                              CallSupport callSupport,
+                              EvaluationSupport evaluationSupport,
+                              PersistenceSupport persistenceSupport,
+                              Executor continuationExecutor,
+                              CompletableFuture<ExecutionResult> result) {
+        CallAttempt attempt;
+        CompletableFuture<ChatResponse> callFuture;
+        try {
+            attempt = beginAttempt(context, callSupport);
+            callFuture = callSupport.callTaskClientAsync(context.task, attempt.taskClient(), attempt.prompt());
+        } catch (Exception ex) {
+            result.complete(onFailure(context, ex, callSupport, persistenceSupport));
+            return;
+        }
+        callFuture.whenCompleteAsync((chatResponse, throwable) -> {
+            try {
+                if (throwable == null) {
+                    result.complete(onResponse(context, attempt, chatResponse, callSupport, evaluationSupport, persistenceSupport));
+                    return;
                 }
-                persistenceSupport.safeSaveExecution(execution);
-
-                task.startValidation();
-                if (decision.pass()) {
-                    task.complete(response);
-                    boolean updated = persistenceSupport.safeUpdateClaimedTask(task);
-                    outcome = updated ? "completed" : "update_guard_reject";
-                    if (updated) {
-                        persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_COMPLETED, task, persistenceSupport.buildTaskData(task));
-                        persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, persistenceSupport.buildTaskLog(task));
-                    }
-                } else {
-                    task.setOutputResult(response);
-                    task.resetToPending();
-                    boolean updated = persistenceSupport.safeUpdateClaimedTask(task);
-                    outcome = updated ? "critic_rejected" : "update_guard_reject";
-                    if (updated) {
-                        persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, persistenceSupport.buildTaskLog(task));
+                Throwable cause = unwrap(throwable);
+                if (cause instanceof TaskModelThrottledException throttledException) {
+                    result.complete(onThrottled(context, callSupport, throttledException));
+                    return;
+                }
+                if (cause instanceof TaskCallTimeoutException timeoutException) {
+                    ExecutionResult timeoutResult = onTimeout(context, attempt, timeoutException, callSupport, persistenceSupport);
+                    if (timeoutResult == null) {
+                        attemptAsync(context, callSupport, evaluationSupport, persistenceSupport, continuationExecutor, result);
+                        return;
                     }
-                    evaluationSupport.rollbackTarget(plan, task, decision.feedback());
+                    result.complete(timeoutResult);
+                    return;
                 }
-                return new ExecutionResult(outcome, errorType);
+                Exception failure = cause instanceof Exception exception
+                        ? exception
+                        : new IllegalStateException(cause.getMessage(), cause);
+                result.complete(onFailure(context, failure, callSupport, persistenceSupport));
+            } catch (Exception ex) {
+                result.complete(onFailure(context, ex, callSupport, persistenceSupport));
             }
+        }, continuationExecutor);
+    }
 
-            if (evaluationSupport.needsValidation(task)) {
-                ValidationResult validation = evaluationSupport.evaluateValidation(task, response);
-                if (validation.valid()) {
-                    execution.markAsValid(validation.feedback());
-                } else {
-                    execution.markAsInvalid(validation.feedback());
-                }
-                persistenceSupport.safeSaveExecution(execution);
+    private ExecutionResult prepare(RunContext context, CallSupport callSupport) {
+        AgentTaskEntity task = context.task;
+        if (task == null) {
+            context.outcome = "skip_null_task";
+            return context.result();
+        }
+        if (!callSupport.hasValidClaim(task)) {
+            context.outcome = "skip_invalid_claim";
+            log.warn("Skip claimed task execution because claim metadata missing. taskId={}, claimOwner={}, attempt={}",
+                    task.getId(), task.getClaimOwner(), task.getExecutionAttempt());
+            return context.result();
+        }
 
-                task.startValidation();
-                if (!validation.valid()) {
-                    evaluationSupport.handleValidationFailure(task, validation.feedback());
-                    outcome = "validation_rejected";
-                    return new ExecutionResult(outcome, errorType);
-                }
+        AgentPlanEntity plan = callSupport.findPlan(task.getPlanId());
+        if (plan == null) {
+            context.outcome = "skip_plan_not_found";
+            log.warn("Skip task execution because plan not found. taskId={}, planId={}", task.getId(), task.getPlanId());
+            return context.result();
+        }
+        if (!plan.isExecutable()) {
+            context.outcome = callSupport.releaseClaimForNonExecutablePlan(task, plan)
+                    ? "skip_plan_not_executable_released"
+                    : "skip_plan_not_executable_release_failed";
+            log.debug("Skip task execution because plan is not executable. planId={}, status={}, taskId={}",
+                    plan.getId(), plan.getStatus(), task.getId());
+            return context.result();
+        }
+
+        context.plan = plan;
+        callSupport.recordRetryDistribution(task);
+        context.criticTask = callSupport.isCriticTask(task);
+        context.refining = task.getCurrentRetry() != null && task.getCurrentRetry() > 0;
+        callSupport.startHeartbeat(task);
+        return null;
+    }
+
+    private CallAttempt beginAttempt(RunContext context, CallSupport callSupport) {
+        AgentTaskEntity task = context.task;
+        AgentPlanEntity plan = context.plan;
+        long startTime = System.currentTimeMillis();
+        String prompt = context.criticTask ? callSupport.buildCriticPrompt(task, plan)
+                : (context.refining ? callSupport.buildRefinePrompt(task, plan) : callSupport.buildPrompt(task, plan));
+        TaskExecutionEntity execution = new TaskExecutionEntity();
+        execution.setTaskId(task.getId());
+        execution.setAttemptNumber(callSupport.resolveAttemptNumber(task));
+        execution.setPromptSnapshot(prompt);
+        context.execution = execution;
+
+        String systemPromptSuffix = callSupport.buildRetrySystemPrompt(task);
+        ChatClient taskClient = callSupport.resolveTaskClient(task, plan, systemPromptSuffix);
+        return new CallAttempt(startTime, prompt, taskClient);
+    }
+
+    private ExecutionResult onThrottled(RunContext context,
+                                        CallSupport callSupport,
+                                        TaskModelThrottledException throttledException) {
+        AgentTaskEntity task = context.task;
+        context.errorType = "model_throttled";
+        context.outcome = callSupport.releaseClaimForThrottledModel(task,
+                throttledException.getModelKey(), throttledException.getRetryAfterMs())
+                ? "model_throttled_released"
+                : "model_throttled_release_failed";
+        log.debug("Task call throttled by model limit, deferred back to dispatch queue. taskId={}, model={}",
+                task.getId(), throttledException.getModelKey());
+        return context.result();
+    }
+
+    /**
+     * 处理调用超时；返回 null 表示已进入超时重试，调用方应发起下一次调用。
+     */
+    private ExecutionResult onTimeout(RunContext context,
+                                      CallAttempt attempt,
+                                      TaskCallTimeoutException timeoutException,
+                                      CallSupport callSupport,
+                                      PersistenceSupport persistenceSupport) {
+        AgentTaskEntity task = context.task;
+        callSupport.persistTimeoutExecution(context.execution, attempt.startTime(), timeoutException);
+        boolean retrying = callSupport.canTimeoutRetry(task, context.timeoutRetryCount);
+        callSupport.recordTimeoutMetrics(task, retrying);
+        if (retrying) {
+            context.timeoutRetryCount++;
+            callSupport.applyTimeoutRetry(task, timeoutException.getMessage());
+            context.refining = true;
+            context.outcome = "timeout_retrying";
+            context.errorType = "timeout";
+            return null;
+        }
+        context.errorType = "timeout";
+        context.outcome = "failed";
+        task.fail(timeoutException.getMessage());
+        if (persistenceSupport.safeUpdateClaimedTask(task)) {
+            persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_COMPLETED, task, persistenceSupport.buildTaskData(task));
+            persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, persistenceSupport.buildTaskLog(task));
+        }
+        log.warn("Task execution timed out and exhausted retries. taskId={}, nodeId={}",
+                task.getId(), task.getNodeId());
+        return context.result();
+    }
+
+    private ExecutionResult onResponse(RunContext context,
+                                       CallAttempt attempt,
+                                       ChatResponse chatResponse,
+                                       CallSupport callSupport,
+                                       EvaluationSupport evaluationSupport,
+                                       PersistenceSupport persistenceSupport) {
+        AgentTaskEntity task = context.task;
+        AgentPlanEntity plan = context.plan;
+        TaskExecutionEntity execution = context.execution;
+        String response = callSupport.extractContent(chatResponse);
+        execution.setModelName(callSupport.extractModelName(chatResponse));
+        execution.setTokenUsage(callSupport.extractTokenUsage(chatResponse));
+        execution.setLlmResponseRaw(response);
+        execution.setExecutionTime(attempt.startTime());
+
+        if (context.criticTask) {
+            CriticDecision decision = evaluationSupport.parseCriticDecision(response);
+            if (decision.pass()) {
+                execution.markAsValid(decision.feedback());
+            } else {
+                execution.markAsInvalid(decision.feedback());
+            }
+            persistenceSupport.safeSaveExecution(execution);
+
+            task.startValidation();
+            if (decision.pass()) {
                 task.complete(response);
-                if (persistenceSupport.safeUpdateClaimedTask(task)) {
-                    evaluationSupport.syncBlackboard(plan, task, response);
-                    outcome = "completed";
+                boolean updated = persistenceSupport.safeUpdateClaimedTask(task);
+                context.outcome = updated ? "completed" : "update_guard_reject";
+                if (updated) {
                     persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_COMPLETED, task, persistenceSupport.buildTaskData(task));
                     persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, persistenceSupport.buildTaskLog(task));
-                } else {
-                    outcome = "update_guard_reject";
                 }
             } else {
-                execution.markAsValid("no validator");
-                persistenceSupport.safeSaveExecution(execution);
-
-                task.startValidation();
-                task.complete(response);
-                if (persistenceSupport.safeUpdateClaimedTask(task)) {
-                    evaluationSupport.syncBlackboard(plan, task, response);
-                    outcome = "completed";
-                    persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_COMPLETED, task, persistenceSupport.buildTaskData(task));
+                task.setOutputResult(response);
+                task.resetToPending();
+                boolean updated = persistenceSupport.safeUpdateClaimedTask(task);
+                context.outcome = updated ? "critic_rejected" : "update_guard_reject";
+                if (updated) {
                     persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, persistenceSupport.buildTaskLog(task));
-                } else {
-                    outcome = "update_guard_reject";
                 }
+                evaluationSupport.rollbackTarget(plan, task, decision.feedback());
             }
-        } catch (Exception ex) {
-            errorType = callSupport.classifyError(ex);
-            outcome = "failed";
-            if (execution == null) {
-                execution = new TaskExecutionEntity();
-                execution.setTaskId(task == null ? null : task.getId());
+            return context.result();
+        }
+
+        if (evaluationSupport.needsValidation(task)) {
+            ValidationResult validation = evaluationSupport.evaluateValidation(task, response);
+            if (validation.valid()) {
+                execution.markAsValid(validation.feedback());
+            } else {
+                execution.markAsInvalid(validation.feedback());
             }
-            execution.recordError(ex.getMessage());
-            execution.setErrorType(errorType);
-            execution.setExecutionTime(System.currentTimeMillis());
             persistenceSupport.safeSaveExecution(execution);
 
-            if (task != null) {
-                task.fail(ex.getMessage());
-                if (persistenceSupport.safeUpdateClaimedTask(task)) {
-                    persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_COMPLETED, task, persistenceSupport.buildTaskData(task));
-                    persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, persistenceSupport.buildTaskLog(task));
-                }
-                log.warn("Task execution failed. taskId={}, nodeId={}, error={}",
-                        task.getId(), task.getNodeId(), ex.getMessage());
+            task.startValidation();
+            if (!validation.valid()) {
+                evaluationSupport.handleValidationFailure(task, validation.feedback());
+                context.outcome = "validation_rejected";
+                return context.result();
+            }
+            task.complete(response);
+            if (persistenceSupport.safeUpdateClaimedTask(task)) {
+                evaluationSupport.syncBlackboard(plan, task, response);
+                context.outcome = "completed";
+                persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_COMPLETED, task, persistenceSupport.buildTaskData(task));
+                persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, persistenceSupport.buildTaskLog(task));
             } else {
-                log.warn("Task execution failed before task initialization. error={}", ex.getMessage());
+                context.outcome = "update_guard_reject";
+            }
+        } else {
+            execution.markAsValid("no validator");
+            persistenceSupport.safeSaveExecution(execution);
+
+            task.startValidation();
+            task.complete(response);
+            if (persistenceSupport.safeUpdateClaimedTask(task)) {
+                evaluationSupport.syncBlackboard(plan, task, response);
+                context.outcome = "completed";
+                persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_COMPLETED, task, persistenceSupport.buildTaskData(task));
+                persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, persistenceSupport.buildTaskLog(task));
+            } else {
+                context.outcome = "update_guard_reject";
             }
-        } finally {
-            callSupport.stopHeartbeat(heartbeatFuture);
         }
+        return context.result();
+    }
 
-        return new ExecutionResult(outcome, errorType);
+    private ExecutionResult onFailure(RunContext context,
+                                      Exception ex,
+                                      CallSupport callSupport,
+                                      PersistenceSupport persistenceSupport) {
+        AgentTaskEntity task = context.task;
+        context.errorType = callSupport.classifyError(ex);
+        context.outcome = "failed";
+        TaskExecutionEntity execution = context.execution;
+        if (execution == null) {
+            execution = new TaskExecutionEntity();
+            execution.setTaskId(task == null ? null : task.getId());
+        }
+        execution.recordError(ex.getMessage());
+        execution.setErrorType(context.errorType);
+        execution.setExecutionTime(System.currentTimeMillis());
+        persistenceSupport.safeSaveExecution(execution);
+
+        if (task != null) {
+            task.fail(ex.getMessage());
+            if (persistenceSupport.safeUpdateClaimedTask(task)) {
+                persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_COMPLETED, task, persistenceSupport.buildTaskData(task));
+                persistenceSupport.publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, persistenceSupport.buildTaskLog(task));
+            }
+            log.warn("Task execution failed. taskId={}, nodeId={}, error={}",
+                    task.getId(), task.getNodeId(), ex.getMessage());
+        } else {
+            log.warn("Task execution failed before task initialization. error={}", ex.getMessage());
+        }
+        return context.result();
+    }
+
+    private Throwable unwrap(Throwable throwable) {
+        Throwable current = throwable;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
     }
 
     public interface ExecutionSupport extends CallSupport, EvaluationSupport, PersistenceSupport {
@@ -223,14 +366,23 @@ public class TaskExecutionRunner {
     public interface ClaimSupport {
         boolean hasValidClaim(AgentTaskEntity task);
 
-        ScheduledFuture<?> startHeartbeat(AgentTaskEntity task);
+        void startHeartbeat(AgentTaskEntity task);
 
-        void stopHeartbeat(ScheduledFuture<?> future);
+        void stopHeartbeat(AgentTaskEntity task);
 
         AgentPlanEntity findPlan(Long planId);
 
         boolean releaseClaimForNonExecutablePlan(AgentTaskEntity task, AgentPlanEntity plan);
 
+        boolean releaseClaimForThrottledModel(AgentTaskEntity task, String modelKey);
+
+        /**
+         * 携带限流方给出的等待提示退避归还；默认忽略提示。
+         */
+        default boolean releaseClaimForThrottledModel(AgentTaskEntity task, String modelKey, long retryAfterMs) {
+            return releaseClaimForThrottledModel(task, modelKey);
+        }
+
         void recordRetryDistribution(AgentTaskEntity task);
 
         int resolveAttemptNumber(AgentTaskEntity task);
@@ -251,6 +403,24 @@ public class TaskExecutionRunner {
         ChatClient resolveTaskClient(AgentTaskEntity task, AgentPlanEntity plan, String systemPromptSuffix);
 
         ChatResponse callTaskClientWithTimeout(ChatClient taskClient, String prompt);
+
+        /**
+         * 携带任务上下文的阻塞调用（用于推送增量输出）；默认忽略任务上下文。
+         */
+        default ChatResponse callTaskClientWithTimeout(AgentTaskEntity task, ChatClient taskClient, String prompt) {
+            return callTaskClientWithTimeout(taskClient, prompt);
+        }
+
+        /**
+         * 非阻塞调用；默认退化为同步调用后包装为已完成的 future。
+         */
+        default CompletableFuture<ChatResponse> callTaskClientAsync(AgentTaskEntity task, ChatClient taskClient, String prompt) {
+            try {
+                return CompletableFuture.completedFuture(callTaskClientWithTimeout(task, taskClient, prompt));
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
     }
 
     public interface TimeoutSupport {
@@ -312,6 +482,31 @@ public class TaskExecutionRunner {
     public record ExecutionResult(String outcome, String errorType) {
     }
 
+    private record CallAttempt(long startTime, String prompt, ChatClient taskClient) {
+    }
+
+    /**
+     * 单次执行的可变上下文，同步与异步路径共用。
+     */
+    private static final class RunContext {
+        private final AgentTaskEntity task;
+        private AgentPlanEntity plan;
+        private TaskExecutionEntity execution;
+        private boolean criticTask;
+        private boolean refining;
+        private int timeoutRetryCount;
+        private String outcome = "unknown";
+        private String errorType = "none";
+
+        private RunContext(AgentTaskEntity task) {
+            this.task = task;
+        }
+
+        private ExecutionResult result() {
+            return new ExecutionResult(outcome, errorType);
+        }
+    }
+
     public record ValidationResult(boolean valid, String feedback) {
     }
 
@@ -323,4 +518,30 @@ public class TaskExecutionRunner {
             super(message, cause);
         }
     }
+
+    public static final class TaskModelThrottledException extends RuntimeException {
+        private final String modelKey;
+        private final long retryAfterMs;
+
+        public TaskModelThrottledException(String modelKey) {
+            this(modelKey, 0L);
+        }
+
+        public TaskModelThrottledException(String modelKey, long retryAfterMs) {
+            super("Model limit reached: " + modelKey);
+            this.modelKey = modelKey;
+            this.retryAfterMs = Math.max(retryAfterMs, 0L);
+        }
+
+        public String getModelKey() {
+            return modelKey;
+        }
+
+        /**
+         * 限流方预计的可重试等待（ms），0 表示未知。
+         */
+        public long getRetryAfterMs() {
+            return retryAfterMs;
+        }
+    }
 }
@@ -3,30 +3,36 @@ package com.getoffer.trigger.job;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.getoffer.domain.planning.model.entity.AgentPlanEntity;
-import com.getoffer.domain.task.adapter.repository.IAgentTaskRepository;
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
 import com.getoffer.domain.task.model.entity.TaskExecutionEntity;
 import com.getoffer.trigger.application.command.TaskPersistenceApplicationService;
 import com.getoffer.trigger.event.PlanTaskEventPublisher;
 import com.getoffer.types.enums.PlanTaskEventTypeEnum;
+import com.getoffer.types.enums.TaskTypeEnum;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.metadata.ChatResponseMetadata;
 import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -38,102 +44,108 @@ final class TaskExecutionRuntimeSupport {
 
     private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {};
 
-    private final IAgentTaskRepository agentTaskRepository;
     private final PlanTaskEventPublisher planTaskEventPublisher;
     private final TaskPersistenceApplicationService taskPersistenceApplicationService;
     private final ObjectMapper objectMapper;
     private final MeterRegistry meterRegistry;
     private final ExecutorService taskCallExecutor;
-    private final ScheduledExecutorService heartbeatScheduler;
-    private final int claimLeaseSeconds;
-    private final int claimHeartbeatSeconds;
     private final int executionTimeoutMs;
     private final DistributionSummary executionRetrySummary;
-    private final Counter heartbeatSuccessCounter;
-    private final Counter heartbeatGuardRejectCounter;
-    private final Counter heartbeatErrorCounter;
     private final Counter claimedUpdateSuccessCounter;
     private final Counter claimedUpdateGuardRejectCounter;
     private final Counter claimedUpdateErrorCounter;
     private final String claimOwner;
     private final boolean auditLogEnabled;
     private final boolean auditSuccessLogEnabled;
-
-    TaskExecutionRuntimeSupport(IAgentTaskRepository agentTaskRepository,
-                                PlanTaskEventPublisher planTaskEventPublisher,
+    private final boolean outputDeltaEnabled;
+    private final int outputDeltaMinChars;
+    private final long outputDeltaFlushIntervalMs;
+    private final Counter outputDeltaCounter;
+    private final long throttleReleaseBackoffMs;
+    private final long throttleReleaseBackoffMaxMs;
+
+    TaskExecutionRuntimeSupport(PlanTaskEventPublisher planTaskEventPublisher,
                                 TaskPersistenceApplicationService taskPersistenceApplicationService,
                                 ObjectMapper objectMapper,
                                 MeterRegistry meterRegistry,
                                 ExecutorService taskCallExecutor,
-                                ScheduledExecutorService heartbeatScheduler,
-                                int claimLeaseSeconds,
-                                int claimHeartbeatSeconds,
                                 int executionTimeoutMs,
                                 DistributionSummary executionRetrySummary,
-                                Counter heartbeatSuccessCounter,
-                                Counter heartbeatGuardRejectCounter,
-                                Counter heartbeatErrorCounter,
                                 Counter claimedUpdateSuccessCounter,
                                 Counter claimedUpdateGuardRejectCounter,
                                 Counter claimedUpdateErrorCounter,
                                 String claimOwner,
                                 boolean auditLogEnabled,
-                                boolean auditSuccessLogEnabled) {
-        this.agentTaskRepository = agentTaskRepository;
+                                boolean auditSuccessLogEnabled,
+                                boolean outputDeltaEnabled,
+                                int outputDeltaMinChars,
+                                long outputDeltaFlushIntervalMs,
+                                long throttleReleaseBackoffMs,
+                                long throttleReleaseBackoffMaxMs) {
         this.planTaskEventPublisher = planTaskEventPublisher;
         this.taskPersistenceApplicationService = taskPersistenceApplicationService;
         this.objectMapper = objectMapper;
         this.meterRegistry = meterRegistry;
         this.taskCallExecutor = taskCallExecutor;
-        this.heartbeatScheduler = heartbeatScheduler;
-        this.claimLeaseSeconds = claimLeaseSeconds;
-        this.claimHeartbeatSeconds = claimHeartbeatSeconds;
         this.executionTimeoutMs = executionTimeoutMs;
         this.executionRetrySummary = executionRetrySummary;
-        this.heartbeatSuccessCounter = heartbeatSuccessCounter;
-        this.heartbeatGuardRejectCounter = heartbeatGuardRejectCounter;
-        this.heartbeatErrorCounter = heartbeatErrorCounter;
         this.claimedUpdateSuccessCounter = claimedUpdateSuccessCounter;
         this.claimedUpdateGuardRejectCounter = claimedUpdateGuardRejectCounter;
         this.claimedUpdateErrorCounter = claimedUpdateErrorCounter;
         this.claimOwner = StringUtils.defaultIfBlank(claimOwner, "unknown");
         this.auditLogEnabled = auditLogEnabled;
         this.auditSuccessLogEnabled = auditSuccessLogEnabled;
+        this.outputDeltaEnabled = outputDeltaEnabled;
+        this.outputDeltaMinChars = outputDeltaMinChars;
+        this.outputDeltaFlushIntervalMs = outputDeltaFlushIntervalMs;
+        this.outputDeltaCounter = meterRegistry.counter("agent.task.output.delta.total");
+        this.throttleReleaseBackoffMs = Math.max(throttleReleaseBackoffMs, 0L);
+        this.throttleReleaseBackoffMaxMs = Math.max(throttleReleaseBackoffMaxMs, this.throttleReleaseBackoffMs);
     }
 
-    ScheduledFuture<?> startHeartbeat(AgentTaskEntity task) {
-        if (task == null || task.getId() == null || StringUtils.isBlank(task.getClaimOwner())
-                || task.getExecutionAttempt() == null || claimHeartbeatSeconds <= 0) {
-            return null;
+    boolean releaseClaimForNonExecutablePlan(AgentTaskEntity task, AgentPlanEntity plan) {
+        return releaseClaimToDispatchQueue(task, "claimed_release_non_executable_plan",
+                "plan_status=" + (plan == null || plan.getStatus() == null ? "null" : plan.getStatus().name()));
+    }
+
+    /**
+     * 模型限流时退避归还 claim：退避期内不会被再次 claim，不发 ready 唤醒、不计入执行次数，
+     * 只记审计不推送 TASK_LOG，避免限流未解除时 claim -> 归还 -> claim 空转。
+     * 配额限流给出的等待提示（retryAfterMs）长于最短退避时以提示为准，使任务在配额回填后才重新参与 claim。
+     */
+    boolean releaseClaimForThrottledModel(AgentTaskEntity task, String modelKey, long retryAfterMs) {
+        if (task == null) {
+            return false;
         }
-        return heartbeatScheduler.scheduleAtFixedRate(() -> {
-            try {
-                boolean renewed = agentTaskRepository.renewClaimLease(
-                        task.getId(), task.getClaimOwner(), task.getExecutionAttempt(), claimLeaseSeconds);
-                if (!renewed) {
-                    heartbeatGuardRejectCounter.increment();
-                    log.debug("Claim lease renew skipped. taskId={}, owner={}, attempt={}",
-                            task.getId(), task.getClaimOwner(), task.getExecutionAttempt());
-                    emitTaskAudit("lease_renew_guard_reject", task, "renewed=false");
-                } else {
-                    heartbeatSuccessCounter.increment();
-                }
-            } catch (Exception ex) {
-                heartbeatErrorCounter.increment();
-                log.warn("Failed to renew claim lease. taskId={}, owner={}, attempt={}, error={}",
-                        task.getId(), task.getClaimOwner(), task.getExecutionAttempt(), ex.getMessage());
-                emitTaskAudit("lease_renew_error", task, "error_type=" + classifyError(ex));
+        long backoffMs = resolveThrottleBackoffMs(retryAfterMs);
+        try {
+            task.rollbackToDispatchQueue();
+            boolean deferred = recordClaimedUpdateResult(task,
+                    taskPersistenceApplicationService.deferClaimedTask(task, backoffMs));
+            if (deferred) {
+                emitTaskAudit("claimed_release_model_throttled", task, "model=" + modelKey + ", backoff_ms=" + backoffMs);
             }
-        }, claimHeartbeatSeconds, claimHeartbeatSeconds, TimeUnit.SECONDS);
+            return deferred;
+        } catch (Exception ex) {
+            log.warn("Failed to defer throttled task. taskId={}, planId={}, model={}, error={}",
+                    task.getId(), task.getPlanId(), modelKey, ex.getMessage());
+            emitTaskAudit("claimed_release_model_throttled_failed", task, "error_type=" + classifyError(ex));
+            return false;
+        }
     }
 
-    void stopHeartbeat(ScheduledFuture<?> future) {
-        if (future != null) {
-            future.cancel(false);
+    /**
+     * 退避时长叠加最多 20% 的随机抖动，避免同一模型下被限流的任务在同一时刻集中回到派发队列。
+     */
+    private long resolveThrottleBackoffMs(long retryAfterMs) {
+        long backoffMs = Math.max(throttleReleaseBackoffMs, retryAfterMs);
+        if (backoffMs > 0L) {
+            backoffMs += ThreadLocalRandom.current().nextLong(backoffMs / 5 + 1);
         }
+        return Math.min(backoffMs, throttleReleaseBackoffMaxMs);
     }
 
-    boolean releaseClaimForNonExecutablePlan(AgentTaskEntity task, AgentPlanEntity plan) {
+    private boolean releaseClaimToDispatchQueue(AgentTaskEntity task, String auditEvent, String detail) {
         if (task == null) {
             return false;
         }
@@ -141,15 +153,14 @@ final class TaskExecutionRuntimeSupport {
             task.rollbackToDispatchQueue();
             boolean updated = safeUpdateClaimedTask(task);
             if (updated) {
-                emitTaskAudit("claimed_release_non_executable_plan", task,
-                        "plan_status=" + (plan == null || plan.getStatus() == null ? "null" : plan.getStatus().name()));
+                emitTaskAudit(auditEvent, task, detail);
                 publishTaskEvent(PlanTaskEventTypeEnum.TASK_LOG, task, buildTaskLog(task));
             }
             return updated;
         } catch (Exception ex) {
-            log.warn("Failed to release claimed task for non-executable plan. taskId={}, planId={}, error={}",
-                    task.getId(), task.getPlanId(), ex.getMessage());
-            emitTaskAudit("claimed_release_non_executable_plan_failed", task, "error_type=" + classifyError(ex));
+            log.warn("Failed to release claimed task to dispatch queue. taskId={}, planId={}, reason={}, error={}",
+                    task.getId(), task.getPlanId(), auditEvent, ex.getMessage());
+            emitTaskAudit(auditEvent + "_failed", task, "error_type=" + classifyError(ex));
             return false;
         }
     }
@@ -162,8 +173,45 @@ final class TaskExecutionRuntimeSupport {
         executionRetrySummary.record(retry);
     }
 
+    /**
+     * 为显式开启增量输出的 Worker 任务创建推送器；全局开关关闭、任务未开启或 Critic 任务（输出为评审 JSON）返回 null。
+     * 开启后阻塞调用改走 stream()，Usage 只能取自流式分片（取决于供应商是否在流中返回用量），因此按任务开启而非默认全开。
+     */
+    TaskOutputDeltaStreamer openOutputDeltaStreamer(AgentTaskEntity task) {
+        if (!outputDeltaEnabled || task == null || task.getPlanId() == null || task.getTaskType() == TaskTypeEnum.CRITIC
+                || !isOutputDeltaRequested(task.getConfigSnapshot())) {
+            return null;
+        }
+        return new TaskOutputDeltaStreamer(planTaskEventPublisher, task, outputDeltaMinChars,
+                outputDeltaFlushIntervalMs, outputDeltaCounter);
+    }
+
+    /**
+     * 任务配置 outputDelta / output_delta 为 true 或 {enabled: true} 时开启增量输出。
+     */
+    private boolean isOutputDeltaRequested(Map<String, Object> configSnapshot) {
+        if (configSnapshot == null || configSnapshot.isEmpty()) {
+            return false;
+        }
+        Object value = configSnapshot.containsKey("outputDelta") ? configSnapshot.get("outputDelta") : configSnapshot.get("output_delta");
+        if (value instanceof Map<?, ?> valueMap) {
+            value = valueMap.get("enabled");
+        }
+        return value != null && Boolean.parseBoolean(String.valueOf(value).trim());
+    }
+
     ChatResponse callTaskClientWithTimeout(ChatClient taskClient, String prompt) {
+        return callTaskClientWithTimeout(taskClient, prompt, null);
+    }
+
+    /**
+     * 阻塞调用；传入 deltaStreamer 时改走 stream() 并在调用线程内聚合，超时语义不变。
+     */
+    ChatResponse callTaskClientWithTimeout(ChatClient taskClient, String prompt, TaskOutputDeltaStreamer deltaStreamer) {
         Future<ChatResponse> future = taskCallExecutor.submit(() -> {
+            if (deltaStreamer != null) {
+                return streamResponse(taskClient, prompt, deltaStreamer).block();
+            }
             ChatClient.CallResponseSpec callResponse = taskClient.prompt(prompt).call();
             return callResponse == null ? null : callResponse.chatResponse();
         });
@@ -185,6 +233,58 @@ final class TaskExecutionRuntimeSupport {
         }
     }
 
+    /**
+     * 流式调用：订阅 stream() 并在响应式链路上聚合分片、施加整体超时，等待期间不占用线程；
+     * future 被取消时会取消上游订阅。
+     */
+    CompletableFuture<ChatResponse> streamTaskClientWithTimeout(ChatClient taskClient,
+                                                                String prompt,
+                                                                TaskOutputDeltaStreamer deltaStreamer) {
+        return withCallTimeout(streamResponse(taskClient, prompt, deltaStreamer));
+    }
+
+    /**
+     * 对任意响应式调用链施加整体超时，超时映射为 TaskCallTimeoutException。
+     */
+    CompletableFuture<ChatResponse> withCallTimeout(Mono<ChatResponse> call) {
+        return call
+                .timeout(Duration.ofMillis(executionTimeoutMs))
+                .onErrorMap(TimeoutException.class, ex -> new TaskExecutionRunner.TaskCallTimeoutException(
+                        "Task execution timed out after " + executionTimeoutMs + " ms", ex))
+                .toFuture();
+    }
+
+    /**
+     * 在当前线程等待响应式调用完成（超时已由 {@link #withCallTimeout} 施加）；线程被中断时取消调用。
+     */
+    ChatResponse awaitCall(CompletableFuture<ChatResponse> callFuture) {
+        try {
+            return callFuture.get();
+        } catch (InterruptedException ex) {
+            callFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Task execution interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause == null ? "Task execution failed" : cause.getMessage(), cause);
+        }
+    }
+
+    Mono<ChatResponse> streamResponse(ChatClient taskClient, String prompt, TaskOutputDeltaStreamer deltaStreamer) {
+        Flux<ChatResponse> chunks = taskClient.prompt(prompt).stream().chatResponse();
+        if (deltaStreamer != null) {
+            chunks = chunks
+                    .doOnNext(chunk -> deltaStreamer.append(StreamedResponseAggregate.textOf(chunk)))
+                    .doOnComplete(deltaStreamer::complete);
+        }
+        return chunks
+                .reduceWith(StreamedResponseAggregate::new, StreamedResponseAggregate::append)
+                .map(StreamedResponseAggregate::toChatResponse);
+    }
+
     void persistTimeoutExecution(TaskExecutionEntity execution,
                                  long startTime,
                                  TaskExecutionRunner.TaskCallTimeoutException timeoutException) {
@@ -212,9 +312,11 @@ final class TaskExecutionRuntimeSupport {
     }
 
     boolean safeUpdateClaimedTask(AgentTaskEntity task) {
-        TaskPersistenceApplicationService.ClaimedTaskUpdateResult result =
-                taskPersistenceApplicationService.updateClaimedTask(task);
+        return recordClaimedUpdateResult(task, taskPersistenceApplicationService.updateClaimedTask(task));
+    }
 
+    private boolean recordClaimedUpdateResult(AgentTaskEntity task,
+                                              TaskPersistenceApplicationService.ClaimedTaskUpdateResult result) {
         if (result.outcome() == TaskPersistenceApplicationService.ClaimedTaskUpdateOutcome.UPDATED) {
             claimedUpdateSuccessCounter.increment();
             return true;
@@ -292,6 +394,14 @@ final class TaskExecutionRuntimeSupport {
         }
     }
 
+    void auditLeaseRenewGuardReject(AgentTaskEntity task) {
+        emitTaskAudit("lease_renew_guard_reject", task, "renewed=false");
+    }
+
+    void auditLeaseRenewError(AgentTaskEntity task, Throwable throwable) {
+        emitTaskAudit("lease_renew_error", task, "error_type=" + classifyError(throwable));
+    }
+
     void auditDispatchRejected(AgentTaskEntity task) {
         emitTaskAudit("dispatch_rejected", task, "error_type=rejected");
     }
@@ -467,4 +577,59 @@ final class TaskExecutionRuntimeSupport {
                 task.getExecutionAttempt(),
                 normalizedDetail);
     }
+
+    /**
+     * 流式分片聚合：拼接文本，保留最后出现的模型名、用量与响应 id，与阻塞调用的 ChatResponse 结构对齐。
+     */
+    private static final class StreamedResponseAggregate {
+        private final StringBuilder content = new StringBuilder();
+        private String id;
+        private String model;
+        private Usage usage;
+
+        private StreamedResponseAggregate append(ChatResponse chunk) {
+            if (chunk == null) {
+                return this;
+            }
+            String text = textOf(chunk);
+            if (text != null) {
+                content.append(text);
+            }
+            ChatResponseMetadata metadata = chunk.getMetadata();
+            if (metadata != null) {
+                if (StringUtils.isNotBlank(metadata.getId())) {
+                    id = metadata.getId();
+                }
+                if (StringUtils.isNotBlank(metadata.getModel())) {
+                    model = metadata.getModel();
+                }
+                Usage chunkUsage = metadata.getUsage();
+                if (chunkUsage != null && chunkUsage.getTotalTokens() != null && chunkUsage.getTotalTokens() > 0) {
+                    usage = chunkUsage;
+                }
+            }
+            return this;
+        }
+
+        private static String textOf(ChatResponse chunk) {
+            if (chunk == null || chunk.getResult() == null || chunk.getResult().getOutput() == null) {
+                return null;
+            }
+            return chunk.getResult().getOutput().getText();
+        }
+
+        private ChatResponse toChatResponse() {
+            ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder();
+            if (id != null) {
+                metadata.id(id);
+            }
+            if (model != null) {
+                metadata.model(model);
+            }
+            if (usage != null) {
+                metadata.usage(usage);
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(content.toString()))), metadata.build());
+        }
+    }
 }
@@ -15,6 +15,7 @@ import com.getoffer.domain.task.service.TaskJsonDomainService;
 import com.getoffer.domain.task.service.TaskPromptDomainService;
 import com.getoffer.domain.task.service.TaskRecoveryDomainService;
 import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.domain.task.model.valobj.PlanAffinityScope;
 import com.getoffer.trigger.application.command.TaskPersistenceApplicationService;
 import com.getoffer.trigger.event.PlanTaskEventPublisher;
 import io.micrometer.core.instrument.Counter;
@@ -27,8 +28,8 @@ import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -37,17 +38,27 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Task executor: run READY tasks, write results, and sync blackboard.
@@ -60,6 +71,13 @@ public class TaskExecutor {
     private static final String METRIC_EXECUTION_DURATION = "agent.task.execution.duration";
     private static final String METRIC_EXECUTION_FAILURE_TOTAL = "agent.task.execution.failure.total";
     private static final int PLAN_CONTEXT_UPDATE_MAX_RETRY = 3;
+    private static final int ADAPTIVE_ADDITIVE_STEP_DIVISOR = 10;
+    private static final double ADAPTIVE_DECREASE_FACTOR = 0.5D;
+    private static final double ADAPTIVE_RECLAIM_RATIO_THRESHOLD = 0.2D;
+    private static final double MODEL_LIMIT_SMOOTHING = 0.2D;
+    private static final double MODEL_LIMIT_BACKOFF_RATIO = 0.9D;
+    private static final int MODEL_LIMIT_LONG_WINDOW = 100;
+    private static final long DRAIN_POLL_INTERVAL_MS = 50L;
 
     private final IAgentTaskRepository agentTaskRepository;
     private final TaskDispatchDomainService taskDispatchDomainService;
@@ -71,9 +89,15 @@ public class TaskExecutor {
     private final double refiningMaxRatio;
     private final int refiningMinPerTick;
     private final ThreadPoolExecutor taskExecutionWorker;
-    private final ExecutorService taskCallExecutor;
+    private final ThreadPoolExecutor taskCallExecutor;
+    private final boolean streamingExecution;
     private final Semaphore dispatchPermits;
     private final AtomicInteger inFlightTasks;
+    private final ConcurrentMap<Long, AgentTaskEntity> heldClaims;
+    private final AtomicBoolean draining;
+    private final ReadWriteLock claimRoundLock;
+    private final boolean drainEnabled;
+    private final long drainTimeoutMs;
     private final ScheduledExecutorService heartbeatScheduler;
     private final AtomicLong monitorTick;
     private final AtomicLong expiredRunningGauge;
@@ -88,24 +112,68 @@ public class TaskExecutor {
     private final Counter claimReadyFallbackCounter;
     private final Counter claimRefiningFallbackCounter;
     private final DistributionSummary claimAttemptSummary;
+    private final DistributionSummary claimPlanShareSummary;
+    private final DistributionSummary claimTopPlanShareSummary;
+    private final DistributionSummary claimRoundPlansSummary;
     private final Counter heartbeatSuccessCounter;
     private final Counter heartbeatGuardRejectCounter;
     private final Counter heartbeatErrorCounter;
+    private final Counter heartbeatBatchCounter;
+    private final Counter leaseLostAbortCounter;
     private final Counter claimedUpdateSuccessCounter;
     private final Counter claimedUpdateGuardRejectCounter;
     private final Counter claimedUpdateErrorCounter;
     private final Counter dispatchSuccessCounter;
     private final Counter dispatchRejectCounter;
+    private final Counter drainReleasedCounter;
     private final DistributionSummary claimToStartLatencySummary;
     private final DistributionSummary executionRetrySummary;
     private final Counter expiredRunningDetectedCounter;
     private final Counter expiredRunningCheckErrorCounter;
     private final TaskExecutionRuntimeSupport taskExecutionRuntimeSupport;
+    private final TaskClaimLeaseManager taskClaimLeaseManager;
+    private final TaskClaimAdaptiveController claimAdaptiveController;
+    private final TaskModelConcurrencyLimiter taskModelConcurrencyLimiter;
+    private final TaskModelRateLimiter taskModelRateLimiter;
     private final TaskExecutionRunner taskExecutionRunner;
     private final TaskExecutionRunner.CallSupport callSupport;
     private final TaskExecutionRunner.EvaluationSupport evaluationSupport;
     private final TaskExecutionRunner.PersistenceSupport persistenceSupport;
+    private final TaskPersistenceApplicationService taskPersistenceApplicationService;
+    private final ExecutorMembership executorMembership;
+    private final TaskPlanContextCache taskPlanContextCache;
+    private final Counter claimAffinityOwnedCounter;
+    private final Counter claimAffinityForeignCounter;
+    private final Counter claimStealCounter;
 
+    public TaskExecutor(IAgentTaskRepository agentTaskRepository,
+                        IAgentPlanRepository agentPlanRepository,
+                        PlanTaskEventPublisher planTaskEventPublisher,
+                        ITaskExecutionRepository taskExecutionRepository,
+                        IAgentFactory agentFactory,
+                        IAgentRegistryRepository agentRegistryRepository,
+                        TaskAgentSelectionDomainService taskAgentSelectionDomainService,
+                        TaskDispatchDomainService taskDispatchDomainService,
+                        TaskExecutionDomainService taskExecutionDomainService,
+                        TaskPromptDomainService taskPromptDomainService,
+                        TaskEvaluationDomainService taskEvaluationDomainService,
+                        TaskRecoveryDomainService taskRecoveryDomainService,
+                        TaskBlackboardDomainService taskBlackboardDomainService,
+                        TaskJsonDomainService taskJsonDomainService,
+                        TaskPersistenceApplicationService taskPersistenceApplicationService,
+                        ObjectMapper objectMapper,
+                        ThreadPoolExecutor taskExecutionWorker,
+                        ObjectProvider<MeterRegistry> meterRegistryProvider,
+                        TaskExecutorProperties properties) {
+        this(agentTaskRepository, agentPlanRepository, planTaskEventPublisher, taskExecutionRepository, agentFactory,
+                agentRegistryRepository, taskAgentSelectionDomainService, taskDispatchDomainService,
+                taskExecutionDomainService, taskPromptDomainService, taskEvaluationDomainService,
+                taskRecoveryDomainService, taskBlackboardDomainService, taskJsonDomainService,
+                taskPersistenceApplicationService, objectMapper, taskExecutionWorker, meterRegistryProvider,
+                properties, new ExecutorMembership());
+    }
+
+    @Autowired
     public TaskExecutor(IAgentTaskRepository agentTaskRepository,
                         IAgentPlanRepository agentPlanRepository,
                         PlanTaskEventPublisher planTaskEventPublisher,
@@ -124,41 +192,48 @@ public class TaskExecutor {
                         ObjectMapper objectMapper,
                         @Qualifier("taskExecutionWorker") ThreadPoolExecutor taskExecutionWorker,
                         ObjectProvider<MeterRegistry> meterRegistryProvider,
-                        @Value("${executor.instance-id:}") String configuredInstanceId,
-                        @Value("${executor.claim.batch-size:100}") int claimBatchSize,
-                        @Value("${executor.claim.max-per-tick:100}") int claimMaxPerTick,
-                        @Value("${executor.claim.ready-first:true}") boolean claimReadyFirst,
-                        @Value("${executor.claim.refining-max-ratio:0.3}") double refiningMaxRatio,
-                        @Value("${executor.claim.refining-min-per-tick:1}") int refiningMinPerTick,
-                        @Value("${executor.claim.lease-seconds:120}") int claimLeaseSeconds,
-                        @Value("${executor.claim.heartbeat-seconds:30}") int claimHeartbeatSeconds,
-                        @Value("${executor.execution.timeout-ms:120000}") int executionTimeoutMs,
-                        @Value("${executor.execution.timeout-retry-max:1}") int executionTimeoutRetryMax,
-                        @Value("${executor.agent.fallback-worker-keys:worker,assistant,java_coder,default}") String workerFallbackAgentKeys,
-                        @Value("${executor.agent.fallback-critic-keys:critic,assistant,java_coder,default}") String criticFallbackAgentKeys,
-                        @Value("${executor.agent.default-cache-ttl-ms:30000}") long defaultAgentCacheTtlMs,
-                        @Value("${executor.observability.audit-log-enabled:true}") boolean auditLogEnabled,
-                        @Value("${executor.observability.audit-success-log-enabled:false}") boolean auditSuccessLogEnabled) {
+                        TaskExecutorProperties properties,
+                        @Autowired(required = false) ExecutorMembership executorMembership) {
+        TaskExecutorProperties settings = properties == null ? new TaskExecutorProperties() : properties;
+        TaskExecutorProperties.Claim claim = settings.getClaim();
+        TaskExecutorProperties.Execution execution = settings.getExecution();
+        TaskExecutorProperties.ModelLimit modelLimit = settings.getModelLimit();
+        TaskExecutorProperties.ModelRateLimit modelRateLimit = settings.getModelRateLimit();
+        TaskExecutorProperties.Hedge hedge = settings.getHedge();
         this.agentTaskRepository = agentTaskRepository;
+        this.taskPersistenceApplicationService = taskPersistenceApplicationService;
         this.taskDispatchDomainService = taskDispatchDomainService;
         this.taskExecutionWorker = taskExecutionWorker;
         this.meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
-        this.claimOwner = resolveInstanceId(configuredInstanceId);
-        this.claimBatchSize = claimBatchSize > 0 ? claimBatchSize : 100;
-        this.claimMaxPerTick = claimMaxPerTick > 0 ? claimMaxPerTick : this.claimBatchSize;
-        this.claimReadyFirst = claimReadyFirst;
+        this.claimOwner = resolveInstanceId(settings.getInstanceId());
+        this.executorMembership = executorMembership != null ? executorMembership : new ExecutorMembership();
+        this.claimBatchSize = claim.getBatchSize() > 0 ? claim.getBatchSize() : 100;
+        this.claimMaxPerTick = claim.getMaxPerTick() > 0 ? claim.getMaxPerTick() : this.claimBatchSize;
+        this.claimReadyFirst = claim.isReadyFirst();
+        double refiningMaxRatio = claim.getRefiningMaxRatio();
         double normalizedRatio = Double.isNaN(refiningMaxRatio) || Double.isInfinite(refiningMaxRatio) ? 0.3D : refiningMaxRatio;
         this.refiningMaxRatio = Math.max(0D, Math.min(normalizedRatio, 1D));
-        this.refiningMinPerTick = Math.max(refiningMinPerTick, 0);
-        this.claimLeaseSeconds = claimLeaseSeconds > 0 ? claimLeaseSeconds : 120;
-        int normalizedClaimHeartbeatSeconds = claimHeartbeatSeconds > 0 ? claimHeartbeatSeconds : 30;
-        int normalizedExecutionTimeoutMs = executionTimeoutMs > 0 ? executionTimeoutMs : 120000;
-        int normalizedExecutionTimeoutRetryMax = Math.max(executionTimeoutRetryMax, 0);
-        int maxInflight = Math.max(taskExecutionWorker.getMaximumPoolSize(), 1);
+        this.refiningMinPerTick = Math.max(claim.getRefiningMinPerTick(), 0);
+        this.claimLeaseSeconds = claim.getLeaseSeconds() > 0 ? claim.getLeaseSeconds() : 120;
+        int normalizedClaimHeartbeatSeconds = claim.getHeartbeatSeconds() > 0 ? claim.getHeartbeatSeconds() : 30;
+        int normalizedExecutionTimeoutMs = execution.getTimeoutMs() > 0 ? execution.getTimeoutMs() : 120000;
+        int normalizedExecutionTimeoutRetryMax = Math.max(execution.getTimeoutRetryMax(), 0);
+        int workerMaxSize = Math.max(taskExecutionWorker.getMaximumPoolSize(), 1);
+        this.streamingExecution = "streaming".equalsIgnoreCase(StringUtils.trimToEmpty(execution.getMode()));
+        // 流式模式下模型调用不占线程，in-flight 上限与线程数解耦
+        int maxInflight = streamingExecution ? Math.max(execution.getStreaming().getMaxInflight(), workerMaxSize) : workerMaxSize;
         this.dispatchPermits = new Semaphore(maxInflight);
+        this.executorMembership.bindLoad(() -> maxInflight, () -> maxInflight - dispatchPermits.availablePermits());
         this.inFlightTasks = new AtomicInteger(0);
+        this.heldClaims = new ConcurrentHashMap<>();
+        this.draining = new AtomicBoolean(false);
+        this.claimRoundLock = new ReentrantReadWriteLock();
+        this.drainEnabled = settings.getDrain().isEnabled();
+        this.drainTimeoutMs = Math.max(settings.getDrain().getTimeoutMs(), 0L);
         AtomicInteger taskCallThreadCounter = new AtomicInteger(0);
-        this.taskCallExecutor = Executors.newFixedThreadPool(maxInflight, runnable -> {
+        // 流式模式下每个 in-flight 任务同一时刻至多排队一个派发或续跑，队列按 max-inflight 定界即不会拒绝续跑
+        this.taskCallExecutor = new ThreadPoolExecutor(workerMaxSize, workerMaxSize, 0L, TimeUnit.MILLISECONDS,
+                streamingExecution ? new ArrayBlockingQueue<>(maxInflight) : new LinkedBlockingQueue<>(), runnable -> {
             Thread thread = new Thread(runnable, "task-llm-call-" + taskCallThreadCounter.incrementAndGet());
             thread.setDaemon(true);
             return thread;
@@ -179,18 +254,36 @@ public class TaskExecutor {
         this.claimRefiningCounter = counter("agent.task.claim.refining.count");
         this.claimReadyFallbackCounter = counter("agent.task.claim.ready.fallback.count");
         this.claimRefiningFallbackCounter = counter("agent.task.claim.refining.fallback.count");
+        this.claimAffinityOwnedCounter = counter("agent.task.claim.affinity.owned.count");
+        this.claimAffinityForeignCounter = counter("agent.task.claim.affinity.foreign.count");
+        this.claimStealCounter = counter("agent.task.claim.steal.count");
         this.claimAttemptSummary = DistributionSummary.builder("agent.task.claim.execution_attempt")
-                .description("Claim 成功任务的 execution_attempt 分布")
+                .description("Claim 成功任务的 execution_attempt 分布（不含限流退避）")
                 .baseUnit("attempt")
                 .register(meterRegistry);
+        this.claimPlanShareSummary = DistributionSummary.builder("agent.task.claim.plan_share")
+                .description("单轮 claim 中每个 plan 占本轮 claim 数的比例")
+                .baseUnit("ratio")
+                .register(meterRegistry);
+        this.claimTopPlanShareSummary = DistributionSummary.builder("agent.task.claim.top_plan_share")
+                .description("单轮 claim 中占比最高的 plan 的比例")
+                .baseUnit("ratio")
+                .register(meterRegistry);
+        this.claimRoundPlansSummary = DistributionSummary.builder("agent.task.claim.round.plans")
+                .description("单轮 claim 覆盖的 plan 数")
+                .baseUnit("plan")
+                .register(meterRegistry);
         this.heartbeatSuccessCounter = counter("agent.task.heartbeat.success.total");
         this.heartbeatGuardRejectCounter = counter("agent.task.heartbeat.guard_reject.total");
         this.heartbeatErrorCounter = counter("agent.task.heartbeat.error.total");
+        this.heartbeatBatchCounter = counter("agent.task.heartbeat.batch.total");
+        this.leaseLostAbortCounter = counter("agent.task.heartbeat.lease_lost_abort.total");
         this.claimedUpdateSuccessCounter = counter("agent.task.claimed_update.success.total");
         this.claimedUpdateGuardRejectCounter = counter("agent.task.claimed_update.guard_reject.total");
         this.claimedUpdateErrorCounter = counter("agent.task.claimed_update.error.total");
         this.dispatchSuccessCounter = counter("agent.task.dispatch.success.total");
         this.dispatchRejectCounter = counter("agent.task.dispatch.reject.total");
+        this.drainReleasedCounter = counter("agent.task.drain.released.total");
         this.claimToStartLatencySummary = DistributionSummary.builder("agent.task.claim_to_start.latency")
                 .description("任务 claim 到执行开始的延迟分布")
                 .baseUnit("ms")
@@ -202,31 +295,67 @@ public class TaskExecutor {
         this.expiredRunningDetectedCounter = counter("agent.task.expired_running.detected.total");
         this.expiredRunningCheckErrorCounter = counter("agent.task.expired_running.check_error.total");
         List<String> normalizedWorkerFallbackAgentKeys =
-                taskAgentSelectionDomainService.parseFallbackAgentKeys(workerFallbackAgentKeys, "worker", "assistant");
+                taskAgentSelectionDomainService.parseFallbackAgentKeys(settings.getAgent().getFallbackWorkerKeys(), "worker", "assistant");
         List<String> normalizedCriticFallbackAgentKeys =
-                taskAgentSelectionDomainService.parseFallbackAgentKeys(criticFallbackAgentKeys, "critic", "assistant");
-        long normalizedDefaultAgentCacheTtlMs = defaultAgentCacheTtlMs > 0 ? defaultAgentCacheTtlMs : 30000L;
+                taskAgentSelectionDomainService.parseFallbackAgentKeys(settings.getAgent().getFallbackCriticKeys(), "critic", "assistant");
+        long normalizedDefaultAgentCacheTtlMs = settings.getAgent().getDefaultCacheTtlMs() > 0 ? settings.getAgent().getDefaultCacheTtlMs() : 30000L;
         this.taskExecutionRuntimeSupport = new TaskExecutionRuntimeSupport(
-                agentTaskRepository,
                 planTaskEventPublisher,
                 taskPersistenceApplicationService,
                 objectMapper,
                 meterRegistry,
                 taskCallExecutor,
-                heartbeatScheduler,
-                this.claimLeaseSeconds,
-                normalizedClaimHeartbeatSeconds,
                 normalizedExecutionTimeoutMs,
                 executionRetrySummary,
-                heartbeatSuccessCounter,
-                heartbeatGuardRejectCounter,
-                heartbeatErrorCounter,
                 claimedUpdateSuccessCounter,
                 claimedUpdateGuardRejectCounter,
                 claimedUpdateErrorCounter,
                 this.claimOwner,
-                auditLogEnabled,
-                auditSuccessLogEnabled
+                settings.getObservability().isAuditLogEnabled(),
+                settings.getObservability().isAuditSuccessLogEnabled(),
+                execution.getOutputDelta().isEnabled(),
+                execution.getOutputDelta().getMinChars() > 0 ? execution.getOutputDelta().getMinChars() : 32,
+                execution.getOutputDelta().getFlushIntervalMs(),
+                modelLimit.getReleaseBackoffMs(),
+                modelLimit.getReleaseBackoffMaxMs()
+        );
+        this.taskClaimLeaseManager = new TaskClaimLeaseManager(
+                agentTaskRepository,
+                this.taskExecutionRuntimeSupport,
+                heartbeatScheduler,
+                this.claimLeaseSeconds,
+                normalizedClaimHeartbeatSeconds,
+                claim.getRenewBatchSize() > 0 ? claim.getRenewBatchSize() : 500,
+                heartbeatSuccessCounter,
+                heartbeatGuardRejectCounter,
+                heartbeatErrorCounter,
+                heartbeatBatchCounter,
+                leaseLostAbortCounter
+        );
+        int normalizedModelLimitMax = modelLimit.getMaxLimit() > 0 ? Math.min(modelLimit.getMaxLimit(), maxInflight) : maxInflight;
+        this.taskModelConcurrencyLimiter = new TaskModelConcurrencyLimiter(
+                taskDispatchDomainService,
+                new TaskDispatchDomainService.ConcurrencyLimitPolicy(
+                        Math.max(Math.min(modelLimit.getMinLimit(), normalizedModelLimitMax), 1),
+                        normalizedModelLimitMax,
+                        modelLimit.getRttTolerance(),
+                        MODEL_LIMIT_SMOOTHING,
+                        MODEL_LIMIT_BACKOFF_RATIO,
+                        MODEL_LIMIT_LONG_WINDOW),
+                modelLimit.isEnabled(),
+                modelLimit.getInitialLimit() > 0 ? modelLimit.getInitialLimit() : normalizedModelLimitMax,
+                modelLimit.getAcquireWaitMs(),
+                meterRegistry
+        );
+        this.taskModelRateLimiter = new TaskModelRateLimiter(
+                taskDispatchDomainService,
+                modelRateLimit.isEnabled(),
+                modelRateLimit.getRequestsPerMinute(),
+                modelRateLimit.getTokensPerMinute(),
+                modelRateLimit.getOverrides(),
+                modelRateLimit.getEstimatedCompletionTokens(),
+                modelRateLimit.getMaxWaitMs(),
+                meterRegistry
         );
         this.taskExecutionRunner = new TaskExecutionRunner();
         TaskExecutionClientResolver taskExecutionClientResolver = new TaskExecutionClientResolver(
@@ -250,25 +379,63 @@ public class TaskExecutor {
                 objectMapper,
                 PLAN_CONTEXT_UPDATE_MAX_RETRY
         );
+        this.taskPlanContextCache = new TaskPlanContextCache(
+                agentPlanRepository,
+                this.executorMembership,
+                settings.getAffinity().getPlanCache().getMaxSize() > 0 ? settings.getAffinity().getPlanCache().getMaxSize() : 512,
+                meterRegistry
+        );
         this.callSupport = new TaskExecutionCallSupportAdapter(
                 this.taskExecutionRuntimeSupport,
                 taskDispatchDomainService,
-                agentPlanRepository,
+                this.taskPlanContextCache,
                 taskExecutionDomainService,
                 taskExecutionRepository,
                 normalizedExecutionTimeoutRetryMax,
                 taskExecutionFlowSupport,
-                taskExecutionClientResolver
+                taskExecutionClientResolver,
+                this.taskClaimLeaseManager,
+                this.taskModelConcurrencyLimiter,
+                this.taskModelRateLimiter,
+                new TaskCallHedger(
+                        hedge.isEnabled(),
+                        hedge.getPercentile(),
+                        hedge.getMinSamples(),
+                        hedge.getMinDelayMs(),
+                        hedge.getMaxInflight(),
+                        meterRegistry
+                ),
+                this.streamingExecution
         );
         this.evaluationSupport = new TaskExecutionEvaluationSupportAdapter(
                 taskEvaluationDomainService,
                 taskExecutionFlowSupport,
-                this.taskExecutionRuntimeSupport
+                this.taskExecutionRuntimeSupport,
+                this.taskPlanContextCache
         );
         this.persistenceSupport = new TaskExecutionPersistenceSupportAdapter(this.taskExecutionRuntimeSupport);
+        long normalizedTickMs = claim.getAdaptive().getTickMs() > 0 ? claim.getAdaptive().getTickMs() : 200L;
+        int maxClaimLimit = Math.max(Math.min(this.claimBatchSize, this.claimMaxPerTick), 1);
+        this.claimAdaptiveController = new TaskClaimAdaptiveController(
+                taskDispatchDomainService,
+                new TaskDispatchDomainService.AdaptiveClaimPolicy(
+                        1,
+                        maxClaimLimit,
+                        normalizedTickMs,
+                        Math.max(settings.getPollIntervalMs(), normalizedTickMs),
+                        Math.max(maxClaimLimit / ADAPTIVE_ADDITIVE_STEP_DIVISOR, 1),
+                        ADAPTIVE_DECREASE_FACTOR,
+                        Math.max(claim.getAdaptive().getLatencyTargetMs(), 0L),
+                        ADAPTIVE_RECLAIM_RATIO_THRESHOLD),
+                claim.getAdaptive().isEnabled(),
+                meterRegistry
+        );
         Gauge.builder("agent.task.expired_running.current", expiredRunningGauge, AtomicLong::get)
                 .description("当前过期 RUNNING 任务数量")
                 .register(meterRegistry);
+        Gauge.builder("agent.task.lease.tracked.current", taskClaimLeaseManager, TaskClaimLeaseManager::trackedCount)
+                .description("当前登记待续约的 claim lease 数量")
+                .register(meterRegistry);
         Gauge.builder("agent.task.worker.inflight.current", inFlightTasks, AtomicInteger::get)
                 .description("任务执行线程池当前 in-flight 数量")
                 .register(meterRegistry);
@@ -277,24 +444,50 @@ public class TaskExecutor {
                 .register(meterRegistry);
     }
 
-    @Scheduled(fixedDelayString = "${executor.poll-interval-ms:1000}", scheduler = "taskExecutorScheduler")
+    /**
+     * 兜底轮询 tick：按自适应控制器给出的 poll 间隔决定本 tick 是否执行 claim。
+     */
+    @Scheduled(fixedDelayString = "${executor.claim.adaptive.tick-ms:200}", scheduler = "taskExecutorScheduler")
+    public void pollReadyTasks() {
+        if (!claimAdaptiveController.isPollDue(System.currentTimeMillis())) {
+            return;
+        }
+        executeReadyTasks();
+    }
+
+    /**
+     * 立即执行一轮 claim + 派发（推送唤醒与兜底轮询共用）。
+     * 每轮持有 claimRoundLock 读锁，排空切换 draining 时取写锁，保证排空快照前所有 claim 都已登记到 heldClaims。
+     */
     public void executeReadyTasks() {
+        claimRoundLock.readLock().lock();
+        try {
+            if (draining.get()) {
+                return;
+            }
+            executeClaimRound();
+        } finally {
+            claimRoundLock.readLock().unlock();
+        }
+    }
+
+    private void executeClaimRound() {
         int claimLimit = resolveClaimLimit();
         if (claimLimit <= 0) {
-            emitExpiredRunningMetric();
+            finishClaimRound(0, Collections.emptyList(), 0);
             return;
         }
 
         int reservedSlots = reserveDispatchSlots(claimLimit);
         if (reservedSlots <= 0) {
-            emitExpiredRunningMetric();
+            finishClaimRound(0, Collections.emptyList(), 0);
             return;
         }
 
         List<AgentTaskEntity> claimedTasks = claimTasks(reservedSlots);
         if (claimedTasks.isEmpty()) {
             releaseDispatchSlots(reservedSlots);
-            emitExpiredRunningMetric();
+            finishClaimRound(reservedSlots, claimedTasks, 0);
             return;
         }
 
@@ -302,18 +495,104 @@ public class TaskExecutor {
         if (redundantSlots > 0) {
             releaseDispatchSlots(redundantSlots);
         }
+        int rejected = 0;
         for (AgentTaskEntity task : claimedTasks) {
+            holdClaim(task);
             if (!dispatchClaimedTask(task)) {
+                unholdClaim(task);
                 releaseDispatchSlots(1);
+                rejected++;
             }
         }
 
+        finishClaimRound(reservedSlots, claimedTasks, rejected);
+    }
+
+    private void finishClaimRound(int requested, List<AgentTaskEntity> claimedTasks, int dispatchRejected) {
+        recordPlanShare(claimedTasks);
+        if (!claimedTasks.isEmpty() && taskPersistenceApplicationService != null) {
+            taskPersistenceApplicationService.signalTasksClaimed(claimedTasks);
+        }
+        int reclaimed = 0;
+        for (AgentTaskEntity task : claimedTasks) {
+            if (Boolean.TRUE.equals(task.getLeaseReclaimed())) {
+                reclaimed++;
+            }
+        }
+        int workerBacklog = taskExecutionWorker.getQueue().size() + taskCallExecutor.getQueue().size()
+                + dispatchRejected + taskModelConcurrencyLimiter.drainRejectedCount()
+                + taskModelRateLimiter.drainDeferredCount();
+        claimAdaptiveController.onRoundFinished(requested, claimedTasks.size(), reclaimed, workerBacklog,
+                System.currentTimeMillis());
         emitExpiredRunningMetric();
     }
 
+    private void recordPlanShare(List<AgentTaskEntity> claimedTasks) {
+        if (claimedTasks.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> claimsByPlan = new HashMap<>();
+        for (AgentTaskEntity task : claimedTasks) {
+            claimsByPlan.merge(task.getPlanId(), 1, Integer::sum);
+        }
+        double total = claimedTasks.size();
+        int top = 0;
+        for (Integer count : claimsByPlan.values()) {
+            claimPlanShareSummary.record(count / total);
+            top = Math.max(top, count);
+        }
+        claimTopPlanShareSummary.record(top / total);
+        claimRoundPlansSummary.record(claimsByPlan.size());
+        if (log.isDebugEnabled()) {
+            log.debug("Claim round plan share. owner={}, claimed={}, claimsByPlan={}",
+                    claimOwner, claimedTasks.size(), claimsByPlan);
+        }
+    }
+
+    /**
+     * 本实例空闲且有过载实例时先 steal 过载实例正在执行的 plan；
+     * 亲和模式下再 claim 本实例持有槽位内的任务，余量再 claim 停留超时的其它槽位任务；未开启亲和时不限范围。
+     */
+    private List<AgentTaskEntity> claimWithAffinity(int limit, boolean readyLike) {
+        List<AgentTaskEntity> tasks = new ArrayList<>();
+        PlanAffinityScope stealScope = executorMembership.stealScope();
+        if (stealScope != null) {
+            List<AgentTaskEntity> stolen = claimInScope(limit, readyLike, stealScope);
+            claimStealCounter.increment(stolen.size());
+            tasks.addAll(stolen);
+        }
+        int remaining = limit - tasks.size();
+        if (remaining <= 0) {
+            return tasks;
+        }
+        PlanAffinityScope ownedScope = executorMembership.ownedScope();
+        if (ownedScope == null) {
+            tasks.addAll(claimInScope(remaining, readyLike, null));
+            return tasks;
+        }
+        List<AgentTaskEntity> owned = claimInScope(remaining, readyLike, ownedScope);
+        claimAffinityOwnedCounter.increment(owned.size());
+        tasks.addAll(owned);
+        PlanAffinityScope foreignScope = executorMembership.foreignScope();
+        remaining = limit - tasks.size();
+        if (remaining > 0 && foreignScope != null) {
+            List<AgentTaskEntity> foreign = claimInScope(remaining, readyLike, foreignScope);
+            claimAffinityForeignCounter.increment(foreign.size());
+            tasks.addAll(foreign);
+        }
+        return tasks;
+    }
+
+    private List<AgentTaskEntity> claimInScope(int limit, boolean readyLike, PlanAffinityScope scope) {
+        List<AgentTaskEntity> tasks = readyLike
+                ? agentTaskRepository.claimReadyLikeTasks(claimOwner, limit, claimLeaseSeconds, scope)
+                : agentTaskRepository.claimRefiningTasks(claimOwner, limit, claimLeaseSeconds, scope);
+        return tasks == null ? Collections.emptyList() : tasks;
+    }
+
     private int resolveClaimLimit() {
         return taskDispatchDomainService.resolveClaimLimit(
-                claimBatchSize,
+                claimAdaptiveController.currentClaimLimit(),
                 claimMaxPerTick,
                 dispatchPermits.availablePermits()
         );
@@ -380,9 +659,7 @@ public class TaskExecutor {
         if (normalizedLimit <= 0) {
             return;
         }
-        List<AgentTaskEntity> tasks = readyLike
-                ? agentTaskRepository.claimReadyLikeTasks(claimOwner, normalizedLimit, claimLeaseSeconds)
-                : agentTaskRepository.claimRefiningTasks(claimOwner, normalizedLimit, claimLeaseSeconds);
+        List<AgentTaskEntity> tasks = claimWithAffinity(normalizedLimit, readyLike);
         if (tasks == null || tasks.isEmpty()) {
             return;
         }
@@ -418,7 +695,9 @@ public class TaskExecutor {
     private void onTaskClaimed(AgentTaskEntity task) {
         claimSuccessCounter.increment();
         if (task.getExecutionAttempt() != null && task.getExecutionAttempt() > 0) {
-            claimAttemptSummary.record(task.getExecutionAttempt());
+            // 限流退避归还不算重试，从分布中扣除
+            int throttleDefers = task.getThrottleDeferCount() == null ? 0 : task.getThrottleDeferCount();
+            claimAttemptSummary.record(Math.max(task.getExecutionAttempt() - throttleDefers, 1));
         }
         if (Boolean.TRUE.equals(task.getLeaseReclaimed())) {
             claimReclaimedCounter.increment();
@@ -433,7 +712,11 @@ public class TaskExecutor {
             return false;
         }
         try {
-            taskExecutionWorker.execute(() -> executeClaimedTask(task));
+            if (streamingExecution) {
+                taskCallExecutor.execute(() -> executeClaimedTaskStreaming(task));
+            } else {
+                taskExecutionWorker.execute(() -> executeClaimedTask(task));
+            }
             dispatchSuccessCounter.increment();
             taskExecutionRuntimeSupport.auditDispatchSubmitted(task);
             return true;
@@ -456,18 +739,75 @@ public class TaskExecutor {
     }
 
     private void executeClaimedTask(AgentTaskEntity task) {
+        // 先计入 in-flight 再检查 draining：排空要么等到本任务结束，要么本任务看到 draining 直接放弃
         inFlightTasks.incrementAndGet();
+        if (draining.get()) {
+            // 排空期间尚未开始的任务不再执行，claim 保留在 heldClaims 中由排空统一归还
+            inFlightTasks.decrementAndGet();
+            releaseDispatchSlots(1);
+            return;
+        }
         recordClaimToStartLatency(task);
         taskExecutionRuntimeSupport.auditExecutionStarted(task);
         taskExecutionRuntimeSupport.publishTaskStarted(task);
         try {
             executeTask(task);
         } finally {
+            unholdClaim(task);
             inFlightTasks.decrementAndGet();
             releaseDispatchSlots(1);
         }
     }
 
+    /**
+     * 流式模式：当前线程只负责发起调用，模型响应期间不占线程，完成后在回调中归还 in-flight 与派发槽位。
+     */
+    private void executeClaimedTaskStreaming(AgentTaskEntity task) {
+        inFlightTasks.incrementAndGet();
+        if (draining.get()) {
+            inFlightTasks.decrementAndGet();
+            releaseDispatchSlots(1);
+            return;
+        }
+        recordClaimToStartLatency(task);
+        taskExecutionRuntimeSupport.auditExecutionStarted(task);
+        taskExecutionRuntimeSupport.publishTaskStarted(task);
+        long startedNanos = System.nanoTime();
+        CompletableFuture<TaskExecutionRunner.ExecutionResult> execution;
+        try {
+            execution = taskExecutionRunner.runAsync(
+                    task,
+                    callSupport,
+                    evaluationSupport,
+                    persistenceSupport,
+                    taskCallExecutor
+            );
+        } catch (Exception ex) {
+            execution = CompletableFuture.failedFuture(ex);
+        }
+        execution.whenComplete((result, throwable) -> {
+            try {
+                recordExecutionOutcome(task, result, throwable, startedNanos);
+            } finally {
+                unholdClaim(task);
+                inFlightTasks.decrementAndGet();
+                releaseDispatchSlots(1);
+            }
+        });
+    }
+
+    private void holdClaim(AgentTaskEntity task) {
+        if (task != null && task.getId() != null) {
+            heldClaims.put(task.getId(), task);
+        }
+    }
+
+    private void unholdClaim(AgentTaskEntity task) {
+        if (task != null && task.getId() != null) {
+            heldClaims.remove(task.getId(), task);
+        }
+    }
+
     private void recordClaimToStartLatency(AgentTaskEntity task) {
         if (task == null || task.getClaimAt() == null) {
             return;
@@ -475,32 +815,44 @@ public class TaskExecutor {
         long latencyMs = Duration.between(task.getClaimAt(), LocalDateTime.now()).toMillis();
         if (latencyMs >= 0) {
             claimToStartLatencySummary.record(latencyMs);
+            claimAdaptiveController.recordClaimToStartLatency(latencyMs);
         }
     }
 
     private void executeTask(AgentTaskEntity task) {
         long startedNanos = System.nanoTime();
-        String outcome = "unknown";
-        String errorType = "none";
+        TaskExecutionRunner.ExecutionResult result = null;
+        Throwable failure = null;
         try {
-            TaskExecutionRunner.ExecutionResult result = taskExecutionRunner.run(
+            result = taskExecutionRunner.run(
                     task,
                     callSupport,
                     evaluationSupport,
                     persistenceSupport
             );
-            if (result != null) {
-                outcome = taskExecutionRuntimeSupport.normalizeExecutionResult(result.outcome());
-                errorType = taskExecutionRuntimeSupport.normalizeAuditErrorType(result.errorType());
-            }
         } catch (Exception ex) {
+            failure = ex;
+        } finally {
+            recordExecutionOutcome(task, result, failure, startedNanos);
+        }
+    }
+
+    private void recordExecutionOutcome(AgentTaskEntity task,
+                                        TaskExecutionRunner.ExecutionResult result,
+                                        Throwable failure,
+                                        long startedNanos) {
+        String outcome = "unknown";
+        String errorType = "none";
+        if (failure != null) {
             outcome = "failed";
-            errorType = taskExecutionRuntimeSupport.classifyError(ex);
+            errorType = taskExecutionRuntimeSupport.classifyError(failure);
             log.warn("Task execution runner failed unexpectedly. taskId={}, error={}",
-                    task == null ? null : task.getId(), ex.getMessage());
-        } finally {
-            recordExecutionMetrics(task, outcome, errorType, startedNanos);
+                    task == null ? null : task.getId(), failure.getMessage());
+        } else if (result != null) {
+            outcome = taskExecutionRuntimeSupport.normalizeExecutionResult(result.outcome());
+            errorType = taskExecutionRuntimeSupport.normalizeAuditErrorType(result.errorType());
         }
+        recordExecutionMetrics(task, outcome, errorType, startedNanos);
     }
 
     private Counter counter(String name) {
@@ -529,11 +881,56 @@ public class TaskExecutor {
 
     @PreDestroy
     public void shutdownExecutors() {
+        drainClaims();
         heartbeatScheduler.shutdownNow();
         taskCallExecutor.shutdownNow();
     }
 
-    private String resolveInstanceId(String configuredInstanceId) {
+    /**
+     * 停机排空：
+     * 1) 停止 claim（等待进行中的 claim 轮次结束），尚未开始的任务不再执行；
+     * 2) 最多等待 drainTimeoutMs 让执行中的调用自然结束（期间心跳继续续约）；
+     * 3) 仍持有的 claim 按 owner + attempt 守卫批量归还派发队列，其它实例可立即接手而不必等待 lease 过期。
+     */
+    void drainClaims() {
+        if (!drainEnabled) {
+            return;
+        }
+        claimRoundLock.writeLock().lock();
+        try {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+        } finally {
+            claimRoundLock.writeLock().unlock();
+        }
+        long startedMillis = System.currentTimeMillis();
+        long deadline = startedMillis + drainTimeoutMs;
+        while (inFlightTasks.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(DRAIN_POLL_INTERVAL_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        List<AgentTaskEntity> remaining = new ArrayList<>(heldClaims.values());
+        List<Long> released = remaining.isEmpty()
+                ? Collections.emptyList()
+                : taskClaimLeaseManager.releaseClaims(remaining);
+        drainReleasedCounter.increment(released.size());
+        if (!released.isEmpty()) {
+            Set<Long> releasedIds = new HashSet<>(released);
+            taskPersistenceApplicationService.signalTasksReleased(remaining.stream()
+                    .filter(task -> releasedIds.contains(task.getId()))
+                    .toList());
+        }
+        log.info("Task executor drained. owner={}, waitedMs={}, inFlight={}, held={}, released={}",
+                claimOwner, System.currentTimeMillis() - startedMillis, inFlightTasks.get(),
+                remaining.size(), released.size());
+    }
+
+    static String resolveInstanceId(String configuredInstanceId) {
         if (StringUtils.isNotBlank(configuredInstanceId)) {
             return configuredInstanceId.trim();
         }
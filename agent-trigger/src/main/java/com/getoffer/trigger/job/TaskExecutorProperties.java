@@ -0,0 +1,146 @@
+package com.getoffer.trigger.job;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * TaskExecutor 配置属性，前缀 executor。
+ * <p>
+ * 按 claim / execution / model-limit / model-rate-limit / hedge / drain / agent / observability 分组，
+ * 默认值与 application.yml 一致；executor 下由其它组件读取的配置（membership、wakeup 等）不在此绑定。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "executor", ignoreInvalidFields = true)
+public class TaskExecutorProperties {
+
+    /** claim owner / 实例 ID，为空时取 host-pid */
+    private String instanceId = "";
+
+    /** claim 兜底轮询最大间隔（ms） */
+    private long pollIntervalMs = 5000L;
+
+    private Claim claim = new Claim();
+
+    private Execution execution = new Execution();
+
+    private ModelLimit modelLimit = new ModelLimit();
+
+    private ModelRateLimit modelRateLimit = new ModelRateLimit();
+
+    private Hedge hedge = new Hedge();
+
+    private Drain drain = new Drain();
+
+    private Agent agent = new Agent();
+
+    private Observability observability = new Observability();
+
+    private Affinity affinity = new Affinity();
+
+    @Data
+    public static class Claim {
+        private int batchSize = 100;
+        private int maxPerTick = 100;
+        private boolean readyFirst = true;
+        private double refiningMaxRatio = 0.3D;
+        private int refiningMinPerTick = 1;
+        private int leaseSeconds = 120;
+        private int heartbeatSeconds = 30;
+        private int renewBatchSize = 500;
+        private Adaptive adaptive = new Adaptive();
+    }
+
+    @Data
+    public static class Adaptive {
+        private boolean enabled = false;
+        private long tickMs = 200L;
+        private long latencyTargetMs = 2000L;
+    }
+
+    @Data
+    public static class Execution {
+        private int timeoutMs = 120000;
+        private int timeoutRetryMax = 1;
+        /** blocking / streaming */
+        private String mode = "blocking";
+        private Streaming streaming = new Streaming();
+        private OutputDelta outputDelta = new OutputDelta();
+    }
+
+    @Data
+    public static class Streaming {
+        private int maxInflight = 1000;
+    }
+
+    @Data
+    public static class OutputDelta {
+        /** 总开关；任务 configSnapshot.outputDelta 为 true 时才对该任务开启 */
+        private boolean enabled = true;
+        private int minChars = 32;
+        private long flushIntervalMs = 100L;
+    }
+
+    @Data
+    public static class ModelLimit {
+        private boolean enabled = false;
+        private int initialLimit = 0;
+        private int minLimit = 1;
+        private int maxLimit = 0;
+        private double rttTolerance = 1.5D;
+        private long acquireWaitMs = 200L;
+        /** 限流归还后的最短退避与上限（ms），并发与配额限流共用 */
+        private long releaseBackoffMs = 1000L;
+        private long releaseBackoffMaxMs = 30000L;
+    }
+
+    @Data
+    public static class ModelRateLimit {
+        private boolean enabled = true;
+        private int requestsPerMinute = 0;
+        private long tokensPerMinute = 0L;
+        /** provider:model=rpm/tpm，逗号分隔 */
+        private String overrides = "";
+        private int estimatedCompletionTokens = 512;
+        private long maxWaitMs = 1000L;
+    }
+
+    @Data
+    public static class Hedge {
+        private boolean enabled = true;
+        private double percentile = 0.95D;
+        private int minSamples = 20;
+        private long minDelayMs = 2000L;
+        private int maxInflight = 16;
+    }
+
+    @Data
+    public static class Drain {
+        private boolean enabled = true;
+        private long timeoutMs = 10000L;
+    }
+
+    @Data
+    public static class Agent {
+        private String fallbackWorkerKeys = "worker,assistant,java_coder,default";
+        private String fallbackCriticKeys = "critic,assistant,java_coder,default";
+        private long defaultCacheTtlMs = 30000L;
+    }
+
+    @Data
+    public static class Observability {
+        private boolean auditLogEnabled = true;
+        private boolean auditSuccessLogEnabled = false;
+    }
+
+    @Data
+    public static class Affinity {
+        private PlanCache planCache = new PlanCache();
+    }
+
+    @Data
+    public static class PlanCache {
+        private int maxSize = 512;
+    }
+}
@@ -0,0 +1,161 @@
+package com.getoffer.trigger.job;
+
+import com.getoffer.domain.task.service.TaskDispatchDomainService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按模型（provider:model）隔离的自适应并发舱壁：
+ * 1) 每个模型独立维护 in-flight 与并发上限，慢模型只占满自己的配额；
+ * 2) 调用结束后按 RTT / 失败反馈调用 {@link TaskDispatchDomainService#adaptConcurrencyLimit} 调整上限；
+ * 3) 获取许可最多等待 acquireWaitMs，超时由调用方把任务回滚到派发队列。
+ */
+final class TaskModelConcurrencyLimiter {
+
+    static final String DEFAULT_MODEL_KEY = "default";
+
+    private final TaskDispatchDomainService taskDispatchDomainService;
+    private final TaskDispatchDomainService.ConcurrencyLimitPolicy policy;
+    private final boolean enabled;
+    private final int initialLimit;
+    private final long acquireWaitMs;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, ModelBulkhead> bulkheads;
+    private final AtomicInteger rejectedSinceDrain;
+
+    TaskModelConcurrencyLimiter(TaskDispatchDomainService taskDispatchDomainService,
+                                TaskDispatchDomainService.ConcurrencyLimitPolicy policy,
+                                boolean enabled,
+                                int initialLimit,
+                                long acquireWaitMs,
+                                MeterRegistry meterRegistry) {
+        this.taskDispatchDomainService = taskDispatchDomainService;
+        this.policy = policy;
+        this.enabled = enabled;
+        this.initialLimit = Math.max(Math.min(initialLimit, policy.maxLimit()), Math.max(policy.minLimit(), 1));
+        this.acquireWaitMs = Math.max(acquireWaitMs, 0L);
+        this.meterRegistry = meterRegistry;
+        this.bulkheads = new ConcurrentHashMap<>();
+        this.rejectedSinceDrain = new AtomicInteger(0);
+    }
+
+    /**
+     * 获取模型调用许可；返回 null 表示该模型并发已满。
+     */
+    Permit tryAcquire(String modelKey) {
+        return tryAcquire(modelKey, acquireWaitMs);
+    }
+
+    /**
+     * 按指定等待时长获取许可；waitMs=0 时不等待，供不能阻塞的调用方（如对冲请求）使用。
+     */
+    Permit tryAcquire(String modelKey, long waitMs) {
+        String normalizedKey = StringUtils.defaultIfBlank(modelKey, DEFAULT_MODEL_KEY);
+        if (!enabled) {
+            return new Permit(null, System.nanoTime());
+        }
+        ModelBulkhead bulkhead = bulkheads.computeIfAbsent(normalizedKey, this::createBulkhead);
+        if (!bulkhead.acquire(Math.max(waitMs, 0L))) {
+            bulkhead.rejectCounter.increment();
+            rejectedSinceDrain.incrementAndGet();
+            return null;
+        }
+        return new Permit(bulkhead, System.nanoTime());
+    }
+
+    /**
+     * 归还许可并反馈本次调用结果；dropped=true 表示超时或调用异常。
+     */
+    void release(Permit permit, boolean dropped) {
+        if (permit == null || permit.bulkhead == null) {
+            return;
+        }
+        long rttMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - permit.startedNanos);
+        permit.bulkhead.release(rttMs, dropped);
+    }
+
+    /**
+     * 返回并清零上次调用以来被拒绝的次数，供 claim 自适应作为背压信号。
+     */
+    int drainRejectedCount() {
+        return rejectedSinceDrain.getAndSet(0);
+    }
+
+    private ModelBulkhead createBulkhead(String modelKey) {
+        ModelBulkhead bulkhead = new ModelBulkhead(
+                new TaskDispatchDomainService.ConcurrencyLimitState(initialLimit, 0D),
+                meterRegistry.counter("agent.task.model.reject.total", "model", modelKey));
+        Gauge.builder("agent.task.model.limit", bulkhead, ModelBulkhead::currentLimit)
+                .tag("model", modelKey)
+                .description("模型当前自适应并发上限")
+                .register(meterRegistry);
+        Gauge.builder("agent.task.model.inflight", bulkhead, ModelBulkhead::currentInflight)
+                .tag("model", modelKey)
+                .description("模型当前 in-flight 调用数")
+                .register(meterRegistry);
+        return bulkhead;
+    }
+
+    static final class Permit {
+        private final ModelBulkhead bulkhead;
+        private final long startedNanos;
+
+        private Permit(ModelBulkhead bulkhead, long startedNanos) {
+            this.bulkhead = bulkhead;
+            this.startedNanos = startedNanos;
+        }
+    }
+
+    private final class ModelBulkhead {
+        private final Counter rejectCounter;
+        private TaskDispatchDomainService.ConcurrencyLimitState state;
+        private int inflight;
+
+        private ModelBulkhead(TaskDispatchDomainService.ConcurrencyLimitState state, Counter rejectCounter) {
+            this.state = state;
+            this.rejectCounter = rejectCounter;
+        }
+
+        private synchronized boolean acquire(long waitMs) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+            while (inflight >= (int) state.limit()) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0L) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            inflight++;
+            return true;
+        }
+
+        private synchronized void release(long rttMs, boolean dropped) {
+            state = taskDispatchDomainService.adaptConcurrencyLimit(
+                    state,
+                    new TaskDispatchDomainService.ConcurrencySample(rttMs, inflight, dropped),
+                    policy);
+            inflight = Math.max(inflight - 1, 0);
+            notifyAll();
+        }
+
+        private synchronized double currentLimit() {
+            return state.limit();
+        }
+
+        private synchronized double currentInflight() {
+            return inflight;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.getoffer.trigger.job;
+
+import com.getoffer.domain.task.service.TaskDispatchDomainService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按模型（provider:model）的 RPM/TPM 令牌桶：
+ * 1) 调用前按 prompt 估算 token 预占请求数与 token 配额，不足时最多等待 maxWaitMs，仍不足则由调用方把任务退回派发队列；
+ * 2) 调用后用响应中的实际 Usage 修正预占，多退少补；
+ * 3) 供应商返回 429 时清空该模型的剩余配额，让后续调用等待回填而不是继续撞限流。
+ */
+@Slf4j
+final class TaskModelRateLimiter {
+
+    private static final int ASCII_CHARS_PER_TOKEN = 4;
+
+    private final TaskDispatchDomainService taskDispatchDomainService;
+    private final boolean enabled;
+    private final TaskDispatchDomainService.RateBudgetPolicy defaultPolicy;
+    private final Map<String, TaskDispatchDomainService.RateBudgetPolicy> policyOverrides;
+    private final int estimatedCompletionTokens;
+    private final long maxWaitMs;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, ModelRateBucket> buckets;
+    private final AtomicInteger deferredSinceDrain;
+
+    TaskModelRateLimiter(TaskDispatchDomainService taskDispatchDomainService,
+                         boolean enabled,
+                         int defaultRequestsPerMinute,
+                         long defaultTokensPerMinute,
+                         String policyOverrides,
+                         int estimatedCompletionTokens,
+                         long maxWaitMs,
+                         MeterRegistry meterRegistry) {
+        this.taskDispatchDomainService = taskDispatchDomainService;
+        this.enabled = enabled;
+        this.defaultPolicy = new TaskDispatchDomainService.RateBudgetPolicy(
+                Math.max(defaultRequestsPerMinute, 0), Math.max(defaultTokensPerMinute, 0L));
+        this.policyOverrides = parsePolicyOverrides(policyOverrides);
+        this.estimatedCompletionTokens = Math.max(estimatedCompletionTokens, 0);
+        this.maxWaitMs = Math.max(maxWaitMs, 0L);
+        this.meterRegistry = meterRegistry;
+        this.buckets = new ConcurrentHashMap<>();
+        this.deferredSinceDrain = new AtomicInteger(0);
+    }
+
+    /**
+     * 预占一次调用的配额；返回 null 表示该模型配额不足，调用应延后。
+     */
+    Reservation tryReserve(String modelKey, String prompt) {
+        return tryReserve(modelKey, prompt, maxWaitMs);
+    }
+
+    /**
+     * 按指定最长等待预占配额；maxWaitMillis=0 时不等待，供不能阻塞的调用方（如对冲请求）使用。
+     */
+    Reservation tryReserve(String modelKey, String prompt, long maxWaitMillis) {
+        String normalizedKey = StringUtils.defaultIfBlank(modelKey, TaskModelConcurrencyLimiter.DEFAULT_MODEL_KEY);
+        TaskDispatchDomainService.RateBudgetPolicy policy = policyOverrides.getOrDefault(normalizedKey, defaultPolicy);
+        if (!enabled || (policy.requestsPerMinute() <= 0 && policy.tokensPerMinute() <= 0)) {
+            return Reservation.UNLIMITED;
+        }
+        ModelRateBucket bucket = buckets.computeIfAbsent(normalizedKey, key -> createBucket(key, policy));
+        long estimatedTokens = estimateTokens(prompt) + estimatedCompletionTokens;
+        long deadline = System.currentTimeMillis() + Math.max(maxWaitMillis, 0L);
+        while (true) {
+            long now = System.currentTimeMillis();
+            long waitMs = bucket.tryReserve(estimatedTokens, now);
+            if (waitMs <= 0L) {
+                return new Reservation(bucket, estimatedTokens);
+            }
+            if (now + waitMs > deadline) {
+                bucket.deferredCounter.increment();
+                deferredSinceDrain.incrementAndGet();
+                return null;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(waitMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * tryReserve 返回 null 后查询该模型配额回填到足够本次调用还需等待的时长（ms），只读不预占；
+     * 供调用方把任务退避到配额回填之后再派发。未限流或配额已足够时返回 0。
+     */
+    long retryAfterMs(String modelKey, String prompt) {
+        String normalizedKey = StringUtils.defaultIfBlank(modelKey, TaskModelConcurrencyLimiter.DEFAULT_MODEL_KEY);
+        ModelRateBucket bucket = buckets.get(normalizedKey);
+        if (!enabled || bucket == null) {
+            return 0L;
+        }
+        return bucket.peekWaitMs(estimateTokens(prompt) + estimatedCompletionTokens, System.currentTimeMillis());
+    }
+
+    /**
+     * 调用成功后按实际用量修正；响应缺少 Usage 时保留预估值。
+     */
+    void reconcile(Reservation reservation, ChatResponse response) {
+        if (reservation == null || reservation.bucket == null) {
+            return;
+        }
+        long actualTokens = resolveTotalTokens(response);
+        if (actualTokens > 0L) {
+            reservation.bucket.reconcile(reservation.estimatedTokens, actualTokens);
+        }
+    }
+
+    /**
+     * 调用失败：429 清空剩余配额；其它错误保留预占（供应商可能已计费）。
+     */
+    void onFailure(Reservation reservation, Throwable throwable) {
+        if (reservation == null || reservation.bucket == null || !isRateLimited(throwable)) {
+            return;
+        }
+        reservation.bucket.exhaust(System.currentTimeMillis());
+    }
+
+    /**
+     * 调用未发出（例如并发舱壁拒绝），归还预占。
+     */
+    void cancel(Reservation reservation) {
+        if (reservation == null || reservation.bucket == null) {
+            return;
+        }
+        reservation.bucket.refund(reservation.estimatedTokens);
+    }
+
+    /**
+     * 返回并清零上次调用以来被延后的次数，供 claim 自适应作为背压信号。
+     */
+    int drainDeferredCount() {
+        return deferredSinceDrain.getAndSet(0);
+    }
+
+    /**
+     * 粗略估算 prompt token：ASCII 约 4 字符 1 token，其余字符（中文等）按 1 字符 1 token。
+     */
+    static long estimateTokens(String prompt) {
+        if (prompt == null || prompt.isEmpty()) {
+            return 0L;
+        }
+        long asciiChars = 0L;
+        long otherChars = 0L;
+        for (int i = 0; i < prompt.length(); i++) {
+            if (prompt.charAt(i) < 128) {
+                asciiChars++;
+            } else {
+                otherChars++;
+            }
+        }
+        return (asciiChars + ASCII_CHARS_PER_TOKEN - 1) / ASCII_CHARS_PER_TOKEN + otherChars;
+    }
+
+    private static long resolveTotalTokens(ChatResponse response) {
+        if (response == null || response.getMetadata() == null) {
+            return 0L;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        if (usage == null || usage.getTotalTokens() == null) {
+            return 0L;
+        }
+        return Math.max(usage.getTotalTokens().longValue(), 0L);
+    }
+
+    private static boolean isRateLimited(Throwable throwable) {
+        Throwable current = throwable;
+        int depth = 0;
+        while (current != null && depth++ < 8) {
+            String message = StringUtils.defaultString(current.getMessage()).toLowerCase();
+            if (message.contains("429") || message.contains("rate limit") || message.contains("too many requests")) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 解析形如 "openai:gpt-4o=500/150000,deepseek:deepseek-chat=60/0" 的按模型配额（rpm/tpm，0 表示不限）。
+     */
+    private static Map<String, TaskDispatchDomainService.RateBudgetPolicy> parsePolicyOverrides(String raw) {
+        if (StringUtils.isBlank(raw)) {
+            return Collections.emptyMap();
+        }
+        Map<String, TaskDispatchDomainService.RateBudgetPolicy> overrides = new HashMap<>();
+        for (String item : raw.split(",")) {
+            String entry = item.trim();
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            String[] limits = entry.substring(separator + 1).split("/");
+            try {
+                int rpm = Integer.parseInt(limits[0].trim());
+                long tpm = limits.length > 1 ? Long.parseLong(limits[1].trim()) : 0L;
+                overrides.put(entry.substring(0, separator).trim(),
+                        new TaskDispatchDomainService.RateBudgetPolicy(Math.max(rpm, 0), Math.max(tpm, 0L)));
+            } catch (NumberFormatException ex) {
+                log.warn("Ignore invalid model rate limit override. entry={}", entry);
+            }
+        }
+        return overrides;
+    }
+
+    private ModelRateBucket createBucket(String modelKey, TaskDispatchDomainService.RateBudgetPolicy policy) {
+        ModelRateBucket bucket = new ModelRateBucket(policy,
+                meterRegistry.counter("agent.task.model.rate.deferred.total", "model", modelKey));
+        Gauge.builder("agent.task.model.rate.remaining_requests", bucket, ModelRateBucket::remainingRequests)
+                .tag("model", modelKey)
+                .description("模型当前剩余请求配额（RPM 令牌桶）")
+                .register(meterRegistry);
+        Gauge.builder("agent.task.model.rate.remaining_tokens", bucket, ModelRateBucket::remainingTokens)
+                .tag("model", modelKey)
+                .description("模型当前剩余 token 配额（TPM 令牌桶）")
+                .register(meterRegistry);
+        return bucket;
+    }
+
+    static final class Reservation {
+        private static final Reservation UNLIMITED = new Reservation(null, 0L);
+
+        private final ModelRateBucket bucket;
+        private final long estimatedTokens;
+
+        private Reservation(ModelRateBucket bucket, long estimatedTokens) {
+            this.bucket = bucket;
+            this.estimatedTokens = estimatedTokens;
+        }
+    }
+
+    private final class ModelRateBucket {
+        private final TaskDispatchDomainService.RateBudgetPolicy policy;
+        private final Counter deferredCounter;
+        private TaskDispatchDomainService.RateBudgetState state;
+
+        private ModelRateBucket(TaskDispatchDomainService.RateBudgetPolicy policy, Counter deferredCounter) {
+            this.policy = policy;
+            this.deferredCounter = deferredCounter;
+            this.state = taskDispatchDomainService.refillRateBudget(null, policy, System.currentTimeMillis());
+        }
+
+        private synchronized long tryReserve(long estimatedTokens, long nowMillis) {
+            TaskDispatchDomainService.RateBudgetDecision decision =
+                    taskDispatchDomainService.reserveRateBudget(state, policy, estimatedTokens, nowMillis);
+            state = decision.state();
+            return decision.granted() ? 0L : Math.max(decision.waitMs(), 1L);
+        }
+
+        private synchronized long peekWaitMs(long estimatedTokens, long nowMillis) {
+            TaskDispatchDomainService.RateBudgetDecision decision =
+                    taskDispatchDomainService.reserveRateBudget(state, policy, estimatedTokens, nowMillis);
+            return decision.granted() ? 0L : Math.max(decision.waitMs(), 1L);
+        }
+
+        private synchronized void reconcile(long reservedTokens, long actualTokens) {
+            state = taskDispatchDomainService.reconcileRateBudget(state, policy, reservedTokens, actualTokens);
+        }
+
+        private synchronized void refund(long reservedTokens) {
+            TaskDispatchDomainService.RateBudgetState reconciled =
+                    taskDispatchDomainService.reconcileRateBudget(state, policy, reservedTokens, 0L);
+            double requestBudget = policy.requestsPerMinute() > 0
+                    ? Math.min(reconciled.requestBudget() + 1D, policy.requestsPerMinute())
+                    : reconciled.requestBudget();
+            state = new TaskDispatchDomainService.RateBudgetState(
+                    requestBudget, reconciled.tokenBudget(), reconciled.refilledAtMillis());
+        }
+
+        private synchronized void exhaust(long nowMillis) {
+            TaskDispatchDomainService.RateBudgetState refilled =
+                    taskDispatchDomainService.refillRateBudget(state, policy, nowMillis);
+            state = new TaskDispatchDomainService.RateBudgetState(
+                    Math.min(refilled.requestBudget(), 0D),
+                    Math.min(refilled.tokenBudget(), 0D),
+                    refilled.refilledAtMillis());
+        }
+
+        private synchronized double remainingRequests() {
+            return taskDispatchDomainService.refillRateBudget(state, policy, System.currentTimeMillis()).requestBudget();
+        }
+
+        private synchronized double remainingTokens() {
+            return taskDispatchDomainService.refillRateBudget(state, policy, System.currentTimeMillis()).tokenBudget();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.getoffer.trigger.job;
+
+import com.getoffer.domain.task.model.entity.AgentTaskEntity;
+import com.getoffer.trigger.event.PlanTaskEventPublisher;
+import com.getoffer.types.enums.PlanTaskEventTypeEnum;
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次模型调用的增量输出推送器：
+ * 1) 流式分片先进入缓冲，累计到 minChars 或距上次推送超过 flushIntervalMs 才合并推送一次；
+ * 2) 推送走 {@link PlanTaskEventPublisher#publishTransient}，只做进程内分发，不逐 token 落库；
+ * 3) seq 从 1 开始，超时重试会新建推送器，客户端遇到 seq=1 应清空该任务已拼接的内容。
+ */
+@Slf4j
+final class TaskOutputDeltaStreamer {
+
+    private final PlanTaskEventPublisher planTaskEventPublisher;
+    private final AgentTaskEntity task;
+    private final int minChars;
+    private final long flushIntervalNanos;
+    private final Counter deltaCounter;
+    private final StringBuilder buffer;
+    private long lastFlushNanos;
+    private int seq;
+    private long offset;
+
+    TaskOutputDeltaStreamer(PlanTaskEventPublisher planTaskEventPublisher,
+                            AgentTaskEntity task,
+                            int minChars,
+                            long flushIntervalMs,
+                            Counter deltaCounter) {
+        this.planTaskEventPublisher = planTaskEventPublisher;
+        this.task = task;
+        this.minChars = Math.max(minChars, 1);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(flushIntervalMs, 0L));
+        this.deltaCounter = deltaCounter;
+        this.buffer = new StringBuilder();
+        this.lastFlushNanos = System.nanoTime();
+    }
+
+    synchronized void append(String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        buffer.append(text);
+        // 首个分片立即推送，让首 token 延迟不被合并窗口拖慢
+        if (seq == 0 || buffer.length() >= minChars || System.nanoTime() - lastFlushNanos >= flushIntervalNanos) {
+            flush();
+        }
+    }
+
+    synchronized void complete() {
+        flush();
+    }
+
+    private void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        String delta = buffer.toString();
+        buffer.setLength(0);
+        lastFlushNanos = System.nanoTime();
+        seq++;
+        Map<String, Object> data = new HashMap<>();
+        data.put("taskId", task.getId());
+        data.put("nodeId", task.getNodeId());
+        data.put("executionAttempt", task.getExecutionAttempt());
+        data.put("seq", seq);
+        data.put("offset", offset);
+        data.put("delta", delta);
+        offset += delta.length();
+        try {
+            planTaskEventPublisher.publishTransient(PlanTaskEventTypeEnum.TASK_DELTA, task.getPlanId(), task.getId(), data);
+            deltaCounter.increment();
+        } catch (Exception ex) {
+            log.debug("Failed to publish task output delta. planId={}, taskId={}, seq={}, error={}",
+                    task.getPlanId(), task.getId(), seq, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.getoffer.trigger.job;
+
+import com.getoffer.domain.planning.adapter.repository.IAgentPlanRepository;
+import com.getoffer.domain.planning.model.entity.AgentPlanEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 亲和模式下的本地计划缓存：
+ * 1) 只缓存归本实例所有的 plan，归属迁走后访问即淘汰并回源；
+ * 2) 命中时只查询版本号校验，版本一致才复用本地副本，省去 execution_graph / global_context 等 JSONB 的读取与反序列化；
+ * 3) 黑板写回成功后写穿最新上下文与版本号，持有者连续执行同一 plan 的任务时上下文保持热；
+ * 4) 每次返回深拷贝的独立副本，并发任务修改自己的副本（含嵌套节点）不会互相干扰。
+ */
+final class TaskPlanContextCache {
+
+    private final IAgentPlanRepository agentPlanRepository;
+    private final ExecutorMembership executorMembership;
+    private final Map<Long, AgentPlanEntity> plans;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    TaskPlanContextCache(IAgentPlanRepository agentPlanRepository,
+                         ExecutorMembership executorMembership,
+                         int maxSize,
+                         MeterRegistry meterRegistry) {
+        this.agentPlanRepository = agentPlanRepository;
+        this.executorMembership = executorMembership;
+        int capacity = Math.max(maxSize, 1);
+        this.plans = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AgentPlanEntity> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hitCounter = meterRegistry.counter("agent.task.plan_cache.hit.total");
+        this.missCounter = meterRegistry.counter("agent.task.plan_cache.miss.total");
+    }
+
+    AgentPlanEntity find(Long planId) {
+        if (planId == null || executorMembership == null || !executorMembership.ownsPlan(planId)) {
+            evict(planId);
+            return agentPlanRepository.findById(planId);
+        }
+        AgentPlanEntity cached;
+        synchronized (plans) {
+            cached = plans.get(planId);
+        }
+        if (cached != null && Objects.equals(agentPlanRepository.findVersionById(planId), cached.getVersion())) {
+            hitCounter.increment();
+            return copy(cached);
+        }
+        missCounter.increment();
+        AgentPlanEntity loaded = agentPlanRepository.findById(planId);
+        if (loaded == null) {
+            evict(planId);
+            return null;
+        }
+        put(loaded);
+        return loaded;
+    }
+
+    /**
+     * 写穿：仅当 plan 仍归本实例且版本不低于缓存时更新。
+     */
+    void refresh(AgentPlanEntity plan) {
+        if (plan == null || plan.getId() == null || plan.getVersion() == null
+                || executorMembership == null || !executorMembership.ownsPlan(plan.getId())) {
+            return;
+        }
+        synchronized (plans) {
+            AgentPlanEntity cached = plans.get(plan.getId());
+            if (cached != null && cached.getVersion() != null && cached.getVersion() > plan.getVersion()) {
+                return;
+            }
+        }
+        put(plan);
+    }
+
+    int size() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    private void put(AgentPlanEntity plan) {
+        AgentPlanEntity snapshot = copy(plan);
+        synchronized (plans) {
+            plans.put(plan.getId(), snapshot);
+        }
+    }
+
+    private void evict(Long planId) {
+        if (planId == null) {
+            return;
+        }
+        synchronized (plans) {
+            plans.remove(planId);
+        }
+    }
+
+    private AgentPlanEntity copy(AgentPlanEntity source) {
+        AgentPlanEntity target = new AgentPlanEntity();
+        target.setId(source.getId());
+        target.setSessionId(source.getSessionId());
+        target.setRouteDecisionId(source.getRouteDecisionId());
+        target.setWorkflowDefinitionId(source.getWorkflowDefinitionId());
+        target.setWorkflowDraftId(source.getWorkflowDraftId());
+        target.setPlanGoal(source.getPlanGoal());
+        target.setExecutionGraph(copyMap(source.getExecutionGraph()));
+        target.setDefinitionSnapshot(copyMap(source.getDefinitionSnapshot()));
+        target.setGlobalContext(copyMap(source.getGlobalContext()));
+        target.setStatus(source.getStatus());
+        target.setPriority(source.getPriority());
+        target.setErrorSummary(source.getErrorSummary());
+        target.setVersion(source.getVersion());
+        target.setCreatedAt(source.getCreatedAt());
+        target.setUpdatedAt(source.getUpdatedAt());
+        return target;
+    }
+
+    /**
+     * 深拷贝 JSONB 反序列化出的 Map / List 结构，调用方修改嵌套节点不会污染缓存副本。
+     */
+    private Map<String, Object> copyMap(Map<String, Object> source) {
+        if (source == null) {
+            return null;
+        }
+        Map<String, Object> target = new LinkedHashMap<>(Math.max(source.size() * 4 / 3 + 1, 16));
+        source.forEach((key, value) -> target.put(key, copyValue(value)));
+        return target;
+    }
+
+    private Object copyValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copied = new LinkedHashMap<>(Math.max(map.size() * 4 / 3 + 1, 16));
+            map.forEach((key, nested) -> copied.put(key, copyValue(nested)));
+            return copied;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> copied = new ArrayList<>(collection.size());
+            for (Object nested : collection) {
+                copied.add(copyValue(nested));
+            }
+            return copied;
+        }
+        return value;
+    }
+}
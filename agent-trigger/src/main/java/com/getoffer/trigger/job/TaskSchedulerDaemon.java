@@ -2,26 +2,88 @@ package com.getoffer.trigger.job;
 
 import com.getoffer.trigger.application.command.TaskScheduleApplicationService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Scheduler daemon: promote pending tasks to READY when dependencies are satisfied.
+ * <p>
+ * event-driven 模式下每轮只处理有变化的 plan，按 full-sweep-interval-ms 周期做一次全量扫描兜底；
+ * full-scan 模式保持每轮全量扫描。
+ * 多实例部署时全量扫描只由 leader（{@link DaemonLeaderElector}）执行；event-driven 模式下各实例仍处理本实例观察到的变化 plan。
+ * <p>
+ * 定时轮询与推送唤醒共用 {@link #promotePendingTasks()}，同一时刻只跑一轮；轮次进行中到达的请求合并为结束后的一次补跑。
  */
 @Slf4j
 @Component
 public class TaskSchedulerDaemon {
 
     private final TaskScheduleApplicationService taskScheduleApplicationService;
+    private final boolean eventDriven;
+    private final long fullSweepIntervalMs;
+    private final DaemonLeaderElector daemonLeaderElector;
+    private final AtomicBoolean roundRunning;
+    private final AtomicBoolean followUpRequested;
+    private volatile long nextFullSweepAtMillis;
+
+    public TaskSchedulerDaemon(TaskScheduleApplicationService taskScheduleApplicationService,
+                               String promotionMode,
+                               long fullSweepIntervalMs) {
+        this(taskScheduleApplicationService, promotionMode, fullSweepIntervalMs, null);
+    }
 
-    public TaskSchedulerDaemon(TaskScheduleApplicationService taskScheduleApplicationService) {
+    @Autowired
+    public TaskSchedulerDaemon(TaskScheduleApplicationService taskScheduleApplicationService,
+                               @Value("${scheduler.promotion.mode:full-scan}") String promotionMode,
+                               @Value("${scheduler.promotion.full-sweep-interval-ms:30000}") long fullSweepIntervalMs,
+                               @Autowired(required = false) DaemonLeaderElector daemonLeaderElector) {
         this.taskScheduleApplicationService = taskScheduleApplicationService;
+        this.daemonLeaderElector = daemonLeaderElector;
+        this.eventDriven = !"full-scan".equalsIgnoreCase(promotionMode == null ? "" : promotionMode.trim());
+        this.fullSweepIntervalMs = Math.max(fullSweepIntervalMs, 0L);
+        this.roundRunning = new AtomicBoolean(false);
+        this.followUpRequested = new AtomicBoolean(false);
+        this.nextFullSweepAtMillis = 0L;
+    }
+
+    /**
+     * full-scan 模式下每轮都是全量扫描，推送唤醒不再追加轮次，只靠定时轮询。
+     */
+    public boolean isEventDriven() {
+        return eventDriven;
     }
 
     @Scheduled(fixedDelayString = "${scheduler.poll-interval-ms:1000}", scheduler = "daemonScheduler")
     public void promotePendingTasks() {
-        TaskScheduleApplicationService.ScheduleResult result =
-                taskScheduleApplicationService.schedulePendingTasks();
+        followUpRequested.set(true);
+        while (followUpRequested.get() && roundRunning.compareAndSet(false, true)) {
+            try {
+                while (followUpRequested.getAndSet(false)) {
+                    runRound();
+                }
+            } finally {
+                roundRunning.set(false);
+            }
+        }
+    }
+
+    private void runRound() {
+        TaskScheduleApplicationService.ScheduleResult result;
+        long now = System.currentTimeMillis();
+        boolean leader = daemonLeaderElector == null || daemonLeaderElector.isLeader(DaemonLeaderElector.TASK_SCHEDULER);
+        if (!eventDriven && !leader) {
+            return;
+        }
+        if (leader && (!eventDriven || now >= nextFullSweepAtMillis)) {
+            nextFullSweepAtMillis = now + fullSweepIntervalMs;
+            result = taskScheduleApplicationService.schedulePendingTasks();
+        } else {
+            result = taskScheduleApplicationService.scheduleChangedTasks();
+        }
         if (result.pendingCount() <= 0) {
             return;
         }
@@ -0,0 +1,114 @@
+package com.getoffer.trigger.listener;
+
+import com.getoffer.trigger.event.TaskClaimWakeupNotifier;
+import com.getoffer.trigger.job.TaskExecutor;
+import com.getoffer.trigger.job.TaskSchedulerDaemon;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 推送式 claim 唤醒：
+ * 1) TASK_READY -> 在 taskExecutorScheduler 上追加一轮 claim（与定时兜底轮询串行）；
+ * 2) PLAN_CREATED / 任务终态 -> 在 daemonScheduler 上追加一轮依赖推进（仅 event-driven 推进模式）；
+ * 3) coalesce 窗口内的突发信号只触发一轮，避免放大 claim 查询。
+ */
+@Slf4j
+@Component
+public class TaskClaimWakeupListener {
+
+    private final TaskClaimWakeupNotifier wakeupNotifier;
+    private final TaskExecutor taskExecutor;
+    private final TaskSchedulerDaemon taskSchedulerDaemon;
+    private final TaskScheduler taskExecutorScheduler;
+    private final TaskScheduler daemonScheduler;
+    private final boolean enabled;
+    private final long coalesceMillis;
+    private final AtomicBoolean claimWakeupPending;
+    private final AtomicBoolean scheduleWakeupPending;
+    private final Counter claimWakeupCounter;
+    private final Counter scheduleWakeupCounter;
+    private final Counter terminalWakeupCounter;
+    private final Counter coalescedCounter;
+
+    public TaskClaimWakeupListener(TaskClaimWakeupNotifier wakeupNotifier,
+                                   TaskExecutor taskExecutor,
+                                   TaskSchedulerDaemon taskSchedulerDaemon,
+                                   @Qualifier("taskExecutorScheduler") TaskScheduler taskExecutorScheduler,
+                                   @Qualifier("daemonScheduler") TaskScheduler daemonScheduler,
+                                   ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                   @Value("${executor.claim.wakeup.enabled:true}") boolean enabled,
+                                   @Value("${executor.claim.wakeup.coalesce-ms:50}") long coalesceMillis) {
+        this.wakeupNotifier = wakeupNotifier;
+        this.taskExecutor = taskExecutor;
+        this.taskSchedulerDaemon = taskSchedulerDaemon;
+        this.taskExecutorScheduler = taskExecutorScheduler;
+        this.daemonScheduler = daemonScheduler;
+        this.enabled = enabled;
+        this.coalesceMillis = Math.max(coalesceMillis, 0L);
+        this.claimWakeupPending = new AtomicBoolean(false);
+        this.scheduleWakeupPending = new AtomicBoolean(false);
+        MeterRegistry meterRegistry = meterRegistryProvider == null
+                ? new SimpleMeterRegistry()
+                : meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        this.claimWakeupCounter = Counter.builder("agent.task.claim.wakeup.total")
+                .tag("kind", "task_ready")
+                .register(meterRegistry);
+        this.scheduleWakeupCounter = Counter.builder("agent.task.claim.wakeup.total")
+                .tag("kind", "plan_created")
+                .register(meterRegistry);
+        this.terminalWakeupCounter = Counter.builder("agent.task.claim.wakeup.total")
+                .tag("kind", "task_terminal")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("agent.task.claim.wakeup.coalesced.total").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void register() {
+        if (!enabled) {
+            log.info("Task claim wakeup disabled, falling back to fixed-delay polling only.");
+            return;
+        }
+        wakeupNotifier.addListener(TaskClaimWakeupNotifier.WakeupKind.TASK_READY, planId -> onTasksReady());
+        if (!taskSchedulerDaemon.isEventDriven()) {
+            return;
+        }
+        wakeupNotifier.addListener(TaskClaimWakeupNotifier.WakeupKind.PLAN_CREATED,
+                planId -> requestSchedule(scheduleWakeupCounter));
+        wakeupNotifier.addTaskTerminalListener((planId, nodeId) -> requestSchedule(terminalWakeupCounter));
+    }
+
+    private void onTasksReady() {
+        if (!claimWakeupPending.compareAndSet(false, true)) {
+            coalescedCounter.increment();
+            return;
+        }
+        claimWakeupCounter.increment();
+        taskExecutorScheduler.schedule(() -> {
+            claimWakeupPending.set(false);
+            taskExecutor.executeReadyTasks();
+        }, Instant.now().plusMillis(coalesceMillis));
+    }
+
+    private void requestSchedule(Counter wakeupCounter) {
+        if (!scheduleWakeupPending.compareAndSet(false, true)) {
+            coalescedCounter.increment();
+            return;
+        }
+        wakeupCounter.increment();
+        daemonScheduler.schedule(() -> {
+            scheduleWakeupPending.set(false);
+            taskSchedulerDaemon.promotePendingTasks();
+        }, Instant.now().plusMillis(coalesceMillis));
+    }
+}
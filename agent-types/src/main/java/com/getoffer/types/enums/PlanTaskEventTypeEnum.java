@@ -8,6 +8,10 @@ public enum PlanTaskEventTypeEnum {
     TASK_STARTED("TaskStarted"),
     TASK_COMPLETED("TaskCompleted"),
     TASK_LOG("TaskLog"),
+    /**
+     * 任务增量输出（模型流式分片合并后推送），仅进程内分发，不落库。
+     */
+    TASK_DELTA("TaskDelta"),
     PLAN_FINISHED("PlanFinished");
 
     private final String eventName;
@@ -82,6 +82,7 @@ CREATE TABLE IF NOT EXISTS session_turns (
 
 CREATE INDEX IF NOT EXISTS idx_session_turns_session ON session_turns(session_id, id DESC);
 CREATE INDEX IF NOT EXISTS idx_session_turns_status ON session_turns(status);
+CREATE INDEX IF NOT EXISTS idx_session_turns_planning_id ON session_turns(id) WHERE status = 'PLANNING';
 CREATE UNIQUE INDEX IF NOT EXISTS uq_session_turns_plan_not_null ON session_turns(plan_id) WHERE plan_id IS NOT NULL;
 CREATE UNIQUE INDEX IF NOT EXISTS uq_session_turns_session_client_message
     ON session_turns(session_id, client_message_id)
@@ -246,12 +247,24 @@ ALTER TABLE agent_plans
 
 CREATE INDEX IF NOT EXISTS idx_plans_session_id ON agent_plans(session_id);
 CREATE INDEX IF NOT EXISTS idx_plans_status_priority ON agent_plans(status, priority DESC);
+-- 状态同步守护按 status + id 游标扫描 plan；status 为绑定参数，使用普通索引保证泛型执行计划可用
+CREATE INDEX IF NOT EXISTS idx_plans_scan_status_id ON agent_plans(status, id);
 CREATE INDEX IF NOT EXISTS idx_plans_route_decision_id ON agent_plans(route_decision_id);
 CREATE INDEX IF NOT EXISTS idx_plans_workflow_definition_id ON agent_plans(workflow_definition_id);
 CREATE INDEX IF NOT EXISTS idx_plans_workflow_draft_id ON agent_plans(workflow_draft_id);
 
 COMMENT ON TABLE agent_plans IS 'Agent 执行计划表：存储任务执行计划和状态';
 
+-- Plan 状态脏标记：任务状态推进时登记，状态同步守护按标记只收敛变化的 plan（任一实例可领取）
+CREATE TABLE IF NOT EXISTS plan_status_dirty (
+    plan_id             BIGINT PRIMARY KEY, -- 逻辑关联: agent_plans.id
+    marked_at           TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_plan_status_dirty_marked_at ON plan_status_dirty(marked_at);
+
+COMMENT ON TABLE plan_status_dirty IS 'Plan 状态脏标记表：待状态同步收敛的 plan 队列';
+
 -- =====================================================
 -- 6. Agent 任务表
 -- =====================================================
@@ -280,10 +293,13 @@ CREATE TABLE IF NOT EXISTS agent_tasks (
 
     max_retries         INTEGER DEFAULT 3,
     current_retry       INTEGER DEFAULT 0,
+    critical_path_ms    BIGINT NOT NULL DEFAULT 0, -- 剩余关键路径预估耗时，同 plan 内 claim 优先级
     claim_owner         VARCHAR(128),
     claim_at            TIMESTAMP WITH TIME ZONE,
     lease_until         TIMESTAMP WITH TIME ZONE,
     execution_attempt   INTEGER NOT NULL DEFAULT 0,
+    dispatch_after      TIMESTAMP WITH TIME ZONE, -- 模型限流退避：此时间之前不再 claim
+    throttle_defer_count INTEGER NOT NULL DEFAULT 0, -- 限流退避归还次数（计入 execution_attempt，不算重试）
 
     version             INTEGER DEFAULT 0, -- 乐观锁
     created_at          TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
@@ -297,9 +313,98 @@ CREATE INDEX IF NOT EXISTS idx_tasks_plan_id ON agent_tasks(plan_id);
 CREATE INDEX IF NOT EXISTS idx_tasks_scheduling ON agent_tasks(plan_id, status);
 CREATE INDEX IF NOT EXISTS idx_tasks_claim_scan ON agent_tasks(status, lease_until, plan_id, created_at);
 CREATE INDEX IF NOT EXISTS idx_tasks_claim_owner_lease ON agent_tasks(claim_owner, lease_until);
+CREATE INDEX IF NOT EXISTS idx_tasks_pending_plan ON agent_tasks(plan_id, created_at) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_tasks_dispatch_critical_path ON agent_tasks(plan_id, critical_path_ms DESC, created_at) WHERE status IN ('READY', 'REFINING');
 
 COMMENT ON TABLE agent_tasks IS 'Agent 任务表：存储计划中的具体任务及执行状态';
 
+CREATE TABLE IF NOT EXISTS plan_task_counters (
+    plan_id             BIGINT NOT NULL, -- 逻辑关联: agent_plans.id
+    status              task_status_enum NOT NULL,
+    task_count          BIGINT NOT NULL DEFAULT 0,
+    updated_at          TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (plan_id, status)
+);
+
+COMMENT ON TABLE plan_task_counters IS 'Plan 任务状态计数表：由 agent_tasks 触发器在同一事务内维护';
+
+-- 已结束（或已删除）plan 的计数由归档任务从 plan_task_counters 移入此表，计数表只保留活跃 plan；
+-- 全局按状态统计 = 活跃 plan 计数 + 归档计数。归档后 plan 的任务再变化时，增量重新写入 plan_task_counters，下一轮归档继续合并。
+CREATE TABLE IF NOT EXISTS task_status_archive_counters (
+    status              task_status_enum PRIMARY KEY,
+    task_count          BIGINT NOT NULL DEFAULT 0,
+    updated_at          TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE task_status_archive_counters IS '已归档 plan 的任务状态计数：按状态累计，供 dashboard 全局统计';
+
+-- 三类触发器均为语句级：按 (plan_id, status) 汇总整条语句的增量后一次写入，并按主键顺序加锁，
+-- 跨 plan 的 claim 与集合式推进 / 跳过语句不会因加锁顺序相反而死锁；计数行只在语句末尾加锁，不在逐行处理中途持有。
+-- UPDATE 的转换表不能与列清单（UPDATE OF）同用，因此按 id 关联新旧行、只统计 status / plan_id 发生变化的行，
+-- lease 续约、输出写入等更新汇总后没有增量，不写计数表。TRUNCATE 不触发，需要时重新回填。
+CREATE OR REPLACE FUNCTION apply_plan_task_counter_delta() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO plan_task_counters (plan_id, status, task_count)
+        SELECT plan_id, status, COUNT(*)
+        FROM new_tasks
+        GROUP BY plan_id, status
+        ORDER BY plan_id, status
+        ON CONFLICT (plan_id, status) DO UPDATE
+            SET task_count = plan_task_counters.task_count + EXCLUDED.task_count,
+                updated_at = CURRENT_TIMESTAMP;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO plan_task_counters (plan_id, status, task_count)
+        SELECT plan_id, status, -COUNT(*)
+        FROM old_tasks
+        GROUP BY plan_id, status
+        ORDER BY plan_id, status
+        ON CONFLICT (plan_id, status) DO UPDATE
+            SET task_count = plan_task_counters.task_count + EXCLUDED.task_count,
+                updated_at = CURRENT_TIMESTAMP;
+    ELSE
+        INSERT INTO plan_task_counters (plan_id, status, task_count)
+        SELECT d.plan_id, d.status, SUM(d.delta)
+        FROM (
+            SELECT o.plan_id, o.status, -1::BIGINT AS delta
+            FROM old_tasks o
+            JOIN new_tasks n ON n.id = o.id
+            WHERE o.status IS DISTINCT FROM n.status OR o.plan_id IS DISTINCT FROM n.plan_id
+            UNION ALL
+            SELECT n.plan_id, n.status, 1::BIGINT AS delta
+            FROM old_tasks o
+            JOIN new_tasks n ON n.id = o.id
+            WHERE o.status IS DISTINCT FROM n.status OR o.plan_id IS DISTINCT FROM n.plan_id
+        ) AS d
+        GROUP BY d.plan_id, d.status
+        HAVING SUM(d.delta) <> 0
+        ORDER BY d.plan_id, d.status
+        ON CONFLICT (plan_id, status) DO UPDATE
+            SET task_count = plan_task_counters.task_count + EXCLUDED.task_count,
+                updated_at = CURRENT_TIMESTAMP;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_agent_tasks_counters_insert ON agent_tasks;
+CREATE TRIGGER trg_agent_tasks_counters_insert
+    AFTER INSERT ON agent_tasks
+    REFERENCING NEW TABLE AS new_tasks
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_plan_task_counter_delta();
+
+DROP TRIGGER IF EXISTS trg_agent_tasks_counters_update ON agent_tasks;
+CREATE TRIGGER trg_agent_tasks_counters_update
+    AFTER UPDATE ON agent_tasks
+    REFERENCING OLD TABLE AS old_tasks NEW TABLE AS new_tasks
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_plan_task_counter_delta();
+
+DROP TRIGGER IF EXISTS trg_agent_tasks_counters_delete ON agent_tasks;
+CREATE TRIGGER trg_agent_tasks_counters_delete
+    AFTER DELETE ON agent_tasks
+    REFERENCING OLD TABLE AS old_tasks
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_plan_task_counter_delta();
+
 -- =====================================================
 -- 7. 任务执行记录表
 -- =====================================================
@@ -329,6 +434,7 @@ CREATE TABLE IF NOT EXISTS task_executions (
 CREATE INDEX IF NOT EXISTS idx_executions_task_id ON task_executions(task_id);
 CREATE INDEX IF NOT EXISTS idx_executions_lookup ON task_executions(task_id, attempt_number DESC);
 CREATE UNIQUE INDEX IF NOT EXISTS uq_task_executions_task_attempt ON task_executions(task_id, attempt_number);
+CREATE INDEX IF NOT EXISTS idx_executions_created_at ON task_executions(created_at);
 
 COMMENT ON TABLE task_executions IS '任务执行记录表：存储每次执行的详细历史';
 
@@ -501,6 +607,21 @@ CREATE TABLE IF NOT EXISTS vector_store_registry (
 
 COMMENT ON TABLE vector_store_registry IS '向量存储注册表：管理 RAG 功能的向量数据库配置';
 
+-- =====================================================
+-- 14. 执行实例成员表
+-- =====================================================
+CREATE TABLE IF NOT EXISTS executor_members (
+    instance_id         VARCHAR(128) PRIMARY KEY,
+    worker_capacity     INTEGER NOT NULL DEFAULT 0,
+    inflight_count      INTEGER NOT NULL DEFAULT 0,
+    started_at          TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    heartbeat_at        TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_executor_members_heartbeat_at ON executor_members(heartbeat_at);
+
+COMMENT ON TABLE executor_members IS '执行实例成员表：实例心跳、容量与 in-flight 视图，用于 plan 亲和分片、work stealing 与失联实例 lease 回收';
+
 -- =====================================================
 -- 初始化数据
 -- =====================================================
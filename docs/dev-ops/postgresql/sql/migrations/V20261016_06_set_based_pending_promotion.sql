@@ -0,0 +1,16 @@
+-- 集合式 PENDING 任务推进增量迁移脚本
+-- 目标：
+-- 1) 依赖推进只扫描 PENDING 任务，补齐部分索引，避免随已完成任务增长而变慢
+-- 2) 依赖节点状态查找复用 uq_plan_node(plan_id, node_id)，无需新增索引
+
+BEGIN;
+
+CREATE INDEX IF NOT EXISTS idx_tasks_pending_plan
+    ON agent_tasks(plan_id, created_at)
+    WHERE status = 'PENDING';
+
+COMMIT;
+
+-- 校验 SQL：
+-- EXPLAIN
+-- SELECT id FROM agent_tasks WHERE status = 'PENDING'::task_status_enum ORDER BY created_at;
@@ -0,0 +1,7 @@
+-- 集合式 PENDING 任务推进回滚脚本
+
+BEGIN;
+
+DROP INDEX IF EXISTS idx_tasks_pending_plan;
+
+COMMIT;
@@ -0,0 +1,23 @@
+-- 任务关键路径优先级增量迁移脚本
+-- 目标：
+-- 1) agent_tasks 增加 critical_path_ms：物化时按历史耗时计算的剩余关键路径，同 plan 内 claim 越大越优先
+-- 2) READY / REFINING 任务按 (plan_id, critical_path_ms DESC, created_at) 排序时可走部分索引
+-- 3) 按时间窗口统计历史执行耗时时避免全表扫描 task_executions
+-- 存量任务 critical_path_ms 为 0，排序退化为原有的 created_at 顺序
+
+BEGIN;
+
+ALTER TABLE agent_tasks
+    ADD COLUMN IF NOT EXISTS critical_path_ms BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_tasks_dispatch_critical_path
+    ON agent_tasks(plan_id, critical_path_ms DESC, created_at)
+    WHERE status IN ('READY', 'REFINING');
+
+CREATE INDEX IF NOT EXISTS idx_executions_created_at
+    ON task_executions(created_at);
+
+COMMIT;
+
+-- 校验 SQL：
+-- SELECT plan_id, node_id, critical_path_ms FROM agent_tasks WHERE plan_id = ? ORDER BY critical_path_ms DESC;
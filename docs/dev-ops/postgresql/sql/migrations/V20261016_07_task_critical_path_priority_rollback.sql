@@ -0,0 +1,11 @@
+-- 任务关键路径优先级回滚脚本
+
+BEGIN;
+
+DROP INDEX IF EXISTS idx_executions_created_at;
+DROP INDEX IF EXISTS idx_tasks_dispatch_critical_path;
+
+ALTER TABLE agent_tasks
+    DROP COLUMN IF EXISTS critical_path_ms;
+
+COMMIT;
@@ -0,0 +1,21 @@
+-- Plan 状态脏标记增量迁移脚本
+-- 目标：
+-- 1) 新增 plan_status_dirty：任务被领取、进入终态或被跳过时登记所属 plan，状态同步守护每轮只领取脏 plan 收敛
+-- 2) 领取使用 DELETE ... FOR UPDATE SKIP LOCKED，多实例之间互不重复
+-- 全量扫描保留为低频兜底（plan-status.full-sweep-interval-ms），领取后实例崩溃丢失的标记由兜底覆盖
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS plan_status_dirty (
+    plan_id             BIGINT PRIMARY KEY, -- 逻辑关联: agent_plans.id
+    marked_at           TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_plan_status_dirty_marked_at ON plan_status_dirty(marked_at);
+
+COMMENT ON TABLE plan_status_dirty IS 'Plan 状态脏标记表：待状态同步收敛的 plan 队列';
+
+COMMIT;
+
+-- 校验 SQL：
+-- SELECT COUNT(*), MIN(marked_at) FROM plan_status_dirty;
@@ -0,0 +1,8 @@
+-- Plan 状态脏标记回滚脚本
+
+BEGIN;
+
+DROP INDEX IF EXISTS idx_plan_status_dirty_marked_at;
+DROP TABLE IF EXISTS plan_status_dirty;
+
+COMMIT;
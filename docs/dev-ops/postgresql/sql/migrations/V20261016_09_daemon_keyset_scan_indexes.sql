@@ -0,0 +1,18 @@
+-- 守护进程 keyset 扫描索引增量迁移脚本
+-- 目标：
+-- 1) 状态同步守护由 OFFSET 分页改为 id 游标分页（status = ? AND id > ? ORDER BY id LIMIT ?）
+-- 2) 新增 idx_plans_scan_status_id(status, id)：不用部分索引，status 以绑定参数传入时泛型执行计划也能命中
+-- 3) 新增 idx_session_turns_planning_id：规划超时恢复按 id 游标扫描 PLANNING 回合
+-- 大表上线可改为 CREATE INDEX CONCURRENTLY（需在事务外逐条执行）
+
+BEGIN;
+
+CREATE INDEX IF NOT EXISTS idx_plans_scan_status_id ON agent_plans(status, id);
+
+CREATE INDEX IF NOT EXISTS idx_session_turns_planning_id ON session_turns(id) WHERE status = 'PLANNING';
+
+COMMIT;
+
+-- 校验 SQL：
+-- EXPLAIN SELECT id FROM agent_plans WHERE status = 'RUNNING' AND id > 0 ORDER BY id LIMIT 200;
+-- EXPLAIN SELECT id FROM session_turns WHERE status = 'PLANNING' AND id > 0 ORDER BY id LIMIT 100;
@@ -0,0 +1,8 @@
+-- 守护进程 keyset 扫描索引回滚脚本
+
+BEGIN;
+
+DROP INDEX IF EXISTS idx_session_turns_planning_id;
+DROP INDEX IF EXISTS idx_plans_scan_status_id;
+
+COMMIT;
@@ -0,0 +1,119 @@
+-- Plan 任务状态计数增量迁移脚本
+-- 目标：
+-- 1) 新增 plan_task_counters：按 (plan_id, status) 物化任务数量
+-- 2) agent_tasks 上的 INSERT / UPDATE / DELETE 语句级触发器在同一事务内维护计数，按主键顺序写入
+-- 3) 新增 task_status_archive_counters：已结束 plan 的计数由归档任务移入，计数表只保留活跃 plan
+-- 4) 按现有任务回填计数；Plan 状态推进与 dashboard 改为读取计数，不再聚合任务表
+-- 回填期间对 agent_tasks 加 SHARE 锁，阻塞并发写入，避免回填与触发器增量重复计数
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS plan_task_counters (
+    plan_id             BIGINT NOT NULL, -- 逻辑关联: agent_plans.id
+    status              task_status_enum NOT NULL,
+    task_count          BIGINT NOT NULL DEFAULT 0,
+    updated_at          TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (plan_id, status)
+);
+
+COMMENT ON TABLE plan_task_counters IS 'Plan 任务状态计数表：由 agent_tasks 触发器在同一事务内维护';
+
+-- 已结束（或已删除）plan 的计数由归档任务从 plan_task_counters 移入此表，计数表只保留活跃 plan；
+-- 全局按状态统计 = 活跃 plan 计数 + 归档计数。归档后 plan 的任务再变化时，增量重新写入 plan_task_counters，下一轮归档继续合并。
+CREATE TABLE IF NOT EXISTS task_status_archive_counters (
+    status              task_status_enum PRIMARY KEY,
+    task_count          BIGINT NOT NULL DEFAULT 0,
+    updated_at          TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE task_status_archive_counters IS '已归档 plan 的任务状态计数：按状态累计，供 dashboard 全局统计';
+
+-- 三类触发器均为语句级：按 (plan_id, status) 汇总整条语句的增量后一次写入，并按主键顺序加锁，
+-- 跨 plan 的 claim 与集合式推进 / 跳过语句不会因加锁顺序相反而死锁；计数行只在语句末尾加锁，不在逐行处理中途持有。
+-- UPDATE 的转换表不能与列清单（UPDATE OF）同用，因此按 id 关联新旧行、只统计 status / plan_id 发生变化的行，
+-- lease 续约、输出写入等更新汇总后没有增量，不写计数表。TRUNCATE 不触发，需要时重新回填。
+CREATE OR REPLACE FUNCTION apply_plan_task_counter_delta() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO plan_task_counters (plan_id, status, task_count)
+        SELECT plan_id, status, COUNT(*)
+        FROM new_tasks
+        GROUP BY plan_id, status
+        ORDER BY plan_id, status
+        ON CONFLICT (plan_id, status) DO UPDATE
+            SET task_count = plan_task_counters.task_count + EXCLUDED.task_count,
+                updated_at = CURRENT_TIMESTAMP;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO plan_task_counters (plan_id, status, task_count)
+        SELECT plan_id, status, -COUNT(*)
+        FROM old_tasks
+        GROUP BY plan_id, status
+        ORDER BY plan_id, status
+        ON CONFLICT (plan_id, status) DO UPDATE
+            SET task_count = plan_task_counters.task_count + EXCLUDED.task_count,
+                updated_at = CURRENT_TIMESTAMP;
+    ELSE
+        INSERT INTO plan_task_counters (plan_id, status, task_count)
+        SELECT d.plan_id, d.status, SUM(d.delta)
+        FROM (
+            SELECT o.plan_id, o.status, -1::BIGINT AS delta
+            FROM old_tasks o
+            JOIN new_tasks n ON n.id = o.id
+            WHERE o.status IS DISTINCT FROM n.status OR o.plan_id IS DISTINCT FROM n.plan_id
+            UNION ALL
+            SELECT n.plan_id, n.status, 1::BIGINT AS delta
+            FROM old_tasks o
+            JOIN new_tasks n ON n.id = o.id
+            WHERE o.status IS DISTINCT FROM n.status OR o.plan_id IS DISTINCT FROM n.plan_id
+        ) AS d
+        GROUP BY d.plan_id, d.status
+        HAVING SUM(d.delta) <> 0
+        ORDER BY d.plan_id, d.status
+        ON CONFLICT (plan_id, status) DO UPDATE
+            SET task_count = plan_task_counters.task_count + EXCLUDED.task_count,
+                updated_at = CURRENT_TIMESTAMP;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_agent_tasks_counters_insert ON agent_tasks;
+CREATE TRIGGER trg_agent_tasks_counters_insert
+    AFTER INSERT ON agent_tasks
+    REFERENCING NEW TABLE AS new_tasks
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_plan_task_counter_delta();
+
+DROP TRIGGER IF EXISTS trg_agent_tasks_counters_update ON agent_tasks;
+CREATE TRIGGER trg_agent_tasks_counters_update
+    AFTER UPDATE ON agent_tasks
+    REFERENCING OLD TABLE AS old_tasks NEW TABLE AS new_tasks
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_plan_task_counter_delta();
+
+DROP TRIGGER IF EXISTS trg_agent_tasks_counters_delete ON agent_tasks;
+CREATE TRIGGER trg_agent_tasks_counters_delete
+    AFTER DELETE ON agent_tasks
+    REFERENCING OLD TABLE AS old_tasks
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_plan_task_counter_delta();
+
+LOCK TABLE agent_tasks IN SHARE MODE;
+
+DELETE FROM plan_task_counters;
+DELETE FROM task_status_archive_counters;
+
+INSERT INTO plan_task_counters (plan_id, status, task_count)
+SELECT plan_id, status, COUNT(*)
+FROM agent_tasks
+GROUP BY plan_id, status;
+
+COMMIT;
+
+-- 校验 SQL（结果应为空）：
+-- SELECT t.status, t.cnt, c.total
+-- FROM (SELECT status, COUNT(*) AS cnt FROM agent_tasks GROUP BY status) t
+-- FULL JOIN (
+--     SELECT status, SUM(task_count) AS total
+--     FROM (SELECT status, task_count FROM plan_task_counters
+--           UNION ALL SELECT status, task_count FROM task_status_archive_counters) AS u
+--     GROUP BY status
+-- ) c ON c.status = t.status
+-- WHERE COALESCE(t.cnt, 0) <> COALESCE(c.total, 0);
@@ -0,0 +1,12 @@
+-- Plan 任务状态计数回滚脚本
+
+BEGIN;
+
+DROP TRIGGER IF EXISTS trg_agent_tasks_counters_delete ON agent_tasks;
+DROP TRIGGER IF EXISTS trg_agent_tasks_counters_update ON agent_tasks;
+DROP TRIGGER IF EXISTS trg_agent_tasks_counters_insert ON agent_tasks;
+DROP FUNCTION IF EXISTS apply_plan_task_counter_delta();
+DROP TABLE IF EXISTS task_status_archive_counters;
+DROP TABLE IF EXISTS plan_task_counters;
+
+COMMIT;
@@ -0,0 +1,23 @@
+-- 执行实例成员表增量迁移脚本
+-- 目标：
+-- 1) 新增 executor_members：每个执行实例按心跳 upsert 一行，heartbeat_at 在 TTL 内视为存活
+-- 2) plan 亲和模式下各实例读取存活成员，按一致性哈希把 plan 槽位分配到实例，成员加入 / 离开时重新分配
+-- 3) 心跳时间统一取数据库 CURRENT_TIMESTAMP，避免实例间时钟偏差影响存活判定
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS executor_members (
+    instance_id         VARCHAR(128) PRIMARY KEY,
+    started_at          TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    heartbeat_at        TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_executor_members_heartbeat_at ON executor_members(heartbeat_at);
+
+COMMENT ON TABLE executor_members IS '执行实例成员表：实例心跳与存活视图，用于 plan 亲和分片';
+
+COMMIT;
+
+-- 校验 SQL：
+-- SELECT instance_id, started_at, heartbeat_at FROM executor_members
+-- WHERE heartbeat_at >= CURRENT_TIMESTAMP - INTERVAL '15 seconds' ORDER BY instance_id;
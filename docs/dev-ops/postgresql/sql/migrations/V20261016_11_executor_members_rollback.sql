@@ -0,0 +1,8 @@
+-- 执行实例成员表回滚脚本
+
+BEGIN;
+
+DROP INDEX IF EXISTS idx_executor_members_heartbeat_at;
+DROP TABLE IF EXISTS executor_members;
+
+COMMIT;
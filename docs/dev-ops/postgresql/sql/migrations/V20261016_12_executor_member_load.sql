@@ -0,0 +1,19 @@
+-- 执行实例成员负载列增量迁移脚本
+-- 目标：
+-- 1) executor_members 新增 worker_capacity / inflight_count：实例心跳时上报容量与当前 in-flight 数
+-- 2) 空闲实例据此识别过载实例，优先 steal 其正在执行的 plan 的 READY 任务
+-- 3) 心跳超时的成员由存活实例原子删除（DELETE ... RETURNING），删除者立即让其 RUNNING 任务的 lease 过期，
+--    无需等待 lease_until 自然到期
+
+BEGIN;
+
+ALTER TABLE executor_members ADD COLUMN IF NOT EXISTS worker_capacity INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE executor_members ADD COLUMN IF NOT EXISTS inflight_count INTEGER NOT NULL DEFAULT 0;
+
+COMMENT ON TABLE executor_members IS '执行实例成员表：实例心跳、容量与 in-flight 视图，用于 plan 亲和分片、work stealing 与失联实例 lease 回收';
+
+COMMIT;
+
+-- 校验 SQL：
+-- SELECT instance_id, worker_capacity, inflight_count, heartbeat_at FROM executor_members ORDER BY instance_id;
+-- EXPLAIN SELECT DISTINCT plan_id FROM agent_tasks WHERE status = 'RUNNING' AND claim_owner IN ('host-a:1');
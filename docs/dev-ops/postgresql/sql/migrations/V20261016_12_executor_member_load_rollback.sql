@@ -0,0 +1,10 @@
+-- 执行实例成员负载列回滚脚本
+
+BEGIN;
+
+ALTER TABLE executor_members DROP COLUMN IF EXISTS inflight_count;
+ALTER TABLE executor_members DROP COLUMN IF EXISTS worker_capacity;
+
+COMMENT ON TABLE executor_members IS '执行实例成员表：实例心跳与存活视图，用于 plan 亲和分片';
+
+COMMIT;
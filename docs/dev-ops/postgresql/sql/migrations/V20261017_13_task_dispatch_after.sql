@@ -0,0 +1,19 @@
+-- 任务延迟派发时间增量迁移脚本
+-- 目标：
+-- 1) agent_tasks 新增 dispatch_after：模型被限流时 claim 以退避方式归还，在该时间之前不会被再次 claim
+-- 2) 归还不发 ready 唤醒，避免限流期间 claim -> 归还 -> claim 空转；execution_attempt 作为 fencing token 保持单调递增，
+--    退避次数单独记入 throttle_defer_count，不计入重试
+-- 3) 任意 claim 成功时清空 dispatch_after
+
+BEGIN;
+
+ALTER TABLE agent_tasks ADD COLUMN IF NOT EXISTS dispatch_after TIMESTAMP WITH TIME ZONE;
+ALTER TABLE agent_tasks ADD COLUMN IF NOT EXISTS throttle_defer_count INTEGER NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN agent_tasks.dispatch_after IS '最早可再次 claim 的时间（模型限流退避），为空表示立即可派发';
+COMMENT ON COLUMN agent_tasks.throttle_defer_count IS '模型限流退避归还次数，execution_attempt 减去该值即实际执行次数';
+
+COMMIT;
+
+-- 校验 SQL：
+-- SELECT id, status, dispatch_after, execution_attempt, throttle_defer_count FROM agent_tasks WHERE dispatch_after IS NOT NULL ORDER BY dispatch_after LIMIT 20;
@@ -0,0 +1,8 @@
+-- 任务延迟派发时间回滚脚本
+
+BEGIN;
+
+ALTER TABLE agent_tasks DROP COLUMN IF EXISTS throttle_defer_count;
+ALTER TABLE agent_tasks DROP COLUMN IF EXISTS dispatch_after;
+
+COMMIT;